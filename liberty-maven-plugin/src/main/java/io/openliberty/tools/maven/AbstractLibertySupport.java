@@ -16,9 +16,15 @@
 package io.openliberty.tools.maven;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.DefaultArtifact;
@@ -29,6 +35,7 @@ import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
@@ -40,13 +47,18 @@ import org.codehaus.mojo.pluginsupport.util.ArtifactItem;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.repository.RemoteRepository;
-import org.eclipse.aether.resolution.ArtifactRequest;
-import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.repository.RepositoryPolicy;
 import org.eclipse.aether.resolution.ArtifactResult;
 import org.eclipse.aether.resolution.VersionRangeRequest;
 import org.eclipse.aether.resolution.VersionRangeResolutionException;
 import org.eclipse.aether.resolution.VersionRangeResult;
 
+import io.openliberty.tools.maven.utils.ArtifactBatchResolver;
+import io.openliberty.tools.maven.utils.DependencyGraphIndex;
+import io.openliberty.tools.maven.utils.ReactorProjectIndex;
+import io.openliberty.tools.maven.utils.StartupTaskGraph;
+import io.openliberty.tools.maven.utils.VersionRangeCache;
+
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -93,6 +105,35 @@ public abstract class AbstractLibertySupport extends MojoSupport {
     @Parameter(defaultValue = "${maven.multiModuleProjectDirectory}", required = false, readonly = true)
     protected File multiModuleProjectDirectory = null;
 
+    /**
+     * The number of minutes that the highest version of a version range, such as the default
+     * runtime version range, is reused by later builds that use the same remote repositories.
+     * Versions installed in the local repository in the meantime are not picked up until then.
+     * The default of 0 resolves version ranges once per build.
+     */
+    @Parameter(property = "versionRangeCacheTtl", defaultValue = "0")
+    protected long versionRangeCacheTtl = 0;
+
+    private static final String VERSION_RANGE_CACHE_FILE = "liberty-version-ranges.properties";
+
+    private ArtifactBatchResolver artifactResolver;
+
+    private VersionRangeCache versionRangeCache;
+
+    private DependencyGraphIndex dependencyGraphIndex;
+
+    private final Set<MavenProject> filteredReactorProjects = Collections.newSetFromMap(new IdentityHashMap<MavenProject, Boolean>());
+
+    private static final ArtifactFilter COMPILE_RUNTIME_FILTER = new ArtifactFilter() {
+        @Override
+        public boolean include(Artifact artifact) {
+            if ("compile".equals(artifact.getScope()) || "runtime".equals(artifact.getScope())) {
+                return true;
+            }
+            return false;
+        }
+    };
+
     protected MavenProject getProject() {
         return project;
     }
@@ -101,42 +142,37 @@ public abstract class AbstractLibertySupport extends MojoSupport {
         return artifactRepository;
     }
     
+    /**
+     * @return the log of the dev mode startup step that runs in the current thread,
+     *         which prints the messages of the step once the step completes, or the
+     *         log of this mojo
+     */
+    @Override
+    public Log getLog() {
+        Log stepLog = StartupTaskGraph.getStepLog();
+        return stepLog != null ? stepLog : super.getLog();
+    }
+
     protected void init() throws MojoExecutionException, MojoFailureException {
         super.init();
+        log = getLog();
         // Initialize ant helper instance
         ant.setProject(getProject());
     }
     
     protected boolean isReactorMavenProject(Artifact artifact) {
-        for (MavenProject p : reactorProjects) {
-            if (p.getGroupId().equals(artifact.getGroupId()) && p.getArtifactId().equals(artifact.getArtifactId())
-                    && p.getVersion().equals(artifact.getBaseVersion())) {
-                return true;
-            }
-        }
-        return false;
+        return ReactorProjectIndex.get(repoSession, reactorProjects).getProject(artifact) != null;
     }
     
     protected MavenProject getReactorMavenProject(Artifact artifact) {
-        for (MavenProject p : reactorProjects) {
-            // Support loose configuration to all sub-module projects in the reactorProjects object. 
-            // Need to be able to retrieve all transitive dependencies in these projects.
-            if (p.getGroupId().equals(artifact.getGroupId()) && p.getArtifactId().equals(artifact.getArtifactId())
-                    && p.getVersion().equals(artifact.getBaseVersion())) {
-                p.setArtifactFilter(new ArtifactFilter() {
-                    @Override
-                    public boolean include(Artifact artifact) {
-                        if ("compile".equals(artifact.getScope()) || "runtime".equals(artifact.getScope())) {
-                            return true;
-                        }
-                        return false;
-                    }
-                });
-                return p;
-            }
+        MavenProject p = ReactorProjectIndex.get(repoSession, reactorProjects).getProject(artifact);
+        // Support loose configuration to all sub-module projects in the reactorProjects object. 
+        // Need to be able to retrieve all transitive dependencies in these projects.
+        // The filter is set once so that the project keeps its filtered artifacts.
+        if (p != null && filteredReactorProjects.add(p)) {
+            p.setArtifactFilter(COMPILE_RUNTIME_FILTER);
         }
-        
-        return null;
+        return p;
     }
     
     //
@@ -166,6 +202,89 @@ public abstract class AbstractLibertySupport extends MojoSupport {
 
          return artifact;
     }
+
+    /**
+     * Equivalent to calling {@link #getArtifact(ArtifactItem)} for each item, except that the
+     * artifacts that have to be resolved from the remote repositories are resolved concurrently.
+     *
+     * @param items  The items to create artifacts for; must not be null
+     * @return       The artifacts for the given items, in the same order
+     *
+     * @throws MojoExecutionException   Failed to create an artifact
+     */
+    protected List<Artifact> getArtifacts(final List<ArtifactItem> items) throws MojoExecutionException {
+        List<Artifact> artifacts = new ArrayList<Artifact>(items.size());
+        List<ArtifactItem> itemsToCreate = new ArrayList<ArtifactItem>();
+        for (ArtifactItem item : items) {
+            Artifact artifact = getProjectArtifact(item);
+            if (artifact == null) {
+                if (item.getVersion() == null) {
+                    throw new MojoExecutionException(
+                        "Unable to find artifact version of " + item.getGroupId() + ":" + item.getArtifactId()
+                                + " in either project dependencies or in project dependencyManagement.");
+                }
+                itemsToCreate.add(item);
+            }
+            artifacts.add(artifact);
+        }
+
+        Iterator<Artifact> createdArtifacts = createArtifacts(itemsToCreate).iterator();
+        for (int i = 0; i < artifacts.size(); i++) {
+            if (artifacts.get(i) == null) {
+                artifacts.set(i, createdArtifacts.next());
+            }
+        }
+        return artifacts;
+    }
+
+    /**
+     * Resolves a set of artifacts concurrently so that later requests for them do not wait on the
+     * remote repositories. Artifacts that cannot be resolved are ignored.
+     *
+     * @param items  The items to resolve; items without a version are ignored
+     */
+    protected void prefetchArtifacts(final List<ArtifactItem> items) {
+        List<org.eclipse.aether.artifact.Artifact> aetherArtifacts = new ArrayList<org.eclipse.aether.artifact.Artifact>();
+        for (ArtifactItem item : items) {
+            String version = item.getVersion();
+            if (version != null && !version.trim().startsWith("[") && !version.trim().startsWith("(")) {
+                aetherArtifacts.add(new org.eclipse.aether.artifact.DefaultArtifact(
+                        item.getGroupId(), item.getArtifactId(), item.getType(), version));
+            }
+        }
+        for (ArtifactResult result : getArtifactBatchResolver().resolve(aetherArtifacts)) {
+            if (!result.isResolved()) {
+                log.debug("Unable to prefetch artifact " + result.getRequest().getArtifact() + ": " + result.getExceptions());
+            }
+        }
+    }
+
+    /**
+     * Resolves the files of project artifacts that are not resolved yet. The artifacts are resolved
+     * concurrently and updated in place.
+     *
+     * @param artifacts  The project artifacts
+     *
+     * @throws MojoExecutionException   Failed to resolve an artifact
+     */
+    protected void resolveProjectArtifacts(final Collection<Artifact> artifacts) throws MojoExecutionException {
+        List<Artifact> unresolvedArtifacts = new ArrayList<Artifact>();
+        List<org.eclipse.aether.artifact.Artifact> aetherArtifacts = new ArrayList<org.eclipse.aether.artifact.Artifact>();
+        for (Artifact artifact : artifacts) {
+            if (!artifact.isResolved() || artifact.getFile() == null) {
+                unresolvedArtifacts.add(artifact);
+                aetherArtifacts.add(new org.eclipse.aether.artifact.DefaultArtifact(artifact.getGroupId(),
+                        artifact.getArtifactId(), artifact.getClassifier(), artifact.getArtifactHandler().getExtension(),
+                        artifact.getVersion()));
+            }
+        }
+
+        List<File> files = resolveArtifactFiles(aetherArtifacts);
+        for (int i = 0; i < unresolvedArtifacts.size(); i++) {
+            unresolvedArtifacts.get(i).setFile(files.get(i));
+            unresolvedArtifacts.get(i).setResolved(true);
+        }
+    }
     
     /**
      * Resolves the Artifact from the remote repository if necessary. If no version is specified, it will
@@ -180,31 +299,47 @@ public abstract class AbstractLibertySupport extends MojoSupport {
      */
     protected Artifact getResolvedArtifact(final ArtifactItem item) throws MojoExecutionException {
         assert item != null;
-        Artifact artifact = null;
+        Artifact artifact = getProjectArtifact(item);
+        
+        if (artifact == null && item.getVersion() != null) {
+            artifact = createArtifact(item);
+        }
         
+        return artifact;
+    }
+
+    /**
+     * Returns the resolved project dependency for an item without a version. Otherwise, if the item
+     * has no version, sets it from the project dependencies or from the DependencyManagement section
+     * of the pom so that the artifact can be created.
+     *
+     * @param item  The item to look up
+     * @return      The resolved project dependency, or null if an artifact has to be created
+     */
+    private Artifact getProjectArtifact(final ArtifactItem item) {
         if (item.getVersion() != null) {
             // if version is set in ArtifactItem, it will always override the one in project dependency
-            artifact = createArtifact(item);
+            return null;
+        }
+
+        // Return the artifact from the project dependency if it is available and the mojo
+        // should have requiresDependencyResolution=ResolutionScope.COMPILE_PLUS_RUNTIME set
+        Artifact artifact = resolveFromProjectDependencies(item);
+
+        if (artifact != null) {
+            if (artifact.isResolved()) {
+                return artifact;
+            }
+            // in case it is not resolved yet
+            item.setVersion(artifact.getVersion());
         } else {
-            // Return the artifact from the project dependency if it is available and the mojo
-            // should have requiresDependencyResolution=ResolutionScope.COMPILE_PLUS_RUNTIME set
-            artifact = resolveFromProjectDependencies(item);
-            
-            if (artifact != null) {
-                // in case it is not resolved yet
-                if (!artifact.isResolved()) {
-                    item.setVersion(artifact.getVersion());
-                    artifact = createArtifact(item);
-                }
-            } else if (resolveFromProjectDepMgmt(item) != null) {
-                // if item has no version set, try to get it from the project dependencyManagement section
-                // get version from dependencyManagement
-                item.setVersion(resolveFromProjectDepMgmt(item).getVersion());
-                artifact = createArtifact(item);
+            // if item has no version set, try to get it from the project dependencyManagement section
+            Dependency dependency = resolveFromProjectDepMgmt(item);
+            if (dependency != null) {
+                item.setVersion(dependency.getVersion());
             }
         }
-        
-        return artifact;
+        return null;
     }
 
     /**
@@ -333,37 +468,54 @@ public abstract class AbstractLibertySupport extends MojoSupport {
                 }
             }
         
-            for (Artifact projectArtifact : artifacts) {
+            List<Artifact> matchingArtifacts = new ArrayList<Artifact>();
+            List<ArtifactItem> unresolvedItems = new ArrayList<ArtifactItem>();
+            // only the artifacts with the groupId can match
+            for (Artifact projectArtifact : getDependencyGraphIndex(artifacts).getArtifacts(groupId)) {
                 if (isMatchingProjectDependency(projectArtifact, groupId, isWildcard, compareArtifactId, isClassifierWildcard, compareClassifier)) {
                     if (!projectArtifact.isResolved()) {
-                        ArtifactItem item = createArtifactItem(projectArtifact.getGroupId(), projectArtifact.getArtifactId(), projectArtifact.getType(), projectArtifact.getVersion(), projectArtifact.getClassifier());
-                        projectArtifact = getArtifact(item);
-                    }
-                    // Ignore test-scoped artifacts, by design
-                    if (!"test".equals(projectArtifact.getScope())) {
-                        log.debug("Found resolved dependency from project dependencies: " + projectArtifact.getGroupId() + ":"
-                            + projectArtifact.getArtifactId() + ":" + projectArtifact.getVersion());
-                        resolvedDependencies.add(projectArtifact);
-                        findTransitiveDependencies(projectArtifact, getProject().getArtifacts(), resolvedDependencies);
+                        unresolvedItems.add(createArtifactItem(projectArtifact.getGroupId(), projectArtifact.getArtifactId(), projectArtifact.getType(), projectArtifact.getVersion(), projectArtifact.getClassifier()));
+                    } else {
+                        matchingArtifacts.add(projectArtifact);
                     }
                 }
             }
+            // resolve the unresolved matches together
+            matchingArtifacts.addAll(getArtifacts(unresolvedItems));
+
+            for (Artifact projectArtifact : matchingArtifacts) {
+                // Ignore test-scoped artifacts, by design
+                if (!"test".equals(projectArtifact.getScope())) {
+                    log.debug("Found resolved dependency from project dependencies: " + projectArtifact.getGroupId() + ":"
+                        + projectArtifact.getArtifactId() + ":" + projectArtifact.getVersion());
+                    resolvedDependencies.add(projectArtifact);
+                    findTransitiveDependencies(projectArtifact, getProject().getArtifacts(), resolvedDependencies);
+                }
+            }
 
             if (resolvedDependencies.isEmpty() && getProject().getDependencyManagement() != null) {
                 // if project has dependencyManagement section
                 List<Dependency> list = getProject().getDependencyManagement().getDependencies();
+                List<Dependency> matchingDependencies = new ArrayList<Dependency>();
+                List<ArtifactItem> items = new ArrayList<ArtifactItem>();
             
                 for (Dependency dependency : list) {
                     if (isMatchingProjectDependency(dependency, groupId, isWildcard, compareArtifactId, isClassifierWildcard, compareClassifier)) {
-                        ArtifactItem item = createArtifactItem(dependency.getGroupId(), dependency.getArtifactId(), dependency.getType(), dependency.getVersion(), dependency.getClassifier());
-                        Artifact artifact = getArtifact(item);
-                        // Ignore test-scoped artifacts, by design
-                        if (!"test".equals(artifact.getScope())) {
-                            log.debug("Found resolved dependency from project dependencyManagement " + dependency.getGroupId() + ":"
-                            + dependency.getArtifactId() + ":" + dependency.getVersion());
-                            resolvedDependencies.add(artifact);
-                            findTransitiveDependencies(artifact, getProject().getArtifacts(), resolvedDependencies);
-                        }
+                        matchingDependencies.add(dependency);
+                        items.add(createArtifactItem(dependency.getGroupId(), dependency.getArtifactId(), dependency.getType(), dependency.getVersion(), dependency.getClassifier()));
+                    }
+                }
+                List<Artifact> managedArtifacts = getArtifacts(items);
+
+                for (int i = 0; i < matchingDependencies.size(); i++) {
+                    Dependency dependency = matchingDependencies.get(i);
+                    Artifact artifact = managedArtifacts.get(i);
+                    // Ignore test-scoped artifacts, by design
+                    if (!"test".equals(artifact.getScope())) {
+                        log.debug("Found resolved dependency from project dependencyManagement " + dependency.getGroupId() + ":"
+                        + dependency.getArtifactId() + ":" + dependency.getVersion());
+                        resolvedDependencies.add(artifact);
+                        findTransitiveDependencies(artifact, getProject().getArtifacts(), resolvedDependencies);
                     }
                 }
             }
@@ -455,20 +607,33 @@ public abstract class AbstractLibertySupport extends MojoSupport {
 
     protected void findTransitiveDependencies(Artifact resolvedArtifact, Set<Artifact> resolvedArtifacts, Set<Artifact> resolvedDependencies) {
         boolean isProvidedScopeAllowed = resolvedArtifact.getScope().equals(Artifact.SCOPE_PROVIDED);
-        String coords = resolvedArtifact.getGroupId() + ":" + resolvedArtifact.getArtifactId() + ":";
-        for (Artifact artifact : resolvedArtifacts) {
+        // the artifacts with the resolvedArtifact in their dependency trail
+        Set<Artifact> descendants = getDependencyGraphIndex(resolvedArtifacts).getDescendants(resolvedArtifact.getGroupId(),
+                resolvedArtifact.getArtifactId(), resolvedArtifact.getVersion());
+        for (Artifact artifact : descendants) {
             // Do not copy transitive dependencies with SCOPE_PROVIDED unless the resolvedArtifact is SCOPE_PROVIDED.
             boolean isProvidedScope = artifact.getScope().equals(Artifact.SCOPE_PROVIDED);
             if (!artifact.equals(resolvedArtifact) && (!isProvidedScope || isProvidedScopeAllowed)) {
-                List<String> depTrail = artifact.getDependencyTrail();
-                if (dependencyTrailContainsArtifact(coords, resolvedArtifact.getVersion(), depTrail)) {
-                    log.info("Adding transitive dependency with scope: "+artifact.getScope()+" and GAV: "+artifact.getGroupId()+":"+artifact.getArtifactId()+":"+artifact.getVersion());
-                    resolvedDependencies.add(artifact);
-                }
+                log.info("Adding transitive dependency with scope: "+artifact.getScope()+" and GAV: "+artifact.getGroupId()+":"+artifact.getArtifactId()+":"+artifact.getVersion());
+                resolvedDependencies.add(artifact);
             }
         }
      }
 
+    /**
+     * Returns an index of a set of resolved artifacts, which is built once and reused as long as
+     * the set does not change.
+     *
+     * @param resolvedArtifacts the resolved artifacts, usually the project artifacts
+     * @return the index
+     */
+    protected DependencyGraphIndex getDependencyGraphIndex(Set<Artifact> resolvedArtifacts) {
+        if (dependencyGraphIndex == null || !dependencyGraphIndex.isIndexOf(resolvedArtifacts)) {
+            dependencyGraphIndex = new DependencyGraphIndex(resolvedArtifacts);
+        }
+        return dependencyGraphIndex;
+    }
+
      protected boolean dependencyTrailContainsArtifact(String gaCoords, String version, List<String> depTrail) {
          for (String nextFullArtifactId : depTrail) {
              if (nextFullArtifactId.startsWith(gaCoords) &&
@@ -491,21 +656,45 @@ public abstract class AbstractLibertySupport extends MojoSupport {
     protected Artifact createArtifact(final ArtifactItem item) throws MojoExecutionException {
         assert item != null;
         
-        if (item.getVersion() == null) {
-            throw new MojoExecutionException("Unable to find artifact without version specified: " + item.getGroupId()
-                + ":" + item.getArtifactId() + ":" + item.getVersion() + " in either project dependencies or in project dependencyManagement.");
-        }
-        
-        // if version is a range get the highest available version
-        if (item.getVersion().trim().startsWith("[") || item.getVersion().trim().startsWith("(") ) {
-            try {
-                item.setVersion(resolveVersionRange(item.getGroupId(), item.getArtifactId(), item.getType(), item.getVersion()));
-            } catch (VersionRangeResolutionException e) {
-                throw new MojoExecutionException("Could not get the highest version from the range: " + item.getVersion(), e);
+        return createArtifacts(Collections.singletonList(item)).get(0);
+    }
+    
+    /**
+     * Create new artifacts, resolving them from the remote repositories concurrently.
+     *
+     * @param items  The items to create artifacts for
+     * @return       Resolved artifacts for the given items, in the same order
+     *
+     * @throws MojoExecutionException   Failed to create an artifact
+     */
+    protected List<Artifact> createArtifacts(final List<ArtifactItem> items) throws MojoExecutionException {
+        List<org.eclipse.aether.artifact.Artifact> aetherArtifacts = new ArrayList<org.eclipse.aether.artifact.Artifact>(items.size());
+        for (ArtifactItem item : items) {
+            if (item.getVersion() == null) {
+                throw new MojoExecutionException("Unable to find artifact without version specified: " + item.getGroupId()
+                    + ":" + item.getArtifactId() + ":" + item.getVersion() + " in either project dependencies or in project dependencyManagement.");
+            }
+            
+            // if version is a range get the highest available version
+            if (item.getVersion().trim().startsWith("[") || item.getVersion().trim().startsWith("(") ) {
+                try {
+                    item.setVersion(getHighestVersion(item.getGroupId(), item.getArtifactId(), item.getType(), item.getVersion()));
+                } catch (VersionRangeResolutionException e) {
+                    throw new MojoExecutionException("Could not get the highest version from the range: " + item.getVersion(), e);
+                }
             }
+            
+            aetherArtifacts.add(new org.eclipse.aether.artifact.DefaultArtifact(
+                    item.getGroupId(), item.getArtifactId(), item.getType(), item.getVersion()));
         }
         
-        return resolveArtifactItem(item);
+        List<File> artifactFiles = resolveArtifactFiles(aetherArtifacts);
+        
+        List<Artifact> artifacts = new ArrayList<Artifact>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            artifacts.add(resolveArtifactItem(items.get(i), aetherArtifacts.get(i), artifactFiles.get(i)));
+        }
+        return artifacts;
     }
     
     private Artifact resolveFromProjectDependencies(ArtifactItem item) {
@@ -549,12 +738,8 @@ public abstract class AbstractLibertySupport extends MojoSupport {
         return null;
     }
     
-    private Artifact resolveArtifactItem(final ArtifactItem item) throws MojoExecutionException {
-        org.eclipse.aether.artifact.Artifact aetherArtifact = new org.eclipse.aether.artifact.DefaultArtifact(
-                item.getGroupId(), item.getArtifactId(), item.getType(), item.getVersion());
-        
-        File artifactFile = resolveArtifactFile(aetherArtifact);
-        
+    private Artifact resolveArtifactItem(final ArtifactItem item, org.eclipse.aether.artifact.Artifact aetherArtifact,
+            File artifactFile) {
         Artifact artifact = new DefaultArtifact(item.getGroupId(), item.getArtifactId(), item.getVersion(),
                 Artifact.SCOPE_PROVIDED, item.getType(), item.getClassifier(), new DefaultArtifactHandler("jar"));
         
@@ -580,24 +765,55 @@ public abstract class AbstractLibertySupport extends MojoSupport {
         return artifact;
     }
     
-    private File resolveArtifactFile(org.eclipse.aether.artifact.Artifact aetherArtifact) throws MojoExecutionException {
-        ArtifactRequest req = new ArtifactRequest().setRepositories(this.repositories).setArtifact(aetherArtifact);
-        ArtifactResult resolutionResult = null;
-
-        try {
-            resolutionResult = this.repositorySystem.resolveArtifact(this.repoSession, req);
+    private List<File> resolveArtifactFiles(List<org.eclipse.aether.artifact.Artifact> aetherArtifacts) throws MojoExecutionException {
+        List<File> artifactFiles = new ArrayList<File>(aetherArtifacts.size());
+        
+        for (ArtifactResult resolutionResult : getArtifactBatchResolver().resolve(aetherArtifacts)) {
             if (!resolutionResult.isResolved()) {
-                throw new MojoExecutionException("Unable to resolve artifact: " + aetherArtifact.getGroupId() + ":"
-                        + aetherArtifact.getArtifactId() + ":" + aetherArtifact.getVersion());
+                org.eclipse.aether.artifact.Artifact aetherArtifact = resolutionResult.getRequest().getArtifact();
+                String message = "Unable to resolve artifact: " + aetherArtifact.getGroupId() + ":"
+                        + aetherArtifact.getArtifactId() + ":" + aetherArtifact.getVersion();
+                if (resolutionResult.getExceptions().isEmpty()) {
+                    throw new MojoExecutionException(message);
+                }
+                throw new MojoExecutionException(message, resolutionResult.getExceptions().get(0));
             }
-        } catch (ArtifactResolutionException e) {
-            throw new MojoExecutionException("Unable to resolve artifact: " + aetherArtifact.getGroupId() + ":"
-                    + aetherArtifact.getArtifactId() + ":" + aetherArtifact.getVersion(), e);
+            artifactFiles.add(resolutionResult.getArtifact().getFile());
         }
         
-        File artifactFile = resolutionResult.getArtifact().getFile();
-        
-        return artifactFile;
+        return artifactFiles;
+    }
+    
+    /**
+     * @return the resolver used for all artifacts of this mojo, so that an artifact is resolved once
+     */
+    protected ArtifactBatchResolver getArtifactBatchResolver() {
+        if (artifactResolver == null) {
+            artifactResolver = new ArtifactBatchResolver(repositorySystem, repoSession, repositories, 0);
+        }
+        return artifactResolver;
+    }
+    
+    private String getHighestVersion(final String groupId, final String artifactId, final String extension, final String version)
+            throws VersionRangeResolutionException {
+        if (versionRangeCache == null) {
+            versionRangeCache = new VersionRangeCache(repoSession,
+                    new File(artifactRepository.getBasedir(), VERSION_RANGE_CACHE_FILE),
+                    TimeUnit.MINUTES.toMillis(Math.max(0, versionRangeCacheTtl)));
+        }
+        boolean update = RepositoryPolicy.UPDATE_POLICY_ALWAYS.equals(repoSession.getUpdatePolicy());
+        // the same range can resolve differently against other repositories
+        StringBuilder key = new StringBuilder(groupId + ":" + artifactId + ":" + extension + ":" + version);
+        for (RemoteRepository repository : repositories) {
+            key.append(' ').append(repository.getId()).append('=').append(repository.getUrl());
+        }
+        return versionRangeCache.get(key.toString(), settings.isOffline(), update,
+                new VersionRangeCache.Resolver<VersionRangeResolutionException>() {
+                    @Override
+                    public String resolve() throws VersionRangeResolutionException {
+                        return resolveVersionRange(groupId, artifactId, extension, version);
+                    }
+                });
     }
     
     private String resolveVersionRange(String groupId, String artifactId, String extension, String version)
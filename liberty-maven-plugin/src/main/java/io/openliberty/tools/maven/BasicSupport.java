@@ -18,18 +18,14 @@ package io.openliberty.tools.maven;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.text.MessageFormat;
 import java.util.ArrayList;
-import java.util.Enumeration;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.ResourceBundle;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
-import java.util.zip.ZipInputStream;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -42,10 +38,15 @@ import org.apache.tools.ant.taskdefs.Java;
 import org.apache.tools.ant.types.Commandline.Argument;
 import org.codehaus.mojo.pluginsupport.util.ArtifactItem;
 import org.codehaus.plexus.util.FileUtils;
-import org.codehaus.plexus.util.IOUtil;
 
 import io.openliberty.tools.ant.install.InstallLibertyTask;
 import io.openliberty.tools.common.plugins.util.ServerFeatureUtil;
+import io.openliberty.tools.maven.utils.ArchiveExtractor;
+import io.openliberty.tools.maven.utils.ArchiveMetadata;
+import io.openliberty.tools.maven.utils.DigestUtil;
+import io.openliberty.tools.maven.utils.MessageLogTailer;
+import io.openliberty.tools.maven.utils.RuntimeCache;
+import io.openliberty.tools.maven.utils.RuntimeUpgrade;
 
 /**
  * Basic Liberty Mojo Support
@@ -63,6 +64,8 @@ public class BasicSupport extends AbstractLibertySupport {
 
     protected boolean skipServerConfigSetup = false;
 
+    private final Map<File, MessageLogTailer> messageLogTailers = new HashMap<File, MessageLogTailer>();
+
     /**
      * Skips the specific goal
      */
@@ -82,6 +85,20 @@ public class BasicSupport extends AbstractLibertySupport {
     @Parameter(property = "isInstall", defaultValue = "true")
     protected boolean isInstall = true;
 
+    /**
+     * Install the runtime archive from a cache of extracted runtimes that is
+     * shared by all projects, instead of extracting it for every project.
+     */
+    @Parameter(property = "runtimeCache", defaultValue = "false")
+    protected boolean runtimeCache;
+
+    /**
+     * Location of the shared runtime cache, default is wlp-runtime-cache in the
+     * local repository.
+     */
+    @Parameter(property = "runtimeCacheDirectory")
+    protected File runtimeCacheDirectory;
+
     /**
      * Server Install Directory
      */
@@ -276,6 +293,11 @@ public class BasicSupport extends AbstractLibertySupport {
                     assemblyArtifact.setVersion(libertyRuntimeVersion);
                 }
 
+                if (licenseArtifact != null) {
+                    // resolve the license together with the runtime archive
+                    prefetchArtifacts(Arrays.asList(assemblyArtifact, licenseArtifact));
+                }
+
                 Artifact artifact = getResolvedArtifact(assemblyArtifact);
 
                 if (artifact == null) {
@@ -346,29 +368,15 @@ public class BasicSupport extends AbstractLibertySupport {
 
     	initLog.debug(MessageFormat.format(messages.getString("debug.discover.server.home"), ""));
         File dir = null;
-        ZipFile zipFile = null;
 
         try {
-            zipFile = new ZipFile(archive);
-
-            Enumeration<?> n = zipFile.entries();
-            while (n.hasMoreElements()) {
-                ZipEntry entry = (ZipEntry) n.nextElement();
-                if (entry.getName().endsWith("lib/ws-launch.jar")) {
-                    File file = new File(assemblyInstallDirectory, entry.getName());
-                    dir = file.getParentFile().getParentFile();
-                    break;
-                }
+            // the install root is indexed, so the archive is only scanned when it changes
+            String installRoot = ArchiveMetadata.get(assemblyInstallDirectory, archive).getInstallRoot();
+            if (installRoot != null) {
+                dir = new File(assemblyInstallDirectory, installRoot);
             }
         } catch (IOException e) {
             throw new MojoExecutionException(MessageFormat.format(messages.getString("error.discover.server.home.fail"), archive), e);
-        } finally {
-            try {
-                zipFile.close();
-            } catch (Exception e) {
-                //Ignore it.
-            }
-
         }
 
         if (dir == null) {
@@ -429,6 +437,11 @@ public class BasicSupport extends AbstractLibertySupport {
     }
     
     protected void installFromFile() throws Exception {
+        RuntimeUpgrade runtimeUpgrade = getRuntimeUpgrade();
+        if (runtimeUpgrade != null && runtimeUpgrade.recover()) {
+            log.info("Recovered from an interrupted upgrade of " + installDirectory);
+        }
+
         // Check if there is a different/newer archive or missing marker to trigger assembly install
         File installMarker = new File(installDirectory, ".installed");
 
@@ -446,35 +459,62 @@ public class BasicSupport extends AbstractLibertySupport {
         }
 
         String userDirectoryPath = userDirectory.getCanonicalPath();
+        boolean upgraded = false;
+        boolean modesApplied = false;
         if (refresh && installDirectory.exists() && installDirectory.isDirectory()) {
-            log.info(MessageFormat.format(messages.getString("info.uninstalling.server.home"), installDirectory));
-            // Delete everything in the install directory except usr directory
-            for(File f : installDirectory.listFiles()) {
-                if(!(f.isDirectory() && f.getCanonicalPath().equals(userDirectoryPath))) {
-                    FileUtils.forceDelete(f);
+            // replace only the changed files if the installed archive entries are known
+            Map<String, String> manifest = runtimeUpgrade != null && !runtimeCache ? runtimeUpgrade.readManifest() : null;
+            if (manifest != null) {
+                log.info("Upgrading the installed assembly in " + installDirectory);
+                try {
+                    ArchiveExtractor.Result result = runtimeUpgrade.upgrade(assemblyArchive, manifest);
+                    log.debug("Extracted " + result.getExtracted() + " files from " + assemblyArchive + ", reused "
+                            + result.getSkipped() + " unchanged files");
+                    modesApplied = result.isModesApplied();
+                    upgraded = true;
+                } catch (IOException e) {
+                    log.debug("Unable to upgrade " + installDirectory + ", reinstalling", e);
+                    runtimeUpgrade.recover();
+                }
+            }
+            if (!upgraded) {
+                log.info(MessageFormat.format(messages.getString("info.uninstalling.server.home"), installDirectory));
+                if (runtimeUpgrade != null) {
+                    runtimeUpgrade.deleteManifest();
+                }
+                // Delete everything in the install directory except usr directory
+                for(File f : installDirectory.listFiles()) {
+                    if(!(f.isDirectory() && f.getCanonicalPath().equals(userDirectoryPath))) {
+                        FileUtils.forceDelete(f);
+                    }
                 }
             }
         }
 
         // Install the assembly
         if (!installMarker.exists()) {
-            log.info("Installing assembly...");
+            if (!upgraded) {
+                log.info("Installing assembly...");
 
-            FileUtils.forceMkdir(installDirectory);
+                FileUtils.forceMkdir(installDirectory);
 
-            Expand unzip = (Expand) ant.createTask("unzip");
-
-            unzip.setSrc(assemblyArchive);
-            unzip.setDest(assemblyInstallDirectory.getCanonicalFile());
-            unzip.execute();
+                if (runtimeUpgrade != null) {
+                    runtimeUpgrade.deleteManifest();
+                }
+                if (!runtimeCache || !installFromRuntimeCache()) {
+                    modesApplied = extractAssemblyArchive();
+                }
+            }
 
-            // Make scripts executable, since Java unzip ignores perms
-            Chmod chmod = (Chmod) ant.createTask("chmod");
-            chmod.setPerm("ugo+rx");
-            chmod.setDir(installDirectory);
-            chmod.setIncludes("bin/*");
-            chmod.setExcludes("bin/*.bat");
-            chmod.execute();
+            if (!modesApplied) {
+                // Make scripts executable, since Java unzip ignores perms
+                Chmod chmod = (Chmod) ant.createTask("chmod");
+                chmod.setPerm("ugo+rx");
+                chmod.setDir(installDirectory);
+                chmod.setIncludes("bin/*");
+                chmod.setExcludes("bin/*.bat");
+                chmod.execute();
+            }
 
             // delete installMarker first in case it was packaged with the assembly
             installMarker.delete();
@@ -482,11 +522,82 @@ public class BasicSupport extends AbstractLibertySupport {
             
             // Write the assembly archive path so we can determine whether to install a different assembly in future invocations
             FileUtils.fileWrite(installMarker, assemblyArchive.getCanonicalPath());
+
+            if (runtimeUpgrade != null && !runtimeCache) {
+                try {
+                    runtimeUpgrade.writeManifest(assemblyArchive);
+                } catch (IOException e) {
+                    log.debug("Unable to write the install manifest, the next upgrade will reinstall " + installDirectory, e);
+                }
+            }
         } else {
             log.info(MessageFormat.format(messages.getString("info.reuse.installed.assembly"), ""));
         }
     }
 
+    /**
+     * @return the upgrade support for the runtime install directory, or null if
+     *         the install directory is not inside it
+     */
+    private RuntimeUpgrade getRuntimeUpgrade() {
+        try {
+            return new RuntimeUpgrade(assemblyInstallDirectory, installDirectory, userDirectory);
+        } catch (IOException e) {
+            log.debug(e);
+            return null;
+        }
+    }
+
+    /**
+     * Extracts the assembly archive into the runtime install directory
+     * 
+     * @return true if the file modes in the archive were applied
+     * @throws IOException
+     */
+    private boolean extractAssemblyArchive() throws IOException {
+        try {
+            ArchiveExtractor.Result result = new ArchiveExtractor(assemblyArchive, 0)
+                    .extract(assemblyInstallDirectory.getCanonicalFile());
+            log.debug("Extracted " + result.getExtracted() + " files from " + assemblyArchive + ", "
+                    + result.getSkipped() + " files were already current");
+            return result.isModesApplied();
+        } catch (IOException e) {
+            log.debug("Unable to extract " + assemblyArchive + ", using the Ant unzip task instead", e);
+            Expand unzip = (Expand) ant.createTask("unzip");
+
+            unzip.setSrc(assemblyArchive);
+            unzip.setDest(assemblyInstallDirectory.getCanonicalFile());
+            unzip.execute();
+            return false;
+        }
+    }
+
+    /**
+     * Populates the runtime install directory from the shared runtime cache
+     * 
+     * @return true if the runtime was installed from the cache
+     */
+    private boolean installFromRuntimeCache() {
+        File cacheDir = runtimeCacheDirectory;
+        if (cacheDir == null) {
+            cacheDir = new File(artifactRepository.getBasedir(), "wlp-runtime-cache");
+        }
+        try {
+            String digest = ArchiveMetadata.get(assemblyInstallDirectory, assemblyArchive).getSha256();
+            RuntimeCache.Result result = new RuntimeCache(cacheDir).install(assemblyArchive, digest,
+                    assemblyInstallDirectory);
+            log.info((result.isCached() ? "Installed assembly from the runtime cache " : "Cached assembly in ")
+                    + new File(cacheDir, digest));
+            log.debug("Linked " + result.getLinked() + " files and copied " + result.getCopied()
+                    + " files from the runtime cache");
+            return true;
+        } catch (IOException e) {
+            log.warn("Unable to install the assembly from the runtime cache " + cacheDir + ": " + e.getMessage());
+            log.debug(e);
+            return false;
+        }
+    }
+
     protected void installFromArchive() throws Exception {
         InstallLibertyTask installTask = (InstallLibertyTask) ant.createTask("antlib:io/openliberty/tools/ant:install-liberty");
         if (installTask == null) {
@@ -557,6 +668,23 @@ public class BasicSupport extends AbstractLibertySupport {
         }
     }
     
+    /**
+     * Get the tailer of a server log. The tailer is shared by all waits of this
+     * goal, so the log is only read once.
+     *
+     * @param logFile the log file, e.g. <code>logs/messages.log</code>
+     * @return the tailer
+     */
+    protected synchronized MessageLogTailer getMessageLogTailer(File logFile) {
+        File key = logFile.getAbsoluteFile();
+        MessageLogTailer tailer = messageLogTailers.get(key);
+        if (tailer == null) {
+            tailer = new MessageLogTailer(key);
+            messageLogTailers.put(key, tailer);
+        }
+        return tailer;
+    }
+
     protected void deleteApplication(File parent, File artifactFile) throws IOException {
         deleteApplication(parent, artifactFile.getName());
         if (artifactFile.getName().endsWith(".xml")) {
@@ -579,32 +707,19 @@ public class BasicSupport extends AbstractLibertySupport {
     private boolean hasSameLicense(Artifact license) throws MojoExecutionException, IOException {
         boolean sameLicense = false;
         if (license != null) {
-            InputStream licenseInfo = getZipEntry(license.getFile(), "wlp/lafiles/LI_en");
-            if (licenseInfo == null) {
+            String licenseDigest = ArchiveMetadata.get(assemblyInstallDirectory, license.getFile()).getLicenseDigest();
+            if (licenseDigest == null) {
                 log.warn(MessageFormat.format(messages.getString("warn.install.license"), license.getId()));
                 return sameLicense;
             } 
             
             File lic = new File(assemblyInstallDirectory, "wlp/lafiles/LI_en");
             if (lic.exists()) {  
-                FileInputStream installedLicenseInfo = new FileInputStream(lic);
-                sameLicense = IOUtil.contentEquals(licenseInfo, installedLicenseInfo);
-                licenseInfo.close();
-                installedLicenseInfo.close();
+                sameLicense = licenseDigest.equals(DigestUtil.sha256(lic));
             }
         }
         return sameLicense;
     }
-    
-    private InputStream getZipEntry(File zip, String entry) throws IOException {
-        ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(zip));
-        for (ZipEntry e; (e = zipInputStream.getNextEntry()) != null;) {
-            if (e.getName().equals(entry)) {
-                return zipInputStream;
-            }
-        }
-        return null;
-    }
 
     // Read WLP_OUTPUT_DIR from server.env. Return null if server.env doesn't
     // exist or variable is not in server.env
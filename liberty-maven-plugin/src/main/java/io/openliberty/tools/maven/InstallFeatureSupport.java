@@ -23,6 +23,7 @@ import java.util.Set;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.codehaus.mojo.pluginsupport.util.ArtifactItem;
 
 import io.openliberty.tools.ant.FeatureManagerTask.Feature;
 import io.openliberty.tools.common.plugins.util.InstallFeatureUtil;
@@ -204,8 +205,33 @@ public class InstallFeatureSupport extends ServerFeatureSupport {
         }
     }
 
+    /**
+     * Resolve the feature JSON files of the additional feature BOMs and the ESA dependencies
+     * together, before the install feature utility downloads them one at a time.
+     * 
+     * @param additionalJsons The coordinates of the additional feature JSON files, or null
+     */
+    private void prefetchFeatureArtifacts(List<String> additionalJsons) {
+        List<ArtifactItem> items = new ArrayList<ArtifactItem>();
+        if (additionalJsons != null) {
+            for (String coordinate : additionalJsons) {
+                String[] coordinates = coordinate.split(":");
+                if (coordinates.length == 3) {
+                    items.add(createArtifactItem(coordinates[0], coordinates[1], "json", coordinates[2]));
+                }
+            }
+        }
+        for (org.apache.maven.model.Dependency dependencyArtifact : project.getDependencies()) {
+            if (("esa").equals(dependencyArtifact.getType())) {
+                items.add(createArtifactItem(dependencyArtifact.getGroupId(), dependencyArtifact.getArtifactId(), "esa", dependencyArtifact.getVersion()));
+            }
+        }
+        prefetchArtifacts(items);
+    }
+
     private void createNewInstallFeatureUtil(Set<String> pluginListedEsas, List<ProductProperties> propertiesList, String openLibertyVerion, String containerName, List<String> additionalJsons) 
             throws PluginExecutionException {
+        prefetchFeatureArtifacts(additionalJsons);
         try {
             util = new InstallFeatureMojoUtil(pluginListedEsas, propertiesList, openLibertyVerion, containerName, additionalJsons);
         } catch (PluginScenarioException e) {
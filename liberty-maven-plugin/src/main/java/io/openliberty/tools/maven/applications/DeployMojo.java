@@ -16,6 +16,8 @@
 package io.openliberty.tools.maven.applications;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.List;
@@ -30,6 +32,7 @@ import org.apache.maven.project.MavenProject;
 
 import org.apache.tools.ant.taskdefs.Copy;
 
+import io.openliberty.tools.maven.utils.AtomicFiles;
 import io.openliberty.tools.maven.utils.SpringBootUtil;
 import io.openliberty.tools.common.plugins.config.ApplicationXmlDocument;
 import io.openliberty.tools.common.plugins.config.LooseConfigData;
@@ -94,6 +97,9 @@ public class DeployMojo extends DeployMojoSupport {
             log.warn(messages.getString("warn.install.app.add.configuration"));
             applicationXml.writeApplicationXmlDocument(serverDirectory);
         }
+
+        // the applications start together, so wait for them together
+        verifyAppsStarted();
     }
 
     private void installSpringBootApp() throws Exception {
@@ -152,7 +158,8 @@ public class DeployMojo extends DeployMojoSupport {
     protected void installDependencies() throws Exception {
         Set<Artifact> artifacts = project.getArtifacts();
         log.debug("Number of compile dependencies for " + project.getArtifactId() + " : " + artifacts.size());
-        
+
+        List<Artifact> archives = new ArrayList<Artifact>();
         for (Artifact artifact : artifacts) {
             // skip if not an application type supported by Liberty
             if (!isSupportedType(artifact.getType())) {
@@ -168,7 +175,7 @@ public class DeployMojo extends DeployMojoSupport {
                         MavenProject dependProj = getReactorMavenProject(artifact);
                         installLooseApplication(dependProj);
                     } else {
-                        installApp(resolveArtifact(artifact));
+                        archives.add(artifact);
                     }
                 } else {
                     log.warn(MessageFormat.format(messages.getString("error.application.not.supported"),
@@ -176,6 +183,10 @@ public class DeployMojo extends DeployMojoSupport {
                 }
             }
         }
+
+        // resolve the archives in one batch and copy them concurrently
+        resolveProjectArtifacts(archives);
+        installApps(archives);
     }
     
     protected void installProject() throws Exception {
@@ -212,7 +223,7 @@ public class DeployMojo extends DeployMojoSupport {
                     // install another copy that is container specific
                     config = new LooseConfigData();
                     installLooseConfigWar(proj, config, true);
-                    config.toXmlFile(devcLooseConfigFile);
+                    writeLooseConfig(config, devcLooseConfigFile);
                 }
                 break;
             case "ear":
@@ -224,7 +235,7 @@ public class DeployMojo extends DeployMojoSupport {
                     // install another copy that is container specific
                     config = new LooseConfigData();
                     installLooseConfigEar(proj, config, true);
-                    config.toXmlFile(devcLooseConfigFile);
+                    writeLooseConfig(config, devcLooseConfigFile);
                 }
                 break;
             case "liberty-assembly":
@@ -237,7 +248,7 @@ public class DeployMojo extends DeployMojoSupport {
                         // install another copy that is container specific
                         config = new LooseConfigData();
                         installLooseConfigWar(proj, config, true);
-                        config.toXmlFile(devcLooseConfigFile);
+                        writeLooseConfig(config, devcLooseConfigFile);
                     }
                 } else {
                     log.debug("The liberty-assembly project does not contain the maven-war-plugin or src/main/webapp does not exist.");
@@ -252,11 +263,61 @@ public class DeployMojo extends DeployMojoSupport {
     }
 
     private void installAndVerifyApp(LooseConfigData config, File looseConfigFile, String applicationName) throws Exception {
-        deleteApplication(new File(serverDirectory, "apps"), looseConfigFile);
-        deleteApplication(new File(serverDirectory, "dropins"), looseConfigFile);
-        config.toXmlFile(looseConfigFile);
-        //Only checks if server is running
-        verifyAppStarted(applicationName);
+        // the generated file captures all of the inputs: the output directories, libraries, manifest,
+        // web resources and packaging of the application
+        byte[] looseConfig = toXml(config, looseConfigFile);
+        if (isInstalled(looseConfig, looseConfigFile)) {
+            // rewriting the file would make Liberty restart the application
+            log.debug("The loose application configuration file " + looseConfigFile.getCanonicalPath() + " is up to date.");
+        } else {
+            deleteApplication(new File(serverDirectory, "apps"), looseConfigFile);
+            deleteApplication(new File(serverDirectory, "dropins"), looseConfigFile);
+            AtomicFiles.replace(looseConfigFile.toPath(), looseConfig);
+            //Only checks if server is running
+            expectAppStarted(applicationName);
+        }
+    }
+
+    private void writeLooseConfig(LooseConfigData config, File looseConfigFile) throws Exception {
+        byte[] looseConfig = toXml(config, looseConfigFile);
+        if (!AtomicFiles.contentEquals(looseConfigFile.toPath(), looseConfig)) {
+            AtomicFiles.replace(looseConfigFile.toPath(), looseConfig);
+        }
+    }
+
+    private byte[] toXml(LooseConfigData config, File looseConfigFile) throws Exception {
+        File tempFile = File.createTempFile(looseConfigFile.getName(), ".tmp");
+        try {
+            config.toXmlFile(tempFile);
+            return Files.readAllBytes(tempFile.toPath());
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * @return true if the loose application configuration file has the content,
+     *         and there is no other copy of the application in the apps or
+     *         dropins directories that deploying it would delete
+     */
+    private boolean isInstalled(byte[] looseConfig, File looseConfigFile) throws IOException {
+        if (!AtomicFiles.contentEquals(looseConfigFile.toPath(), looseConfig)) {
+            return false;
+        }
+        String fileName = looseConfigFile.getName();
+        String applicationFileName = fileName.substring(0, fileName.length() - 4);
+        for (String directory : new String[] { "apps", "dropins" }) {
+            File parent = new File(serverDirectory, directory);
+            if (new File(parent, applicationFileName).exists()) {
+                return false;
+            }
+            File otherLooseConfigFile = new File(parent, fileName);
+            if (otherLooseConfigFile.exists()
+                    && !otherLooseConfigFile.getCanonicalFile().equals(looseConfigFile.getCanonicalFile())) {
+                return false;
+            }
+        }
+        return true;
     }
 
     private void cleanupPreviousExecution() {
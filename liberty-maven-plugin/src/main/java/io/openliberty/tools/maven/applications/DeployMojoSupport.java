@@ -18,9 +18,20 @@ package io.openliberty.tools.maven.applications;
 import java.io.File;
 import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.commons.lang3.Validate;
 import org.apache.maven.artifact.Artifact;
@@ -28,14 +39,15 @@ import org.apache.maven.model.Plugin;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
-import org.apache.tools.ant.taskdefs.Copy;
 import org.codehaus.mojo.pluginsupport.util.ArtifactItem;
 import org.w3c.dom.Element;
 
-import io.openliberty.tools.ant.ServerTask;
 import io.openliberty.tools.ant.SpringBootUtilTask;
 import io.openliberty.tools.maven.server.LooseAppSupport;
+import io.openliberty.tools.maven.utils.AtomicFiles;
 import io.openliberty.tools.maven.utils.CommonLogger;
+import io.openliberty.tools.maven.utils.DigestUtil;
+import io.openliberty.tools.maven.utils.ExpandedArchiveSync;
 import io.openliberty.tools.maven.utils.MavenProjectUtil;
 import io.openliberty.tools.common.plugins.config.ApplicationXmlDocument;
 import io.openliberty.tools.common.plugins.config.LooseApplication;
@@ -50,6 +62,11 @@ public class DeployMojoSupport extends LooseAppSupport {
 
     private final String PROJECT_ROOT_TARGET_LIBS = "target/libs";
 
+    /**
+     * The types of reactor modules that are added to a loose EAR from their project instead of the local repository.
+     */
+    private static final List<String> REACTOR_MODULE_TYPES = Arrays.asList("jar", "ejb", "war", "rar");
+
     /**
      * Timeout to verify deploy successfully, in seconds.
      */
@@ -62,46 +79,187 @@ public class DeployMojoSupport extends LooseAppSupport {
     @Parameter(property = "copyLibsDirectory")
     protected File copyLibsDirectory;
 
+    /**
+     * Deploy WAR and EAR archives as expanded directories, and only update the entries that changed since the last deploy.
+     */
+    @Parameter(property = "deltaDeploy", defaultValue = "false")
+    protected boolean deltaDeploy;
+
+    /**
+     * Hard link archives from the local repository instead of copying them, when both are on the same file system.
+     */
+    @Parameter(property = "linkFromRepository", defaultValue = "false")
+    protected boolean linkFromRepository;
+
     protected ApplicationXmlDocument applicationXml = new ApplicationXmlDocument();
 
+    // the names of the applications whose start is verified by verifyAppsStarted
+    private final Set<String> expectedApps = new LinkedHashSet<String>();
+
     protected void installApp(Artifact artifact) throws Exception {
-    
-        if (artifact.getFile() == null || artifact.getFile().isDirectory()) {
-            String appFileName = getPreDeployAppFileName(project);
-            File f = new File(project.getBuild().getDirectory() + "/" + appFileName);
-            artifact.setFile(f);
-        }
+        installApps(Collections.singletonList(artifact));
+    }
 
-        if (!artifact.getFile().exists()) {
-            throw new MojoExecutionException(messages.getString("error.install.app.missing"));
-        }
+    /**
+     * Install application archives. The archives are copied concurrently, and
+     * the start of the archives that were written is verified by
+     * {@link #verifyAppsStarted()}. An archive that is already installed with the
+     * same content is left alone, so that the server does not restart it.
+     *
+     * @param artifacts the resolved application artifacts
+     * @throws Exception
+     */
+    protected void installApps(List<Artifact> artifacts) throws Exception {
+        final Map<File, File> archives = new LinkedHashMap<File, File>();
+        for (Artifact artifact : artifacts) {
+            if (artifact.getFile() == null || artifact.getFile().isDirectory()) {
+                String appFileName = getPreDeployAppFileName(project);
+                File f = new File(project.getBuild().getDirectory() + "/" + appFileName);
+                artifact.setFile(f);
+            }
 
-        File destDir = new File(serverDirectory, getAppsDirectory());
-        log.info(MessageFormat.format(messages.getString("info.install.app"), artifact.getFile().getCanonicalPath()));
+            if (!artifact.getFile().exists()) {
+                throw new MojoExecutionException(messages.getString("error.install.app.missing"));
+            }
 
-        Copy copyFile = (Copy) ant.createTask("copy");
-        copyFile.setFile(artifact.getFile());
-        String fileName = artifact.getFile().getName();
-        if (stripVersion) {
-            fileName = stripVersionFromName(fileName, artifact.getBaseVersion());
-            copyFile.setTofile(new File(destDir, fileName));
-        } else {
-            copyFile.setTodir(destDir);
+            File destDir = new File(serverDirectory, getAppsDirectory());
+            log.info(MessageFormat.format(messages.getString("info.install.app"), artifact.getFile().getCanonicalPath()));
+
+            String fileName = artifact.getFile().getName();
+            if (stripVersion) {
+                fileName = stripVersionFromName(fileName, artifact.getBaseVersion());
+            }
+
+            // validate application configuration if appsDirectory="dropins" or inject
+            // webApplication
+            // to target server.xml if not found for appsDirectory="apps"
+            validateAppConfig(fileName, artifact.getArtifactId());
+
+            archives.put(artifact.getFile(), new File(destDir, fileName));
         }
 
-        // validate application configuration if appsDirectory="dropins" or inject
-        // webApplication
-        // to target server.xml if not found for appsDirectory="apps"
-        validateAppConfig(fileName, artifact.getArtifactId());
+        final File localRepository = new File(artifactRepository.getBasedir()).getCanonicalFile();
+        final File deltaDeployDirectory = new File(project.getBuild().getDirectory(),
+                "liberty-delta-deploy/" + serverName + "/" + getAppsDirectory());
+        // only the applications that were written log their start again
+        final Set<File> written = Collections.synchronizedSet(new LinkedHashSet<File>());
+        List<Callable<Void>> copies = new ArrayList<Callable<Void>>(archives.size());
+        for (final Map.Entry<File, File> archive : archives.entrySet()) {
+            copies.add(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    File file = archive.getKey();
+                    File target = archive.getValue();
+                    List<File> otherCopies = getOtherInstalledCopies(file, target);
+                    if (deltaDeploy && isExpandable(file)) {
+                        for (File otherCopy : otherCopies) {
+                            deleteApplication(otherCopy.getParentFile(), otherCopy.getName());
+                        }
+                        ExpandedArchiveSync.Result result = new ExpandedArchiveSync(deltaDeployDirectory, target.getName())
+                                .sync(file, target);
+                        if (!result.isChanged() && otherCopies.isEmpty()) {
+                            log.debug("The application " + target.getCanonicalPath() + " is up to date.");
+                            return null;
+                        }
+                        log.info("Updated the expanded application " + target.getCanonicalPath() + ": "
+                                + result.getWritten() + " entries written, " + result.getRemoved() + " entries removed.");
+                        written.add(target);
+                        return null;
+                    }
+                    if (otherCopies.isEmpty() && isSameContent(file, target)) {
+                        log.debug("The application " + target.getCanonicalPath() + " is up to date.");
+                        return null;
+                    }
+                    for (File otherCopy : otherCopies) {
+                        deleteApplication(otherCopy.getParentFile(), otherCopy.getName());
+                    }
+                    if (target.isDirectory()) {
+                        // expanded by an earlier delta deploy
+                        new ExpandedArchiveSync(deltaDeployDirectory, target.getName()).delete(target);
+                    }
+                    // the server never sees a partially written archive
+                    boolean link = linkFromRepository
+                            && file.getCanonicalPath().startsWith(localRepository.getPath() + File.separator);
+                    AtomicFiles.copy(file.toPath(), target.toPath(), link, false);
+                    written.add(target);
+                    return null;
+                }
+            });
+        }
+        invokeAll(copies);
+
+        // the start message of an application that was left alone may have rolled over
+        for (File target : written) {
+            expectAppStarted(target.getName());
+        }
+    }
 
-        deleteApplication(new File(serverDirectory, "apps"), artifact.getFile());
-        deleteApplication(new File(serverDirectory, "dropins"), artifact.getFile());
+    /**
+     * Get the copies of an application in the apps, dropins and apps/expanded
+     * directories, other than the target, that installing it replaces
+     */
+    private List<File> getOtherInstalledCopies(File file, File target) throws IOException {
+        List<File> copies = new ArrayList<File>();
+        File canonicalTarget = target.getCanonicalFile();
         // application can be expanded if server.xml configure with <applicationManager
         // autoExpand="true"/>
-        deleteApplication(new File(serverDirectory, "apps/expanded"), artifact.getFile());
-        copyFile.execute();
+        for (String directory : new String[] { "apps", "dropins", "apps/expanded" }) {
+            File parent = new File(serverDirectory, directory);
+            for (String name : new String[] { file.getName(), file.getName() + ".xml" }) {
+                File copy = new File(parent, name);
+                if (copy.exists() && !copy.getCanonicalFile().equals(canonicalTarget)) {
+                    copies.add(copy);
+                }
+            }
+        }
+        return copies;
+    }
+
+    private static boolean isExpandable(File file) {
+        String name = file.getName().toLowerCase();
+        return name.endsWith(".war") || name.endsWith(".ear");
+    }
 
-        verifyAppStarted(fileName);
+    private static boolean isSameContent(File file, File target) throws IOException {
+        return target.isFile() && target.length() == file.length()
+                && DigestUtil.sha256(target).equals(DigestUtil.sha256(file));
+    }
+
+    /**
+     * Run tasks concurrently, or in this thread if there is only one
+     */
+    private <T> List<T> invokeAll(List<Callable<T>> tasks) throws Exception {
+        if (tasks.size() == 1) {
+            return Collections.singletonList(tasks.get(0).call());
+        }
+        List<T> results = new ArrayList<T>(tasks.size());
+        if (tasks.isEmpty()) {
+            return results;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(tasks.size(), Runtime.getRuntime().availableProcessors()), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "liberty-app-install");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        try {
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw new MojoExecutionException(e.getCause().getMessage(), e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
     }
 
     private void setLooseProjectRootForContainer(MavenProject proj, LooseConfigData config) throws MojoExecutionException {
@@ -209,6 +367,17 @@ public class DeployMojoSupport extends LooseAppSupport {
         Set<Artifact> artifacts = proj.getArtifacts();
         log.debug("Number of compile dependencies for " + proj.getArtifactId() + " : " + artifacts.size());
 
+        // resolve the modules that are added from the local repository together
+        List<Artifact> m2Modules = new ArrayList<Artifact>();
+        for (Artifact artifact : artifacts) {
+            if (("compile".equals(artifact.getScope()) || "runtime".equals(artifact.getScope()))
+                    && !(looseEar.isEarSkinnyWars() && "war".equals(artifact.getType()))
+                    && (!isReactorMavenProject(artifact) || !REACTOR_MODULE_TYPES.contains(artifact.getType()))) {
+                m2Modules.add(artifact);
+            }
+        }
+        resolveProjectArtifacts(m2Modules);
+
         for (Artifact artifact : artifacts) {
             if ("compile".equals(artifact.getScope()) || "runtime".equals(artifact.getScope())) {
                 if (!isReactorMavenProject(artifact)) {
@@ -219,7 +388,7 @@ public class DeployMojoSupport extends LooseAppSupport {
                                         + artifact.getVersion()
                                         + ". Please set the looseApplication configuration parameter to false and try again.");
                     }
-                    looseEar.addModuleFromM2(resolveArtifact(artifact));
+                    looseEar.addModuleFromM2(artifact);
                 } else {
                     MavenProject dependencyProject = getReactorMavenProject(artifact);
                     switch (artifact.getType()) {
@@ -246,7 +415,7 @@ public class DeployMojoSupport extends LooseAppSupport {
                         break;
                     default:
                         // use the artifact from local .m2 repo
-                        looseEar.addModuleFromM2(resolveArtifact(artifact));
+                        looseEar.addModuleFromM2(artifact);
                         break;
                     }
                 }
@@ -266,7 +435,14 @@ public class DeployMojoSupport extends LooseAppSupport {
         }
     }
 
-    protected void verifyAppStarted(String appFile) throws MojoExecutionException {
+    /**
+     * Record an application whose start is verified by
+     * {@link #verifyAppsStarted()}, if the server is running
+     *
+     * @param appFile the file name of the application
+     * @throws MojoExecutionException
+     */
+    protected void expectAppStarted(String appFile) throws MojoExecutionException {
         if (shouldValidateAppStart()) {
             String appName = appFile.substring(0, appFile.lastIndexOf('.'));
             if (getAppsDirectory().equals("apps")) {
@@ -286,11 +462,32 @@ public class DeployMojoSupport extends LooseAppSupport {
                 } 
             }
 
-            ServerTask serverTask = initializeJava();
-            if (serverTask.waitForStringInLog(START_APP_MESSAGE_REGEXP + appName, timeout * 1000, new File(new File(outputDirectory, serverName), "logs/messages.log")) == null) {
+            expectedApps.add(appName);
+        }
+    }
+
+    /**
+     * Wait for all of the expected applications to start, within a single
+     * timeout
+     *
+     * @throws MojoExecutionException if an application did not start in time
+     */
+    protected void verifyAppsStarted() throws MojoExecutionException {
+        if (expectedApps.isEmpty()) {
+            return;
+        }
+        Set<String> startMessages = new LinkedHashSet<String>();
+        for (String appName : expectedApps) {
+            startMessages.add(START_APP_MESSAGE_REGEXP + appName);
+        }
+        File logFile = new File(new File(outputDirectory, serverName), "logs/messages.log");
+        Map<String, String> started = getMessageLogTailer(logFile).waitForAll(startMessages, timeout * 1000);
+        for (String appName : expectedApps) {
+            if (!started.containsKey(START_APP_MESSAGE_REGEXP + appName)) {
                 throw new MojoExecutionException(MessageFormat.format(messages.getString("error.deploy.fail"), appName));
             }
         }
+        expectedApps.clear();
     }
 
     private void addEmbeddedLib(Element parent, MavenProject warProject, LooseApplication looseApp, String dir)
@@ -27,7 +27,6 @@ import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
 
-import io.openliberty.tools.ant.ServerTask;
 import io.openliberty.tools.common.plugins.config.ServerConfigDocument;
 import io.openliberty.tools.maven.utils.CommonLogger;
 
@@ -156,8 +155,7 @@ public class UndeployAppMojo extends DeployMojoSupport {
 
         //check stop message code
         String stopMessage = STOP_APP_MESSAGE_CODE_REG + appName;
-        ServerTask serverTask = initializeJava();
-        if (serverTask.waitForStringInLog(stopMessage, APP_STOP_TIMEOUT_DEFAULT, new File(serverDirectory, "logs/messages.log")) == null) {
+        if (getMessageLogTailer(new File(serverDirectory, "logs/messages.log")).waitFor(stopMessage, APP_STOP_TIMEOUT_DEFAULT) == null) {
             throw new MojoExecutionException("CWWKM2022E: Failed to undeploy application " + file.getPath() + ". The Stop application message cannot be found in console.log.");
         }
     }
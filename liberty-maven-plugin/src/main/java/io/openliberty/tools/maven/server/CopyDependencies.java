@@ -38,6 +38,20 @@ public class CopyDependencies {
     @Parameter(defaultValue="false")
     private Boolean stripVersion;
 
+    /**
+     * Boolean to indicate whether to hard link dependencies from the local repository instead of
+     * copying them, when both are on the same file system. The default is false.
+     */
+    @Parameter(defaultValue="false")
+    private Boolean linkFromRepository;
+
+    /**
+     * Boolean to indicate whether to compare the checksums of dependencies that were already
+     * copied, in addition to their size and modification time. The default is false.
+     */
+    @Parameter(defaultValue="false")
+    private Boolean verifyChecksum;
+
     /**
      * A list of Dependency to copy.
      */
@@ -71,6 +85,28 @@ public class CopyDependencies {
         this.stripVersion = new Boolean(strip);
     }
     
+    public boolean isLinkFromRepository() {
+        if (this.linkFromRepository == null) {
+            return false;
+        }
+        return this.linkFromRepository.booleanValue();
+    }
+
+    public void setLinkFromRepository(boolean link) {
+        this.linkFromRepository = Boolean.valueOf(link);
+    }
+
+    public boolean isVerifyChecksum() {
+        if (this.verifyChecksum == null) {
+            return false;
+        }
+        return this.verifyChecksum.booleanValue();
+    }
+
+    public void setVerifyChecksum(boolean verify) {
+        this.verifyChecksum = Boolean.valueOf(verify);
+    }
+    
     /**
      * Get all the current Dependency to copy.
      *
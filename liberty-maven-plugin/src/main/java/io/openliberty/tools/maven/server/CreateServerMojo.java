@@ -85,7 +85,7 @@ public class CreateServerMojo extends PluginConfigSupport {
         }
         
         // copy files _after_ we create the server
-        copyConfigFiles();
+        project.setContextValue(CONFIG_SYNC_RESULT, copyConfigFiles());
 
         copyLibertySettings();
     }
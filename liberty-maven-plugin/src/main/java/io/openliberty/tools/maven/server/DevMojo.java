@@ -32,14 +32,13 @@ import java.util.Collection;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.DependencyResolutionRequiredException;
@@ -48,6 +47,7 @@ import org.apache.maven.execution.ProjectDependencyGraph;
 import org.apache.maven.model.Build;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Plugin;
+import org.apache.maven.model.ReportPlugin;
 import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -58,7 +58,6 @@ import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.ProjectBuilder;
 import org.apache.maven.project.ProjectBuildingException;
-import org.apache.maven.project.ProjectBuildingResult;
 import org.apache.maven.rtinfo.RuntimeInformation;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.twdata.maven.mojoexecutor.MojoExecutor.Element;
@@ -76,7 +75,18 @@ import io.openliberty.tools.common.plugins.util.ServerStatusUtil;
 import io.openliberty.tools.maven.BasicSupport;
 import io.openliberty.tools.maven.applications.DeployMojoSupport;
 import io.openliberty.tools.maven.applications.LooseWarApplication;
+import io.openliberty.tools.maven.utils.ClasspathSnapshot;
+import io.openliberty.tools.maven.utils.CoalescingTestExecutor;
+import io.openliberty.tools.maven.utils.ConfigSyncResult;
+import io.openliberty.tools.maven.utils.DevSessionState;
+import io.openliberty.tools.maven.utils.DevTimeline;
 import io.openliberty.tools.maven.utils.ExecuteMojoUtil;
+import io.openliberty.tools.maven.utils.IncrementalJavaCompiler;
+import io.openliberty.tools.maven.utils.MavenProjectCache;
+import io.openliberty.tools.maven.utils.ModuleCompileScheduler;
+import io.openliberty.tools.maven.utils.StartupTaskGraph;
+import io.openliberty.tools.maven.utils.TestImpactIndex;
+import io.openliberty.tools.maven.utils.WarmTestJvm;
 
 /**
  * Start a liberty server in dev mode import to set ResolutionScope for TEST as
@@ -97,6 +107,27 @@ public class DevMojo extends LooseAppSupport {
             + "Automatic generation of features does not support Liberty ESA feature dependencies. "
             + "Remove any Liberty ESA feature dependencies from the pom.xml file or disable automatic generation of features by typing 'g' and press Enter.";
 
+    // maven-compiler-plugin parameters that change how sources are compiled in ways
+    // the in-process compiler does not replicate
+    private static final String[] IN_PROCESS_COMPILE_UNSUPPORTED_PARAMS = { "annotationProcessorPaths",
+            "annotationProcessors", "proc", "compilerArgs", "compilerArgument", "compilerArguments", "compilerId",
+            "fork", "executable", "includes", "excludes", "testIncludes", "testExcludes", "multiReleaseOutput" };
+
+    // maven-surefire-plugin parameters that change which tests run or how the test
+    // JVM is set up in ways the warm test JVM does not replicate
+    private static final String[] WARM_TEST_JVM_UNSUPPORTED_PARAMS = { "argLine", "jvm", "forkCount", "reuseForks",
+            "test", "includes", "excludes", "includesFile", "excludesFile", "groups", "excludedGroups",
+            "suiteXmlFiles", "testNGArtifactName", "dependenciesToScan", "parallel", "environmentVariables",
+            "workingDirectory", "systemPropertiesFile", "additionalClasspathElements",
+            "classpathDependencyExcludes", "classpathDependencyScopeExclude", "skip", "skipTests", "skipExec",
+            "testFailureIgnore", "failIfNoTests", "reportsDirectory", "reportFormat", "disableXmlReport",
+            "redirectTestOutputToFile" };
+
+    // user and project properties read by maven-surefire-plugin parameters that the warm test JVM does not support
+    private static final String[] WARM_TEST_JVM_UNSUPPORTED_PROPERTIES = { "maven.test.skip", "maven.test.skip.exec",
+            "maven.test.failure.ignore", "failIfNoTests", "surefire.reportsDirectory", "surefire.reportFormat",
+            "disableXmlReport", "maven.test.redirectTestOutputToFile" };
+
     DevMojoUtil util = null;
 
     @Parameter(property = "hotTests", defaultValue = "false")
@@ -138,6 +169,65 @@ public class DevMojo extends LooseAppSupport {
     @Parameter(property = "compileWait", defaultValue = "0.5")
     private double compileWait;
 
+    /**
+     * Compile Java changes with a warm in-process compiler instead of running the
+     * maven-compiler-plugin for every change.
+     */
+    @Parameter(property = "inProcessCompile", defaultValue = "false")
+    private boolean inProcessCompile;
+
+    private IncrementalJavaCompiler incrementalCompiler;
+
+    /**
+     * Maximum number of dependent modules to recompile at the same time when
+     * recompileDependencies is set. Defaults to the number of available
+     * processors.
+     */
+    @Parameter(property = "recompileParallelism", defaultValue = "0")
+    private int recompileParallelism;
+
+    private ModuleCompileScheduler compileScheduler;
+
+    private CoalescingTestExecutor testExecutor;
+
+    // the number of replaced and cancelled test runs that was last logged
+    private long reportedWastedTestRuns;
+
+    /**
+     * Run only the test classes that reference classes changed since the last
+     * successful test run.
+     */
+    @Parameter(property = "testImpactAnalysis", defaultValue = "false")
+    private boolean testImpactAnalysis;
+
+    private final Map<String, TestImpactIndex> testImpactIndexes = new HashMap<String, TestImpactIndex>();
+
+    /**
+     * Run unit tests in a forked JVM that is kept running between test runs,
+     * instead of running the maven-surefire-plugin for every run.
+     */
+    @Parameter(property = "warmTestJvm", defaultValue = "false")
+    private boolean warmTestJvm;
+
+    private final Map<String, WarmTestJvm> warmTestJvms = new HashMap<String, WarmTestJvm>();
+
+    /**
+     * Run independent startup steps at the same time, such as compiling tests
+     * while the server is created and its features are installed.
+     */
+    @Parameter(property = "parallelStartup", defaultValue = "false")
+    private boolean parallelStartup;
+
+    /**
+     * Keep the state of the startup steps in the build directory, so that dev
+     * mode can skip the initial compile and feature generation on the next
+     * start if their inputs have not changed.
+     */
+    @Parameter(property = "persistSessionState", defaultValue = "false")
+    private boolean persistSessionState;
+
+    private DevSessionState sessionState;
+
     private int runId = 0;
 
     private ServerTask serverTask = null;
@@ -147,6 +237,8 @@ public class DevMojo extends LooseAppSupport {
     @Component
     protected ProjectBuilder mavenProjectBuilder;
 
+    private MavenProjectCache projectCache;
+
     @Component
     private RuntimeInformation runtime;
 
@@ -277,10 +369,24 @@ public class DevMojo extends LooseAppSupport {
         return resourceDirs;
     }
 
+    /**
+     * The outcome of compiling the sources of a project
+     */
+    private enum CompileResult {
+        /** the sources compiled without errors */
+        COMPILED,
+        /** the sources were compiled and the compilation errors were logged */
+        ERRORS,
+        /** the compile goals could not run */
+        FAILED
+    }
+
     private class DevMojoUtil extends DevUtil {
         Set<String> existingFeatures;
         Map<String, File> libertyDirPropertyFiles = new HashMap<String, File>();
         List<MavenProject> upstreamMavenProjects;
+        // the libraries embedded in the application of each project when it was last evaluated
+        Map<File, ClasspathSnapshot> applicationLibraries = new HashMap<File, ClasspathSnapshot>();
 
         public DevMojoUtil(File installDir, File userDir, File serverDirectory, File sourceDirectory,
                 File testSourceDirectory, File configDirectory, File projectDirectory, File multiModuleProjectDirectory,
@@ -301,6 +407,10 @@ public class DevMojo extends LooseAppSupport {
                     serverDirectory);
             this.existingFeatures = servUtil.getServerFeatures(serverDirectory, libertyDirPropertyFiles);
             this.upstreamMavenProjects = upstreamMavenProjects;
+            applicationLibraries.put(project.getFile(), getApplicationLibraries(project));
+            for (MavenProject upstreamProject : upstreamMavenProjects) {
+                applicationLibraries.put(upstreamProject.getFile(), getApplicationLibraries(upstreamProject));
+            }
         }
 
         @Override
@@ -497,6 +607,46 @@ public class DevMojo extends LooseAppSupport {
             return deps;
         }
 
+        // returns a list of provided dependencies, which are not embedded in the application
+        private List<Dependency> getProvidedDependency(List<Dependency> dependencies) {
+            List<Dependency> deps = new ArrayList<Dependency>();
+            if (dependencies != null) {
+                for (Dependency d : dependencies) {
+                    if ("provided".equals(d.getScope())) {
+                        deps.add(d);
+                    }
+                }
+            }
+            return deps;
+        }
+
+        // returns a snapshot of the resolved libraries embedded in the application (scope compile or runtime)
+        private ClasspathSnapshot getApplicationLibraries(MavenProject mavenProject) {
+            List<String> libraries = new ArrayList<String>();
+            for (Artifact artifact : mavenProject.getArtifacts()) {
+                if (("compile".equals(artifact.getScope()) || "runtime".equals(artifact.getScope()))
+                        && artifact.getFile() != null) {
+                    libraries.add(artifact.getFile().getAbsolutePath());
+                }
+            }
+            return new ClasspathSnapshot(libraries);
+        }
+
+        /**
+         * Compare the libraries embedded in the application with the libraries of
+         * the previous evaluation of the project, and keep them for the next
+         * evaluation
+         */
+        private ClasspathSnapshot.Delta diffApplicationLibraries(MavenProject previousProject,
+                MavenProject currentProject) {
+            ClasspathSnapshot current = getApplicationLibraries(currentProject);
+            ClasspathSnapshot previous = applicationLibraries.put(currentProject.getFile(), current);
+            if (previous == null) {
+                previous = getApplicationLibraries(previousProject);
+            }
+            return previous.diff(current);
+        }
+
         // retun false if dependency lists are not equal, true if they are
         private boolean dependencyListsEquals(List<Dependency> oldDeps, List<Dependency> deps) {
             if (oldDeps.size() != deps.size()) {
@@ -627,8 +777,10 @@ public class DevMojo extends LooseAppSupport {
                     // dependency was deleted)
                     // do not clear list as it may contain dependencies from parent projects
                     // update classpath for dependencies changes
-                    testArtifactPaths.removeAll(backupUpstreamProject.getTestClasspathElements());
-                    compileArtifactPaths.removeAll(backupUpstreamProject.getCompileClasspathElements());
+                    testArtifactPaths.removeAll(
+                            new LinkedHashSet<String>(backupUpstreamProject.getTestClasspathElements()));
+                    compileArtifactPaths.removeAll(
+                            new LinkedHashSet<String>(backupUpstreamProject.getCompileClasspathElements()));
                 }
                 testArtifactPaths.addAll(upstreamProject.getTestClasspathElements());
                 compileArtifactPaths.addAll(upstreamProject.getCompileClasspathElements());
@@ -650,9 +802,11 @@ public class DevMojo extends LooseAppSupport {
 
                     // detect compile dependency changes
                     if (!dependencyListsEquals(getCompileDependency(deps), getCompileDependency(oldDeps))) {
-                        // optimize generate features
-                        if (generateFeatures) {
-                            log.debug("Detected a change in the compile dependencies for "
+                        // optimize generate features if the Jakarta EE or MicroProfile versions
+                        // used by the binary scanner may have changed
+                        if (generateFeatures
+                                && !dependencyListsEquals(getProvidedDependency(deps), getProvidedDependency(oldDeps))) {
+                            log.debug("Detected a change in the provided dependencies for "
                                     + buildFile + " , regenerating features");
                             boolean generateFeaturesSuccess = libertyGenerateFeatures(null, true);
                             if (generateFeaturesSuccess) {
@@ -662,7 +816,14 @@ public class DevMojo extends LooseAppSupport {
                             util.installFeaturesToTempDir(generatedFeaturesFile, configDirectory, null,
                                 generateFeaturesSuccess);
                         }
-                        runLibertyMojoDeploy();
+                        // only redeploy if the libraries of the application were added, removed or rebuilt
+                        ClasspathSnapshot.Delta libraries = diffApplicationLibraries(backupUpstreamProject,
+                                upstreamProject);
+                        if (!libraries.isEmpty()) {
+                            log.debug("Detected a change in the application libraries of " + buildFile + ", "
+                                    + libraries + ", redeploying");
+                            runLibertyMojoDeploy();
+                        }
                     }
                 }
             } catch (ProjectBuildingException | DependencyResolutionRequiredException | IOException
@@ -734,10 +895,8 @@ public class DevMojo extends LooseAppSupport {
             }
         }
         
-        private MavenProject getMavenProject(File buildFile) throws ProjectBuildingException {
-            ProjectBuildingResult build = mavenProjectBuilder.build(buildFile,
-                    session.getProjectBuildingRequest().setResolveDependencies(true));
-            MavenProject builtProject = build.getProject();
+        private MavenProject getMavenProject(File buildFile) throws ProjectBuildingException, IOException {
+            MavenProject builtProject = getProjectCache().getProject(buildFile, session.getProjectBuildingRequest());
             updateUpstreamProjectsArtifactPathToOutputDirectory(builtProject);
             return builtProject;
         }
@@ -843,17 +1002,18 @@ public class DevMojo extends LooseAppSupport {
             // - changes in liberty plugin configuration in the build plugin section
             // - project dependencies changes
             boolean restartServer = false;
+            // restart only if the create goal writes a file that the server reads at startup
+            boolean restartIfConfigRequires = false;
             boolean createServer = false;
             boolean installFeature = false;
             boolean redeployApp = false;
             boolean runBoostPackage = false;
             boolean optimizeGenerateFeatures = false;
 
-            ProjectBuildingResult build;
+            MavenProject builtProject;
             try {
-                build = mavenProjectBuilder.build(buildFile,
-                        session.getProjectBuildingRequest().setResolveDependencies(true));
-            } catch (ProjectBuildingException e) {
+                builtProject = getProjectCache().getProject(buildFile, session.getProjectBuildingRequest());
+            } catch (ProjectBuildingException | IOException e) {
                 log.error("Could not parse pom.xml. " + e.getMessage());
                 log.debug(e);
                 return false;
@@ -862,7 +1022,7 @@ public class DevMojo extends LooseAppSupport {
             // set the updated project in current session;
             Plugin backupLibertyPlugin = getLibertyPlugin();
             MavenProject backupProject = project;
-            project = build.getProject();
+            project = builtProject;
             session.setCurrentProject(project);
             Plugin libertyPlugin = getLibertyPlugin();
 
@@ -875,9 +1035,17 @@ public class DevMojo extends LooseAppSupport {
                     util.updateJavaCompilerOptions(compilerOptions);
                 }
 
+                // the create goal reports which server files changed, unless it is replaced by a container or Boost
+                boolean checkConfigSync = !container && !isUsingBoost();
+
                 // Monitoring liberty properties in the pom.xml
                 if (hasServerPropertyChanged(project, backupProject)) {
-                    restartServer = true;
+                    if (checkConfigSync) {
+                        createServer = true;
+                        restartIfConfigRequires = true;
+                    } else {
+                        restartServer = true;
+                    }
                 }
                 if (!restartServer && hasServerVariableChanged(project, backupProject)) {
                     createServer = true;
@@ -892,7 +1060,11 @@ public class DevMojo extends LooseAppSupport {
                     if (!Objects.equals(config, oldConfig)) {
                         createServer = true;
                         if (restartForLibertyMojoConfigChanged(config, oldConfig)) {
-                            restartServer = true;
+                            if (checkConfigSync) {
+                                restartIfConfigRequires = true;
+                            } else {
+                                restartServer = true;
+                            }
                         }
                     }
                 }
@@ -926,8 +1098,16 @@ public class DevMojo extends LooseAppSupport {
                         // adding or removing compile dependencies (including version changes) will need
                         // to deploy loose app again to remove or add or update embedded libraries in
                         // the loose app
-                        redeployApp = true;
-                        optimizeGenerateFeatures = true;
+                        ClasspathSnapshot.Delta libraries = diffApplicationLibraries(backupProject, project);
+                        if (!libraries.isEmpty()) {
+                            log.debug("Detected a change in the application libraries, " + libraries);
+                            redeployApp = true;
+                        }
+                        // the binary scanner only depends on the Jakarta EE and MicroProfile versions
+                        // of the provided dependencies
+                        if (!dependencyListsEquals(getProvidedDependency(deps), getProvidedDependency(oldDeps))) {
+                            optimizeGenerateFeatures = true;
+                        }
                     }
                 }
                 // update classpath for dependencies changes
@@ -938,8 +1118,8 @@ public class DevMojo extends LooseAppSupport {
                     // remove past artifacts and add the newest calculated (covers the case where a
                     // dependency was deleted)
                     // do not clear list as it may contain dependencies from parent projects
-                    testArtifactPaths.removeAll(backupProject.getTestClasspathElements());
-                    compileArtifactPaths.removeAll(backupProject.getCompileClasspathElements());
+                    testArtifactPaths.removeAll(new LinkedHashSet<String>(backupProject.getTestClasspathElements()));
+                    compileArtifactPaths.removeAll(new LinkedHashSet<String>(backupProject.getCompileClasspathElements()));
                 }
 
                 compileArtifactPaths.addAll(project.getCompileClasspathElements());
@@ -970,7 +1150,14 @@ public class DevMojo extends LooseAppSupport {
                         log.info("Running boost:package");
                         runBoostMojo("package");
                     } else if (createServer) {
-                        runLibertyMojoCreate();
+                        ConfigSyncResult configSync = runLibertyMojoCreate();
+                        if (restartIfConfigRequires) {
+                            if (configSync == null || configSync.isRestartRequired()) {
+                                util.restartServer();
+                                return true;
+                            }
+                            log.debug("The server configuration changes do not require a restart: " + configSync);
+                        }
                     } else if (redeployApp) {
                         util.installFeaturesToTempDir(generatedFeaturesFile, configDirectory, null,
                                 generateFeaturesSuccess);
@@ -1066,47 +1253,164 @@ public class DevMojo extends LooseAppSupport {
         @Override
         public boolean compile(File dir) {
             try {
+                if (dir.equals(sourceDirectory) && compileScheduler != null
+                        && compileScheduler.consumePrecompiled(project.getFile(), dir)) {
+                    log.debug("Skipping compile of " + dir + ", it was already compiled with its upstream modules");
+                    return true;
+                }
+            } catch (IOException e) {
+                log.debug(e);
+            }
+            return compileProject(dir) != CompileResult.FAILED;
+        }
+
+        private CompileResult compileProject(File dir) {
+            try {
+                boolean compiled = true;
                 if (dir.equals(sourceDirectory)) {
-                    runCompileMojoLogWarning();
+                    compiled &= runCompileMojoLogWarning();
                     runMojo("org.apache.maven.plugins", "maven-resources-plugin", "resources");
                 }
                 if (dir.equals(testSourceDirectory)) {
-                    runTestCompileMojoLogWarning();
+                    compiled &= runTestCompileMojoLogWarning();
                     runMojo("org.apache.maven.plugins", "maven-resources-plugin", "testResources");
                 }
-                return true;
+                return compiled ? CompileResult.COMPILED : CompileResult.ERRORS;
             } catch (MojoExecutionException e) {
                 log.error("Unable to compile", e);
-                return false;
+                return CompileResult.FAILED;
             }
         }
 
         @Override
         public boolean compile(File dir, ProjectModule project) {
+            if (compileScheduler == null || !dir.equals(project.getSourceDirectory())) {
+                return compileModule(dir, project) != CompileResult.FAILED;
+            }
+            try {
+                // the dependents of a module that was itself compiled as a dependent were
+                // compiled in the same recompile, so they are not scheduled again
+                boolean scheduled = compileScheduler.isScheduled(project.getBuildFile());
+                if (compileScheduler.consumePrecompiled(project.getBuildFile(), dir)) {
+                    log.debug("Skipping compile of " + dir + ", it was already compiled with its upstream modules");
+                    return true;
+                }
+                CompileResult compiled = compileModule(dir, project);
+                // dependents are not compiled against a module that has compile errors
+                if (compiled != CompileResult.COMPILED || scheduled) {
+                    return compiled != CompileResult.FAILED;
+                }
+                // compile the modules depending on this one by topological level, later
+                // compile requests for those modules are then skipped. Each module is
+                // compiled against its own copy of the Maven project and a clone of the
+                // session, see compileModule.
+                compileScheduler.compileDependents(project.getBuildFile(), new ModuleCompileScheduler.ModuleCompiler() {
+                    @Override
+                    public boolean compile(File buildFile) {
+                        ProjectModule module = getProjectModule(buildFile);
+                        if (module != null) {
+                            return compileModule(module.getSourceDirectory(), module) == CompileResult.COMPILED;
+                        }
+                        return compileProject(sourceDirectory) == CompileResult.COMPILED;
+                    }
+                });
+                return true;
+            } catch (IOException e) {
+                log.error("Unable to compile", e);
+                return false;
+            }
+        }
+
+        /**
+         * Compile a module without scheduling its dependents. Called from the compile
+         * threads of the ModuleCompileScheduler, so it only uses the copy of the Maven
+         * project returned by the project cache, and the mojos run against clones of
+         * the session.
+         */
+        private CompileResult compileModule(File dir, ProjectModule project) {
             MavenProject mavenProject = resolveMavenProject(project.getBuildFile());
             try {
+                boolean compiled = true;
                 if (dir.equals(project.getSourceDirectory())) {
-                    runCompileMojoLogWarning(mavenProject);
+                    compiled &= runCompileMojoLogWarning(mavenProject);
                     runMojoForProject("org.apache.maven.plugins", "maven-resources-plugin", "resources", mavenProject);
                 }
                 if (dir.equals(project.getTestSourceDirectory())) {
-                    runTestCompileMojoLogWarning(mavenProject);
+                    compiled &= runTestCompileMojoLogWarning(mavenProject);
                     runMojoForProject("org.apache.maven.plugins", "maven-resources-plugin", "testResources", mavenProject);
                 }
-                return true;
+                return compiled ? CompileResult.COMPILED : CompileResult.ERRORS;
             } catch (MojoExecutionException e) {
                 log.error("Unable to compile", e);
-                return false;
+                return CompileResult.FAILED;
+            }
+        }
+
+        /**
+         * Stop the current test run if newer changes were detected since it started
+         * 
+         * @throws PluginScenarioException if the test run was cancelled
+         */
+        private void checkTestRunCancelled() throws PluginScenarioException {
+            if (testExecutor != null && testExecutor.isCancelRequested()) {
+                throw new PluginScenarioException(
+                        "Tests were cancelled because changes were detected. The tests will run again with the latest changes.");
+            }
+        }
+
+        /**
+         * Log the test run statistics, at info level when more test runs were
+         * replaced or cancelled since they were last logged
+         */
+        private void logTestExecutorStatistics() {
+            if (testExecutor == null) {
+                return;
+            }
+            String statistics = "Test runs submitted: " + testExecutor.getSubmittedRuns() + ", coalesced: "
+                    + testExecutor.getCoalescedRuns() + ", cancelled: " + testExecutor.getCancelledRuns()
+                    + ", queued: " + testExecutor.getQueueDepth();
+            long wastedRuns = testExecutor.getCoalescedRuns() + testExecutor.getCancelledRuns();
+            if (wastedRuns != reportedWastedTestRuns) {
+                reportedWastedTestRuns = wastedRuns;
+                log.info(statistics);
+            } else {
+                log.debug(statistics);
             }
         }
 
         @Override
         public void runUnitTests(File buildFile) throws PluginExecutionException, PluginScenarioException {
+            logTestExecutorStatistics();
             MavenProject currentProject = resolveMavenProject(buildFile);
+            TestImpactIndex index = getTestImpactIndex(currentProject);
+            Map<File, String> snapshot = null;
+            String testFilter = null;
+            if (index != null) {
+                index.refresh();
+                snapshot = index.snapshot();
+                testFilter = getAffectedTestFilter(index, "maven-surefire-plugin", "test", currentProject);
+                if (testFilter != null && testFilter.isEmpty()) {
+                    log.info("No unit tests are affected by the changes since the last successful test run.");
+                    index.setBaseline("test", snapshot);
+                    return;
+                }
+            }
+            if (warmTestJvm && runUnitTestsInWarmJvm(currentProject, testFilter)) {
+                if (index != null) {
+                    index.setBaseline("test", snapshot);
+                }
+                return;
+            }
             try {
-                runTestMojo("org.apache.maven.plugins", "maven-surefire-plugin", "test", currentProject);
+                checkTestRunCancelled();
+                runTestMojo("org.apache.maven.plugins", "maven-surefire-plugin", "test", currentProject, testFilter);
+                checkTestRunCancelled();
                 runTestMojo("org.apache.maven.plugins", "maven-surefire-report-plugin", "report-only", currentProject);
+                if (index != null) {
+                    index.setBaseline("test", snapshot);
+                }
             } catch (MojoExecutionException e) {
+                checkTestRunCancelled();
                 Throwable cause = e.getCause();
                 if (cause != null && cause instanceof MojoFailureException) {
                     throw new PluginScenarioException("Unit tests failed: " + cause.getLocalizedMessage(), e);
@@ -1116,14 +1420,206 @@ public class DevMojo extends LooseAppSupport {
             }
         }
 
+        /**
+         * Run unit tests in the warm test JVM of the project
+         * 
+         * @param currentProject the Maven project
+         * @param testFilter     the comma separated test classes to run in internal
+         *                       form, or null to run all unit tests
+         * @return true if the tests ran, false if the maven-surefire-plugin should run
+         *         the tests instead
+         * @throws PluginScenarioException if the tests failed or were cancelled
+         */
+        private boolean runUnitTestsInWarmJvm(MavenProject currentProject, String testFilter)
+                throws PluginScenarioException {
+            Plugin plugin = getPluginForProject("org.apache.maven.plugins", "maven-surefire-plugin", currentProject);
+            Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(plugin, "test", log);
+            if (session.getUserProperties().getProperty("test") != null) {
+                return false;
+            }
+            for (String unsupported : WARM_TEST_JVM_UNSUPPORTED_PROPERTIES) {
+                if (session.getUserProperties().getProperty(unsupported) != null
+                        || currentProject.getProperties().getProperty(unsupported) != null) {
+                    log.debug("The " + unsupported
+                            + " property is not supported by the warm test JVM, running maven-surefire-plugin:test");
+                    return false;
+                }
+            }
+            // the warm test JVM does not write test reports
+            if (isSurefireReportConfigured(currentProject)) {
+                log.debug("The project generates test reports, running maven-surefire-plugin:test");
+                return false;
+            }
+            if (config != null) {
+                for (String unsupported : WARM_TEST_JVM_UNSUPPORTED_PARAMS) {
+                    if (config.getChild(unsupported) != null) {
+                        log.debug("The maven-surefire-plugin " + unsupported
+                                + " parameter is not supported by the warm test JVM, running maven-surefire-plugin:test");
+                        return false;
+                    }
+                }
+            }
+            try {
+                Set<String> classpath = new LinkedHashSet<String>(currentProject.getTestClasspathElements());
+                if (util.isMultiModuleProject()) {
+                    ProjectModule projectModule = util.getProjectModule(currentProject.getFile());
+                    classpath.addAll(projectModule != null ? projectModule.getTestArtifacts() : util.getTestArtifacts());
+                }
+                List<String> jars = new ArrayList<String>();
+                List<String> directories = new ArrayList<String>();
+                for (String element : classpath) {
+                    if (new File(element).isDirectory()) {
+                        directories.add(element);
+                    } else {
+                        jars.add(element);
+                    }
+                }
+                addJUnitPlatformLauncher(currentProject, jars);
+
+                List<String> tests = new ArrayList<String>();
+                if (testFilter != null) {
+                    for (String test : testFilter.split(",")) {
+                        tests.add(test.replace('/', '.'));
+                    }
+                } else {
+                    File testOutputDir = new File(currentProject.getBuild().getTestOutputDirectory());
+                    collectUnitTestClasses(testOutputDir, testOutputDir, tests);
+                }
+
+                Map<String, String> properties = new HashMap<String, String>();
+                Xpp3Dom sysProps = config == null ? null : config.getChild("systemPropertyVariables");
+                if (sysProps != null) {
+                    for (Xpp3Dom sysProp : sysProps.getChildren()) {
+                        if (sysProp.getValue() != null) {
+                            properties.put(sysProp.getName(), sysProp.getValue());
+                        }
+                    }
+                }
+
+                WarmTestJvm jvm;
+                synchronized (warmTestJvms) {
+                    String key = currentProject.getFile().getCanonicalPath();
+                    jvm = warmTestJvms.get(key);
+                    if (jvm == null) {
+                        jvm = new WarmTestJvm(currentProject.getBasedir());
+                        warmTestJvms.put(key, jvm);
+                    }
+                }
+                log.info("Running unit tests in the warm test JVM for " + currentProject.getFile());
+                WarmTestJvm.Result result;
+                // only the wait for the test JVM may be interrupted by a newer test run
+                if (testExecutor != null) {
+                    testExecutor.beginInterruptible();
+                }
+                try {
+                    result = jvm.run(jars, directories, properties, tests);
+                } finally {
+                    if (testExecutor != null) {
+                        testExecutor.endInterruptible();
+                    }
+                }
+                log.info(result.toString());
+                if (result.getFailures() > 0 || result.getErrors() > 0) {
+                    throw new PluginScenarioException("Unit tests failed: There are test failures.");
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                checkTestRunCancelled();
+                throw new PluginScenarioException("Unit tests were interrupted.");
+            } catch (IOException | DependencyResolutionRequiredException | MojoExecutionException e) {
+                log.warn("Unable to run unit tests in the warm test JVM, running maven-surefire-plugin:test instead: "
+                        + e.getMessage());
+                log.debug(e);
+                return false;
+            }
+        }
+
+        private boolean isSurefireReportConfigured(MavenProject currentProject) {
+            String key = "org.apache.maven.plugins:maven-surefire-report-plugin";
+            if (currentProject.getPlugin(key) != null) {
+                return true;
+            }
+            if (currentProject.getModel().getReporting() != null) {
+                for (ReportPlugin reportPlugin : currentProject.getModel().getReporting().getPlugins()) {
+                    if (key.equals(reportPlugin.getKey())) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * The JUnit platform launcher is provided by the maven-surefire-plugin rather
+         * than declared by projects, add the version matching the JUnit platform
+         * engine when it is missing.
+         */
+        private void addJUnitPlatformLauncher(MavenProject currentProject, List<String> jars)
+                throws MojoExecutionException {
+            String engineVersion = null;
+            for (Artifact artifact : currentProject.getArtifacts()) {
+                if ("org.junit.platform".equals(artifact.getGroupId())) {
+                    if ("junit-platform-launcher".equals(artifact.getArtifactId())) {
+                        return;
+                    } else if ("junit-platform-engine".equals(artifact.getArtifactId())) {
+                        engineVersion = artifact.getVersion();
+                    }
+                }
+            }
+            if (engineVersion != null) {
+                jars.add(getArtifact("org.junit.platform", "junit-platform-launcher", "jar", engineVersion).getFile()
+                        .getAbsolutePath());
+            }
+        }
+
+        private void collectUnitTestClasses(File root, File dir, List<String> tests) {
+            File[] files = dir.listFiles();
+            if (files == null) {
+                return;
+            }
+            for (File file : files) {
+                String name = file.getName();
+                if (file.isDirectory()) {
+                    collectUnitTestClasses(root, file, tests);
+                } else if (name.endsWith(".class") && name.indexOf('$') < 0 && TestImpactIndex.UNIT_TEST_PATTERN
+                        .matcher(name.substring(0, name.length() - ".class".length())).matches()) {
+                    String relative = root.toURI().relativize(file.toURI()).getPath();
+                    tests.add(relative.substring(0, relative.length() - ".class".length()).replace('/', '.'));
+                }
+            }
+        }
+
         @Override
         public void runIntegrationTests(File buildFile) throws PluginExecutionException, PluginScenarioException {
+            logTestExecutorStatistics();
             MavenProject currentProject = resolveMavenProject(buildFile);
+            TestImpactIndex index = getTestImpactIndex(currentProject);
+            Map<File, String> snapshot = null;
+            String testFilter = null;
+            if (index != null) {
+                index.refresh();
+                snapshot = index.snapshot();
+                testFilter = getAffectedTestFilter(index, "maven-failsafe-plugin", "integration-test", currentProject);
+                if (testFilter != null && testFilter.isEmpty()) {
+                    log.info("No integration tests are affected by the changes since the last successful test run.");
+                    index.setBaseline("integration-test", snapshot);
+                    return;
+                }
+            }
             try {
-                runTestMojo("org.apache.maven.plugins", "maven-failsafe-plugin", "integration-test", currentProject);
+                checkTestRunCancelled();
+                runTestMojo("org.apache.maven.plugins", "maven-failsafe-plugin", "integration-test", currentProject,
+                        testFilter);
+                checkTestRunCancelled();
                 runTestMojo("org.apache.maven.plugins", "maven-surefire-report-plugin", "failsafe-report-only", currentProject);
+                checkTestRunCancelled();
                 runTestMojo("org.apache.maven.plugins", "maven-failsafe-plugin", "verify", currentProject);
+                if (index != null) {
+                    index.setBaseline("integration-test", snapshot);
+                }
             } catch (MojoExecutionException e) {
+                checkTestRunCancelled();
                 Throwable cause = e.getCause();
                 if (cause != null && cause instanceof MojoFailureException) {
                     throw new PluginScenarioException("Integration tests failed: " + cause.getLocalizedMessage(), e);
@@ -1167,6 +1663,8 @@ public class DevMojo extends LooseAppSupport {
             return;
         }
 
+        timeline = new DevTimeline();
+
         String mvnVersion = runtime.getMavenVersion();
         log.debug("Maven version: " + mvnVersion);
         // Maven 3.8.2 and 3.8.3 contain a bug where compile artifacts are not resolved
@@ -1261,21 +1759,10 @@ public class DevMojo extends LooseAppSupport {
         } // else TODO check if the container is already running?
 
         // create an executor for tests with an additional queue of size 1, so
-        // any further changes detected mid-test will be in the following run
-        final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
-                new ArrayBlockingQueue<Runnable>(1, true));
-
-        if (isEar) {
-            runMojo("org.apache.maven.plugins", "maven-ear-plugin", "generate-application-xml");
-            runMojo("org.apache.maven.plugins", "maven-resources-plugin", "resources");
-        } else if (project.getPackaging().equals("pom")) {
-            log.debug("Skipping compile/resources on module with pom packaging type");
-        } else {
-            runMojo("org.apache.maven.plugins", "maven-resources-plugin", "resources");
-            runCompileMojoLogWarning();
-            runMojo("org.apache.maven.plugins", "maven-resources-plugin", "testResources");    
-            runTestCompileMojoLogWarning();
-        }
+        // any further changes detected mid-test will be in the following run. A
+        // newer change replaces the queued run and cancels the run in progress
+        final CoalescingTestExecutor executor = new CoalescingTestExecutor();
+        testExecutor = executor;
 
         sourceDirectory = new File(sourceDirectoryString.trim());
         testSourceDirectory = new File(testSourceDirectoryString.trim());
@@ -1291,46 +1778,61 @@ public class DevMojo extends LooseAppSupport {
         log.debug("Test Source directory: " + testSourceDirectory);
         log.debug("Test Output directory: " + testOutputDirectory);
 
-        if (isUsingBoost()) {
-            log.info("Running boost:package");
-            runBoostMojo("package");
+        if (persistSessionState) {
+            sessionState = new DevSessionState(new File(project.getBuild().getDirectory(), "liberty-dev-state"));
+        }
+
+        if (parallelStartup && !isEar && !project.getPackaging().equals("pom") && !isUsingBoost()) {
+            runParallelStartup();
         } else {
-            if (generateFeatures) {
-                // generate features on startup - provide all classes and only user specified
-                // features to binary scanner
-                try {
-                    String generatedFileCanonicalPath;
-                    try {
-                        generatedFileCanonicalPath = new File(configDirectory,
-                                BinaryScannerUtil.GENERATED_FEATURES_FILE_PATH).getCanonicalPath();
-                    } catch (IOException e) {
-                        generatedFileCanonicalPath = new File(configDirectory,
-                                BinaryScannerUtil.GENERATED_FEATURES_FILE_PATH).toString();
-                    }
-                    log.warn(
-                            "The source configuration directory will be modified. Features will automatically be generated in a new file: "
-                                    + generatedFileCanonicalPath);
-                    runLibertyMojoGenerateFeatures(null, true);
-                } catch (MojoExecutionException e) {
-                    if (e.getCause() != null && e.getCause() instanceof PluginExecutionException) {
-                        // PluginExecutionException indicates that the binary scanner jar could not be found
-                        log.error(e.getMessage() + ".\nDisabling the automatic generation of features.");
-                        generateFeatures = false;
-                    } else {
-                        throw new MojoExecutionException(e.getMessage()
-                        + " To disable the automatic generation of features, start dev mode with -DgenerateFeatures=false.",
-                        e);
-                    }
+            if (isEar) {
+                try (DevTimeline.Span span = startSpan("generate-application-xml", DevTimeline.STEP)) {
+                    runMojo("org.apache.maven.plugins", "maven-ear-plugin", "generate-application-xml");
+                }
+                try (DevTimeline.Span span = startSpan("resources", DevTimeline.STEP)) {
+                    runMojo("org.apache.maven.plugins", "maven-resources-plugin", "resources");
+                }
+            } else if (project.getPackaging().equals("pom")) {
+                log.debug("Skipping compile/resources on module with pom packaging type");
+            } else {
+                try (DevTimeline.Span span = startSpan("resources", DevTimeline.STEP)) {
+                    runMojo("org.apache.maven.plugins", "maven-resources-plugin", "resources");
+                }
+                try (DevTimeline.Span span = startSpan("compile", DevTimeline.STEP)) {
+                    runStartupCompile("compile");
+                }
+                try (DevTimeline.Span span = startSpan("testResources", DevTimeline.STEP)) {
+                    runMojo("org.apache.maven.plugins", "maven-resources-plugin", "testResources");
+                }
+                try (DevTimeline.Span span = startSpan("testCompile", DevTimeline.STEP)) {
+                    runStartupCompile("testCompile");
                 }
             }
-            runLibertyMojoCreate();
-            // If non-container, install features before starting server. Otherwise, user
-            // should have "RUN features.sh" in their Dockerfile if they want features to be
-            // installed.
-            if (!container) {
-                runLibertyMojoInstallFeature(null, null, null);
+
+            if (isUsingBoost()) {
+                log.info("Running boost:package");
+                try (DevTimeline.Span span = startSpan("boost:package", DevTimeline.STEP)) {
+                    runBoostMojo("package");
+                }
+            } else {
+                if (generateFeatures) {
+                    runStartupGenerateFeatures();
+                }
+                try (DevTimeline.Span span = startSpan("create", DevTimeline.STEP)) {
+                    runLibertyMojoCreate();
+                }
+                // If non-container, install features before starting server. Otherwise, user
+                // should have "RUN features.sh" in their Dockerfile if they want features to be
+                // installed.
+                if (!container) {
+                    try (DevTimeline.Span span = startSpan("install-feature", DevTimeline.STEP)) {
+                        runLibertyMojoInstallFeature(null, null, null);
+                    }
+                }
+                try (DevTimeline.Span span = startSpan("deploy", DevTimeline.STEP)) {
+                    runLibertyMojoDeploy();
+                }
             }
-            runLibertyMojoDeploy();
         }
         
         if (project.getPackaging().equals("war")) {
@@ -1404,6 +1906,13 @@ public class DevMojo extends LooseAppSupport {
 
                 upstreamProjects.add(upstreamProject);
             }
+            if (recompileDeps) {
+                Map<File, List<File>> dependentModules = new HashMap<File, List<File>>();
+                for (ProjectModule upstreamProject : upstreamProjects) {
+                    dependentModules.put(upstreamProject.getBuildFile(), upstreamProject.getDependentModules());
+                }
+                compileScheduler = new ModuleCompileScheduler(dependentModules, recompileParallelism, log);
+            }
         }
 
         // skip unit tests for ear applications
@@ -1418,12 +1927,21 @@ public class DevMojo extends LooseAppSupport {
         Set<String> compileArtifactPaths = new HashSet<String>(project.getCompileClasspathElements());
         Set<String> testArtifactPaths = new HashSet<String>(project.getTestClasspathElements());
 
+        // the session projects are already resolved, reuse them until their pom.xml files change
+        getProjectCache().seed(project);
+        for (MavenProject p : upstreamMavenProjects) {
+            getProjectCache().seed(p);
+        }
+
         util = new DevMojoUtil(installDirectory, userDirectory, serverDirectory, sourceDirectory, testSourceDirectory,
                 configDirectory, project.getBasedir(), multiModuleProjectDirectory, resourceDirs, compilerOptions,
                 settings.getLocalRepository(), upstreamProjects, upstreamMavenProjects, recompileDeps, pom, parentPoms, 
                 generateFeatures, compileArtifactPaths, testArtifactPaths, webResourceDirs);
         util.addShutdownHook(executor);
-        util.startServer();
+        try (DevTimeline.Span span = startSpan("start server", DevTimeline.STEP)) {
+            util.startServer();
+        }
+        writeTimeline();
 
         // start watching for keypresses immediately
         util.runHotkeyReaderThread(executor);
@@ -1442,6 +1960,10 @@ public class DevMojo extends LooseAppSupport {
                 log.info(e.getMessage());
             }
             return; // enter shutdown hook
+        } finally {
+            if (compileScheduler != null) {
+                compileScheduler.shutdown();
+            }
         }
     }
 
@@ -1623,17 +2145,310 @@ public class DevMojo extends LooseAppSupport {
         }
     }
 
+    /**
+     * Generate features on startup - provide all classes and only user specified
+     * features to binary scanner. Disables the generation of features if the
+     * binary scanner is not available.
+     * 
+     * @throws MojoExecutionException
+     */
+    private void runStartupGenerateFeatures() throws MojoExecutionException {
+        String key = getStartupGenerateFeaturesKey();
+        if (sessionState != null && sessionState.isUpToDate("generate-features", key)) {
+            getLog().info("Skipping generate-features, the classes and configuration are unchanged since the previous dev mode session.");
+            return;
+        }
+        try {
+            String generatedFileCanonicalPath;
+            try {
+                generatedFileCanonicalPath = new File(configDirectory,
+                        BinaryScannerUtil.GENERATED_FEATURES_FILE_PATH).getCanonicalPath();
+            } catch (IOException e) {
+                generatedFileCanonicalPath = new File(configDirectory,
+                        BinaryScannerUtil.GENERATED_FEATURES_FILE_PATH).toString();
+            }
+            getLog().warn(
+                    "The source configuration directory will be modified. Features will automatically be generated in a new file: "
+                            + generatedFileCanonicalPath);
+            try (DevTimeline.Span span = startSpan("generate-features", DevTimeline.STEP)) {
+                runLibertyMojoGenerateFeatures(null, true);
+            }
+            recordStartupStep("generate-features", getStartupGenerateFeaturesKey());
+        } catch (MojoExecutionException e) {
+            if (e.getCause() != null && e.getCause() instanceof PluginExecutionException) {
+                // PluginExecutionException indicates that the binary scanner jar could not be found
+                getLog().error(e.getMessage() + ".\nDisabling the automatic generation of features.");
+                generateFeatures = false;
+            } else {
+                throw new MojoExecutionException(e.getMessage()
+                + " To disable the automatic generation of features, start dev mode with -DgenerateFeatures=false.",
+                e);
+            }
+        }
+    }
+
+    /**
+     * Executes maven:compile or maven:testCompile on startup, unless the previous
+     * dev mode session compiled the same sources with the same classpath and
+     * compiler options
+     * 
+     * @param goal Maven compile goal
+     * @throws MojoExecutionException
+     */
+    private void runStartupCompile(String goal) throws MojoExecutionException {
+        boolean testCompile = "testCompile".equals(goal);
+        if (sessionState != null && sessionState.isUpToDate(goal, getStartupCompileKey(goal))) {
+            log.info("Skipping maven-compiler-plugin:" + goal
+                    + ", the classes are up to date with the previous dev mode session.");
+            if (!testCompile) {
+                updateArtifactPathToOutputDirectory(project);
+            }
+            return;
+        }
+        boolean compiled = testCompile ? runTestCompileMojoLogWarning() : runCompileMojoLogWarning();
+        // sources with compilation errors are compiled again by the next session
+        if (compiled) {
+            recordStartupStep(goal, getStartupCompileKey(goal));
+        }
+    }
+
+    /**
+     * Get the session state key of a compile goal
+     * 
+     * @param goal Maven compile goal
+     * @return the key, or null if the sources have no current class files
+     */
+    private String getStartupCompileKey(String goal) {
+        if (sessionState == null) {
+            return null;
+        }
+        boolean testCompile = "testCompile".equals(goal);
+        Build build = project.getBuild();
+        File outputDir = new File(testCompile ? build.getTestOutputDirectory() : build.getOutputDirectory());
+        List<String> values = getStartupPomFingerprints();
+        try {
+            List<String> sourceRoots = testCompile ? project.getTestCompileSourceRoots()
+                    : project.getCompileSourceRoots();
+            for (String sourceRoot : sourceRoots) {
+                File sourceDir = new File(sourceRoot);
+                // compile errors leave sources without current class files
+                if (!DevSessionState.hasCurrentClasses(sourceDir, outputDir)) {
+                    return null;
+                }
+                values.add(sourceRoot);
+                values.add(DevSessionState.fingerprint(sourceDir, null));
+            }
+            List<String> classpath = testCompile ? project.getTestClasspathElements()
+                    : project.getCompileClasspathElements();
+            for (String element : classpath) {
+                values.add(element);
+                values.add(DevSessionState.fingerprint(new File(element), ".class"));
+            }
+        } catch (DependencyResolutionRequiredException e) {
+            log.debug(e);
+            return null;
+        }
+        values.addAll(getMavenCompilerOptions(project).getOptions());
+        values.add(DevSessionState.fingerprint(outputDir, ".class"));
+        return DevSessionState.key(values);
+    }
+
+    /**
+     * Get the session state key of the startup generate-features step
+     * 
+     * @return the key, or null if the compile classpath is not resolved
+     */
+    private String getStartupGenerateFeaturesKey() {
+        if (sessionState == null) {
+            return null;
+        }
+        List<String> values = getStartupPomFingerprints();
+        try {
+            for (String element : project.getCompileClasspathElements()) {
+                values.add(element);
+                values.add(DevSessionState.fingerprint(new File(element), ".class"));
+            }
+        } catch (DependencyResolutionRequiredException e) {
+            log.debug(e);
+            return null;
+        }
+        values.add(DevSessionState.fingerprint(configDirectory, null));
+        return DevSessionState.key(values);
+    }
+
+    private List<String> getStartupPomFingerprints() {
+        List<String> values = new ArrayList<String>();
+        for (MavenProject p = project; p != null; p = p.getParent()) {
+            if (p.getFile() != null) {
+                values.add(p.getFile().getAbsolutePath());
+                values.add(DevSessionState.fingerprint(p.getFile(), null));
+            }
+        }
+        return values;
+    }
+
+    private void recordStartupStep(String step, String key) {
+        if (sessionState != null) {
+            try {
+                sessionState.record(step, key);
+            } catch (IOException e) {
+                log.debug("Unable to record the dev mode session state of " + step, e);
+            }
+        }
+    }
+
+    /**
+     * Runs the startup steps of a jar or war project, running each step as soon
+     * as the steps it depends on have completed. The server is created once the
+     * features are generated since it copies the configuration directory, and
+     * the application is deployed once it is compiled and the features are
+     * installed.
+     * 
+     * The compile steps run against the project itself, since later steps use
+     * the compile source roots and artifact file they set. The other steps run
+     * against their own copy of the session and project, taken before any step
+     * starts.
+     * 
+     * @throws MojoExecutionException
+     */
+    private void runParallelStartup() throws MojoExecutionException {
+        StartupTaskGraph graph = new StartupTaskGraph(log);
+        graph.add("resources", withSessionCopy(new StartupTaskGraph.Task() {
+            @Override
+            public void run() throws Exception {
+                try (DevTimeline.Span span = startSpan("resources", DevTimeline.STEP)) {
+                    runMojo("org.apache.maven.plugins", "maven-resources-plugin", "resources");
+                }
+            }
+        }));
+        graph.add("compile", new StartupTaskGraph.Task() {
+            @Override
+            public void run() throws Exception {
+                try (DevTimeline.Span span = startSpan("compile", DevTimeline.STEP)) {
+                    runStartupCompile("compile");
+                }
+            }
+        });
+        graph.add("testResources", withSessionCopy(new StartupTaskGraph.Task() {
+            @Override
+            public void run() throws Exception {
+                try (DevTimeline.Span span = startSpan("testResources", DevTimeline.STEP)) {
+                    runMojo("org.apache.maven.plugins", "maven-resources-plugin", "testResources");
+                }
+            }
+        }));
+        graph.add("testCompile", new StartupTaskGraph.Task() {
+            @Override
+            public void run() throws Exception {
+                try (DevTimeline.Span span = startSpan("testCompile", DevTimeline.STEP)) {
+                    runStartupCompile("testCompile");
+                }
+            }
+        }, "compile");
+        if (generateFeatures) {
+            // the binary scanner scans the compiled classes
+            graph.add("generate-features", withSessionCopy(new StartupTaskGraph.Task() {
+                @Override
+                public void run() throws Exception {
+                    runStartupGenerateFeatures();
+                }
+            }), "compile");
+        }
+        graph.add("create", withSessionCopy(new StartupTaskGraph.Task() {
+            @Override
+            public void run() throws Exception {
+                try (DevTimeline.Span span = startSpan("create", DevTimeline.STEP)) {
+                    runLibertyMojoCreate();
+                }
+            }
+        }), "generate-features");
+        if (!container) {
+            graph.add("install-feature", withSessionCopy(new StartupTaskGraph.Task() {
+                @Override
+                public void run() throws Exception {
+                    try (DevTimeline.Span span = startSpan("install-feature", DevTimeline.STEP)) {
+                        runLibertyMojoInstallFeature(null, null, null);
+                    }
+                }
+            }), "create");
+        }
+        final MavenSession deploySession = copySession();
+        graph.add("deploy", withSessionCopy(new StartupTaskGraph.Task() {
+            @Override
+            public void run() throws Exception {
+                // the copy was taken before the compile step pointed the artifact at the classes
+                updateArtifactPathToOutputDirectory(deploySession.getCurrentProject());
+                try (DevTimeline.Span span = startSpan("deploy", DevTimeline.STEP)) {
+                    runLibertyMojoDeploy();
+                }
+            }
+        }, deploySession), "create", "install-feature", "resources", "compile");
+        try {
+            graph.run();
+        } catch (MojoExecutionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+
+    private StartupTaskGraph.Task withSessionCopy(StartupTaskGraph.Task task) {
+        return withSessionCopy(task, copySession());
+    }
+
+    /**
+     * Run a startup step with a copy of the session and project, so that it does
+     * not share Maven state with the steps running at the same time
+     */
+    private StartupTaskGraph.Task withSessionCopy(final StartupTaskGraph.Task task, final MavenSession sessionCopy) {
+        return new StartupTaskGraph.Task() {
+            @Override
+            public void run() throws Exception {
+                setMojoSession(sessionCopy);
+                try {
+                    task.run();
+                } finally {
+                    clearMojoSession();
+                }
+            }
+        };
+    }
+
+    /**
+     * Write the startup timeline to the build directory and stop recording
+     */
+    private void writeTimeline() {
+        DevTimeline startupTimeline = timeline;
+        if (startupTimeline == null) {
+            return;
+        }
+        timeline = null;
+        File timelineFile = new File(project.getBuild().getDirectory(), "liberty-dev-timeline.json");
+        try {
+            startupTimeline.write(timelineFile);
+            log.info(startupTimeline.getSummary() + ". Timeline written to " + timelineFile);
+        } catch (IOException e) {
+            log.debug("Unable to write the dev mode startup timeline to " + timelineFile, e);
+        }
+    }
+
+    private synchronized MavenProjectCache getProjectCache() {
+        if (projectCache == null) {
+            projectCache = new MavenProjectCache(mavenProjectBuilder, log);
+        }
+        return projectCache;
+    }
+
     private MavenProject resolveMavenProject(File buildFile) {
-        ProjectBuildingResult build;
         MavenProject currentProject = project; // default to main project
         try {
             if (buildFile != null && !project.getFile().getCanonicalPath().equals(buildFile.getCanonicalPath())) {
-                build = mavenProjectBuilder.build(buildFile,
-                        session.getProjectBuildingRequest().setResolveDependencies(true));
+                MavenProject builtProject = getProjectCache().getProject(buildFile,
+                        session.getProjectBuildingRequest());
                 // if we can resolve the project associated with build file, run tests on
                 // corresponding project
-                if (build.getProject() != null) {
-                    currentProject = build.getProject();
+                if (builtProject != null) {
+                    currentProject = builtProject;
                 }
             }
         } catch (ProjectBuildingException | IOException e) {
@@ -1644,8 +2459,88 @@ public class DevMojo extends LooseAppSupport {
         return currentProject;
     }
 
+    /**
+     * Get the test impact index of a project
+     * 
+     * @param project the Maven project
+     * @return the index, or null if testImpactAnalysis is not enabled
+     */
+    private TestImpactIndex getTestImpactIndex(MavenProject project) {
+        if (!testImpactAnalysis) {
+            return null;
+        }
+        synchronized (testImpactIndexes) {
+            String key = project.getFile().getAbsolutePath();
+            TestImpactIndex index = testImpactIndexes.get(key);
+            if (index == null) {
+                index = new TestImpactIndex(new File(project.getBuild().getOutputDirectory()),
+                        new File(project.getBuild().getTestOutputDirectory()));
+                testImpactIndexes.put(key, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Get the test filter that selects the test classes affected by the changes
+     * since the last successful run of a test goal. All tests run if there is no
+     * previous successful run, if nothing changed since, or if the user selects
+     * tests with the test or includes parameters. Integration tests exercise the
+     * running application, so they are only filtered when the changes are
+     * confined to test classes.
+     * 
+     * @param index      the test impact index of the project
+     * @param artifactId the test plugin artifact id
+     * @param goal       the test goal
+     * @param project    the Maven project
+     * @return the comma separated test classes to run, an empty string if no test
+     *         classes are affected, or null to run all tests
+     */
+    private String getAffectedTestFilter(TestImpactIndex index, String artifactId, String goal,
+            MavenProject project) {
+        boolean integrationTests = goal.equals("integration-test");
+        if (!index.hasBaseline(goal)
+                || session.getUserProperties().getProperty(integrationTests ? "it.test" : "test") != null) {
+            return null;
+        }
+        Plugin plugin = getPluginForProject("org.apache.maven.plugins", artifactId, project);
+        Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(plugin, goal, log);
+        if (config != null && (config.getChild("test") != null || config.getChild("includes") != null
+                || config.getChild("includesFile") != null)) {
+            return null;
+        }
+        Set<String> changed = index.getChangedClasses(goal);
+        if (changed.isEmpty() || (integrationTests && !index.areTestClasses(changed))) {
+            return null;
+        }
+        if (index.hasConstantFields(changed)) {
+            log.debug("Running all tests since changed classes declare compile time constants: " + changed);
+            return null;
+        }
+        Set<String> tests = index.getAffectedTests(changed, integrationTests ? TestImpactIndex.INTEGRATION_TEST_PATTERN
+                : TestImpactIndex.UNIT_TEST_PATTERN);
+        log.debug("Changed classes: " + changed);
+        if (!tests.isEmpty()) {
+            log.info("Running " + tests.size() + " test classes affected by the changes since the last successful test run.");
+            log.debug("Affected test classes: " + tests);
+        }
+        StringBuilder filter = new StringBuilder();
+        for (String test : tests) {
+            if (filter.length() > 0) {
+                filter.append(',');
+            }
+            filter.append(test);
+        }
+        return filter.toString();
+    }
+
     private void runTestMojo(String groupId, String artifactId, String goal, MavenProject project)
             throws MojoExecutionException {
+        runTestMojo(groupId, artifactId, goal, project, null);
+    }
+
+    private void runTestMojo(String groupId, String artifactId, String goal, MavenProject project, String testFilter)
+            throws MojoExecutionException {
         Plugin plugin = getPluginForProject(groupId, artifactId, project);
         Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(plugin, goal, log);
 
@@ -1672,8 +2567,10 @@ public class DevMojo extends LooseAppSupport {
 
         if (goal.equals("test")) {
             injectTestId(config);
+            injectTestFilter(config, testFilter);
         } else if (goal.equals("integration-test")) {
             injectTestId(config);
+            injectTestFilter(config, testFilter);
             injectLibertyProperties(config);
 
             // clean up previous summary file
@@ -1737,7 +2634,38 @@ public class DevMojo extends LooseAppSupport {
                 + " configuration:\n" + config);
         MavenSession tempSession = session.clone();
         tempSession.setCurrentProject(project);
-        executeMojo(plugin, goal(goal), config, executionEnvironment(project, tempSession, pluginManager));
+        // a newer test run interrupts the wait for the forked test JVMs, which destroys them
+        boolean interruptible = testExecutor != null && (goal.equals("test") || goal.equals("integration-test"))
+                && isForkedTestRun(config, project);
+        if (interruptible) {
+            testExecutor.beginInterruptible();
+        }
+        try {
+            executeMojo(plugin, goal(goal), config, executionEnvironment(project, tempSession, pluginManager));
+        } finally {
+            if (interruptible) {
+                testExecutor.endInterruptible();
+            }
+        }
+    }
+
+    /**
+     * Whether the maven-surefire-plugin or maven-failsafe-plugin runs the tests in
+     * forked JVMs, rather than in the Maven JVM where an interrupt would reach the
+     * tests themselves
+     */
+    private boolean isForkedTestRun(Xpp3Dom config, MavenProject project) {
+        String forkCount = session.getUserProperties().getProperty("forkCount",
+                project.getProperties().getProperty("forkCount"));
+        String forkMode = session.getUserProperties().getProperty("forkMode",
+                project.getProperties().getProperty("forkMode"));
+        if (config != null && config.getChild("forkCount") != null) {
+            forkCount = config.getChild("forkCount").getValue();
+        }
+        if (config != null && config.getChild("forkMode") != null) {
+            forkMode = config.getChild("forkMode").getValue();
+        }
+        return !"0".equals(forkCount) && !"never".equals(forkMode);
     }
 
     /**
@@ -1785,6 +2713,26 @@ public class DevMojo extends LooseAppSupport {
         }
     }
 
+    /**
+     * Limit the test classes to run
+     *
+     * @param config     The configuration element
+     * @param testFilter The comma separated test classes in internal form, or null
+     *                   to run all tests
+     */
+    private void injectTestFilter(Xpp3Dom config, String testFilter) {
+        if (testFilter == null || config.getChild("test") != null) {
+            return;
+        }
+        config.addChild(element(name("test"), testFilter).toDom());
+        Xpp3Dom failIfNoSpecifiedTests = config.getChild("failIfNoSpecifiedTests");
+        if (failIfNoSpecifiedTests == null) {
+            config.addChild(element(name("failIfNoSpecifiedTests"), "false").toDom());
+        } else {
+            failIfNoSpecifiedTests.setValue("false");
+        }
+    }
+
     /**
      * Add Liberty system properties for tests to consume.
      *
@@ -1849,62 +2797,150 @@ public class DevMojo extends LooseAppSupport {
     }
 
     /**
-     * Executes Maven goal passed but sets failOnError to false All errors are
-     * logged as warning messages
+     * Executes Maven goal passed. Compilation errors are logged and do not fail
+     * the goal
      * 
      * @param goal         Maven compile goal
      * @param MavenProject Maven project to run compile goal against, null if
      *                     default project is to be used
+     * @return true if the sources compiled without errors
      * @throws MojoExecutionException
      */
-    private void runCompileMojo(String goal, MavenProject mavenProject) throws MojoExecutionException {
+    private boolean runCompileMojo(String goal, MavenProject mavenProject) throws MojoExecutionException {
+        Boolean compiledInProcess = runInProcessCompile(goal, mavenProject);
+        if (compiledInProcess != null) {
+            return compiledInProcess;
+        }
         Plugin plugin = getPluginForProject("org.apache.maven.plugins", "maven-compiler-plugin", mavenProject);
         MavenSession tempSession = session.clone();
         tempSession.setCurrentProject(mavenProject);
         MavenProject tempProject = mavenProject;
         Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(plugin, goal, log);
-        config = Xpp3Dom.mergeXpp3Dom(configuration(element(name("failOnError"), "false")), config);
+        // the plugin logs the compilation errors either way, failing is how it reports them
+        config = Xpp3Dom.mergeXpp3Dom(configuration(element(name("failOnError"), "true")), config);
         log.info("Running maven-compiler-plugin:" + goal + " on " + tempProject.getFile());
         log.debug("configuration:\n" + config);
-        executeMojo(plugin, goal(goal), config, executionEnvironment(tempProject, tempSession, pluginManager));
+        try (DevTimeline.Span span = startSpan("maven-compiler-plugin:" + goal + " " + tempProject.getArtifactId(),
+                DevTimeline.MOJO)) {
+            executeMojo(plugin, goal(goal), config, executionEnvironment(tempProject, tempSession, pluginManager));
+        } catch (MojoExecutionException e) {
+            if (e.getCause() instanceof MojoFailureException) {
+                log.debug(e);
+                return false;
+            }
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Compiles the changed sources with the in-process compiler if inProcessCompile
+     * is set. All errors are logged as warning messages
+     * 
+     * @param goal         Maven compile goal
+     * @param mavenProject Maven project to compile
+     * @return true if the sources compiled without errors, false if they had
+     *         errors, or null if the maven-compiler-plugin should be used instead
+     */
+    private Boolean runInProcessCompile(String goal, MavenProject mavenProject) {
+        if (!inProcessCompile) {
+            return null;
+        }
+        IncrementalJavaCompiler incrementalCompiler = getIncrementalCompiler();
+        if (incrementalCompiler == null) {
+            return null;
+        }
+        Plugin plugin = getPluginForProject("org.apache.maven.plugins", "maven-compiler-plugin", mavenProject);
+        Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(plugin, goal, log);
+        if (config != null) {
+            for (String unsupported : IN_PROCESS_COMPILE_UNSUPPORTED_PARAMS) {
+                if (config.getChild(unsupported) != null) {
+                    log.debug("The maven-compiler-plugin " + unsupported
+                            + " parameter is not supported by the in-process compiler, running maven-compiler-plugin:"
+                            + goal);
+                    return null;
+                }
+            }
+        }
+        boolean testCompile = "testCompile".equals(goal);
+        Build build = mavenProject.getBuild();
+        File sourceDir = new File(testCompile ? build.getTestSourceDirectory() : build.getSourceDirectory());
+        File outputDir = new File(testCompile ? build.getTestOutputDirectory() : build.getOutputDirectory());
+        if (!sourceDir.isDirectory()) {
+            return true;
+        }
+        try {
+            List<String> classpath = testCompile ? mavenProject.getTestClasspathElements()
+                    : mavenProject.getCompileClasspathElements();
+            List<String> options = getMavenCompilerOptions(mavenProject).getOptions();
+            log.info("Compiling " + sourceDir + " with the in-process compiler");
+            IncrementalJavaCompiler.Result result = incrementalCompiler.compile(sourceDir, outputDir, classpath,
+                    options);
+            for (String message : result.getMessages()) {
+                log.warn(message);
+            }
+            log.debug("Compiled " + result.getCompiledSources() + " source files from " + sourceDir);
+            return result.isSuccess();
+        } catch (IOException | DependencyResolutionRequiredException | RuntimeException e) {
+            log.warn("The in-process compiler failed, running maven-compiler-plugin:" + goal + ": " + e.getMessage());
+            log.debug(e);
+            return null;
+        }
+    }
+
+    private synchronized IncrementalJavaCompiler getIncrementalCompiler() {
+        if (incrementalCompiler == null && inProcessCompile) {
+            incrementalCompiler = IncrementalJavaCompiler.create();
+            if (incrementalCompiler == null) {
+                log.warn("The inProcessCompile parameter requires a JDK. Using the maven-compiler-plugin instead.");
+                inProcessCompile = false;
+            }
+        }
+        return incrementalCompiler;
     }
 
     /**
-     * Executes maven:compile but logs errors as warning messages
+     * Executes maven:compile but only logs compilation errors
      * 
+     * @return true if the sources compiled without errors
      * @throws MojoExecutionException
      */
-    private void runCompileMojoLogWarning() throws MojoExecutionException {
-        runCompileMojo("compile", project);
+    private boolean runCompileMojoLogWarning() throws MojoExecutionException {
+        boolean compiled = runCompileMojo("compile", project);
         updateArtifactPathToOutputDirectory(project);
+        return compiled;
     }
 
     /**
-     * Executes maven:compile but logs errors as warning messages
+     * Executes maven:compile but only logs compilation errors
      * 
+     * @return true if the sources compiled without errors
      * @throws MojoExecutionException
      */
-    private void runCompileMojoLogWarning(MavenProject mavenProject) throws MojoExecutionException {
-        runCompileMojo("compile", mavenProject);
+    private boolean runCompileMojoLogWarning(MavenProject mavenProject) throws MojoExecutionException {
+        boolean compiled = runCompileMojo("compile", mavenProject);
         updateArtifactPathToOutputDirectory(mavenProject);
+        return compiled;
     }
 
     /**
-     * Executes maven:testCompile but logs errors as warning messages
+     * Executes maven:testCompile but only logs compilation errors
      * 
+     * @return true if the sources compiled without errors
      * @throws MojoExecutionException
      */
-    private void runTestCompileMojoLogWarning() throws MojoExecutionException {
-        runCompileMojo("testCompile", project);
+    private boolean runTestCompileMojoLogWarning() throws MojoExecutionException {
+        return runCompileMojo("testCompile", project);
     }
 
     /**
-     * Executes maven:testCompile but logs errors as warning messages
+     * Executes maven:testCompile but only logs compilation errors
      * 
+     * @return true if the sources compiled without errors
      * @throws MojoExecutionException
      */
-    private void runTestCompileMojoLogWarning(MavenProject mavenProject) throws MojoExecutionException {
-        runCompileMojo("testCompile", mavenProject);
+    private boolean runTestCompileMojoLogWarning(MavenProject mavenProject) throws MojoExecutionException {
+        return runCompileMojo("testCompile", mavenProject);
     }
 
     /**
@@ -1921,10 +2957,12 @@ public class DevMojo extends LooseAppSupport {
      * Executes liberty:create unless using a container, then just create the
      * necessary server directories
      * 
+     * @return the configuration files that the create goal changed, or null if
+     *         it did not sync them
      * @throws MojoExecutionException
      */
     @Override
-    protected void runLibertyMojoCreate() throws MojoExecutionException {
+    protected ConfigSyncResult runLibertyMojoCreate() throws MojoExecutionException {
         if (container) {
             log.debug("runLibertyMojoCreate check for installDirectory and serverDirectory");
             if (!installDirectory.isDirectory()) {
@@ -1933,8 +2971,9 @@ public class DevMojo extends LooseAppSupport {
             if (!serverDirectory.isDirectory()) {
                 serverDirectory.mkdirs();
             }
+            return null;
         } else {
-            super.runLibertyMojoCreate();
+            return super.runLibertyMojoCreate();
         }
     }
 
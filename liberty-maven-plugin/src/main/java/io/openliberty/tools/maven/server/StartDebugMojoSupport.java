@@ -27,10 +27,13 @@ import static org.twdata.maven.mojoexecutor.MojoExecutor.plugin;
 import static org.twdata.maven.mojoexecutor.MojoExecutor.version;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -39,6 +42,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -61,8 +65,6 @@ import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
-import org.apache.tools.ant.taskdefs.Copy;
-import org.apache.tools.ant.types.FileSet;
 import org.codehaus.mojo.pluginsupport.util.ArtifactItem;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.twdata.maven.mojoexecutor.MojoExecutor.Element;
@@ -71,6 +73,10 @@ import io.openliberty.tools.ant.ServerTask;
 import io.openliberty.tools.common.plugins.config.ServerConfigXmlDocument;
 import io.openliberty.tools.maven.ServerFeatureSupport;
 import io.openliberty.tools.maven.applications.LooseWarApplication;
+import io.openliberty.tools.maven.utils.ConfigSync;
+import io.openliberty.tools.maven.utils.ConfigSyncResult;
+import io.openliberty.tools.maven.utils.DependencySync;
+import io.openliberty.tools.maven.utils.DevTimeline;
 import io.openliberty.tools.maven.utils.ExecuteMojoUtil;
 
 /**
@@ -85,6 +91,8 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
     private static final Pattern pattern = Pattern.compile(LIBERTY_CONFIG_MAVEN_PROPS);
 
     private static boolean configFilesCopied = false;
+    // the project context key of the configuration sync result of the create goal
+    protected static final String CONFIG_SYNC_RESULT = ConfigSyncResult.class.getName();
 
     protected final String PLUGIN_VARIABLE_CONFIG_OVERRIDES_XML = "configDropins/overrides/liberty-plugin-variable-config.xml";
     protected final String PLUGIN_VARIABLE_CONFIG_DEFAULTS_XML = "configDropins/defaults/liberty-plugin-variable-config.xml";
@@ -95,6 +103,12 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
     protected Map<String,String> varMavenProps = new HashMap<String,String>();  
     protected Map<String,String> defaultVarMavenProps = new HashMap<String,String>();  
 
+    // records the goals run during dev mode startup, null when not recording
+    protected volatile DevTimeline timeline = null;
+
+    // the copy of the session that mojos started by the current thread run with, if any
+    private final ThreadLocal<MavenSession> mojoSession = new ThreadLocal<MavenSession>();
+
     protected Map<String,String> combinedBootstrapProperties = null;
     protected List<String> combinedJvmOptions = null;
     
@@ -183,13 +197,64 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
         return serverTask;
     }
     
+    /**
+     * Start a timeline span, or a span that is not recorded if there is no
+     * timeline
+     * 
+     * @param name     the span name
+     * @param category the span category
+     * @return the span
+     */
+    protected DevTimeline.Span startSpan(String name, String category) {
+        DevTimeline currentTimeline = timeline;
+        return currentTimeline == null ? DevTimeline.Span.NONE : currentTimeline.start(name, category);
+    }
+
+    /**
+     * Copy the session and its current project, for mojos that run at the same
+     * time as other mojos of this project
+     * 
+     * @return the session copy, with a copy of the project as its current project
+     */
+    protected MavenSession copySession() {
+        MavenSession sessionCopy = session.clone();
+        sessionCopy.setCurrentProject(project.clone());
+        return sessionCopy;
+    }
+
+    /**
+     * Run the mojos started by the current thread with a copy of the session and
+     * project, until {@link #clearMojoSession()} is called
+     * 
+     * @param sessionCopy the session copy, see {@link #copySession()}
+     */
+    protected void setMojoSession(MavenSession sessionCopy) {
+        mojoSession.set(sessionCopy);
+    }
+
+    protected void clearMojoSession() {
+        mojoSession.remove();
+    }
+
+    private MavenSession getMojoSession() {
+        MavenSession sessionCopy = mojoSession.get();
+        return sessionCopy != null ? sessionCopy : session;
+    }
+
+    private MavenProject getMojoProject() {
+        MavenSession sessionCopy = mojoSession.get();
+        return sessionCopy != null ? sessionCopy.getCurrentProject() : project;
+    }
+
     protected void runMojo(String groupId, String artifactId, String goal) throws MojoExecutionException {
         Plugin plugin = getPlugin(groupId, artifactId);
         Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(plugin, goal, log);
         log.info("Running " + artifactId + ":" + goal);
         log.debug("configuration:\n" + config);
-        executeMojo(plugin, goal(goal), config,
-                executionEnvironment(project, session, pluginManager));
+        try (DevTimeline.Span span = startSpan(artifactId + ":" + goal, DevTimeline.MOJO)) {
+            executeMojo(plugin, goal(goal), config,
+                    executionEnvironment(getMojoProject(), getMojoSession(), pluginManager));
+        }
     }
     
     /**
@@ -207,8 +272,11 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
         }
         log.info("Running maven-war-plugin:exploded");
         log.debug("configuration:\n" + explodedConfig);
-        session.getRequest().setStartTime(new Date());
-        executeMojo(warPlugin, goal("exploded"), explodedConfig, executionEnvironment(project, session, pluginManager));
+        getMojoSession().getRequest().setStartTime(new Date());
+        try (DevTimeline.Span span = startSpan("maven-war-plugin:exploded", DevTimeline.MOJO)) {
+            executeMojo(warPlugin, goal("exploded"), explodedConfig,
+                    executionEnvironment(getMojoProject(), getMojoSession(), pluginManager));
+        }
     }
 
     protected void runMojoForProject(String groupId, String artifactId, String goal, MavenProject project)
@@ -219,7 +287,9 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
         log.debug("configuration:\n" + config);
         MavenSession tempSession = session.clone();
         tempSession.setCurrentProject(project);
-        executeMojo(plugin, goal(goal), config, executionEnvironment(project, tempSession, pluginManager));
+        try (DevTimeline.Span span = startSpan(artifactId + ":" + goal + " " + project.getArtifactId(), DevTimeline.MOJO)) {
+            executeMojo(plugin, goal(goal), config, executionEnvironment(project, tempSession, pluginManager));
+        }
     }
     
     protected boolean validatePluginVersion(String version, String minVersion) {
@@ -303,9 +373,20 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
         return retVal;
     }
 
-    protected void runLibertyMojoCreate() throws MojoExecutionException {
+    /**
+     * Executes liberty:create.
+     * 
+     * @return the configuration files that the create goal changed, or null if
+     *         it did not sync them
+     * @throws MojoExecutionException
+     */
+    protected ConfigSyncResult runLibertyMojoCreate() throws MojoExecutionException {
         Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(getLibertyPlugin(), "create", log);
+        // the create goal runs as a separate mojo, so it returns the result in the project context
+        MavenProject mojoProject = getMojoProject();
+        mojoProject.setContextValue(CONFIG_SYNC_RESULT, null);
         runLibertyMojo("create", config);
+        return (ConfigSyncResult) mojoProject.getContextValue(CONFIG_SYNC_RESULT);
     }
 
     protected void runLibertyMojoDeploy() throws MojoExecutionException {
@@ -358,14 +439,22 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
     }
 
     private void runLibertyMojo(String goal, Xpp3Dom config) throws MojoExecutionException {
-        log.info("Running liberty:" + goal);
-        log.debug("configuration:\n" + config);
-        executeMojo(getLibertyPlugin(), goal(goal), config,
-                executionEnvironment(project, session, pluginManager));
+        getLog().info("Running liberty:" + goal);
+        getLog().debug("configuration:\n" + config);
+        try (DevTimeline.Span span = startSpan("liberty:" + goal, DevTimeline.MOJO)) {
+            executeMojo(getLibertyPlugin(), goal(goal), config,
+                    executionEnvironment(getMojoProject(), getMojoSession(), pluginManager));
+        }
     }
 
     private void copyDependencies() throws Exception {
-        if (copyDependencies != null) {
+        File manifestFile = new File(project.getBuild().getDirectory(), "liberty-copied-dependencies-" + serverName + ".properties");
+        if (copyDependencies == null) {
+            if (manifestFile.exists()) {
+                // remove the dependencies copied by a previous run
+                syncDependencies(new DependencySync(manifestFile, false, false, 0));
+            }
+        } else {
             List<Dependency> deps = copyDependencies.getDependencies();
             boolean defaultStripVersion = copyDependencies.isStripVersion();
             String defaultLocation = copyDependencies.getLocation();
@@ -389,11 +478,27 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
                 log.debug("copyDependencies to location: "+dftLocationPath);
             }
 
-            for (Dependency dep : deps) {
-                copyDependencies(dep, null, dftLocationPath, defaultStripVersion);                
+            List<DependencyGroup> depGroups = copyDependencies.getDependencyGroups();
+
+            // resolve the dependencies with a version together instead of one at a time
+            List<ArtifactItem> versionedItems = new ArrayList<ArtifactItem>();
+            List<Dependency> allDeps = new ArrayList<Dependency>(deps);
+            for (DependencyGroup depGroup : depGroups) {
+                allDeps.addAll(depGroup.getDependencies());
             }
+            for (Dependency dep : allDeps) {
+                if (dep.getVersion() != null) {
+                    versionedItems.add(createArtifactItem(dep.getGroupId(), dep.getArtifactId(), dep.getType(), dep.getVersion(), dep.getClassifier()));
+                }
+            }
+            prefetchArtifacts(versionedItems);
 
-            List<DependencyGroup> depGroups = copyDependencies.getDependencyGroups();
+            DependencySync dependencySync = new DependencySync(manifestFile, copyDependencies.isLinkFromRepository(),
+                    copyDependencies.isVerifyChecksum(), 0);
+
+            for (Dependency dep : deps) {
+                copyDependencies(dep, null, dftLocationPath, defaultStripVersion, dependencySync);                
+            }
 
             for (DependencyGroup depGroup : depGroups) {
                 String overrideLocation = depGroup.getLocation();
@@ -409,14 +514,31 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
                 }
                 List<Dependency> groupDeps = depGroup.getDependencies();
                 for (Dependency dep : groupDeps) {
-                    copyDependencies(dep, overrideLocation, dftLocationPath, stripVersion);                
+                    copyDependencies(dep, overrideLocation, dftLocationPath, stripVersion, dependencySync);                
                 }
             }
 
+            syncDependencies(dependencySync);
+        }
+    }
+
+    private void syncDependencies(DependencySync dependencySync) throws IOException {
+        DependencySync.Result result = dependencySync.sync();
+        for (File file : result.getCopied()) {
+            log.info("copyDependencies copied file "+file.getName()+" to location "+file.getParent()+".");
+        }
+        for (File file : result.getLinked()) {
+            log.info("copyDependencies linked file "+file.getName()+" to location "+file.getParent()+".");
+        }
+        for (File file : result.getUnchanged()) {
+            log.debug("copyDependencies file "+file.getName()+" in location "+file.getParent()+" is up to date.");
+        }
+        for (File file : result.getRemoved()) {
+            log.info("copyDependencies removed file "+file.getName()+" from location "+file.getParent()+" because it is no longer copied.");
         }
     }
 
-    private void copyDependencies(Dependency dep, String overrideLocation, String defaultLocation, boolean stripVersion) throws Exception {
+    private void copyDependencies(Dependency dep, String overrideLocation, String defaultLocation, boolean stripVersion, DependencySync dependencySync) throws Exception {
 
         String location = defaultLocation;
 
@@ -465,22 +587,23 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
 
                 File fileToCopyTo = new File(location, targetFileName);
 
-                Copy copy = (Copy) ant.createTask("copy");
-                copy.setFile(nextFile);
-                copy.setTofile(fileToCopyTo);
-                copy.setOverwrite(true);
-                copy.execute();
-
-                log.info("copyDependencies copied file "+nextFile.getName()+" to location "+location+"/"+targetFileName+".");
+                // copied together with the other dependencies, if it changed
+                dependencySync.add(nextFile, fileToCopyTo);
             }
         }
     }
 
     /**
+     * Bring the configuration files of the server up to date. Only the files
+     * whose content changed are written.
+     *
+     * @return the files that changed, and whether the server needs a restart or
+     *         a configuration reload to pick them up
      * @throws Exception
      */
-    protected void copyConfigFiles() throws Exception {
+    protected ConfigSyncResult copyConfigFiles() throws Exception {
 
+        ConfigSync configSync = new ConfigSync(serverDirectory);
         String jvmOptionsPath = null;
         String bootStrapPropertiesPath = null;
         String serverEnvPath = null;
@@ -491,21 +614,15 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
 
         if (configDirectory != null && configDirectory.exists()) {
             // copy configuration files from configuration directory to server directory if end-user set it
-            Copy copydir = (Copy) ant.createTask("copy");
-            FileSet fileset = new FileSet();
-            fileset.setDir(configDirectory);
+            Set<String> excludes = new HashSet<String>();
 
             // If mergeServerEnv is true, don't overwrite generated server.env
             File configDirServerEnv = new File(configDirectory, "server.env");
             if(mergeServerEnv && configDirServerEnv.exists()){
-                // set excludes pattern 
-                fileset.setExcludes("server.env");
+                excludes.add("server.env");
             }
 
-            copydir.addFileset(fileset);
-            copydir.setTodir(serverDirectory);
-            copydir.setOverwrite(true);
-            copydir.execute();
+            configSync.copyDirectory(configDirectory, serverDirectory, excludes);
 
             File configDirServerXML = new File(configDirectory, "server.xml");
             if (configDirServerXML.exists()) {
@@ -532,11 +649,7 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
             if (serverXMLPath != null && ! serverXmlFile.getCanonicalPath().equals(serverXMLPath)) {
                 log.warn("The " + serverXMLPath + " file is overwritten by the "+serverXmlFile.getCanonicalPath()+" file.");
             }
-            Copy copy = (Copy) ant.createTask("copy");
-            copy.setFile(serverXmlFile);
-            copy.setTofile(new File(serverDirectory, "server.xml"));
-            copy.setOverwrite(true);
-            copy.execute();
+            configSync.copy(serverXmlFile, new File(serverDirectory, "server.xml"));
             serverXMLPath = serverXmlFile.getCanonicalPath();
         }
 
@@ -546,24 +659,20 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
             // if using pre-existing installation, do not delete file
             if (installType != InstallType.ALREADY_EXISTS) {
                 log.warn(optionsFile.getCanonicalPath() + " file deleted before processing plugin configuration.");
-                optionsFile.delete();
+                configSync.delete(optionsFile);
             }
         }
         if (jvmOptions != null || !jvmMavenProps.isEmpty()) {
             if (jvmOptionsPath != null) {
                 log.warn("The " + jvmOptionsPath + " file is overwritten by inlined configuration.");
             }
-            writeJvmOptions(optionsFile, jvmOptions, jvmMavenProps);
+            writeJvmOptions(configSync, optionsFile, jvmOptions, jvmMavenProps);
             jvmOptionsPath = "inlined configuration";
         } else if (jvmOptionsFile != null && jvmOptionsFile.exists()) {
             if (jvmOptionsPath != null) {
                 log.warn("The " + jvmOptionsPath + " file is overwritten by the "+jvmOptionsFile.getCanonicalPath()+" file.");
             }
-            Copy copy = (Copy) ant.createTask("copy");
-            copy.setFile(jvmOptionsFile);
-            copy.setTofile(optionsFile);
-            copy.setOverwrite(true);
-            copy.execute();
+            configSync.copy(jvmOptionsFile, optionsFile);
             jvmOptionsPath = jvmOptionsFile.getCanonicalPath();
         }
 
@@ -573,31 +682,27 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
             // if using pre-existing installation, do not delete file
             if (installType != InstallType.ALREADY_EXISTS) {
                 log.warn(bootstrapFile.getCanonicalPath() + " file deleted before processing plugin configuration.");
-                bootstrapFile.delete();
+                configSync.delete(bootstrapFile);
             }
         } 
         if (bootstrapProperties != null || !bootstrapMavenProps.isEmpty()) {
             if (bootStrapPropertiesPath != null) {
                 log.warn("The " + bootStrapPropertiesPath + " file is overwritten by inlined configuration.");
             }
-            writeBootstrapProperties(bootstrapFile, bootstrapProperties, bootstrapMavenProps);
+            writeBootstrapProperties(configSync, bootstrapFile, bootstrapProperties, bootstrapMavenProps);
             bootStrapPropertiesPath = "inlined configuration";
         } else if (bootstrapPropertiesFile != null && bootstrapPropertiesFile.exists()) {
             if (bootStrapPropertiesPath != null) {
                 log.warn("The " + bootStrapPropertiesPath + " file is overwritten by the "+ bootstrapPropertiesFile.getCanonicalPath()+" file.");
             }
-            Copy copy = (Copy) ant.createTask("copy");
-            copy.setFile(bootstrapPropertiesFile);
-            copy.setTofile(bootstrapFile);
-            copy.setOverwrite(true);
-            copy.execute();
+            configSync.copy(bootstrapPropertiesFile, bootstrapFile);
             bootStrapPropertiesPath = bootstrapPropertiesFile.getCanonicalPath();
         }
 
         // copy server.env to server directory if end-user explicitly set it
         File envFile = new File(serverDirectory, "server.env");
         if(mergeServerEnv) {
-            serverEnvPath = mergeServerEnvFileAndEnvMavenProps(serverEnvPath);
+            serverEnvPath = mergeServerEnvFileAndEnvMavenProps(configSync, serverEnvPath);
         }
         else {
             if (!envMavenProps.isEmpty()) {
@@ -608,14 +713,10 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
                 } else if (serverEnvPath != null) {
                     log.warn("The " + serverEnvPath + " file is overwritten by inlined configuration.");
                 }
-                writeServerEnvProperties(envFile, envPropsToWrite);
+                writeServerEnvProperties(configSync, envFile, envPropsToWrite);
                 serverEnvPath = "inlined configuration";
             } else if (serverEnvFile != null && serverEnvFile.exists()) {
-                Copy copy = (Copy) ant.createTask("copy");
-                copy.setFile(serverEnvFile);
-                copy.setTofile(envFile);
-                copy.setOverwrite(true);
-                copy.execute();
+                configSync.copy(serverEnvFile, envFile);
                 serverEnvPath = serverEnvFile.getCanonicalPath();
             }
         }
@@ -623,19 +724,26 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
         File pluginVariableConfig = new File(serverDirectory, PLUGIN_VARIABLE_CONFIG_OVERRIDES_XML);
         if (pluginVariableConfig.exists()) {
             log.warn(pluginVariableConfig.getCanonicalPath() + " file deleted before processing plugin configuration.");
-            pluginVariableConfig.delete();
+            configSync.delete(pluginVariableConfig);
         }
         if (!varMavenProps.isEmpty()) {
-            writeConfigDropinsServerVariables(pluginVariableConfig, varMavenProps, false);  
+            writeConfigDropinsServerVariables(configSync, pluginVariableConfig, varMavenProps, false);
         }
 
         pluginVariableConfig = new File(serverDirectory, PLUGIN_VARIABLE_CONFIG_DEFAULTS_XML);
         if (pluginVariableConfig.exists()) {
             log.warn(pluginVariableConfig.getCanonicalPath() + " file deleted before processing plugin configuration.");
-            pluginVariableConfig.delete();
+            configSync.delete(pluginVariableConfig);
         }
         if (!defaultVarMavenProps.isEmpty()) {
-            writeConfigDropinsServerVariables(pluginVariableConfig, defaultVarMavenProps, true);  
+            writeConfigDropinsServerVariables(configSync, pluginVariableConfig, defaultVarMavenProps, true);
+        }
+
+        ConfigSyncResult result = configSync.sync();
+        if (result.isChanged()) {
+            log.debug("Updated the server configuration files: " + result);
+        } else {
+            log.debug("The server configuration files are up to date.");
         }
 
         // log info on the configuration files that get used
@@ -660,6 +768,8 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
 
         // Now process the copyDependencies configuration
         copyDependencies();
+
+        return result;
     }
 
     /**
@@ -688,7 +798,7 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
     }
 
     // Merges configured serverEnvFile with envMavenProps if specified, and returns the updated serverEnvPath
-    private String mergeServerEnvFileAndEnvMavenProps(String serverEnvPath) throws IOException {
+    private String mergeServerEnvFileAndEnvMavenProps(ConfigSync configSync, String serverEnvPath) throws IOException {
         String modifiedServerEnvPath = serverEnvPath;
         boolean mergeRequired = serverEnvPath != null || 
                                 (serverEnvFile != null && serverEnvFile.exists()) || 
@@ -716,7 +826,7 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
                 serverEnvProps.putAll(envMavenProps);
             }
 
-            writeServerEnvProperties(serverEnv, serverEnvProps);
+            writeServerEnvProperties(configSync, serverEnv, serverEnvProps);
             modifiedServerEnvPath = getMergedServerEnvPath(serverEnvPath);
         }
 
@@ -816,7 +926,7 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
     // The properties parameter comes from the <bootstrapProperties> configuration in pom.xml and takes precedence over
     // the mavenProperties parameter, which comes from generic maven <properties> configuration.
     // One of the passed in Maps must be not null and not empty
-    private void writeBootstrapProperties(File file, Map<String, String> properties, Map<String, String> mavenProperties) throws IOException {
+    private void writeBootstrapProperties(ConfigSync configSync, File file, Map<String, String> properties, Map<String, String> mavenProperties) throws IOException {
         if (!mavenProperties.isEmpty()) {
             if (properties == null) {
                 combinedBootstrapProperties = mavenProperties;
@@ -830,10 +940,10 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
             combinedBootstrapProperties = properties;
         }
 
-        makeParentDirectory(file);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
         PrintWriter writer = null;
         try {
-            writer = new PrintWriter(file, "UTF-8");
+            writer = new PrintWriter(new OutputStreamWriter(content, StandardCharsets.UTF_8));
             writer.println(HEADER);
             for (Map.Entry<String, String> entry : combinedBootstrapProperties.entrySet()) {
                 String key = entry.getKey();
@@ -851,13 +961,14 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
                 writer.close();
             }
         }
+        configSync.write(file, content.toByteArray());
     }
 
-    private void writeServerEnvProperties(File file, Map<String, String> mavenProperties) throws IOException {
-        makeParentDirectory(file);
+    private void writeServerEnvProperties(ConfigSync configSync, File file, Map<String, String> mavenProperties) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
         PrintWriter writer = null;
         try {
-            writer = new PrintWriter(file, "UTF-8");
+            writer = new PrintWriter(new OutputStreamWriter(content, StandardCharsets.UTF_8));
             writer.println(HEADER);
             for (Map.Entry<String, String> entry : mavenProperties.entrySet()) {
                 String key = entry.getKey();
@@ -874,10 +985,11 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
                 writer.close();
             }
         }
+        configSync.write(file, content.toByteArray());
     }
 
     // One of the passed in Lists must be not null and not empty
-    private void writeJvmOptions(File file, List<String> options, List<String> mavenProperties) throws IOException {
+    private void writeJvmOptions(ConfigSync configSync, File file, List<String> options, List<String> mavenProperties) throws IOException {
         if (!mavenProperties.isEmpty()) {
             if (options == null) {
                 combinedJvmOptions = mavenProperties;
@@ -891,10 +1003,10 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
             combinedJvmOptions = options;
         }
 
-        makeParentDirectory(file);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
         PrintWriter writer = null;
         try {
-            writer = new PrintWriter(file, "UTF-8");
+            writer = new PrintWriter(new OutputStreamWriter(content, StandardCharsets.UTF_8));
             writer.println(HEADER);
             for (String option : combinedJvmOptions) {
                 writer.println(option);
@@ -904,9 +1016,10 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
                 writer.close();
             }
         }
+        configSync.write(file, content.toByteArray());
     }
 
-    private void writeConfigDropinsServerVariables(File file, Map<String,String> props, boolean isDefaultVar) throws IOException, TransformerException, ParserConfigurationException {
+    private void writeConfigDropinsServerVariables(ConfigSync configSync, File file, Map<String,String> props, boolean isDefaultVar) throws IOException, TransformerException, ParserConfigurationException {
 
         ServerConfigXmlDocument configDocument = ServerConfigXmlDocument.newInstance();
 
@@ -916,16 +1029,13 @@ public class StartDebugMojoSupport extends ServerFeatureSupport {
             configDocument.createVariableWithValue(entry.getKey(), entry.getValue(), isDefaultVar);
         }
 
-        // write XML document to file
-        makeParentDirectory(file);
-        configDocument.writeXMLDocument(file);
-
-    }
-
-    private void makeParentDirectory(File file) {
-        File parentDir = file.getParentFile();
-        if (parentDir != null) {
-            parentDir.mkdirs();
+        // write XML document to a temporary file outside of the server, so it is only written if it changed
+        File tempFile = File.createTempFile(file.getName(), ".tmp");
+        try {
+            configDocument.writeXMLDocument(tempFile);
+            configSync.write(file, Files.readAllBytes(tempFile.toPath()));
+        } finally {
+            tempFile.delete();
         }
     }
 
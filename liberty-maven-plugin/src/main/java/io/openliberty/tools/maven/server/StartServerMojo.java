@@ -16,6 +16,9 @@
 package io.openliberty.tools.maven.server;
 
 import java.text.MessageFormat;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -90,16 +93,16 @@ public class StartServerMojo extends StartDebugMojoSupport {
             verifyTimeout = 30;
         }
         long timeout = verifyTimeout * 1000;
-        long endTime = System.currentTimeMillis() + timeout;
         if (applications != null) {
-            String[] apps = applications.split("[,\\s]+");
-            for (String archiveName : apps) {
-                String startMessage = serverTask.waitForStringInLog(START_APP_MESSAGE_REGEXP + archiveName, timeout, serverTask.getLogFile());
-                if (startMessage == null) {
-                    stopServer();
-                    throw new MojoExecutionException(MessageFormat.format(messages.getString("error.server.start.verify"), verifyTimeout));
-                }
-                timeout = endTime - System.currentTimeMillis();
+            // wait for all of the applications in a single pass over the log
+            Set<String> startMessages = new LinkedHashSet<String>();
+            for (String archiveName : applications.split("[,\\s]+")) {
+                startMessages.add(START_APP_MESSAGE_REGEXP + archiveName);
+            }
+            Map<String, String> started = getMessageLogTailer(serverTask.getLogFile()).waitForAll(startMessages, timeout);
+            if (!started.keySet().containsAll(startMessages)) {
+                stopServer();
+                throw new MojoExecutionException(MessageFormat.format(messages.getString("error.server.start.verify"), verifyTimeout));
             }
         }
     }
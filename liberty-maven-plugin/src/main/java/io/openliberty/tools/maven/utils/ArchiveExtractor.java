@@ -0,0 +1,506 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Extracts a zip archive with several threads, applying the Unix file modes
+ * stored in the archive. Files that already exist with the size and CRC of
+ * their entry are not written again.
+ *
+ * Symbolic links are created after all other entries, so no file is written
+ * through a link of the archive. Links must point inside the destination
+ * directory, and files are never written through a directory whose real path
+ * is outside of it.
+ */
+public class ArchiveExtractor {
+
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR = 0x07064b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+    private static final int CENTRAL_DIRECTORY_HEADER = 0x02014b50;
+    private static final int UNIX_HOST = 3;
+    private static final int FILE_TYPE_MASK = 0170000;
+    private static final int SYMBOLIC_LINK = 0120000;
+
+    private final File archive;
+    private final int parallelism;
+
+    /**
+     * The result of an extraction
+     */
+    public static class Result {
+        private final int extracted;
+        private final int skipped;
+        private final boolean modesApplied;
+
+        private Result(int extracted, int skipped, boolean modesApplied) {
+            this.extracted = extracted;
+            this.skipped = skipped;
+            this.modesApplied = modesApplied;
+        }
+
+        /**
+         * @return the number of files written
+         */
+        public int getExtracted() {
+            return extracted;
+        }
+
+        /**
+         * @return the number of files that already existed with the same content
+         */
+        public int getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * @return true if the archive had Unix file modes and they were applied
+         */
+        public boolean isModesApplied() {
+            return modesApplied;
+        }
+    }
+
+    /**
+     * @param archive     the zip archive
+     * @param parallelism the number of extraction threads, or 0 for the number of
+     *                    available processors
+     */
+    public ArchiveExtractor(File archive, int parallelism) {
+        this.archive = archive;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Extract the archive
+     *
+     * @param destination the directory to extract to
+     * @return the result
+     * @throws IOException if the archive could not be read or an entry could not
+     *                     be written
+     */
+    public Result extract(File destination) throws IOException {
+        return extract(destination, null, null);
+    }
+
+    /**
+     * Extract the archive, reusing unchanged files of a previous extraction
+     *
+     * @param destination      the directory to extract to
+     * @param reuseDirectory   the directory of a previous extraction, or null
+     * @param previousStamps   the {@link #getExtractedStamps(File) extracted
+     *                         stamps} of the previous extraction, or null. Files
+     *                         whose entry has the same stamp, and that were not
+     *                         modified since they were extracted, are hard linked,
+     *                         or copied, from the previous extraction.
+     * @return the result, reused files are counted as skipped
+     * @throws IOException if the archive could not be read or an entry could not
+     *                     be written
+     */
+    public Result extract(File destination, File reuseDirectory, final Map<String, String> previousStamps)
+            throws IOException {
+        final Path root = destination.getCanonicalFile().toPath();
+        final Path reuseRoot = reuseDirectory != null && previousStamps != null
+                ? reuseDirectory.getCanonicalFile().toPath()
+                : null;
+        Files.createDirectories(root);
+        final Map<String, Integer> modes = readUnixModes();
+        final boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        final AtomicInteger extracted = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "liberty-archive-extractor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try (final ZipFile zipFile = new ZipFile(archive)) {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            List<ZipEntry> directories = new ArrayList<ZipEntry>();
+            List<ZipEntry> links = new ArrayList<ZipEntry>();
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                final Path target = resolve(root, entry.getName());
+                if (entry.isDirectory()) {
+                    createDirectories(root, target);
+                    directories.add(entry);
+                    continue;
+                }
+                Integer entryMode = modes.get(entry.getName());
+                if (entryMode != null && (entryMode & FILE_TYPE_MASK) == SYMBOLIC_LINK) {
+                    links.add(entry);
+                    continue;
+                }
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        Integer mode = modes.get(entry.getName());
+                        createDirectories(root, target.getParent());
+                        if (Files.isSymbolicLink(target)) {
+                            Files.delete(target);
+                        }
+                        if (isCurrent(target, entry)
+                                || reuseRoot != null && reuse(resolve(reuseRoot, entry.getName()), target, entry,
+                                        previousStamps.get(entry.getName()))) {
+                            skipped.incrementAndGet();
+                        } else {
+                            extractFile(zipFile, entry, target);
+                            extracted.incrementAndGet();
+                        }
+                        if (posix && mode != null) {
+                            Files.setPosixFilePermissions(target, toPermissions(mode));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new IOException("Unable to extract " + archive, e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while extracting " + archive, e);
+                }
+            }
+            extractSymbolicLinks(zipFile, root, links);
+            extracted.addAndGet(links.size());
+            // set directory attributes last, since extracting their files changes them
+            for (ZipEntry entry : directories) {
+                Path target = resolve(root, entry.getName());
+                Integer mode = modes.get(entry.getName());
+                if (posix && mode != null) {
+                    Files.setPosixFilePermissions(target, toPermissions(mode));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return new Result(extracted.get(), skipped.get(), posix && !modes.isEmpty());
+    }
+
+    private static Path resolve(Path root, String name) throws IOException {
+        Path target = root.resolve(name).normalize();
+        if (!target.startsWith(root)) {
+            throw new IOException("The archive entry " + name + " is outside of the destination directory");
+        }
+        return target;
+    }
+
+    /**
+     * Create a directory and its parents, unless an existing parent is a link to
+     * a directory outside of the root
+     */
+    private static void createDirectories(Path root, Path dir) throws IOException {
+        Path existing = dir;
+        while (existing != null && !Files.exists(existing)) {
+            existing = existing.getParent();
+        }
+        if (existing == null || !existing.toRealPath().startsWith(root)) {
+            throw new IOException("The directory " + dir + " is outside of the destination directory " + root);
+        }
+        Files.createDirectories(dir);
+    }
+
+    /**
+     * Get the stamps of the file entries, which identify the content of each
+     * entry by its size and CRC
+     *
+     * @return the stamps by entry name
+     * @throws IOException if the archive could not be read
+     */
+    public Map<String, String> getEntryStamps() throws IOException {
+        Map<String, String> stamps = new HashMap<String, String>();
+        try (ZipFile zipFile = new ZipFile(archive)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (!entry.isDirectory()) {
+                    stamps.put(entry.getName(), getStamp(entry));
+                }
+            }
+        }
+        return stamps;
+    }
+
+    /**
+     * Get the stamps of the file entries together with the size and last
+     * modified time of the files they were extracted to, taken right after the
+     * extraction. A later extraction only reuses a file if both still match.
+     *
+     * @param destination the directory that the archive was extracted to
+     * @return the stamps by entry name, without the entries that are not
+     *         extracted as regular files
+     * @throws IOException if the archive could not be read
+     */
+    public Map<String, String> getExtractedStamps(File destination) throws IOException {
+        Path root = destination.getCanonicalFile().toPath();
+        Map<String, String> stamps = new HashMap<String, String>();
+        for (Map.Entry<String, String> entry : getEntryStamps().entrySet()) {
+            Path file = resolve(root, entry.getKey());
+            if (Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS)) {
+                stamps.put(entry.getKey(), entry.getValue() + " " + getFileStamp(file));
+            }
+        }
+        return stamps;
+    }
+
+    private static String getStamp(ZipEntry entry) {
+        return entry.getSize() + ":" + entry.getCrc();
+    }
+
+    private static String getFileStamp(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class,
+                LinkOption.NOFOLLOW_LINKS);
+        return attributes.size() + ":" + attributes.lastModifiedTime().toMillis();
+    }
+
+    private static boolean reuse(Path previous, Path target, ZipEntry entry, String previousStamp)
+            throws IOException {
+        int separator = previousStamp == null ? -1 : previousStamp.indexOf(' ');
+        if (entry.getSize() < 0 || entry.getCrc() < 0 || separator < 0
+                || !getStamp(entry).equals(previousStamp.substring(0, separator))
+                || !Files.isRegularFile(previous, LinkOption.NOFOLLOW_LINKS)
+                || !getFileStamp(previous).equals(previousStamp.substring(separator + 1))) {
+            // a file modified since it was extracted is extracted again
+            return false;
+        }
+        Files.createDirectories(target.getParent());
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, previous);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(previous, target, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+        return true;
+    }
+
+    private static boolean isCurrent(Path target, ZipEntry entry) throws IOException {
+        if (!Files.isRegularFile(target) || entry.getSize() < 0 || entry.getCrc() < 0
+                || Files.size(target) != entry.getSize()) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                crc.update(buffer.array(), 0, buffer.limit());
+                buffer.clear();
+            }
+        }
+        return crc.getValue() == entry.getCrc();
+    }
+
+    private static void extractFile(ZipFile zipFile, ZipEntry entry, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Files.deleteIfExists(target);
+        try (InputStream in = zipFile.getInputStream(entry);
+                ReadableByteChannel source = Channels.newChannel(in);
+                FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.WRITE)) {
+            long position = 0;
+            long transferred;
+            while ((transferred = channel.transferFrom(source, position, 1024 * 1024)) > 0) {
+                position += transferred;
+            }
+        }
+        if (entry.getTime() != -1) {
+            Files.setLastModifiedTime(target, FileTime.fromMillis(entry.getTime()));
+        }
+    }
+
+    /**
+     * Create the symbolic links once all other entries are extracted. Links with
+     * an absolute target or a target outside of the root are rejected. Since a
+     * link can point through other links, the real path of each link is checked
+     * again once all links exist.
+     */
+    private static void extractSymbolicLinks(ZipFile zipFile, Path root, List<ZipEntry> links) throws IOException {
+        List<Path> created = new ArrayList<Path>();
+        try {
+            for (ZipEntry entry : links) {
+                Path target = resolve(root, entry.getName());
+                Path link = target.getFileSystem().getPath(readLinkTarget(zipFile, entry));
+                if (link.isAbsolute() || !target.getParent().resolve(link).normalize().startsWith(root)) {
+                    throw new IOException("The archive entry " + entry.getName() + " links to " + link
+                            + ", which is outside of the destination directory");
+                }
+                createDirectories(root, target.getParent());
+                Files.deleteIfExists(target);
+                Files.createSymbolicLink(target, link);
+                created.add(target);
+            }
+            for (Path target : created) {
+                if (Files.exists(target) && !target.toRealPath().startsWith(root)) {
+                    throw new IOException("The archive entry " + root.relativize(target)
+                            + " links to a file outside of the destination directory");
+                }
+            }
+        } catch (IOException e) {
+            for (Path target : created) {
+                Files.deleteIfExists(target);
+            }
+            throw e;
+        }
+    }
+
+    private static String readLinkTarget(ZipFile zipFile, ZipEntry entry) throws IOException {
+        byte[] link = new byte[(int) entry.getSize()];
+        try (InputStream in = zipFile.getInputStream(entry)) {
+            int offset = 0;
+            int read;
+            while (offset < link.length && (read = in.read(link, offset, link.length - offset)) != -1) {
+                offset += read;
+            }
+        }
+        return new String(link, StandardCharsets.UTF_8);
+    }
+
+    private static Set<PosixFilePermission> toPermissions(int mode) {
+        Set<PosixFilePermission> permissions = new HashSet<PosixFilePermission>();
+        PosixFilePermission[] values = PosixFilePermission.values();
+        // OWNER_READ is 0400 and OTHERS_EXECUTE is 0001
+        for (int i = 0; i < values.length; i++) {
+            if ((mode & (0400 >> i)) != 0) {
+                permissions.add(values[i]);
+            }
+        }
+        return permissions;
+    }
+
+    /**
+     * Read the Unix file modes from the central directory, which
+     * {@link ZipEntry} does not expose
+     *
+     * @return the modes by entry name, empty if the archive was not created on
+     *         Unix
+     * @throws IOException if the archive could not be read
+     */
+    private Map<String, Integer> readUnixModes() throws IOException {
+        Map<String, Integer> modes = new HashMap<String, Integer>();
+        try (RandomAccessFile file = new RandomAccessFile(archive, "r")) {
+            FileChannel channel = file.getChannel();
+            long size = channel.size();
+            // the end of central directory record is 22 bytes plus a comment of up to 64K
+            int tailLength = (int) Math.min(size, 22 + 0xffff);
+            ByteBuffer tail = read(channel, size - tailLength, tailLength);
+            int eocd = -1;
+            for (int i = tailLength - 22; i >= 0; i--) {
+                if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY) {
+                    eocd = i;
+                    break;
+                }
+            }
+            if (eocd < 0) {
+                throw new IOException("The end of the central directory was not found in " + archive);
+            }
+            long entries = tail.getShort(eocd + 10) & 0xffff;
+            long directorySize = tail.getInt(eocd + 12) & 0xffffffffL;
+            long directoryOffset = tail.getInt(eocd + 16) & 0xffffffffL;
+            if (entries == 0xffff || directorySize == 0xffffffffL || directoryOffset == 0xffffffffL) {
+                long locator = size - tailLength + eocd - 20;
+                ByteBuffer locatorBuffer = locator >= 0 ? read(channel, locator, 20) : null;
+                if (locatorBuffer != null && locatorBuffer.getInt(0) == ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR) {
+                    ByteBuffer zip64 = read(channel, locatorBuffer.getLong(8), 56);
+                    if (zip64.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY) {
+                        throw new IOException("Invalid ZIP64 end of central directory in " + archive);
+                    }
+                    entries = zip64.getLong(32);
+                    directorySize = zip64.getLong(40);
+                    directoryOffset = zip64.getLong(48);
+                }
+            }
+            ByteBuffer directory = read(channel, directoryOffset, (int) directorySize);
+            int position = 0;
+            for (long i = 0; i < entries; i++) {
+                if (directory.getInt(position) != CENTRAL_DIRECTORY_HEADER) {
+                    throw new IOException("Invalid central directory header in " + archive);
+                }
+                int host = (directory.getShort(position + 4) >> 8) & 0xff;
+                int nameLength = directory.getShort(position + 28) & 0xffff;
+                int extraLength = directory.getShort(position + 30) & 0xffff;
+                int commentLength = directory.getShort(position + 32) & 0xffff;
+                int mode = directory.getInt(position + 38) >>> 16;
+                if (host == UNIX_HOST && mode != 0) {
+                    byte[] name = new byte[nameLength];
+                    directory.position(position + 46);
+                    directory.get(name);
+                    modes.put(new String(name, StandardCharsets.UTF_8), mode);
+                }
+                position += 46 + nameLength + extraLength + commentLength;
+            }
+        }
+        return modes;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of archive");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+}
@@ -0,0 +1,172 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Enumeration;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Metadata of a Liberty runtime or license archive, derived from its content
+ * and kept in a sidecar index file. Each value is derived only when it is
+ * first requested, reading no more of the archive than it needs, and is reused
+ * as long as the archive has the same path, size and last modified time.
+ */
+public class ArchiveMetadata {
+
+    /**
+     * The name of the index file
+     */
+    public static final String INDEX_FILE = ".liberty-archive.properties";
+
+    private static final String LAUNCH_JAR = "lib/ws-launch.jar";
+    private static final String LICENSE_ENTRY = "wlp/lafiles/LI_en";
+
+    // stored for values that were derived but are absent from the archive
+    private static final String ABSENT = "";
+
+    private final File indexDirectory;
+    private final File archive;
+    private final String id;
+    private final Properties index;
+
+    private ArchiveMetadata(File indexDirectory, File archive, String id, Properties index) {
+        this.indexDirectory = indexDirectory;
+        this.archive = archive;
+        this.id = id;
+        this.index = index;
+    }
+
+    /**
+     * Get the metadata of an archive from an index, discarding the indexed
+     * values if the archive is not indexed or has changed
+     *
+     * @param indexDirectory the directory of the index file
+     * @param archive        the archive
+     * @return the metadata
+     * @throws IOException if the archive path could not be resolved
+     */
+    public static ArchiveMetadata get(File indexDirectory, File archive) throws IOException {
+        File indexFile = new File(indexDirectory, INDEX_FILE);
+        String id = DigestUtil.sha256(archive.getCanonicalPath()).substring(0, 16) + '.';
+        String stamp = archive.length() + ":" + archive.lastModified();
+
+        Properties index = new Properties();
+        if (indexFile.isFile()) {
+            try (InputStream in = Files.newInputStream(indexFile.toPath())) {
+                index.load(in);
+            } catch (IOException | IllegalArgumentException e) {
+                index.clear();
+            }
+        }
+        if (!stamp.equals(index.getProperty(id + "stamp"))) {
+            for (String key : index.stringPropertyNames()) {
+                if (key.startsWith(id)) {
+                    index.remove(key);
+                }
+            }
+            index.setProperty(id + "path", archive.getCanonicalPath());
+            index.setProperty(id + "stamp", stamp);
+        }
+        return new ArchiveMetadata(indexDirectory, archive, id, index);
+    }
+
+    /**
+     * @return the path of the directory containing <code>lib/ws-launch.jar</code>
+     *         in the archive, e.g. <code>wlp/</code>, or null if the archive does
+     *         not contain a runtime
+     * @throws IOException if the archive could not be read
+     */
+    public synchronized String getInstallRoot() throws IOException {
+        String installRoot = index.getProperty(id + "installRoot");
+        if (installRoot == null) {
+            installRoot = ABSENT;
+            try (ZipFile zipFile = new ZipFile(archive)) {
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements()) {
+                    String name = entries.nextElement().getName();
+                    if (name.endsWith(LAUNCH_JAR)) {
+                        installRoot = name.substring(0, name.length() - LAUNCH_JAR.length());
+                        break;
+                    }
+                }
+            }
+            store("installRoot", installRoot);
+        }
+        return installRoot.equals(ABSENT) ? null : installRoot;
+    }
+
+    /**
+     * @return the SHA-256 digest of <code>wlp/lafiles/LI_en</code> in the
+     *         archive, or null if the archive does not contain it
+     * @throws IOException if the archive could not be read
+     */
+    public synchronized String getLicenseDigest() throws IOException {
+        String licenseDigest = index.getProperty(id + "licenseDigest");
+        if (licenseDigest == null) {
+            licenseDigest = ABSENT;
+            try (ZipFile zipFile = new ZipFile(archive)) {
+                ZipEntry entry = zipFile.getEntry(LICENSE_ENTRY);
+                if (entry != null) {
+                    try (InputStream in = zipFile.getInputStream(entry)) {
+                        licenseDigest = digest(in);
+                    }
+                }
+            }
+            store("licenseDigest", licenseDigest);
+        }
+        return licenseDigest.equals(ABSENT) ? null : licenseDigest;
+    }
+
+    /**
+     * @return the SHA-256 digest of the archive
+     * @throws IOException if the archive could not be read
+     */
+    public synchronized String getSha256() throws IOException {
+        String sha256 = index.getProperty(id + "sha256");
+        if (sha256 == null) {
+            sha256 = DigestUtil.sha256(archive);
+            store("sha256", sha256);
+        }
+        return sha256;
+    }
+
+    private void store(String name, String value) {
+        index.setProperty(id + name, value);
+        try {
+            AtomicFiles.store(new File(indexDirectory, INDEX_FILE).toPath(), index, "Liberty archive metadata");
+        } catch (IOException e) {
+            // the value is derived again next time
+        }
+    }
+
+    private static String digest(InputStream in) throws IOException {
+        MessageDigest digest = DigestUtil.newDigest();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return DigestUtil.toHex(digest.digest());
+    }
+
+}
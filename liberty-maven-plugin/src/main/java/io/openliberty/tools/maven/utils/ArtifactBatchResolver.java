@@ -0,0 +1,193 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+
+/**
+ * Resolves sets of artifacts with {@link RepositorySystem#resolveArtifacts},
+ * splitting large sets into batches that are resolved concurrently.
+ *
+ * Resolved artifacts are remembered, so that an artifact that was resolved as
+ * part of a set is not resolved again when it is requested on its own.
+ */
+public class ArtifactBatchResolver {
+
+    private final RepositorySystem repositorySystem;
+    private final RepositorySystemSession repoSession;
+    private final List<RemoteRepository> repositories;
+    private final int parallelism;
+    private final Map<String, ArtifactResult> resolved = new ConcurrentHashMap<String, ArtifactResult>();
+
+    /**
+     * @param repositorySystem the repository system
+     * @param repoSession      the repository session
+     * @param repositories     the remote repositories to resolve from
+     * @param parallelism      the maximum number of batches to resolve at the
+     *                         same time, or 0 for the number of processors
+     */
+    public ArtifactBatchResolver(RepositorySystem repositorySystem, RepositorySystemSession repoSession,
+            List<RemoteRepository> repositories, int parallelism) {
+        this.repositorySystem = repositorySystem;
+        this.repoSession = repoSession;
+        this.repositories = repositories;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Resolve a set of artifacts
+     *
+     * @param artifacts the artifacts to resolve
+     * @return the results in the order of the artifacts. Artifacts that could not
+     *         be resolved have a result that is not resolved and holds the
+     *         exceptions.
+     */
+    public List<ArtifactResult> resolve(Collection<Artifact> artifacts) {
+        Map<String, ArtifactRequest> requests = new LinkedHashMap<String, ArtifactRequest>();
+        for (Artifact artifact : artifacts) {
+            String key = artifact.toString();
+            if (!resolved.containsKey(key) && !requests.containsKey(key)) {
+                requests.put(key, new ArtifactRequest(artifact, repositories, null));
+            }
+        }
+
+        Map<String, ArtifactResult> results = new ConcurrentHashMap<String, ArtifactResult>();
+        if (!requests.isEmpty()) {
+            List<List<ArtifactRequest>> batches = split(new ArrayList<ArtifactRequest>(requests.values()));
+            if (batches.size() == 1) {
+                resolveBatch(batches.get(0), results);
+            } else {
+                resolveBatches(batches, results);
+            }
+        }
+
+        List<ArtifactResult> ordered = new ArrayList<ArtifactResult>(artifacts.size());
+        for (Artifact artifact : artifacts) {
+            String key = artifact.toString();
+            ArtifactResult result = resolved.get(key);
+            ordered.add(result != null ? result : results.get(key));
+        }
+        return ordered;
+    }
+
+    /**
+     * Resolve a single artifact
+     *
+     * @param artifact the artifact to resolve
+     * @return the result, which is not resolved and holds the exceptions if the
+     *         artifact could not be resolved
+     */
+    public ArtifactResult resolve(Artifact artifact) {
+        List<Artifact> artifacts = new ArrayList<Artifact>(1);
+        artifacts.add(artifact);
+        return resolve(artifacts).get(0);
+    }
+
+    private List<List<ArtifactRequest>> split(List<ArtifactRequest> requests) {
+        int batchCount = Math.min(parallelism, requests.size());
+        List<List<ArtifactRequest>> batches = new ArrayList<List<ArtifactRequest>>(batchCount);
+        for (int i = 0; i < batchCount; i++) {
+            batches.add(new ArrayList<ArtifactRequest>());
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            batches.get(i % batchCount).add(requests.get(i));
+        }
+        return batches;
+    }
+
+    private void resolveBatches(List<List<ArtifactRequest>> batches, final Map<String, ArtifactResult> results) {
+        ExecutorService executor = Executors.newFixedThreadPool(batches.size(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "liberty-artifact-resolver");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>(batches.size());
+            for (final List<ArtifactRequest> batch : batches) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        resolveBatch(batch, results);
+                        return null;
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    fail(batches.get(i), e.getCause(), results);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    fail(batches.get(i), e, results);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void resolveBatch(List<ArtifactRequest> batch, Map<String, ArtifactResult> results) {
+        List<ArtifactResult> batchResults;
+        try {
+            batchResults = repositorySystem.resolveArtifacts(repoSession, batch);
+        } catch (ArtifactResolutionException e) {
+            // holds a result for every request, including the ones that were resolved
+            batchResults = e.getResults();
+        }
+        for (ArtifactResult result : batchResults) {
+            String key = result.getRequest().getArtifact().toString();
+            results.put(key, result);
+            if (result.isResolved()) {
+                resolved.put(key, result);
+            }
+        }
+    }
+
+    private static void fail(List<ArtifactRequest> batch, Throwable cause, Map<String, ArtifactResult> results) {
+        for (ArtifactRequest request : batch) {
+            String key = request.getArtifact().toString();
+            if (!results.containsKey(key)) {
+                ArtifactResult result = new ArtifactResult(request);
+                result.addException(cause instanceof Exception ? (Exception) cause : new Exception(cause));
+                results.put(key, result);
+            }
+        }
+    }
+
+}
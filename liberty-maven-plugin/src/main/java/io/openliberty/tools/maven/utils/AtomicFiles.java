@@ -0,0 +1,189 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * Replaces files by writing a complete temporary file next to the target and
+ * moving it into place, so that a running server or a concurrent build never
+ * reads a partially written file.
+ *
+ * The temporary file has a hidden name without the extension of the target,
+ * e.g. <code>.server.xml.&lt;uuid&gt;.tmp</code>, which Liberty does not
+ * monitor or install.
+ */
+public final class AtomicFiles {
+
+    /**
+     * Writes the content of a file
+     */
+    public interface Content {
+        /**
+         * @param file the new file to write
+         * @throws IOException if the content could not be written
+         */
+        void writeTo(Path file) throws IOException;
+    }
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * Replace a file with the given content
+     *
+     * @param target  the file to replace
+     * @param content writes the content
+     * @throws IOException if the file could not be written or moved into place
+     */
+    public static void replace(Path target, Content content) throws IOException {
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        Path tempPath = target.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            content.writeTo(tempPath);
+            move(tempPath, target);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    /**
+     * Replace a file with the content of a stream
+     *
+     * @param target the file to replace
+     * @param in     the content, which is not closed
+     * @throws IOException if the file could not be written or moved into place
+     */
+    public static void replace(Path target, final InputStream in) throws IOException {
+        replace(target, new Content() {
+            @Override
+            public void writeTo(Path file) throws IOException {
+                Files.copy(in, file);
+            }
+        });
+    }
+
+    /**
+     * Replace a file with the given bytes
+     *
+     * @param target the file to replace
+     * @param bytes  the content
+     * @throws IOException if the file could not be written or moved into place
+     */
+    public static void replace(Path target, final byte[] bytes) throws IOException {
+        replace(target, new Content() {
+            @Override
+            public void writeTo(Path file) throws IOException {
+                Files.write(file, bytes, StandardOpenOption.CREATE_NEW);
+            }
+        });
+    }
+
+    /**
+     * Replace a file with properties
+     *
+     * @param target     the file to replace
+     * @param properties the properties
+     * @param comments   the comment at the top of the file
+     * @throws IOException if the file could not be written or moved into place
+     */
+    public static void store(Path target, final Properties properties, final String comments) throws IOException {
+        replace(target, new Content() {
+            @Override
+            public void writeTo(Path file) throws IOException {
+                try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE_NEW)) {
+                    properties.store(out, comments);
+                }
+            }
+        });
+    }
+
+    /**
+     * Replace a file with a copy of another file, or a hard link to it
+     *
+     * @param source         the file to copy
+     * @param target         the file to replace
+     * @param link           true to hard link the source if it is on the same
+     *                       file store, only for a source that is never
+     *                       modified in place
+     * @param copyAttributes true to copy the last modified time and other
+     *                       attributes of the source
+     * @return true if the source was linked, false if it was copied
+     * @throws IOException if the file could not be copied or moved into place
+     */
+    public static boolean copy(final Path source, Path target, final boolean link, final boolean copyAttributes)
+            throws IOException {
+        final boolean[] linked = new boolean[1];
+        replace(target, new Content() {
+            @Override
+            public void writeTo(Path file) throws IOException {
+                if (link) {
+                    try {
+                        Files.createLink(file, source);
+                        linked[0] = true;
+                        return;
+                    } catch (IOException | UnsupportedOperationException e) {
+                        // on another file store, copy instead
+                    }
+                }
+                if (copyAttributes) {
+                    Files.copy(source, file, StandardCopyOption.COPY_ATTRIBUTES);
+                } else {
+                    Files.copy(source, file);
+                }
+            }
+        });
+        return linked[0];
+    }
+
+    /**
+     * @param file    the file
+     * @param content the content
+     * @return true if the file exists and has the content
+     * @throws IOException if the file could not be read
+     */
+    public static boolean contentEquals(Path file, byte[] content) throws IOException {
+        return Files.isRegularFile(file) && Files.size(file) == content.length
+                && Arrays.equals(content, Files.readAllBytes(file));
+    }
+
+    /**
+     * Move a file into place, atomically if the file store supports it
+     *
+     * @param source the file to move
+     * @param target the file to replace
+     * @throws IOException if the file could not be moved
+     */
+    public static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // e.g. on another file store
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+}
@@ -0,0 +1,265 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The classes referenced by a compiled class, read from the constant pool of
+ * its class file. Class names are in internal form with nested class suffixes
+ * removed, e.g. <code>com/example/Outer</code> for
+ * <code>com/example/Outer$Inner</code>.
+ */
+public class ClassFileReferences {
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private final String className;
+    private final Set<String> references;
+    private final boolean constantFields;
+
+    private ClassFileReferences(String className, Set<String> references, boolean constantFields) {
+        this.className = className;
+        this.references = references;
+        this.constantFields = constantFields;
+    }
+
+    /**
+     * @return the top level class name of this class, in internal form
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return the top level class names referenced by this class, in internal
+     *         form. Does not include this class.
+     */
+    public Set<String> getReferences() {
+        return references;
+    }
+
+    /**
+     * Whether the class declares fields with a compile time constant value.
+     * javac inlines such constants into the classes that use them without
+     * recording a reference, so changes to them cannot be tracked through
+     * {@link #getReferences()}.
+     *
+     * @return true if the class declares constant fields
+     */
+    public boolean hasConstantFields() {
+        return constantFields;
+    }
+
+    /**
+     * Get the top level class name for a class name in internal form
+     *
+     * @param internalName the class name, e.g. <code>com/example/Outer$Inner</code>
+     * @return the top level class name, e.g. <code>com/example/Outer</code>
+     */
+    public static String getTopLevelClassName(String internalName) {
+        int slash = internalName.lastIndexOf('/');
+        int dollar = internalName.indexOf('$', slash + 1);
+        return dollar > 0 ? internalName.substring(0, dollar) : internalName;
+    }
+
+    /**
+     * Read the references of a class file
+     *
+     * @param classFile the class file
+     * @return the class references
+     * @throws IOException if the class file cannot be read or is not a valid
+     *                     class file
+     */
+    public static ClassFileReferences read(File classFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(classFile.toPath())))) {
+            if (in.readInt() != 0xCAFEBABE) {
+                throw new IOException("Not a class file: " + classFile);
+            }
+            in.readUnsignedShort(); // minor version
+            in.readUnsignedShort(); // major version
+
+            int count = in.readUnsignedShort();
+            String[] utf8 = new String[count];
+            // name index of each CONSTANT_Class entry, by constant pool index
+            int[] classNameIndexes = new int[count];
+            for (int i = 1; i < count; i++) {
+                int tag = in.readUnsignedByte();
+                switch (tag) {
+                    case CONSTANT_UTF8:
+                        utf8[i] = in.readUTF();
+                        break;
+                    case CONSTANT_CLASS:
+                        classNameIndexes[i] = in.readUnsignedShort();
+                        break;
+                    case CONSTANT_STRING:
+                    case CONSTANT_METHOD_TYPE:
+                    case CONSTANT_MODULE:
+                    case CONSTANT_PACKAGE:
+                        in.readUnsignedShort();
+                        break;
+                    case CONSTANT_METHOD_HANDLE:
+                        in.readUnsignedByte();
+                        in.readUnsignedShort();
+                        break;
+                    case CONSTANT_INTEGER:
+                    case CONSTANT_FLOAT:
+                    case CONSTANT_FIELDREF:
+                    case CONSTANT_METHODREF:
+                    case CONSTANT_INTERFACE_METHODREF:
+                    case CONSTANT_NAME_AND_TYPE:
+                    case CONSTANT_DYNAMIC:
+                    case CONSTANT_INVOKE_DYNAMIC:
+                        in.readInt();
+                        break;
+                    case CONSTANT_LONG:
+                    case CONSTANT_DOUBLE:
+                        in.readLong();
+                        // 8 byte constants take up two entries
+                        i++;
+                        break;
+                    default:
+                        throw new IOException("Unknown constant pool tag " + tag + " in " + classFile);
+                }
+            }
+
+            in.readUnsignedShort(); // access flags
+            int thisClass = in.readUnsignedShort();
+            if (thisClass <= 0 || thisClass >= count || classNameIndexes[thisClass] == 0) {
+                throw new IOException("Invalid class file: " + classFile);
+            }
+            String name = getTopLevelClassName(utf8[classNameIndexes[thisClass]]);
+
+            Set<String> references = new HashSet<String>();
+            for (int i = 1; i < count; i++) {
+                if (classNameIndexes[i] != 0) {
+                    addClassName(references, utf8[classNameIndexes[i]]);
+                }
+            }
+            // descriptors and signatures, e.g. of fields and methods that are
+            // referenced but whose owner class is not otherwise used
+            for (String value : utf8) {
+                if (value != null && value.indexOf(';') > 0) {
+                    addDescriptorClassNames(references, value);
+                }
+            }
+            references.remove(name);
+
+            in.readUnsignedShort(); // super class
+            int interfaces = in.readUnsignedShort();
+            for (int i = 0; i < interfaces; i++) {
+                in.readUnsignedShort();
+            }
+            boolean constantFields = false;
+            int fields = in.readUnsignedShort();
+            for (int i = 0; i < fields; i++) {
+                in.readUnsignedShort(); // access flags
+                in.readUnsignedShort(); // name
+                in.readUnsignedShort(); // descriptor
+                int attributes = in.readUnsignedShort();
+                for (int j = 0; j < attributes; j++) {
+                    String attributeName = utf8[in.readUnsignedShort()];
+                    int length = in.readInt();
+                    if ("ConstantValue".equals(attributeName)) {
+                        constantFields = true;
+                    }
+                    skipFully(in, length);
+                }
+            }
+            return new ClassFileReferences(name, Collections.unmodifiableSet(references), constantFields);
+        }
+    }
+
+    private static void addClassName(Set<String> references, String name) {
+        if (name == null) {
+            return;
+        }
+        if (name.startsWith("[")) {
+            addDescriptorClassNames(references, name);
+        } else {
+            references.add(getTopLevelClassName(name));
+        }
+    }
+
+    private static void addDescriptorClassNames(Set<String> references, String descriptor) {
+        int start = descriptor.indexOf('L');
+        while (start >= 0) {
+            int end = descriptor.indexOf(';', start);
+            if (end < 0) {
+                return;
+            }
+            String candidate = descriptor.substring(start + 1, end);
+            // generic signatures nest type arguments, e.g. Ljava/util/List<Lcom/example/Foo;>;
+            int generic = candidate.indexOf('<');
+            if (generic >= 0) {
+                candidate = candidate.substring(0, generic);
+                end = start + 1 + generic;
+            }
+            if (isInternalName(candidate)) {
+                references.add(getTopLevelClassName(candidate));
+            }
+            start = descriptor.indexOf('L', end + 1);
+        }
+    }
+
+    private static boolean isInternalName(String candidate) {
+        if (candidate.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < candidate.length(); i++) {
+            char c = candidate.charAt(i);
+            if (c != '/' && c != '$' && !Character.isJavaIdentifierPart(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void skipFully(DataInputStream in, int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            int skipped = in.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new IOException("Unexpected end of class file");
+            }
+            remaining -= skipped;
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of classpath elements with the size and last modified
+ * time of each file, used to find the elements that were added, removed or
+ * changed between two classpaths. The snapshot of an earlier evaluation must be
+ * kept to find the files that changed since, e.g. a rebuilt SNAPSHOT jar.
+ */
+public final class ClasspathSnapshot {
+
+    private static final String DIRECTORY = "directory";
+
+    private final Map<String, String> stamps;
+
+    /**
+     * The differences between two classpath snapshots
+     */
+    public static final class Delta {
+        private final List<String> added;
+        private final List<String> removed;
+        private final List<String> changed;
+
+        private Delta(List<String> added, List<String> removed, List<String> changed) {
+            this.added = Collections.unmodifiableList(added);
+            this.removed = Collections.unmodifiableList(removed);
+            this.changed = Collections.unmodifiableList(changed);
+        }
+
+        /**
+         * @return the elements that are only in the newer snapshot
+         */
+        public List<String> getAdded() {
+            return added;
+        }
+
+        /**
+         * @return the elements that are only in the older snapshot
+         */
+        public List<String> getRemoved() {
+            return removed;
+        }
+
+        /**
+         * @return the files that are in both snapshots but have a different size or
+         *         last modified time
+         */
+        public List<String> getChanged() {
+            return changed;
+        }
+
+        /**
+         * @return true if the snapshots are the same
+         */
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "added: " + added + ", removed: " + removed + ", changed: " + changed;
+        }
+    }
+
+    /**
+     * Take a snapshot of classpath elements
+     *
+     * @param elements the paths of the classpath elements, in classpath order.
+     *                 Directories are compared by path only.
+     */
+    public ClasspathSnapshot(Collection<String> elements) {
+        Map<String, String> map = new LinkedHashMap<String, String>();
+        for (String element : elements) {
+            File file = new File(element);
+            map.put(element, file.isDirectory() ? DIRECTORY : file.length() + ":" + file.lastModified());
+        }
+        this.stamps = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Compare this snapshot with a newer snapshot
+     *
+     * @param newer the newer snapshot
+     * @return the differences
+     */
+    public Delta diff(ClasspathSnapshot newer) {
+        List<String> added = new ArrayList<String>();
+        List<String> removed = new ArrayList<String>();
+        List<String> changed = new ArrayList<String>();
+        for (Map.Entry<String, String> entry : newer.stamps.entrySet()) {
+            String stamp = stamps.get(entry.getKey());
+            if (stamp == null) {
+                added.add(entry.getKey());
+            } else if (!stamp.equals(entry.getValue())) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String element : stamps.keySet()) {
+            if (!newer.stamps.containsKey(element)) {
+                removed.add(element);
+            }
+        }
+        return new Delta(added, removed, changed);
+    }
+
+}
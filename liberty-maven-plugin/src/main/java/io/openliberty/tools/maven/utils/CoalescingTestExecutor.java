@@ -0,0 +1,157 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single threaded executor for dev mode test runs.
+ *
+ * At most one test run is queued. A new run replaces the queued run, so a
+ * burst of changes results in a single run, and requests cancellation of the
+ * run in progress since its results would be stale. Test runs check
+ * {@link #isCancelRequested()} between steps and stop early when it is set.
+ * The running thread is only interrupted while it is inside a section marked
+ * with {@link #beginInterruptible()}, e.g. while the maven-surefire-plugin waits
+ * for its forked test JVMs, so that other work such as report generation is
+ * never interrupted half way.
+ */
+public class CoalescingTestExecutor extends ThreadPoolExecutor {
+
+    private final AtomicLong submittedRuns = new AtomicLong();
+    private final AtomicLong coalescedRuns = new AtomicLong();
+    private final AtomicLong cancelledRuns = new AtomicLong();
+
+    private volatile Thread runningThread;
+    private volatile boolean cancelRequested;
+    private boolean interruptible;
+
+    public CoalescingTestExecutor() {
+        super(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(1, true));
+    }
+
+    @Override
+    public synchronized void execute(Runnable command) {
+        submittedRuns.incrementAndGet();
+        List<Runnable> stale = new ArrayList<Runnable>();
+        getQueue().drainTo(stale);
+        coalescedRuns.addAndGet(stale.size());
+
+        Thread running = runningThread;
+        if (running != null && !cancelRequested) {
+            cancelRequested = true;
+            cancelledRuns.incrementAndGet();
+            if (interruptible) {
+                running.interrupt();
+            }
+        }
+        super.execute(command);
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        super.beforeExecute(t, r);
+        synchronized (this) {
+            cancelRequested = false;
+            interruptible = false;
+            runningThread = t;
+        }
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        synchronized (this) {
+            runningThread = null;
+        }
+        super.afterExecute(r, t);
+    }
+
+    /**
+     * Whether a newer test run was submitted while the current thread is running
+     * a test run
+     *
+     * @return true if the current test run should stop
+     */
+    public boolean isCancelRequested() {
+        return cancelRequested && Thread.currentThread() == runningThread;
+    }
+
+    /**
+     * Allow a newer test run to interrupt the current thread until
+     * {@link #endInterruptible()} is called. Must only be used around code that
+     * handles interruption cleanly. The current thread is interrupted right away
+     * if cancellation was already requested.
+     */
+    public synchronized void beginInterruptible() {
+        if (Thread.currentThread() != runningThread) {
+            return;
+        }
+        interruptible = true;
+        if (cancelRequested) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * End a section started with {@link #beginInterruptible()}. An interrupt
+     * caused by a cancellation that arrived after the interruptible code finished
+     * is cleared, so it does not reach the next steps of the test run.
+     */
+    public synchronized void endInterruptible() {
+        if (Thread.currentThread() != runningThread) {
+            return;
+        }
+        interruptible = false;
+        if (cancelRequested) {
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * @return the number of test runs waiting to start, 0 or 1
+     */
+    public int getQueueDepth() {
+        return getQueue().size();
+    }
+
+    /**
+     * @return the number of test runs submitted
+     */
+    public long getSubmittedRuns() {
+        return submittedRuns.get();
+    }
+
+    /**
+     * @return the number of queued test runs replaced by a newer run before they
+     *         started
+     */
+    public long getCoalescedRuns() {
+        return coalescedRuns.get();
+    }
+
+    /**
+     * @return the number of test runs cancelled while in progress
+     */
+    public long getCancelledRuns() {
+        return cancelledRuns.get();
+    }
+
+}
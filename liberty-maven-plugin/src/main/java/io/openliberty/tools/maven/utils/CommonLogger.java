@@ -15,6 +15,7 @@
  */
 package io.openliberty.tools.maven.utils;
 
+import org.apache.maven.plugin.logging.Log;
 import org.codehaus.mojo.pluginsupport.MojoSupport;
 
 import io.openliberty.tools.common.CommonLoggerI;
@@ -30,6 +31,12 @@ public class CommonLogger extends MojoSupport implements CommonLoggerI {
         return logger;
     }
 
+    @Override
+    public Log getLog() {
+        Log stepLog = StartupTaskGraph.getStepLog();
+        return stepLog != null ? stepLog : super.getLog();
+    }
+
     @Override
     public void debug(String msg) {
         getLog().debug(msg);
@@ -0,0 +1,184 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.tools.ant.DirectoryScanner;
+
+/**
+ * Brings the configuration files of a server up to date, writing only the
+ * files whose content changed.
+ *
+ * Files are staged with {@link #copy(File, File)}, {@link #write(File, byte[])}
+ * and {@link #delete(File)}, where the last operation on a file wins, and
+ * applied with {@link #sync()}. Files are replaced with {@link AtomicFiles}, so
+ * a running server never reads a partial file.
+ */
+public class ConfigSync {
+
+    // staged for a directory that is created if it does not exist
+    private static final Object DIRECTORY = new Object();
+
+    private final File serverDirectory;
+    // the source File, the content byte[], DIRECTORY, or null to delete the target
+    private final Map<File, Object> staged = new LinkedHashMap<File, Object>();
+
+    /**
+     * @param serverDirectory the server directory
+     */
+    public ConfigSync(File serverDirectory) {
+        this.serverDirectory = serverDirectory.getAbsoluteFile();
+    }
+
+    /**
+     * Stage a copy of a file
+     *
+     * @param source the file to copy
+     * @param target the file to copy to
+     * @throws IOException if the target path could not be resolved
+     */
+    public void copy(File source, File target) throws IOException {
+        stage(target, source);
+    }
+
+    /**
+     * Stage a copy of the files and subdirectories of a directory, including
+     * empty subdirectories. Like an Ant fileset, the Ant default excludes such
+     * as <code>.git/**</code> and <code>*~</code> are not copied.
+     *
+     * @param directory the directory to copy
+     * @param target    the directory to copy to
+     * @param excludes  Ant patterns of the files not to copy, relative to the
+     *                  directory
+     * @throws IOException if the directory could not be read
+     */
+    public void copyDirectory(File directory, File target, Set<String> excludes) throws IOException {
+        if (!directory.isDirectory()) {
+            throw new IOException("Unable to list the files of " + directory);
+        }
+        DirectoryScanner scanner = new DirectoryScanner();
+        scanner.setBasedir(directory);
+        scanner.setExcludes(excludes.toArray(new String[excludes.size()]));
+        scanner.addDefaultExcludes();
+        scanner.scan();
+        for (String path : scanner.getIncludedDirectories()) {
+            if (!path.isEmpty()) {
+                stage(new File(target, path), DIRECTORY);
+            }
+        }
+        for (String path : scanner.getIncludedFiles()) {
+            copy(new File(directory, path), new File(target, path));
+        }
+    }
+
+    /**
+     * Stage a write of generated content
+     *
+     * @param target  the file to write
+     * @param content the content of the file
+     * @throws IOException if the target path could not be resolved
+     */
+    public void write(File target, byte[] content) throws IOException {
+        stage(target, content);
+    }
+
+    /**
+     * Stage a delete of a file
+     *
+     * @param target the file to delete
+     * @throws IOException if the target path could not be resolved
+     */
+    public void delete(File target) throws IOException {
+        stage(target, null);
+    }
+
+    private void stage(File target, Object content) throws IOException {
+        File canonicalTarget = target.getCanonicalFile();
+        staged.remove(canonicalTarget);
+        staged.put(canonicalTarget, content);
+    }
+
+    /**
+     * Apply the staged operations. Files that already have the staged content
+     * are not touched.
+     *
+     * @return the files that changed
+     * @throws IOException if a file could not be written or deleted
+     */
+    public ConfigSyncResult sync() throws IOException {
+        ConfigSyncResult result = new ConfigSyncResult(serverDirectory.getCanonicalFile());
+        for (Map.Entry<File, Object> entry : staged.entrySet()) {
+            File target = entry.getKey();
+            Object content = entry.getValue();
+            if (content == DIRECTORY) {
+                if (!target.isDirectory()) {
+                    Files.createDirectories(target.toPath());
+                }
+            } else if (content == null) {
+                if (target.isFile()) {
+                    Files.delete(target.toPath());
+                    result.addDeleted(target);
+                }
+            } else if (content instanceof File) {
+                File source = (File) content;
+                if (!source.getCanonicalFile().equals(target) && !contentEquals(source, target)) {
+                    try (InputStream in = new BufferedInputStream(Files.newInputStream(source.toPath()))) {
+                        AtomicFiles.replace(target.toPath(), in);
+                    }
+                    result.addWritten(target);
+                }
+            } else {
+                byte[] bytes = (byte[]) content;
+                if (!AtomicFiles.contentEquals(target.toPath(), bytes)) {
+                    AtomicFiles.replace(target.toPath(), bytes);
+                    result.addWritten(target);
+                }
+            }
+        }
+        staged.clear();
+        return result;
+    }
+
+    private static boolean contentEquals(File source, File target) throws IOException {
+        if (!target.isFile() || source.length() != target.length()) {
+            return false;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(source.toPath()))) {
+            return contentEquals(in, target);
+        }
+    }
+
+    private static boolean contentEquals(InputStream in, File target) throws IOException {
+        try (InputStream targetIn = new BufferedInputStream(Files.newInputStream(target.toPath()))) {
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b != targetIn.read()) {
+                    return false;
+                }
+            }
+            return targetIn.read() == -1;
+        }
+    }
+
+}
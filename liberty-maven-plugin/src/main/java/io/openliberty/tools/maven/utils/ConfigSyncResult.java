@@ -0,0 +1,106 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The files of a server that a configuration sync updated, and what the
+ * running server needs to do to pick them up.
+ *
+ * The <code>jvm.options</code>, <code>bootstrap.properties</code> and
+ * <code>server.env</code> files are only read when the server starts, so a
+ * change to them requires a restart. A change to a configuration XML file is
+ * picked up with a configuration reload.
+ */
+public class ConfigSyncResult {
+
+    private static final List<String> RESTART_FILES = Arrays.asList("jvm.options", "bootstrap.properties", "server.env");
+
+    private final File serverDirectory;
+    private final List<File> written = new ArrayList<File>();
+    private final List<File> deleted = new ArrayList<File>();
+    private boolean restartRequired;
+    private boolean configReloadRequired;
+
+    ConfigSyncResult(File serverDirectory) {
+        this.serverDirectory = serverDirectory;
+    }
+
+    void addWritten(File file) {
+        written.add(file);
+        classify(file);
+    }
+
+    void addDeleted(File file) {
+        deleted.add(file);
+        classify(file);
+    }
+
+    private void classify(File file) {
+        if (serverDirectory.equals(file.getParentFile()) && RESTART_FILES.contains(file.getName())) {
+            restartRequired = true;
+        } else if (file.getName().toLowerCase().endsWith(".xml")) {
+            configReloadRequired = true;
+        }
+    }
+
+    /**
+     * @return the files that were created or whose content changed
+     */
+    public List<File> getWrittenFiles() {
+        return Collections.unmodifiableList(written);
+    }
+
+    /**
+     * @return the files that were deleted
+     */
+    public List<File> getDeletedFiles() {
+        return Collections.unmodifiableList(deleted);
+    }
+
+    /**
+     * @return true if any file was written or deleted
+     */
+    public boolean isChanged() {
+        return !written.isEmpty() || !deleted.isEmpty();
+    }
+
+    /**
+     * @return true if a file that is only read when the server starts changed
+     */
+    public boolean isRestartRequired() {
+        return restartRequired;
+    }
+
+    /**
+     * @return true if a configuration XML file changed
+     */
+    public boolean isConfigReloadRequired() {
+        return configReloadRequired;
+    }
+
+    @Override
+    public String toString() {
+        return "written=" + written + ", deleted=" + deleted + ", restartRequired=" + restartRequired
+                + ", configReloadRequired=" + configReloadRequired;
+    }
+
+}
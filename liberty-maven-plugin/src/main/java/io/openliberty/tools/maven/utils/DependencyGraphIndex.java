@@ -0,0 +1,118 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+
+/**
+ * An index of the resolved dependencies of a project, built once from their
+ * dependency trails.
+ *
+ * Artifacts are indexed by groupId, and every artifact is indexed as a
+ * descendant of each artifact in its dependency trail, by groupId:artifactId
+ * and by groupId:artifactId:version.
+ */
+public class DependencyGraphIndex {
+
+    private final Set<Artifact> artifacts;
+    private final int size;
+    private final Map<String, List<Artifact>> artifactsByGroupId = new HashMap<String, List<Artifact>>();
+    private final Map<String, Set<Artifact>> descendants = new HashMap<String, Set<Artifact>>();
+
+    /**
+     * @param artifacts the resolved dependencies of a project
+     */
+    public DependencyGraphIndex(Set<Artifact> artifacts) {
+        this.artifacts = artifacts;
+        this.size = artifacts.size();
+        for (Artifact artifact : artifacts) {
+            List<Artifact> group = artifactsByGroupId.get(artifact.getGroupId());
+            if (group == null) {
+                group = new ArrayList<Artifact>();
+                artifactsByGroupId.put(artifact.getGroupId(), group);
+            }
+            group.add(artifact);
+
+            List<String> trail = artifact.getDependencyTrail();
+            if (trail == null) {
+                continue;
+            }
+            for (String id : trail) {
+                // groupId:artifactId:type[:classifier]:version
+                String[] parts = id.split(":");
+                if (parts.length < 3) {
+                    continue;
+                }
+                String ga = parts[0] + ":" + parts[1];
+                addDescendant(ga, artifact);
+                addDescendant(ga + ":" + parts[parts.length - 1], artifact);
+            }
+        }
+    }
+
+    private void addDescendant(String key, Artifact artifact) {
+        Set<Artifact> set = descendants.get(key);
+        if (set == null) {
+            set = new LinkedHashSet<Artifact>();
+            descendants.put(key, set);
+        }
+        set.add(artifact);
+    }
+
+    /**
+     * @param artifacts the resolved dependencies of a project
+     * @return true if this index was built from the same, unchanged set
+     */
+    public boolean isIndexOf(Set<Artifact> artifacts) {
+        return this.artifacts == artifacts && size == artifacts.size();
+    }
+
+    /**
+     * @param groupId the groupId
+     * @return the artifacts with the groupId
+     */
+    public List<Artifact> getArtifacts(String groupId) {
+        List<Artifact> group = artifactsByGroupId.get(groupId);
+        return group != null ? group : Collections.<Artifact>emptyList();
+    }
+
+    /**
+     * Get the artifacts that have an artifact in their dependency trail. The
+     * result includes the artifact itself if it is in the index.
+     *
+     * @param groupId    the groupId of the artifact
+     * @param artifactId the artifactId of the artifact
+     * @param version    the version of the artifact, or null for any version
+     * @return the artifacts, in the order of the indexed set
+     */
+    public Set<Artifact> getDescendants(String groupId, String artifactId, String version) {
+        String key = groupId + ":" + artifactId;
+        if (version != null) {
+            key += ":" + version;
+        }
+        Set<Artifact> set = descendants.get(key);
+        return set != null ? set : Collections.<Artifact>emptySet();
+    }
+
+}
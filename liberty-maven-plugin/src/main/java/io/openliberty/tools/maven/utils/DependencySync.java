@@ -0,0 +1,256 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Synchronizes a set of files, such as resolved dependencies, into target
+ * locations.
+ *
+ * A target is left alone if it has the size and last modified time of its
+ * source and, when checksums are verified, the same SHA-256 digest. Changed
+ * targets are copied concurrently, or hard linked to their source when
+ * requested and possible. The targets that were placed are recorded in a
+ * manifest, so that targets placed by a previous run that are no longer part
+ * of the set are removed.
+ */
+public class DependencySync {
+
+    private final File manifestFile;
+    private final boolean link;
+    private final boolean verifyChecksum;
+    private final int parallelism;
+    private final Map<File, File> files = new LinkedHashMap<File, File>();
+
+    /**
+     * The result of a synchronization
+     */
+    public static class Result {
+        private final List<File> copied = Collections.synchronizedList(new ArrayList<File>());
+        private final List<File> linked = Collections.synchronizedList(new ArrayList<File>());
+        private final List<File> unchanged = Collections.synchronizedList(new ArrayList<File>());
+        private final List<File> removed = new ArrayList<File>();
+
+        /**
+         * @return the targets that were copied
+         */
+        public List<File> getCopied() {
+            return copied;
+        }
+
+        /**
+         * @return the targets that were hard linked to their source
+         */
+        public List<File> getLinked() {
+            return linked;
+        }
+
+        /**
+         * @return the targets that were already up to date
+         */
+        public List<File> getUnchanged() {
+            return unchanged;
+        }
+
+        /**
+         * @return the targets of a previous run that were removed
+         */
+        public List<File> getRemoved() {
+            return removed;
+        }
+    }
+
+    /**
+     * @param manifestFile   the file that the placed targets are recorded in
+     * @param link           true to hard link targets to their source when they
+     *                       are on the same file system
+     * @param verifyChecksum true to also compare the SHA-256 digests of
+     *                       targets that have the size and last modified time of
+     *                       their source
+     * @param parallelism    the number of copy threads, or 0 for the number of
+     *                       processors
+     */
+    public DependencySync(File manifestFile, boolean link, boolean verifyChecksum, int parallelism) {
+        this.manifestFile = manifestFile.getAbsoluteFile();
+        this.link = link;
+        this.verifyChecksum = verifyChecksum;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Add a file to the set. If a target is added more than once, the last
+     * source wins.
+     *
+     * @param source the source file
+     * @param target the target file
+     * @throws IOException if the target path could not be resolved
+     */
+    public void add(File source, File target) throws IOException {
+        File canonicalTarget = target.getCanonicalFile();
+        // keep the order of the last addition
+        files.remove(canonicalTarget);
+        files.put(canonicalTarget, source);
+    }
+
+    /**
+     * Bring the targets up to date with their sources, and remove the targets
+     * of a previous run that are no longer in the set
+     *
+     * @return the result
+     * @throws IOException if a target could not be updated
+     */
+    public Result sync() throws IOException {
+        final Properties previous = loadManifest();
+        final Map<String, String> placed = new ConcurrentHashMap<String, String>();
+        final Result result = new Result();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, files.size())),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "liberty-dependency-sync");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>(files.size());
+            for (final Map.Entry<File, File> entry : files.entrySet()) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        File target = entry.getKey();
+                        placed.put(target.getPath(),
+                                sync(entry.getValue(), target, previous.getProperty(target.getPath()), result));
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new IOException("Unable to copy dependencies", e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while copying dependencies", e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (String path : previous.stringPropertyNames()) {
+            if (!placed.containsKey(path)) {
+                File target = new File(path);
+                // only remove the target if it is still the file that was placed
+                String entry = previous.getProperty(path);
+                if (target.isFile() && (entry.equals(stamp(target)) || entry.startsWith(stamp(target) + ":"))) {
+                    Files.delete(target.toPath());
+                    result.removed.add(target);
+                }
+            }
+        }
+
+        storeManifest(placed);
+        return result;
+    }
+
+    /**
+     * @return the manifest entry of the target, its size, last modified time and,
+     *         if known, digest
+     */
+    private String sync(File source, File target, String previousEntry, Result result) throws IOException {
+        String sourceStamp = stamp(source);
+        String digest = null;
+        if (target.isFile() && sourceStamp.equals(stamp(target))) {
+            boolean current = true;
+            if (verifyChecksum) {
+                // the digest of the source is known if it did not change since the last run
+                digest = previousEntry != null && previousEntry.startsWith(sourceStamp + ":")
+                        ? previousEntry.substring(sourceStamp.length() + 1)
+                        : "";
+                if (digest.isEmpty()) {
+                    digest = DigestUtil.sha256(source);
+                }
+                current = digest.equals(DigestUtil.sha256(target));
+            }
+            if (current) {
+                result.unchanged.add(target);
+                return entry(sourceStamp, digest);
+            }
+        }
+
+        // the server never sees a partial file
+        if (AtomicFiles.copy(source.toPath(), target.toPath(), link, true)) {
+            result.linked.add(target);
+            return entry(sourceStamp, verifyChecksum ? DigestUtil.sha256(source) : null);
+        }
+        result.copied.add(target);
+        return entry(sourceStamp, verifyChecksum ? DigestUtil.sha256(target) : null);
+    }
+
+    private static String stamp(File file) {
+        return file.length() + ":" + file.lastModified();
+    }
+
+    private static String entry(String stamp, String digest) {
+        return digest != null && !digest.isEmpty() ? stamp + ":" + digest : stamp;
+    }
+
+    private Properties loadManifest() {
+        Properties manifest = new Properties();
+        if (manifestFile.isFile()) {
+            try (InputStream in = Files.newInputStream(manifestFile.toPath())) {
+                manifest.load(in);
+            } catch (IOException | IllegalArgumentException e) {
+                manifest.clear();
+            }
+        }
+        return manifest;
+    }
+
+    private void storeManifest(Map<String, String> placed) throws IOException {
+        if (placed.isEmpty()) {
+            Files.deleteIfExists(manifestFile.toPath());
+            return;
+        }
+        Properties manifest = new Properties();
+        manifest.putAll(placed);
+        AtomicFiles.store(manifestFile.toPath(), manifest, "Dependencies copied by the Liberty Maven plugin");
+    }
+
+}
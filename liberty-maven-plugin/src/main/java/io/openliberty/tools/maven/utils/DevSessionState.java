@@ -0,0 +1,184 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * State of a dev mode session that is kept in the build directory, so that a
+ * new session can skip startup steps whose inputs have not changed since the
+ * previous session.
+ *
+ * Each step records a key that fingerprints its inputs and outputs. A step is
+ * up to date if the key computed by the new session matches the recorded key.
+ */
+public class DevSessionState {
+
+    private static final String STATE_FILE = "session.properties";
+
+    private final File stateFile;
+    private final Properties properties = new Properties();
+
+    /**
+     * Load the state recorded in a state directory
+     *
+     * @param stateDirectory the state directory, e.g.
+     *                       <code>target/liberty-dev-state</code>
+     */
+    public DevSessionState(File stateDirectory) {
+        this.stateFile = new File(stateDirectory, STATE_FILE);
+        if (stateFile.isFile()) {
+            try (InputStream in = Files.newInputStream(stateFile.toPath())) {
+                properties.load(in);
+            } catch (IOException | IllegalArgumentException e) {
+                // start over with an empty state
+                properties.clear();
+            }
+        }
+    }
+
+    /**
+     * @param step the startup step, e.g. <code>compile</code>
+     * @param key  the key computed from the current inputs and outputs of the
+     *             step
+     * @return true if the step recorded the same key
+     */
+    public synchronized boolean isUpToDate(String step, String key) {
+        return key != null && key.equals(properties.getProperty(step));
+    }
+
+    /**
+     * Record the key of a step that completed
+     *
+     * @param step the startup step
+     * @param key  the key computed from the inputs and outputs of the step, or
+     *             null to remove the step
+     * @throws IOException if the state could not be written
+     */
+    public synchronized void record(String step, String key) throws IOException {
+        if (key == null) {
+            properties.remove(step);
+        } else {
+            properties.setProperty(step, key);
+        }
+        stateFile.getParentFile().mkdirs();
+        File tempFile = new File(stateFile.getParentFile(), STATE_FILE + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tempFile.toPath())) {
+            properties.store(out, "Liberty dev mode session state");
+        }
+        Files.move(tempFile.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Create a key from a list of values
+     *
+     * @param values the values, e.g. fingerprints and options
+     * @return the key
+     */
+    public static String key(List<String> values) {
+        MessageDigest digest = DigestUtil.newDigest();
+        for (String value : values) {
+            digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return DigestUtil.toHex(digest.digest());
+    }
+
+    /**
+     * Fingerprint a file or the files in a directory tree by path, size and
+     * last modified time
+     *
+     * @param file   a file or a directory
+     * @param suffix only fingerprint files in a directory whose names end with
+     *               this suffix, or null for all files
+     * @return the fingerprint
+     */
+    public static String fingerprint(File file, String suffix) {
+        List<String> entries = new ArrayList<String>();
+        if (file.isDirectory()) {
+            addEntries(file, "", suffix, entries);
+        } else if (file.isFile()) {
+            entries.add(file.length() + "|" + file.lastModified());
+        } else {
+            entries.add("missing");
+        }
+        return key(entries);
+    }
+
+    private static void addEntries(File directory, String path, String suffix, List<String> entries) {
+        String[] names = directory.list();
+        if (names == null) {
+            return;
+        }
+        Arrays.sort(names);
+        for (String name : names) {
+            File file = new File(directory, name);
+            if (file.isDirectory()) {
+                addEntries(file, path + name + "/", suffix, entries);
+            } else if (suffix == null || name.endsWith(suffix)) {
+                entries.add(path + name + "|" + file.length() + "|" + file.lastModified());
+            }
+        }
+    }
+
+    /**
+     * Check that every Java source file has a class file that is not older than
+     * the source file. Errors of a compile that does not fail on errors leave
+     * source files without class files.
+     *
+     * @param sourceDirectory the Java source directory
+     * @param outputDirectory the class output directory
+     * @return true if the class files are current
+     */
+    public static boolean hasCurrentClasses(File sourceDirectory, File outputDirectory) {
+        return hasCurrentClasses(sourceDirectory, outputDirectory, "");
+    }
+
+    private static boolean hasCurrentClasses(File sourceDirectory, File outputDirectory, String path) {
+        String[] names = new File(sourceDirectory, path).list();
+        if (names == null) {
+            return true;
+        }
+        for (String name : names) {
+            File source = new File(sourceDirectory, path + name);
+            if (source.isDirectory()) {
+                if (!hasCurrentClasses(sourceDirectory, outputDirectory, path + name + "/")) {
+                    return false;
+                }
+            } else if (name.endsWith(".java") && !name.equals("package-info.java")
+                    && !name.equals("module-info.java")) {
+                File classFile = new File(outputDirectory,
+                        path + name.substring(0, name.length() - ".java".length()) + ".class");
+                if (!classFile.isFile() || classFile.lastModified() < source.lastModified()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+}
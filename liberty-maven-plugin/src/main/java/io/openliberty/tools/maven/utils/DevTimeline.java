@@ -0,0 +1,167 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Records timed spans of the dev mode startup and writes them in the Chrome
+ * trace event format, which can be opened in chrome://tracing or Perfetto.
+ */
+public class DevTimeline {
+
+    public static final String STEP = "step";
+    public static final String MOJO = "mojo";
+
+    private final long origin = System.nanoTime();
+    private final List<Span> spans = Collections.synchronizedList(new ArrayList<Span>());
+
+    /**
+     * A timed span, ended by {@link #close()}
+     */
+    public static class Span implements AutoCloseable {
+        /**
+         * A span that is not recorded
+         */
+        public static final Span NONE = new Span(null, null, null);
+
+        private final DevTimeline timeline;
+        private final String name;
+        private final String category;
+        private final long threadId = Thread.currentThread().getId();
+        private final long start = System.nanoTime();
+        private volatile long end = -1;
+
+        private Span(DevTimeline timeline, String name, String category) {
+            this.timeline = timeline;
+            this.name = name;
+            this.category = category;
+        }
+
+        /**
+         * @return the duration in nanoseconds, or -1 if the span has not ended
+         */
+        public long getDuration() {
+            return end < 0 ? -1 : end - start;
+        }
+
+        @Override
+        public void close() {
+            if (timeline != null && end < 0) {
+                end = System.nanoTime();
+                timeline.spans.add(this);
+            }
+        }
+    }
+
+    /**
+     * Start a span on the current thread
+     *
+     * @param name     the span name, e.g. <code>liberty:create</code>
+     * @param category {@link #STEP} for startup steps, {@link #MOJO} for goals
+     *                 run within steps
+     * @return the span, to be closed when the work ends
+     */
+    public Span start(String name, String category) {
+        return new Span(this, name, category);
+    }
+
+    /**
+     * Write the recorded spans as a JSON trace
+     *
+     * @param file the trace file
+     * @throws IOException if the file could not be written
+     */
+    public void write(File file) throws IOException {
+        List<Span> recorded = getSpans();
+        file.getParentFile().mkdirs();
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+            boolean first = true;
+            for (Span span : recorded) {
+                if (!first) {
+                    writer.write(',');
+                }
+                first = false;
+                writer.write("\n{\"name\":\"" + escape(span.name) + "\",\"cat\":\"" + escape(span.category)
+                        + "\",\"ph\":\"X\",\"ts\":" + (span.start - origin) / 1000 + ",\"dur\":"
+                        + span.getDuration() / 1000 + ",\"pid\":1,\"tid\":" + span.threadId + "}");
+            }
+            writer.write("\n]}\n");
+        }
+    }
+
+    /**
+     * Get a one line summary with the total time since the timeline was created
+     * and the longest startup steps
+     *
+     * @return the summary
+     */
+    public String getSummary() {
+        List<Span> steps = new ArrayList<Span>();
+        for (Span span : getSpans()) {
+            if (STEP.equals(span.category)) {
+                steps.add(span);
+            }
+        }
+        Collections.sort(steps, new Comparator<Span>() {
+            @Override
+            public int compare(Span s1, Span s2) {
+                return Long.compare(s2.getDuration(), s1.getDuration());
+            }
+        });
+        StringBuilder sb = new StringBuilder("Dev mode startup took ").append(seconds(System.nanoTime() - origin));
+        for (int i = 0; i < steps.size() && i < 5; i++) {
+            sb.append(i == 0 ? ": " : ", ").append(steps.get(i).name).append(' ')
+                    .append(seconds(steps.get(i).getDuration()));
+        }
+        return sb.toString();
+    }
+
+    private List<Span> getSpans() {
+        synchronized (spans) {
+            return new ArrayList<Span>(spans);
+        }
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.1f s", nanos / 1e9);
+    }
+
+    private static String escape(String value) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+}
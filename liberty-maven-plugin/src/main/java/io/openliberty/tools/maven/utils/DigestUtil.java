@@ -0,0 +1,79 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public class DigestUtil {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Get a new SHA-256 message digest
+     * @return the message digest
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Get the SHA-256 hex digest of a string, encoded as UTF-8
+     * @param content the string to digest
+     * @return the hex digest
+     */
+    public static String sha256(String content) {
+        return toHex(newDigest().digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Get the SHA-256 hex digest of a file's content
+     * @param file the file to digest
+     * @return the hex digest
+     * @throws IOException if the file cannot be read
+     */
+    public static String sha256(File file) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    public static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+
+}
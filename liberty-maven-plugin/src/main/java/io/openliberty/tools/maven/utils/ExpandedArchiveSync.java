@@ -0,0 +1,374 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Deploys an application archive as an expanded directory, writing only the
+ * entries that changed since the last deploy.
+ *
+ * The CRC and size of every deployed entry are kept in a manifest. The updated
+ * directory is built in a staging directory outside of the server: changed
+ * entries are extracted to it, and the unchanged entries and the files that the
+ * server created are hard linked to it from the expanded directory. The staging
+ * directory is then renamed into place, so the server sees the update as a
+ * single change. If the staging directory is on another file store than the
+ * expanded directory, the changed entries are moved into place one at a time
+ * instead, and the server can see the update as several changes. If the
+ * manifest is missing, e.g. after a clean build, the whole directory is
+ * replaced. The WAR modules of an EAR are expanded too, so a change to one
+ * class only rewrites that class.
+ */
+public class ExpandedArchiveSync {
+
+    private final File manifestFile;
+    private final File stagingDirectory;
+    private final File previousDirectory;
+
+    /**
+     * The result of a sync
+     */
+    public static class Result {
+        private int written;
+        private int removed;
+        private int unchanged;
+
+        /**
+         * @return the number of entries that were written
+         */
+        public int getWritten() {
+            return written;
+        }
+
+        /**
+         * @return the number of entries that were removed
+         */
+        public int getRemoved() {
+            return removed;
+        }
+
+        /**
+         * @return the number of entries that were already up to date
+         */
+        public int getUnchanged() {
+            return unchanged;
+        }
+
+        /**
+         * @return true if the expanded directory changed
+         */
+        public boolean isChanged() {
+            return written > 0 || removed > 0;
+        }
+    }
+
+    /**
+     * @param workDirectory the directory, outside of the server, for the
+     *                      manifest and the staged entries
+     * @param name          the name of the application, unique within the work
+     *                      directory
+     */
+    public ExpandedArchiveSync(File workDirectory, String name) {
+        this.manifestFile = new File(workDirectory, name + ".properties");
+        this.stagingDirectory = new File(workDirectory, name + ".staging");
+        this.previousDirectory = new File(workDirectory, name + ".previous");
+    }
+
+    /**
+     * Bring an expanded directory up to date with an archive
+     *
+     * @param archive   the application archive
+     * @param directory the expanded directory. A file at this location, such
+     *                  as a previously deployed archive, is replaced.
+     * @return the result
+     * @throws IOException if the archive could not be read or the directory
+     *                     could not be updated
+     */
+    public Result sync(File archive, File directory) throws IOException {
+        // null if the directory was not expanded from a known archive
+        Properties previous = loadManifest(directory);
+
+        Result result = new Result();
+        Map<String, String> current = new LinkedHashMap<String, String>();
+        Properties deployed = previous != null ? previous : new Properties();
+        FileUtils.deleteDirectory(stagingDirectory);
+        FileUtils.deleteDirectory(previousDirectory);
+        try {
+            Files.createDirectories(stagingDirectory.toPath());
+            boolean ear = archive.getName().toLowerCase().endsWith(".ear");
+            try (ZipFile zipFile = new ZipFile(archive)) {
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (entry.isDirectory()) {
+                        continue;
+                    }
+                    String path = checkPath(entry.getName());
+                    if (ear && path.indexOf('/') < 0 && path.toLowerCase().endsWith(".war")) {
+                        // expand the module, its entries are only known once they are read
+                        try (ZipInputStream module = new ZipInputStream(zipFile.getInputStream(entry))) {
+                            ZipEntry moduleEntry;
+                            while ((moduleEntry = module.getNextEntry()) != null) {
+                                if (!moduleEntry.isDirectory()) {
+                                    stageModuleEntry(path + "/" + checkPath(moduleEntry.getName()), moduleEntry,
+                                            module, directory, deployed, current, result);
+                                }
+                            }
+                        }
+                    } else {
+                        String stamp = entry.getCrc() + ":" + entry.getSize();
+                        current.put(path, stamp);
+                        if (isDeployed(directory, path, stamp, entry.getSize(), deployed)) {
+                            result.unchanged++;
+                        } else {
+                            try (InputStream in = zipFile.getInputStream(entry)) {
+                                stage(path, in);
+                            }
+                            result.written++;
+                        }
+                    }
+                }
+            }
+            for (String path : deployed.stringPropertyNames()) {
+                if (!current.containsKey(path) && new File(directory, path).isFile()) {
+                    result.removed++;
+                }
+            }
+
+            boolean upToDate = previous != null && !result.isChanged();
+            if (!upToDate && isOnStagingFileStore(directory)) {
+                if (previous != null) {
+                    linkRetainedFiles(directory, previous, current);
+                }
+                swap(directory);
+            } else if (!upToDate) {
+                apply(directory, previous, current);
+            }
+        } finally {
+            FileUtils.deleteDirectory(stagingDirectory);
+            FileUtils.deleteDirectory(previousDirectory);
+        }
+
+        storeManifest(current);
+        return result;
+    }
+
+    private Properties loadManifest(File directory) throws IOException {
+        if (!directory.isDirectory() || !manifestFile.isFile()) {
+            return null;
+        }
+        Properties manifest = new Properties();
+        try (InputStream in = Files.newInputStream(manifestFile.toPath())) {
+            manifest.load(in);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return manifest;
+    }
+
+    private void stageModuleEntry(String path, ZipEntry moduleEntry, ZipInputStream module, File directory,
+            Properties deployed, Map<String, String> current, Result result) throws IOException {
+        boolean staged = false;
+        if (moduleEntry.getCrc() == -1 || moduleEntry.getSize() == -1) {
+            // the CRC and size follow the content, the stream sets them once the entry is read
+            stage(path, module);
+            staged = true;
+        }
+        String stamp = moduleEntry.getCrc() + ":" + moduleEntry.getSize();
+        current.put(path, stamp);
+        if (isDeployed(directory, path, stamp, moduleEntry.getSize(), deployed)) {
+            result.unchanged++;
+            if (staged) {
+                Files.delete(new File(stagingDirectory, path).toPath());
+            }
+        } else {
+            if (!staged) {
+                stage(path, module);
+            }
+            result.written++;
+        }
+    }
+
+    private static boolean isDeployed(File directory, String path, String stamp, long size, Properties deployed) {
+        if (!stamp.equals(deployed.getProperty(path))) {
+            return false;
+        }
+        File file = new File(directory, path);
+        return file.isFile() && file.length() == size;
+    }
+
+    private void stage(String path, InputStream in) throws IOException {
+        Path stagedFile = new File(stagingDirectory, path).toPath();
+        Files.createDirectories(stagedFile.getParent());
+        Files.copy(in, stagedFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Delete an expanded directory and its manifest, before the archive is
+     * deployed in its place
+     *
+     * @param directory the expanded directory
+     * @throws IOException if the directory could not be deleted
+     */
+    public void delete(File directory) throws IOException {
+        FileUtils.deleteDirectory(directory);
+        Files.deleteIfExists(manifestFile.toPath());
+    }
+
+    private boolean isOnStagingFileStore(File directory) throws IOException {
+        Path parent = directory.getAbsoluteFile().getParentFile().toPath();
+        Files.createDirectories(parent);
+        return Files.getFileStore(parent).equals(Files.getFileStore(stagingDirectory.toPath()));
+    }
+
+    /**
+     * Link the unchanged entries, and the files that are not entries of the
+     * previous or the current archive, from the expanded directory to the
+     * staging directory
+     */
+    private void linkRetainedFiles(final File directory, final Properties previous, final Map<String, String> current)
+            throws IOException {
+        final Path root = directory.toPath();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (!attrs.isRegularFile()) {
+                    return FileVisitResult.CONTINUE;
+                }
+                String path = root.relativize(file).toString().replace(File.separatorChar, '/');
+                boolean retained = current.containsKey(path) || !previous.containsKey(path);
+                Path staged = new File(stagingDirectory, path).toPath();
+                if (retained && !Files.exists(staged)) {
+                    Files.createDirectories(staged.getParent());
+                    try {
+                        Files.createLink(staged, file);
+                    } catch (IOException | UnsupportedOperationException e) {
+                        Files.copy(file, staged, StandardCopyOption.COPY_ATTRIBUTES);
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Rename the staging directory into the place of the expanded directory
+     */
+    private void swap(File directory) throws IOException {
+        Path target = directory.toPath();
+        if (directory.isDirectory()) {
+            Files.move(target, previousDirectory.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } else {
+            Files.deleteIfExists(target);
+        }
+        try {
+            Files.move(stagingDirectory.toPath(), target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            if (previousDirectory.isDirectory()) {
+                Files.move(previousDirectory.toPath(), target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Move the staged entries into place one at a time and remove the entries
+     * that are no longer in the archive. The directory is replaced if it was not
+     * expanded from a known archive.
+     */
+    private void apply(File directory, Properties previous, Map<String, String> current) throws IOException {
+        if (directory.isFile()) {
+            Files.delete(directory.toPath());
+        } else if (previous == null) {
+            FileUtils.deleteDirectory(directory);
+        }
+        for (String path : current.keySet()) {
+            File staged = new File(stagingDirectory, path);
+            if (staged.isFile()) {
+                Path target = new File(directory, path).toPath();
+                Files.createDirectories(target.getParent());
+                AtomicFiles.move(staged.toPath(), target);
+            }
+        }
+        if (previous == null) {
+            return;
+        }
+
+        List<File> parents = new ArrayList<File>();
+        for (String path : previous.stringPropertyNames()) {
+            if (!current.containsKey(path)) {
+                File file = new File(directory, path);
+                if (file.isFile()) {
+                    Files.delete(file.toPath());
+                    parents.add(file.getParentFile());
+                }
+            }
+        }
+        // remove the directories that became empty
+        for (File parent : parents) {
+            while (!parent.equals(directory) && parent.isDirectory()) {
+                String[] children = parent.list();
+                if (children == null || children.length > 0 || !parent.delete()) {
+                    break;
+                }
+                parent = parent.getParentFile();
+            }
+        }
+    }
+
+    /**
+     * @return the path of an entry, if it stays inside of the expanded directory
+     */
+    private static String checkPath(String name) throws IOException {
+        String path = name.replace('\\', '/');
+        while (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        for (String segment : path.split("/")) {
+            if (segment.equals("..")) {
+                throw new IOException("The archive entry " + name + " is outside of the archive.");
+            }
+        }
+        return path;
+    }
+
+    private void storeManifest(Map<String, String> current) throws IOException {
+        Properties manifest = new Properties();
+        manifest.putAll(current);
+        AtomicFiles.store(manifestFile.toPath(), manifest, "Application entries deployed by the Liberty Maven plugin");
+    }
+
+}
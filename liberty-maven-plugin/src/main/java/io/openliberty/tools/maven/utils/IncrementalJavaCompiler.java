@@ -0,0 +1,455 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles Java sources with a single in-process <code>javax.tools</code>
+ * compiler that is kept warm for the whole dev mode session.
+ *
+ * Each source/output directory pair keeps its own file manager and an index of
+ * the classes produced by each source file and the classes they reference. A
+ * compile only passes the sources that changed since the last compile, plus
+ * the sources that reference classes from changed or deleted sources. All
+ * sources are recompiled when the classpath or compiler options change, or
+ * when a changed class declares compile time constants, since javac inlines
+ * those without recording a reference to the declaring class.
+ */
+public class IncrementalJavaCompiler {
+
+    private final JavaCompiler compiler;
+    private final Map<String, ModuleState> modules = new ConcurrentHashMap<String, ModuleState>();
+
+    /**
+     * The result of a compile
+     */
+    public static class Result {
+        private final boolean success;
+        private final int compiledSources;
+        private final List<String> messages;
+
+        private Result(boolean success, int compiledSources, List<String> messages) {
+            this.success = success;
+            this.compiledSources = compiledSources;
+            this.messages = messages;
+        }
+
+        /**
+         * @return true if there were no compilation errors
+         */
+        public boolean isSuccess() {
+            return success;
+        }
+
+        /**
+         * @return the number of source files passed to the compiler
+         */
+        public int getCompiledSources() {
+            return compiledSources;
+        }
+
+        /**
+         * @return the compiler diagnostics, formatted the same way as the
+         *         maven-compiler-plugin
+         */
+        public List<String> getMessages() {
+            return messages;
+        }
+    }
+
+    private static class ModuleState {
+        private StandardJavaFileManager fileManager;
+        private List<String> classpath;
+        private List<String> options;
+        private boolean indexed;
+        // last modified time of each source file at its last successful compile
+        private final Map<File, Long> sourceStamps = new HashMap<File, Long>();
+        // class files written for each source file
+        private final Map<File, Set<File>> classFiles = new HashMap<File, Set<File>>();
+        // top level class names declared by each source file
+        private final Map<File, Set<String>> declaredClasses = new HashMap<File, Set<String>>();
+        // source files that reference each top level class name
+        private final Map<String, Set<File>> dependents = new HashMap<String, Set<File>>();
+        // classes referenced by each source file
+        private final Map<File, Set<String>> references = new HashMap<File, Set<String>>();
+        private final Set<File> constantSources = new HashSet<File>();
+    }
+
+    private IncrementalJavaCompiler(JavaCompiler compiler) {
+        this.compiler = compiler;
+    }
+
+    /**
+     * Create an incremental compiler using the system Java compiler
+     *
+     * @return the incremental compiler, or null if the current Java runtime does
+     *         not provide a system Java compiler
+     */
+    public static IncrementalJavaCompiler create() {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            return null;
+        }
+        return new IncrementalJavaCompiler(compiler);
+    }
+
+    /**
+     * Compile the sources of a directory that changed since the last compile of
+     * that directory, and the sources that depend on them.
+     *
+     * @param sourceDirectory the Java source directory
+     * @param outputDirectory the class output directory
+     * @param classpath       the classpath elements
+     * @param options         the compiler options, e.g. <code>--release 11</code>
+     * @return the compile result
+     * @throws IOException if the source or output directories could not be read
+     */
+    public Result compile(File sourceDirectory, File outputDirectory, Collection<String> classpath,
+            List<String> options) throws IOException {
+        String key = sourceDirectory.getCanonicalPath() + File.pathSeparator + outputDirectory.getCanonicalPath();
+        ModuleState state = modules.get(key);
+        if (state == null) {
+            state = new ModuleState();
+            ModuleState existing = modules.putIfAbsent(key, state);
+            if (existing != null) {
+                state = existing;
+            }
+        }
+        synchronized (state) {
+            return compile(state, sourceDirectory, outputDirectory, classpath, options);
+        }
+    }
+
+    private Result compile(ModuleState state, File sourceDirectory, File outputDirectory, Collection<String> classpath,
+            List<String> options) throws IOException {
+        if (state.fileManager == null) {
+            state.fileManager = compiler.getStandardFileManager(null, null, null);
+        }
+        List<String> classpathList = new ArrayList<String>(classpath);
+        List<String> optionList = new ArrayList<String>(options);
+        // the first compile relies on the output of the previous Maven build, which
+        // used the same classpath and options
+        boolean fullCompile = state.classpath != null
+                && (!classpathList.equals(state.classpath) || !optionList.equals(state.options));
+        if (!classpathList.equals(state.classpath)) {
+            // the output directory comes first so the unchanged classes are read
+            // from there instead of being compiled again from the source path
+            List<File> classpathFiles = new ArrayList<File>();
+            classpathFiles.add(outputDirectory);
+            for (String element : classpathList) {
+                File file = new File(element);
+                if (!file.equals(outputDirectory)) {
+                    classpathFiles.add(file);
+                }
+            }
+            state.fileManager.setLocation(StandardLocation.CLASS_PATH, classpathFiles);
+            state.classpath = classpathList;
+        }
+        state.options = optionList;
+        outputDirectory.mkdirs();
+        state.fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singletonList(outputDirectory));
+        state.fileManager.setLocation(StandardLocation.SOURCE_PATH, Collections.singletonList(sourceDirectory));
+
+        Set<File> sources = new LinkedHashSet<File>();
+        collectSources(sourceDirectory, sources);
+        if (!state.indexed) {
+            indexOutputDirectory(state, sourceDirectory, outputDirectory, sources);
+            state.indexed = true;
+        }
+
+        Set<File> changed = new LinkedHashSet<File>();
+        for (File source : sources) {
+            Long stamp = state.sourceStamps.get(source);
+            if (stamp == null || stamp.longValue() != source.lastModified()) {
+                changed.add(source);
+            }
+        }
+        Set<File> removed = new HashSet<File>(state.sourceStamps.keySet());
+        removed.removeAll(sources);
+
+        Set<File> toCompile = new LinkedHashSet<File>();
+        if (fullCompile) {
+            toCompile.addAll(sources);
+        } else {
+            toCompile.addAll(changed);
+            for (File source : changed) {
+                if (state.constantSources.contains(source)) {
+                    toCompile.addAll(sources);
+                    break;
+                }
+            }
+            Set<File> affected = new HashSet<File>(changed);
+            affected.addAll(removed);
+            for (File source : affected) {
+                Set<String> declared = state.declaredClasses.get(source);
+                if (declared == null) {
+                    continue;
+                }
+                for (String className : declared) {
+                    Set<File> dependents = state.dependents.get(className);
+                    if (dependents != null) {
+                        toCompile.addAll(dependents);
+                    }
+                }
+            }
+            toCompile.retainAll(sources);
+        }
+
+        for (File source : removed) {
+            forget(state, source, true);
+        }
+        if (toCompile.isEmpty()) {
+            return new Result(true, 0, Collections.<String> emptyList());
+        }
+        for (File source : toCompile) {
+            forget(state, source, true);
+        }
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        final Map<File, Set<File>> written = new HashMap<File, Set<File>>();
+        JavaFileManager fileManager = new ForwardingJavaFileManager<StandardJavaFileManager>(state.fileManager) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                    FileObject sibling) throws IOException {
+                JavaFileObject output = super.getJavaFileForOutput(location, className, kind, sibling);
+                if (kind == JavaFileObject.Kind.CLASS && sibling != null && output != null) {
+                    recordOutput(written, sibling.toUri(), output.toUri());
+                }
+                return output;
+            }
+        };
+        Iterable<? extends JavaFileObject> units = state.fileManager.getJavaFileObjectsFromFiles(toCompile);
+        List<String> compileOptions = new ArrayList<String>(optionList);
+        // match the maven-compiler-plugin default of including debug information
+        if (!containsDebugOption(compileOptions)) {
+            compileOptions.add("-g");
+        }
+        Boolean success = compiler.getTask(null, fileManager, diagnostics, compileOptions, null, units).call();
+
+        // record the class files and references of the sources that were compiled,
+        // including sources that javac compiled implicitly from the source path
+        for (Map.Entry<File, Set<File>> entry : written.entrySet()) {
+            File source = entry.getKey();
+            forget(state, source, false);
+            state.classFiles.put(source, entry.getValue());
+            indexClassFiles(state, source, entry.getValue());
+        }
+        Set<File> compiled = new HashSet<File>(toCompile);
+        compiled.addAll(written.keySet());
+        for (File source : compiled) {
+            if (success != null && success.booleanValue()) {
+                state.sourceStamps.put(source, source.lastModified());
+            } else {
+                // compile again next time until the errors are fixed
+                state.sourceStamps.remove(source);
+            }
+        }
+
+        List<String> messages = new ArrayList<String>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            messages.add(format(diagnostic));
+        }
+        return new Result(success != null && success.booleanValue(), toCompile.size(), messages);
+    }
+
+    private static void recordOutput(Map<File, Set<File>> written, URI sourceUri, URI classUri) {
+        if (!"file".equals(sourceUri.getScheme()) || !"file".equals(classUri.getScheme())) {
+            return;
+        }
+        File source = new File(sourceUri);
+        synchronized (written) {
+            Set<File> classFiles = written.get(source);
+            if (classFiles == null) {
+                classFiles = new HashSet<File>();
+                written.put(source, classFiles);
+            }
+            classFiles.add(new File(classUri));
+        }
+    }
+
+    /**
+     * Build the index from class files left in the output directory by a
+     * previous build. A source is considered up to date if the class file of
+     * its primary class is newer than the source.
+     */
+    private void indexOutputDirectory(ModuleState state, File sourceDirectory, File outputDirectory,
+            Set<File> sources) {
+        Map<String, File> sourcesByClass = new HashMap<String, File>();
+        for (File source : sources) {
+            String relative = sourceDirectory.toURI().relativize(source.toURI()).getPath();
+            sourcesByClass.put(relative.substring(0, relative.length() - ".java".length()), source);
+        }
+        List<File> classFiles = new ArrayList<File>();
+        collectClassFiles(outputDirectory, classFiles);
+        for (File classFile : classFiles) {
+            String relative = outputDirectory.toURI().relativize(classFile.toURI()).getPath();
+            String className = relative.substring(0, relative.length() - ".class".length());
+            File source = sourcesByClass.get(ClassFileReferences.getTopLevelClassName(className));
+            if (source == null) {
+                continue;
+            }
+            Set<File> files = state.classFiles.get(source);
+            if (files == null) {
+                files = new HashSet<File>();
+                state.classFiles.put(source, files);
+            }
+            files.add(classFile);
+        }
+        for (Map.Entry<String, File> entry : sourcesByClass.entrySet()) {
+            File source = entry.getValue();
+            Set<File> files = state.classFiles.get(source);
+            if (files == null) {
+                continue;
+            }
+            indexClassFiles(state, source, files);
+            File primaryClass = new File(outputDirectory, entry.getKey() + ".class");
+            if (primaryClass.lastModified() >= source.lastModified()) {
+                state.sourceStamps.put(source, source.lastModified());
+            }
+        }
+    }
+
+    private static void indexClassFiles(ModuleState state, File source, Set<File> classFiles) {
+        Set<String> declared = new HashSet<String>();
+        Set<String> referenced = new HashSet<String>();
+        boolean constants = false;
+        for (File classFile : classFiles) {
+            try {
+                ClassFileReferences refs = ClassFileReferences.read(classFile);
+                declared.add(refs.getClassName());
+                referenced.addAll(refs.getReferences());
+                constants |= refs.hasConstantFields();
+            } catch (IOException e) {
+                // unreadable class files are recompiled on the next full compile
+            }
+        }
+        referenced.removeAll(declared);
+        state.declaredClasses.put(source, declared);
+        state.references.put(source, referenced);
+        for (String className : referenced) {
+            Set<File> dependents = state.dependents.get(className);
+            if (dependents == null) {
+                dependents = new HashSet<File>();
+                state.dependents.put(className, dependents);
+            }
+            dependents.add(source);
+        }
+        if (constants) {
+            state.constantSources.add(source);
+        } else {
+            state.constantSources.remove(source);
+        }
+    }
+
+    private static void forget(ModuleState state, File source, boolean deleteClassFiles) {
+        Set<File> classFiles = state.classFiles.remove(source);
+        if (deleteClassFiles && classFiles != null) {
+            for (File classFile : classFiles) {
+                classFile.delete();
+            }
+        }
+        Set<String> referenced = state.references.remove(source);
+        if (referenced != null) {
+            for (String className : referenced) {
+                Set<File> dependents = state.dependents.get(className);
+                if (dependents != null) {
+                    dependents.remove(source);
+                }
+            }
+        }
+        state.declaredClasses.remove(source);
+        state.constantSources.remove(source);
+        if (deleteClassFiles) {
+            state.sourceStamps.remove(source);
+        }
+    }
+
+    private static boolean containsDebugOption(List<String> options) {
+        for (String option : options) {
+            if (option.startsWith("-g")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String format(Diagnostic<? extends JavaFileObject> diagnostic) {
+        StringBuilder sb = new StringBuilder();
+        if (diagnostic.getSource() != null) {
+            sb.append(new File(diagnostic.getSource().toUri()).getPath());
+            if (diagnostic.getLineNumber() != Diagnostic.NOPOS) {
+                sb.append(":[").append(diagnostic.getLineNumber()).append(',')
+                        .append(diagnostic.getColumnNumber()).append(']');
+            }
+            sb.append(' ');
+        }
+        sb.append(diagnostic.getMessage(null));
+        return sb.toString();
+    }
+
+    private static void collectSources(File dir, Set<File> sources) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                collectSources(file, sources);
+            } else if (file.getName().endsWith(".java")) {
+                sources.add(file.getAbsoluteFile());
+            }
+        }
+    }
+
+    private static void collectClassFiles(File dir, List<File> classFiles) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                collectClassFiles(file, classFiles);
+            } else if (file.getName().endsWith(".class")) {
+                classFiles.add(file);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,301 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuilder;
+import org.apache.maven.project.ProjectBuildingException;
+import org.apache.maven.project.ProjectBuildingRequest;
+
+/**
+ * Cache of built Maven projects used by dev mode when pom.xml files change.
+ *
+ * Projects are looked up in three steps:
+ * <ol>
+ * <li>if the pom.xml and its parent poms are byte for byte unchanged, the
+ * cached project is returned without building anything</li>
+ * <li>otherwise the effective model is built without dependency resolution.
+ * If the effective pom content is unchanged, the cached project is
+ * returned</li>
+ * <li>if only the dependencies and dependencyManagement sections of the
+ * effective pom are unchanged, the newly built model reuses the resolved
+ * artifacts of the cached project. Dependency resolution only runs when those
+ * sections change.</li>
+ * </ol>
+ *
+ * A new version of a SNAPSHOT or version range dependency may be installed or
+ * deployed without any pom.xml change. For those dependencies the files in the
+ * local repository directory of each resolved artifact are recorded with their
+ * sizes and modification times, and the project is resolved again, without
+ * building the model first, as soon as they change. An artifact resolved to a
+ * reactor module output directory is stable. Callers get their own copy of a
+ * cached project, so they can modify it.
+ */
+public class MavenProjectCache {
+
+    private final ProjectBuilder projectBuilder;
+    private final Log log;
+    private final Map<String, CacheEntry> entries = new ConcurrentHashMap<String, CacheEntry>();
+
+    private static class CacheEntry {
+        private final String sourceHash;
+        private final List<File> parentFiles;
+        private final String modelHash;
+        private final String dependencyHash;
+        // null if the project has no SNAPSHOT or version range dependency
+        private final String volatileStamp;
+        private final MavenProject project;
+
+        private CacheEntry(String sourceHash, List<File> parentFiles, String modelHash, String dependencyHash,
+                MavenProject project) {
+            this.sourceHash = sourceHash;
+            this.parentFiles = parentFiles;
+            this.modelHash = modelHash;
+            this.dependencyHash = dependencyHash;
+            this.volatileStamp = getVolatileStamp(project);
+            this.project = project;
+        }
+    }
+
+    public MavenProjectCache(ProjectBuilder projectBuilder, Log log) {
+        this.projectBuilder = projectBuilder;
+        this.log = log;
+    }
+
+    /**
+     * Add a project that has already been built with its dependencies resolved,
+     * such as a project from the Maven reactor.
+     *
+     * @param project the resolved Maven project
+     */
+    public void seed(MavenProject project) {
+        if (project == null || project.getFile() == null) {
+            return;
+        }
+        try {
+            put(project.getFile(), project.clone());
+        } catch (IOException e) {
+            log.debug("Unable to cache Maven project " + project.getFile(), e);
+        }
+    }
+
+    /**
+     * Get the Maven project for the build file, with its dependencies resolved.
+     *
+     * @param buildFile the pom.xml file
+     * @param request   the project building request to base the builds on. It is
+     *                  not modified.
+     * @return a copy of the Maven project
+     * @throws ProjectBuildingException if the project could not be built
+     * @throws IOException              if the build file could not be read
+     */
+    public MavenProject getProject(File buildFile, ProjectBuildingRequest request)
+            throws ProjectBuildingException, IOException {
+        String key = buildFile.getCanonicalPath();
+        CacheEntry cached = entries.get(key);
+        if (cached != null && cached.volatileStamp != null
+                && !cached.volatileStamp.equals(getVolatileStamp(cached.project))) {
+            // the model is built with the dependencies anyway, so skip the model only build
+            log.debug("A SNAPSHOT or version range dependency of " + buildFile + " changed, resolving them again");
+            MavenProject project = resolve(buildFile, request);
+            put(buildFile, project);
+            return project.clone();
+        }
+        if (cached != null && cached.sourceHash.equals(getSourceHash(buildFile, cached.parentFiles))) {
+            log.debug("Reusing cached Maven project for unchanged build file " + buildFile);
+            return cached.project.clone();
+        }
+
+        ProjectBuildingRequest modelRequest = new DefaultProjectBuildingRequest(request).setResolveDependencies(false);
+        MavenProject modelProject = projectBuilder.build(buildFile, modelRequest).getProject();
+        String modelHash = getModelHash(modelProject);
+        String dependencyHash = getDependencyHash(modelProject);
+
+        MavenProject project;
+        if (cached != null && cached.modelHash.equals(modelHash)) {
+            log.debug("The effective pom of " + buildFile + " is unchanged, reusing cached Maven project");
+            project = cached.project;
+        } else if (cached != null && cached.dependencyHash.equals(dependencyHash)) {
+            log.debug("The dependencies of " + buildFile + " are unchanged, reusing resolved artifacts");
+            modelProject.setArtifacts(new LinkedHashSet<Artifact>(cached.project.getArtifacts()));
+            project = modelProject;
+        } else {
+            project = resolve(buildFile, request);
+        }
+
+        List<File> parentFiles = getParentFiles(modelProject);
+        entries.put(key, new CacheEntry(getSourceHash(buildFile, parentFiles), parentFiles, modelHash,
+                dependencyHash, project));
+        return project.clone();
+    }
+
+    private MavenProject resolve(File buildFile, ProjectBuildingRequest request) throws ProjectBuildingException {
+        log.debug("Resolving dependencies for " + buildFile);
+        ProjectBuildingRequest resolveRequest = new DefaultProjectBuildingRequest(request).setResolveDependencies(true);
+        return projectBuilder.build(buildFile, resolveRequest).getProject();
+    }
+
+    /**
+     * Remove all cached projects.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private void put(File buildFile, MavenProject project) throws IOException {
+        List<File> parentFiles = getParentFiles(project);
+        entries.put(buildFile.getCanonicalPath(), new CacheEntry(getSourceHash(buildFile, parentFiles), parentFiles,
+                getModelHash(project), getDependencyHash(project), project));
+    }
+
+    /**
+     * @return the names, sizes and modification times of the local repository
+     *         files of the resolved SNAPSHOT artifacts and of the versions of the
+     *         declared version range dependencies, or null if there are none
+     */
+    private static String getVolatileStamp(MavenProject project) {
+        List<Dependency> dependencies = new ArrayList<Dependency>(project.getDependencies());
+        if (project.getDependencyManagement() != null) {
+            dependencies.addAll(project.getDependencyManagement().getDependencies());
+        }
+        boolean volatileDependencies = false;
+        Set<String> ranges = new HashSet<String>();
+        for (Dependency dependency : dependencies) {
+            String version = dependency.getVersion();
+            if (version == null) {
+                continue;
+            }
+            if (version.startsWith("[") || version.startsWith("(")) {
+                ranges.add(dependency.getGroupId() + ":" + dependency.getArtifactId());
+                volatileDependencies = true;
+            } else if (version.endsWith(Artifact.SNAPSHOT_VERSION)) {
+                volatileDependencies = true;
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        if (project.getArtifacts() != null) {
+            for (Artifact artifact : project.getArtifacts()) {
+                boolean range = ranges.contains(artifact.getGroupId() + ":" + artifact.getArtifactId());
+                if (!artifact.isSnapshot() && !range) {
+                    continue;
+                }
+                volatileDependencies = true;
+                File file = artifact.getFile();
+                sb.append(artifact.getId()).append('=');
+                if (file == null || file.isDirectory()) {
+                    // not resolved, or the output directory of a reactor module
+                    sb.append(file).append('\n');
+                } else if (range) {
+                    // a new version is a new directory next to the version directory
+                    appendDirectory(sb, file.getParentFile().getParentFile());
+                } else {
+                    appendDirectory(sb, file.getParentFile());
+                }
+            }
+        }
+        return volatileDependencies ? sb.toString() : null;
+    }
+
+    private static void appendDirectory(StringBuilder sb, File directory) {
+        sb.append(directory).append('\n');
+        String[] names = directory == null ? null : directory.list();
+        if (names == null) {
+            return;
+        }
+        Arrays.sort(names);
+        for (String name : names) {
+            File file = new File(directory, name);
+            sb.append(' ').append(name).append(':').append(file.length()).append(':').append(file.lastModified())
+                    .append('\n');
+        }
+    }
+
+    private static List<File> getParentFiles(MavenProject project) {
+        List<File> parentFiles = new ArrayList<File>();
+        MavenProject parent = project.getParent();
+        while (parent != null) {
+            if (parent.getFile() != null) {
+                parentFiles.add(parent.getFile());
+            }
+            parent = parent.getParent();
+        }
+        return parentFiles;
+    }
+
+    private static String getSourceHash(File buildFile, List<File> parentFiles) throws IOException {
+        MessageDigest digest = DigestUtil.newDigest();
+        digest.update(Files.readAllBytes(buildFile.toPath()));
+        for (File parentFile : parentFiles) {
+            digest.update((byte) 0);
+            if (parentFile.exists()) {
+                digest.update(Files.readAllBytes(parentFile.toPath()));
+            }
+        }
+        return DigestUtil.toHex(digest.digest());
+    }
+
+    private static String getModelHash(MavenProject project) throws IOException {
+        StringWriter writer = new StringWriter();
+        new MavenXpp3Writer().write(writer, project.getModel());
+        return DigestUtil.sha256(writer.toString());
+    }
+
+    private static String getDependencyHash(MavenProject project) {
+        StringBuilder sb = new StringBuilder();
+        appendDependencies(sb, project.getDependencies());
+        sb.append("|dependencyManagement|");
+        if (project.getDependencyManagement() != null) {
+            appendDependencies(sb, project.getDependencyManagement().getDependencies());
+        }
+        return DigestUtil.sha256(sb.toString());
+    }
+
+    private static void appendDependencies(StringBuilder sb, List<Dependency> dependencies) {
+        if (dependencies == null) {
+            return;
+        }
+        for (Dependency d : dependencies) {
+            sb.append(d.getGroupId()).append(':').append(d.getArtifactId()).append(':').append(d.getVersion())
+                    .append(':').append(d.getType()).append(':').append(d.getClassifier()).append(':')
+                    .append(d.getScope()).append(':').append(d.isOptional()).append(':').append(d.getSystemPath());
+            for (Exclusion e : d.getExclusions()) {
+                sb.append(";exclude=").append(e.getGroupId()).append(':').append(e.getArtifactId());
+            }
+            sb.append('\n');
+        }
+    }
+
+}
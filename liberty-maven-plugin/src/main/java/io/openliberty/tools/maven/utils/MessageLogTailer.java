@@ -0,0 +1,170 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Follows a server log, such as <code>messages.log</code>, and matches its
+ * lines against regular expressions.
+ *
+ * The log is read once, from the offset where the previous read stopped, and
+ * the lines that were read are kept, so any number of waits, in sequence or
+ * from several threads at once, share a single pass over the file. A log that
+ * is replaced or truncated, for example when it rolls over or the server
+ * restarts, is read again from its start.
+ */
+public class MessageLogTailer {
+
+    private static final long POLL_INTERVAL = 200;
+
+    private final Path logFile;
+    private final List<String> lines = new ArrayList<String>();
+    private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+    private long position;
+    private Object fileKey;
+    private FileTime creationTime;
+
+    /**
+     * @param logFile the log file, which does not need to exist yet
+     */
+    public MessageLogTailer(File logFile) {
+        this.logFile = logFile.toPath();
+    }
+
+    /**
+     * Wait for a line of the log to match a regular expression
+     *
+     * @param regexp  the regular expression that a part of the line must match
+     * @param timeout the number of milliseconds to wait
+     * @return the first matching line, or null if no line matched in time
+     */
+    public String waitFor(String regexp, long timeout) {
+        return waitForAll(Collections.singletonList(regexp), timeout).get(regexp);
+    }
+
+    /**
+     * Wait for lines of the log to match all of a set of regular expressions
+     *
+     * @param regexps the regular expressions that a part of a line must match
+     * @param timeout the number of milliseconds to wait for all of them
+     * @return the first matching line of each regular expression that matched
+     *         in time
+     */
+    public Map<String, String> waitForAll(Collection<String> regexps, long timeout) {
+        Map<String, Pattern> pending = new LinkedHashMap<String, Pattern>();
+        for (String regexp : regexps) {
+            pending.put(regexp, Pattern.compile(regexp));
+        }
+        Map<String, String> matches = new LinkedHashMap<String, String>();
+        long endTime = System.currentTimeMillis() + timeout;
+        int checked = 0;
+        while (true) {
+            List<String> newLines;
+            synchronized (this) {
+                read();
+                newLines = new ArrayList<String>(lines.subList(checked, lines.size()));
+                checked = lines.size();
+            }
+            for (String line : newLines) {
+                for (Iterator<Map.Entry<String, Pattern>> i = pending.entrySet().iterator(); i.hasNext();) {
+                    Map.Entry<String, Pattern> entry = i.next();
+                    if (entry.getValue().matcher(line).find()) {
+                        matches.put(entry.getKey(), line);
+                        i.remove();
+                    }
+                }
+            }
+            long remaining = endTime - System.currentTimeMillis();
+            if (pending.isEmpty() || remaining <= 0) {
+                return matches;
+            }
+            try {
+                Thread.sleep(Math.min(POLL_INTERVAL, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return matches;
+            }
+        }
+    }
+
+    private void read() {
+        try {
+            if (!Files.isRegularFile(logFile)) {
+                return;
+            }
+            BasicFileAttributes attributes = Files.readAttributes(logFile, BasicFileAttributes.class);
+            boolean replaced = attributes.fileKey() != null ? !attributes.fileKey().equals(fileKey)
+                    : !attributes.creationTime().equals(creationTime);
+            if ((replaced && position > 0) || attributes.size() < position) {
+                // the log rolled over, the lines that were already read stay matchable
+                position = 0;
+                partialLine.reset();
+            }
+            fileKey = attributes.fileKey();
+            creationTime = attributes.creationTime();
+
+            try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+                channel.position(position);
+                ByteBuffer buffer = ByteBuffer.allocate(8192);
+                int read;
+                while ((read = channel.read(buffer)) > 0) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        byte b = buffer.get();
+                        if (b == '\n') {
+                            addLine();
+                        } else {
+                            partialLine.write(b);
+                        }
+                    }
+                    buffer.clear();
+                    position += read;
+                }
+            }
+        } catch (IOException e) {
+            // the log is read again on the next poll
+        }
+    }
+
+    private void addLine() {
+        String line = new String(partialLine.toByteArray(), StandardCharsets.UTF_8);
+        if (line.endsWith("\r")) {
+            line = line.substring(0, line.length() - 1);
+        }
+        lines.add(line);
+        partialLine.reset();
+    }
+
+}
@@ -0,0 +1,307 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Recompiles the modules that depend on a changed module, compiling the
+ * modules of each topological level of the module graph in parallel.
+ *
+ * Modules are identified by their build files. A module is only compiled once
+ * all of the modules it depends on in the same recompile have been compiled.
+ * The module compiler is called from several threads at once, so it must not
+ * share mutable state such as the Maven session or project between calls.
+ */
+public class ModuleCompileScheduler {
+
+    /**
+     * Compiles a single module
+     */
+    public interface ModuleCompiler {
+        /**
+         * @param buildFile the build file of the module to compile
+         * @return true if the module compiled without errors, only then it is not
+         *         compiled again
+         */
+        boolean compile(File buildFile);
+    }
+
+    private final Map<String, File> buildFiles = new LinkedHashMap<String, File>();
+    private final Map<String, Set<String>> dependents = new HashMap<String, Set<String>>();
+    private final Map<String, Long> precompiled = new ConcurrentHashMap<String, Long>();
+    // modules compiled as dependents, whether or not their compile succeeded
+    private final Set<String> scheduled = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final int parallelism;
+    private final Log log;
+    private ExecutorService executor;
+    private boolean shutdown;
+
+    /**
+     * @param dependentModules the build files of the modules that depend on each
+     *                         module, directly or transitively, keyed by the
+     *                         module build file
+     * @param parallelism      the maximum number of modules to compile at the
+     *                         same time, or 0 to use the number of available
+     *                         processors
+     * @param log              the log
+     * @throws IOException if a build file path could not be resolved
+     */
+    public ModuleCompileScheduler(Map<File, List<File>> dependentModules, int parallelism, Log log)
+            throws IOException {
+        for (Map.Entry<File, List<File>> entry : dependentModules.entrySet()) {
+            String module = register(entry.getKey());
+            Set<String> moduleDependents = new LinkedHashSet<String>();
+            for (File dependent : entry.getValue()) {
+                moduleDependents.add(register(dependent));
+            }
+            dependents.put(module, moduleDependents);
+        }
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.log = log;
+    }
+
+    private String register(File buildFile) throws IOException {
+        String key = buildFile.getCanonicalPath();
+        if (!buildFiles.containsKey(key)) {
+            buildFiles.put(key, buildFile);
+        }
+        return key;
+    }
+
+    /**
+     * Group modules into topological levels. Modules in the same level do not
+     * depend on each other, and only depend on modules in earlier levels.
+     *
+     * @param modules the build files of the modules to group
+     * @return the build files of each level, in compile order
+     * @throws IOException if a build file path could not be resolved
+     */
+    public List<List<File>> getLevels(Collection<File> modules) throws IOException {
+        Set<String> remaining = new LinkedHashSet<String>();
+        for (File module : modules) {
+            remaining.add(module.getCanonicalPath());
+        }
+        // number of modules in the set that each module depends on
+        Map<String, Integer> upstreamCount = new HashMap<String, Integer>();
+        for (String module : remaining) {
+            upstreamCount.put(module, 0);
+        }
+        for (String module : remaining) {
+            Set<String> moduleDependents = dependents.get(module);
+            if (moduleDependents == null) {
+                continue;
+            }
+            for (String dependent : moduleDependents) {
+                if (remaining.contains(dependent)) {
+                    upstreamCount.put(dependent, upstreamCount.get(dependent) + 1);
+                }
+            }
+        }
+
+        List<List<File>> levels = new ArrayList<List<File>>();
+        while (!remaining.isEmpty()) {
+            List<String> level = new ArrayList<String>();
+            for (String module : remaining) {
+                if (upstreamCount.get(module) == 0) {
+                    level.add(module);
+                }
+            }
+            if (level.isEmpty()) {
+                // not expected since Maven rejects cyclic reactors, compile the rest serially
+                for (String module : remaining) {
+                    List<File> single = new ArrayList<File>();
+                    single.add(buildFiles.containsKey(module) ? buildFiles.get(module) : new File(module));
+                    levels.add(single);
+                }
+                break;
+            }
+            List<File> levelFiles = new ArrayList<File>();
+            for (String module : level) {
+                remaining.remove(module);
+                levelFiles.add(buildFiles.containsKey(module) ? buildFiles.get(module) : new File(module));
+                Set<String> moduleDependents = dependents.get(module);
+                if (moduleDependents == null) {
+                    continue;
+                }
+                for (String dependent : moduleDependents) {
+                    if (remaining.contains(dependent)) {
+                        upstreamCount.put(dependent, upstreamCount.get(dependent) - 1);
+                    }
+                }
+            }
+            levels.add(levelFiles);
+        }
+        return levels;
+    }
+
+    /**
+     * Compile all modules that depend on a module, one topological level at a
+     * time, compiling the modules of a level in parallel.
+     *
+     * @param buildFile the build file of the changed module
+     * @param compiler  compiles a single module
+     * @return true if all dependent modules were compiled
+     * @throws IOException if a build file path could not be resolved
+     */
+    public boolean compileDependents(File buildFile, final ModuleCompiler compiler) throws IOException {
+        Set<String> moduleDependents = dependents.get(buildFile.getCanonicalPath());
+        if (moduleDependents == null || moduleDependents.isEmpty()) {
+            return true;
+        }
+        List<File> modules = new ArrayList<File>();
+        for (String dependent : moduleDependents) {
+            modules.add(buildFiles.get(dependent));
+        }
+        List<List<File>> levels = getLevels(modules);
+        log.debug("Recompiling dependent modules of " + buildFile + " in " + levels.size() + " levels: " + levels);
+
+        boolean success = true;
+        for (List<File> level : levels) {
+            ExecutorService levelExecutor = level.size() == 1 || parallelism == 1 ? null : getExecutor();
+            if (levelExecutor == null) {
+                for (File module : level) {
+                    success &= compile(module, compiler);
+                }
+                continue;
+            }
+            List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+            for (final File module : level) {
+                futures.add(levelExecutor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        return compile(module, compiler);
+                    }
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                try {
+                    success &= future.get();
+                } catch (ExecutionException e) {
+                    log.error("Unable to compile", e.getCause());
+                    success = false;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return success;
+    }
+
+    private boolean compile(File module, ModuleCompiler compiler) throws IOException {
+        scheduled.add(module.getCanonicalPath());
+        long start = System.currentTimeMillis();
+        boolean compiled = compiler.compile(module);
+        if (compiled) {
+            precompiled.put(module.getCanonicalPath(), start);
+        }
+        return compiled;
+    }
+
+    /**
+     * Check whether a module was already compiled by
+     * {@link #compileDependents(File, ModuleCompiler)} and none of its sources
+     * have changed since. A module is only reported once per compile.
+     *
+     * @param buildFile       the build file of the module
+     * @param sourceDirectory the source directory of the module
+     * @return true if the module does not need to be compiled again
+     * @throws IOException if the build file path could not be resolved
+     */
+    public boolean consumePrecompiled(File buildFile, File sourceDirectory) throws IOException {
+        String key = buildFile.getCanonicalPath();
+        scheduled.remove(key);
+        Long compiledAt = precompiled.remove(key);
+        return compiledAt != null && !hasFileModifiedAfter(sourceDirectory, compiledAt);
+    }
+
+    /**
+     * Check whether a module was compiled by
+     * {@link #compileDependents(File, ModuleCompiler)} since its last
+     * {@link #consumePrecompiled(File, File)} call, whether or not that compile
+     * succeeded. The modules depending on such a module were compiled in the
+     * same recompile, so they do not need to be scheduled again.
+     *
+     * @param buildFile the build file of the module
+     * @return true if the module was compiled as a dependent of another module
+     * @throws IOException if the build file path could not be resolved
+     */
+    public boolean isScheduled(File buildFile) throws IOException {
+        return scheduled.contains(buildFile.getCanonicalPath());
+    }
+
+    private static boolean hasFileModifiedAfter(File dir, long time) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return false;
+        }
+        for (File file : files) {
+            if (file.isDirectory() ? hasFileModifiedAfter(file, time) : file.lastModified() >= time) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null && !shutdown) {
+            final AtomicInteger count = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "liberty-dev-compile-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Stop the compile threads. Modules are compiled on the calling thread after
+     * this.
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+
+/**
+ * An index of the reactor projects by groupId:artifactId:version, built once
+ * per build and shared by all goals through the repository session.
+ */
+public class ReactorProjectIndex {
+
+    private final List<MavenProject> projects;
+    private final int size;
+    private final Map<String, MavenProject> projectsByGav = new HashMap<String, MavenProject>();
+
+    private ReactorProjectIndex(List<MavenProject> projects) {
+        this.projects = projects;
+        this.size = projects.size();
+        for (MavenProject project : projects) {
+            String gav = project.getGroupId() + ":" + project.getArtifactId() + ":" + project.getVersion();
+            // the first project wins, as with a linear search
+            if (!projectsByGav.containsKey(gav)) {
+                projectsByGav.put(gav, project);
+            }
+        }
+    }
+
+    /**
+     * Get the index of the reactor projects of a build
+     *
+     * @param repoSession the repository session of the build
+     * @param projects    the reactor projects
+     * @return the index
+     */
+    public static ReactorProjectIndex get(RepositorySystemSession repoSession, List<MavenProject> projects) {
+        SessionData data = repoSession.getData();
+        Object current = data.get(ReactorProjectIndex.class);
+        if (current instanceof ReactorProjectIndex && ((ReactorProjectIndex) current).isIndexOf(projects)) {
+            return (ReactorProjectIndex) current;
+        }
+        ReactorProjectIndex index = new ReactorProjectIndex(projects);
+        data.set(ReactorProjectIndex.class, current, index);
+        return index;
+    }
+
+    private boolean isIndexOf(List<MavenProject> projects) {
+        return this.projects == projects && size == projects.size();
+    }
+
+    /**
+     * @param artifact the artifact
+     * @return the reactor project with the groupId, artifactId and base version
+     *         of the artifact, or null if there is none
+     */
+    public MavenProject getProject(Artifact artifact) {
+        return projectsByGav.get(artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getBaseVersion());
+    }
+
+}
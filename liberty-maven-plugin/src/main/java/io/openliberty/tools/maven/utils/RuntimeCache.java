@@ -0,0 +1,289 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A cache of extracted Liberty runtime archives shared by all projects of a
+ * user. Each archive is extracted once into a directory named after its
+ * SHA-256 digest.
+ *
+ * Installs are populated from the cache by hard linking the jar files in
+ * <code>lib</code> directories, which Liberty never modifies in place, and by
+ * copying all other files, so that every install keeps its own scripts,
+ * properties and <code>usr</code> directory. The linked files are made read
+ * only where the file system supports it, and their sizes and modification
+ * times are recorded when the entry is created. An entry whose files no longer
+ * match the record is not used, so a file that was rewritten in place through
+ * one install is never linked into another.
+ *
+ * Entries are extracted into a private directory and renamed into place with
+ * their record, so an entry is either complete or absent. An entry that is
+ * present without a record was not created by this cache and is never modified
+ * or deleted; the install is populated from a private extraction instead.
+ */
+public class RuntimeCache {
+
+    private static final String COMPLETE_MARKER = ".complete";
+
+    private final File cacheDirectory;
+
+    /**
+     * The result of populating an install from the cache
+     */
+    public static class Result {
+        private final boolean cached;
+        private int linked;
+        private int copied;
+
+        private Result(boolean cached) {
+            this.cached = cached;
+        }
+
+        /**
+         * @return true if the archive was already extracted in the cache
+         */
+        public boolean isCached() {
+            return cached;
+        }
+
+        /**
+         * @return the number of files hard linked from the cache
+         */
+        public int getLinked() {
+            return linked;
+        }
+
+        /**
+         * @return the number of files copied from the cache
+         */
+        public int getCopied() {
+            return copied;
+        }
+    }
+
+    /**
+     * @param cacheDirectory the cache directory
+     */
+    public RuntimeCache(File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Install a runtime archive from the cache, extracting it into the cache
+     * first if needed
+     *
+     * @param archive     the runtime archive
+     * @param digest      the SHA-256 digest of the archive
+     * @param destination the directory that the archive is extracted to
+     * @return the result
+     * @throws IOException if the archive could not be cached or installed, or
+     *                     the cached files were modified
+     */
+    public Result install(File archive, String digest, File destination) throws IOException {
+        Path target = destination.getCanonicalFile().toPath();
+        File entry = new File(cacheDirectory, digest);
+        Properties record = readRecord(entry);
+        if (record != null) {
+            verify(entry.toPath(), record);
+            Result result = new Result(true);
+            populate(entry.toPath(), record, target, result);
+            return result;
+        }
+
+        // extract into a private directory and rename it into place, so that
+        // concurrent builds never see a partially extracted runtime
+        File tempEntry = new File(cacheDirectory, entry.getName() + ".tmp-" + UUID.randomUUID());
+        try {
+            new ArchiveExtractor(archive, 0).extract(tempEntry);
+            Properties tempRecord = seal(tempEntry.toPath());
+            if (!entry.exists()) {
+                try {
+                    Files.move(tempEntry.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    // another build cached the archive first
+                }
+            }
+            Result result = new Result(false);
+            if (tempEntry.exists()) {
+                // not renamed, the private extraction is still complete
+                populate(tempEntry.toPath(), tempRecord, target, result);
+            } else {
+                populate(entry.toPath(), tempRecord, target, result);
+            }
+            return result;
+        } finally {
+            if (tempEntry.exists()) {
+                delete(tempEntry.toPath());
+            }
+        }
+    }
+
+    /**
+     * @return the record of a complete entry, or null if the entry is absent
+     *         or has no record
+     */
+    private static Properties readRecord(File entry) throws IOException {
+        File marker = new File(entry, COMPLETE_MARKER);
+        if (!marker.isFile()) {
+            return null;
+        }
+        Properties record = new Properties();
+        try (InputStream in = new FileInputStream(marker)) {
+            record.load(in);
+        }
+        return record;
+    }
+
+    /**
+     * Make the sharable files of an extracted entry read only and record their
+     * sizes and modification times in the complete marker
+     */
+    private static Properties seal(final Path entry) throws IOException {
+        final Properties record = new Properties();
+        final boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        Files.walkFileTree(entry, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Path relative = entry.relativize(file);
+                if (attrs.isRegularFile() && isSharable(relative)) {
+                    if (posix) {
+                        Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(file);
+                        permissions.remove(PosixFilePermission.OWNER_WRITE);
+                        permissions.remove(PosixFilePermission.GROUP_WRITE);
+                        permissions.remove(PosixFilePermission.OTHERS_WRITE);
+                        Files.setPosixFilePermissions(file, permissions);
+                    }
+                    record.setProperty(key(relative), stamp(file));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        try (OutputStream out = new FileOutputStream(entry.resolve(COMPLETE_MARKER).toFile())) {
+            record.store(out, null);
+        }
+        return record;
+    }
+
+    /**
+     * Check that the recorded files of an entry were not modified since the
+     * entry was created
+     */
+    private static void verify(Path entry, Properties record) throws IOException {
+        for (Map.Entry<Object, Object> file : record.entrySet()) {
+            Path path = entry.resolve((String) file.getKey());
+            if (!Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS) || !stamp(path).equals(file.getValue())) {
+                throw new IOException("The cached file " + path
+                        + " was modified, delete the runtime cache entry " + entry + " to recreate it");
+            }
+        }
+    }
+
+    private static String key(Path relative) {
+        return relative.toString().replace(File.separatorChar, '/');
+    }
+
+    private static String stamp(Path file) throws IOException {
+        return Files.size(file) + ":" + Files.getLastModifiedTime(file).toMillis();
+    }
+
+    private static void populate(final Path source, final Properties record, final Path destination,
+            final Result result) throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(destination.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Path relative = source.relativize(file);
+                if (relative.toString().equals(COMPLETE_MARKER)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                Path target = destination.resolve(relative.toString());
+                Files.deleteIfExists(target);
+                // only link the files whose size and modification time were recorded
+                if (attrs.isRegularFile() && record.containsKey(key(relative))) {
+                    try {
+                        Files.createLink(target, file);
+                        result.linked++;
+                        return FileVisitResult.CONTINUE;
+                    } catch (IOException | UnsupportedOperationException e) {
+                        // the cache is on another file store, copy instead
+                    }
+                }
+                Files.copy(file, target, StandardCopyOption.COPY_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+                result.copied++;
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * @return true for jar files in a <code>lib</code> directory outside of
+     *         <code>usr</code>
+     */
+    private static boolean isSharable(Path relative) {
+        boolean inLib = false;
+        for (Path name : relative) {
+            if (name.toString().equals("usr")) {
+                return false;
+            }
+            if (name.toString().equals("lib")) {
+                inLib = true;
+            }
+        }
+        return inLib && relative.getFileName().toString().endsWith(".jar");
+    }
+
+    private static void delete(Path path) throws IOException {
+        Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+}
@@ -0,0 +1,244 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Upgrades a runtime installed from an archive to a new archive, reusing the
+ * files that did not change.
+ *
+ * The new runtime is staged next to the installed runtime, with unchanged
+ * files hard linked from the installed runtime, and then swapped in with
+ * directory renames. A file is unchanged if its archive entry is the same and
+ * its size and last modified time still match the manifest written when it
+ * was installed. The user directory is carried over when it is inside the
+ * install directory. {@link #recover()} completes or rolls back an upgrade
+ * that was interrupted.
+ */
+public class RuntimeUpgrade {
+
+    /**
+     * The name of the manifest of the installed archive entries
+     */
+    public static final String MANIFEST = ".liberty-install-manifest";
+
+    private static final String STAGING = ".liberty-upgrade";
+    private static final String BACKUP = ".liberty-upgrade-old";
+
+    private final File assemblyDirectory;
+    private final File installDirectory;
+    private final File userDirectory;
+    private final File stagingDirectory;
+    private final File stagedInstallDirectory;
+    private final File backupDirectory;
+
+    /**
+     * @param assemblyDirectory the directory that archives are extracted to
+     * @param installDirectory  the install directory inside the assembly
+     *                          directory
+     * @param userDirectory     the user directory
+     * @throws IOException if the install directory is not inside the assembly
+     *                     directory
+     */
+    public RuntimeUpgrade(File assemblyDirectory, File installDirectory, File userDirectory) throws IOException {
+        this.assemblyDirectory = assemblyDirectory.getCanonicalFile();
+        this.installDirectory = installDirectory.getCanonicalFile();
+        this.userDirectory = userDirectory.getCanonicalFile();
+        Path relative = this.assemblyDirectory.toPath().relativize(this.installDirectory.toPath());
+        if (relative.toString().isEmpty() || relative.startsWith("..")) {
+            throw new IOException("The install directory " + installDirectory
+                    + " is not a subdirectory of the runtime install directory " + assemblyDirectory);
+        }
+        this.stagingDirectory = new File(this.assemblyDirectory, STAGING);
+        this.stagedInstallDirectory = new File(stagingDirectory, relative.toString());
+        this.backupDirectory = new File(this.assemblyDirectory, BACKUP);
+    }
+
+    /**
+     * Complete or roll back an upgrade that was interrupted
+     *
+     * @return true if an interrupted upgrade was found
+     * @throws IOException if the upgrade could not be recovered
+     */
+    public boolean recover() throws IOException {
+        boolean found = false;
+        if (backupDirectory.exists()) {
+            found = true;
+            if (!installDirectory.exists()) {
+                // interrupted between the renames, the staged runtime is complete
+                Files.move(stagedInstallDirectory.toPath(), installDirectory.toPath());
+            }
+            delete(backupDirectory);
+        }
+        if (stagingDirectory.exists()) {
+            found = true;
+            // interrupted while staging, keep the installed runtime
+            File stagedUserDirectory = getStagedUserDirectory();
+            if (stagedUserDirectory != null && !userDirectory.exists() && stagedUserDirectory.exists()) {
+                Files.move(stagedUserDirectory.toPath(), userDirectory.toPath());
+            }
+            delete(stagingDirectory);
+        }
+        return found;
+    }
+
+    /**
+     * @return the manifest of the installed archive, or null if there is none
+     * @throws IOException if the manifest could not be read
+     */
+    public Map<String, String> readManifest() throws IOException {
+        File manifest = new File(assemblyDirectory, MANIFEST);
+        if (!manifest.isFile() || !installDirectory.isDirectory()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(manifest.toPath())) {
+            properties.load(in);
+        }
+        Map<String, String> stamps = new HashMap<String, String>();
+        for (String name : properties.stringPropertyNames()) {
+            stamps.put(name, properties.getProperty(name));
+        }
+        return stamps;
+    }
+
+    /**
+     * Record the entries of the archive that is installed, and the size and last
+     * modified time of the files they were installed to
+     *
+     * @param archive the installed archive
+     * @throws IOException if the manifest could not be written
+     */
+    public void writeManifest(File archive) throws IOException {
+        Properties properties = new Properties();
+        properties.putAll(new ArchiveExtractor(archive, 0).getExtractedStamps(assemblyDirectory));
+        File tempFile = new File(assemblyDirectory, MANIFEST + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tempFile.toPath())) {
+            properties.store(out, "Liberty runtime install manifest");
+        }
+        Files.move(tempFile.toPath(), new File(assemblyDirectory, MANIFEST).toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Delete the manifest, before the installed runtime is changed
+     */
+    public void deleteManifest() {
+        new File(assemblyDirectory, MANIFEST).delete();
+    }
+
+    /**
+     * Upgrade the installed runtime to an archive
+     *
+     * @param archive  the new archive
+     * @param manifest the manifest of the installed archive
+     * @return the result of extracting the new archive, reused files are counted
+     *         as skipped
+     * @throws IOException if the runtime could not be upgraded, the installed
+     *                     runtime is kept unless the failure happened while
+     *                     swapping
+     */
+    public ArchiveExtractor.Result upgrade(File archive, Map<String, String> manifest) throws IOException {
+        recover();
+        ArchiveExtractor.Result result;
+        try {
+            result = new ArchiveExtractor(archive, 0).extract(stagingDirectory, assemblyDirectory, manifest);
+            if (!stagedInstallDirectory.isDirectory()) {
+                throw new IOException("The archive " + archive + " does not contain " + stagedInstallDirectory.getName());
+            }
+            File stagedUserDirectory = getStagedUserDirectory();
+            if (stagedUserDirectory != null && userDirectory.exists()) {
+                // the archive files overwrite the user files, as a full install does
+                if (stagedUserDirectory.exists()) {
+                    merge(stagedUserDirectory.toPath(), userDirectory.toPath());
+                }
+                Files.move(userDirectory.toPath(), stagedUserDirectory.toPath());
+            }
+        } catch (IOException e) {
+            recover();
+            throw e;
+        }
+        deleteManifest();
+        Files.move(installDirectory.toPath(), backupDirectory.toPath());
+        Files.move(stagedInstallDirectory.toPath(), installDirectory.toPath());
+        delete(backupDirectory);
+        delete(stagingDirectory);
+        return result;
+    }
+
+    /**
+     * @return the location of the user directory in the staged runtime, or null
+     *         if the user directory is not inside the install directory
+     */
+    private File getStagedUserDirectory() {
+        Path relative = installDirectory.toPath().relativize(userDirectory.toPath());
+        if (relative.toString().isEmpty() || relative.startsWith("..")) {
+            return null;
+        }
+        return new File(stagedInstallDirectory, relative.toString());
+    }
+
+    private static void merge(final Path source, final Path target) throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.move(file, target.resolve(source.relativize(file).toString()),
+                        StandardCopyOption.REPLACE_EXISTING);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        delete(source.toFile());
+    }
+
+    private static void delete(File file) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        Files.walkFileTree(file.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+}
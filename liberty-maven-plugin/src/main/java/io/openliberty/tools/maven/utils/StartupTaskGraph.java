@@ -0,0 +1,179 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Runs named tasks concurrently, starting each task once the tasks it depends
+ * on have completed.
+ *
+ * Tasks that run at the same time must not share mutable state, e.g. each task
+ * that executes mojos should use its own copy of the Maven session and project.
+ *
+ * Each task logs to its own {@link BufferedLog}, returned by {@link #getStepLog()}
+ * in the thread that runs the task, which is flushed when the task completes.
+ * The messages of a task are therefore printed together, in the order the tasks
+ * complete.
+ */
+public class StartupTaskGraph {
+
+    /**
+     * A startup task
+     */
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    private static class Node {
+        private final String name;
+        private final Task task;
+        private final List<String> dependencies;
+
+        private Node(String name, Task task, List<String> dependencies) {
+            this.name = name;
+            this.task = task;
+            this.dependencies = dependencies;
+        }
+    }
+
+    private static final ThreadLocal<Log> STEP_LOG = new ThreadLocal<Log>();
+
+    private final Map<String, Node> nodes = new LinkedHashMap<String, Node>();
+    private final Log log;
+
+    /**
+     * @param log the log that the messages of each task are printed to when the
+     *            task completes
+     */
+    public StartupTaskGraph(Log log) {
+        this.log = log;
+    }
+
+    /**
+     * @return the log of the task that runs in the current thread, or null if the
+     *         current thread does not run a task
+     */
+    public static Log getStepLog() {
+        return STEP_LOG.get();
+    }
+
+    /**
+     * Add a task
+     *
+     * @param name         the unique task name
+     * @param task         the task
+     * @param dependencies the names of tasks that must complete before this task
+     *                     starts. Names of tasks that were not added are ignored.
+     */
+    public void add(String name, Task task, String... dependencies) {
+        nodes.put(name, new Node(name, task, Arrays.asList(dependencies)));
+    }
+
+    /**
+     * Run all tasks. If a task fails, no further tasks are started and the
+     * failure is thrown once the running tasks have completed.
+     *
+     * @throws Exception the failure of the first task that failed
+     */
+    public void run() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, nodes.size()));
+        try {
+            run(executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void run(ExecutorService executor) throws Exception {
+        CompletionService<String> completionService = new ExecutorCompletionService<String>(executor);
+        Set<String> completed = new HashSet<String>();
+        Set<String> started = new HashSet<String>();
+        Map<Future<String>, String> running = new LinkedHashMap<Future<String>, String>();
+        Map<String, BufferedLog> stepLogs = new HashMap<String, BufferedLog>();
+        Exception failure = null;
+
+        while (completed.size() < nodes.size()) {
+            if (failure == null) {
+                for (final Node node : nodes.values()) {
+                    if (started.contains(node.name) || !isReady(node, completed)) {
+                        continue;
+                    }
+                    started.add(node.name);
+                    final BufferedLog stepLog = new BufferedLog(log);
+                    stepLogs.put(node.name, stepLog);
+                    running.put(completionService.submit(new Callable<String>() {
+                        @Override
+                        public String call() throws Exception {
+                            STEP_LOG.set(stepLog);
+                            try {
+                                node.task.run();
+                            } finally {
+                                STEP_LOG.remove();
+                            }
+                            return node.name;
+                        }
+                    }), node.name);
+                }
+            }
+            if (running.isEmpty()) {
+                if (failure == null) {
+                    throw new IllegalStateException("The startup tasks have a circular dependency");
+                }
+                break;
+            }
+            Future<String> future = completionService.take();
+            String name = running.remove(future);
+            stepLogs.get(name).flush();
+            try {
+                future.get();
+                completed.add(name);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private boolean isReady(Node node, Set<String> completed) {
+        for (String dependency : node.dependencies) {
+            if (nodes.containsKey(dependency) && !completed.contains(dependency)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
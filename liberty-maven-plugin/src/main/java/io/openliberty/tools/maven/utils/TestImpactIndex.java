@@ -0,0 +1,276 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Index of the class references between the compiled classes and test classes
+ * of a module, used to select the test classes affected by a change.
+ *
+ * The index is refreshed incrementally, only class files whose size or last
+ * modified time changed are read again. Changes are tracked against a baseline
+ * per test goal that is updated after each successful test run, so tests that
+ * failed are selected again on the next run.
+ *
+ * javac inlines compile time constants into the classes that use them without
+ * recording a reference to the declaring class, so a change to a class that
+ * declares constants cannot be traced to the tests it affects. Callers should
+ * run all tests in that case, see {@link #hasConstantFields(Set)}.
+ */
+public class TestImpactIndex {
+
+    // default maven-surefire-plugin includes
+    public static final Pattern UNIT_TEST_PATTERN = Pattern.compile("(Test.*|.*Test|.*Tests|.*TestCase)");
+    // default maven-failsafe-plugin includes
+    public static final Pattern INTEGRATION_TEST_PATTERN = Pattern.compile("(IT.*|.*IT|.*ITCase)");
+
+    private final File outputDirectory;
+    private final File testOutputDirectory;
+
+    private static class ClassFileEntry {
+        private final long length;
+        private final long lastModified;
+        private final String digest;
+        private final String className;
+        private final Set<String> references;
+
+        private ClassFileEntry(long length, long lastModified, String digest, String className,
+                Set<String> references) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.digest = digest;
+            this.className = className;
+            this.references = references;
+        }
+    }
+
+    private final Map<File, ClassFileEntry> classFiles = new HashMap<File, ClassFileEntry>();
+    // classes that declared constant fields in any version read by this index
+    private final Set<String> constantClasses = new HashSet<String>();
+    private final Set<File> testClassFiles = new HashSet<File>();
+    // digest of each class file at the last successful run, by test goal
+    private final Map<String, Map<File, String>> baselines = new HashMap<String, Map<File, String>>();
+
+    public TestImpactIndex(File outputDirectory, File testOutputDirectory) {
+        this.outputDirectory = outputDirectory;
+        this.testOutputDirectory = testOutputDirectory;
+    }
+
+    /**
+     * Read the class files that were added or modified since the last refresh
+     * and drop the class files that were deleted.
+     */
+    public synchronized void refresh() {
+        Set<File> found = new HashSet<File>();
+        Set<File> foundTests = new HashSet<File>();
+        collectClassFiles(outputDirectory, found);
+        collectClassFiles(testOutputDirectory, foundTests);
+        found.addAll(foundTests);
+
+        classFiles.keySet().retainAll(found);
+        testClassFiles.clear();
+        testClassFiles.addAll(foundTests);
+        for (File file : found) {
+            ClassFileEntry entry = classFiles.get(file);
+            long length = file.length();
+            long lastModified = file.lastModified();
+            if (entry != null && entry.length == length && entry.lastModified == lastModified) {
+                continue;
+            }
+            try {
+                ClassFileReferences refs = ClassFileReferences.read(file);
+                classFiles.put(file, new ClassFileEntry(length, lastModified, DigestUtil.sha256(file),
+                        refs.getClassName(), refs.getReferences()));
+                if (refs.hasConstantFields()) {
+                    constantClasses.add(refs.getClassName());
+                }
+            } catch (IOException e) {
+                // the file may be in the middle of being written, read it on the next refresh
+                classFiles.remove(file);
+            }
+        }
+    }
+
+    /**
+     * @param goal the test goal, e.g. <code>test</code>
+     * @return true if a test run of the goal has completed successfully before
+     */
+    public synchronized boolean hasBaseline(String goal) {
+        return baselines.containsKey(goal);
+    }
+
+    /**
+     * Get the top level classes that were added, modified or deleted since the
+     * last successful run of a test goal.
+     *
+     * @param goal the test goal
+     * @return the changed class names in internal form, empty if there is no
+     *         baseline for the goal
+     */
+    public synchronized Set<String> getChangedClasses(String goal) {
+        Set<String> changed = new HashSet<String>();
+        Map<File, String> baseline = baselines.get(goal);
+        if (baseline == null) {
+            return changed;
+        }
+        for (Map.Entry<File, ClassFileEntry> entry : classFiles.entrySet()) {
+            if (!entry.getValue().digest.equals(baseline.get(entry.getKey()))) {
+                changed.add(entry.getValue().className);
+            }
+        }
+        for (File file : baseline.keySet()) {
+            if (!classFiles.containsKey(file)) {
+                changed.add(getClassName(file));
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @param classNames class names in internal form
+     * @return true if all of the classes are test classes
+     */
+    public synchronized boolean areTestClasses(Set<String> classNames) {
+        Set<String> testClasses = new HashSet<String>();
+        for (File file : testClassFiles) {
+            ClassFileEntry entry = classFiles.get(file);
+            testClasses.add(entry != null ? entry.className : getClassName(file));
+        }
+        return testClasses.containsAll(classNames);
+    }
+
+    /**
+     * Whether any of the classes declares, or declared in an earlier version,
+     * fields with a compile time constant value. The classes using those
+     * constants do not reference the declaring class, so all tests should run.
+     *
+     * @param classNames class names in internal form
+     * @return true if one of the classes has constant fields
+     */
+    public synchronized boolean hasConstantFields(Set<String> classNames) {
+        for (String className : classNames) {
+            if (constantClasses.contains(className)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the test classes that are changed or transitively reference a changed
+     * class.
+     *
+     * @param changed     the changed class names in internal form
+     * @param testPattern the pattern that test class simple names must match
+     * @return the affected test class names in internal form, sorted
+     */
+    public synchronized Set<String> getAffectedTests(Set<String> changed, Pattern testPattern) {
+        Map<String, Set<String>> referencedBy = new HashMap<String, Set<String>>();
+        for (ClassFileEntry entry : classFiles.values()) {
+            for (String reference : entry.references) {
+                Set<String> classes = referencedBy.get(reference);
+                if (classes == null) {
+                    classes = new HashSet<String>();
+                    referencedBy.put(reference, classes);
+                }
+                classes.add(entry.className);
+            }
+        }
+
+        Set<String> affected = new HashSet<String>(changed);
+        Deque<String> queue = new ArrayDeque<String>(changed);
+        while (!queue.isEmpty()) {
+            Set<String> classes = referencedBy.get(queue.poll());
+            if (classes == null) {
+                continue;
+            }
+            for (String className : classes) {
+                if (affected.add(className)) {
+                    queue.add(className);
+                }
+            }
+        }
+
+        Set<String> tests = new TreeSet<String>();
+        for (File file : testClassFiles) {
+            ClassFileEntry entry = classFiles.get(file);
+            if (entry == null || !affected.contains(entry.className)) {
+                continue;
+            }
+            String simpleName = entry.className.substring(entry.className.lastIndexOf('/') + 1);
+            if (testPattern.matcher(simpleName).matches()) {
+                tests.add(entry.className);
+            }
+        }
+        return tests;
+    }
+
+    /**
+     * Take a snapshot of the current class files, to be recorded as the baseline
+     * of a test goal once its run succeeds.
+     *
+     * @return the snapshot
+     */
+    public synchronized Map<File, String> snapshot() {
+        Map<File, String> snapshot = new HashMap<File, String>();
+        for (Map.Entry<File, ClassFileEntry> entry : classFiles.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().digest);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Record a successful run of a test goal
+     *
+     * @param goal     the test goal
+     * @param snapshot the snapshot taken before the run started
+     */
+    public synchronized void setBaseline(String goal, Map<File, String> snapshot) {
+        baselines.put(goal, snapshot);
+    }
+
+    private String getClassName(File classFile) {
+        File root = classFile.getPath().startsWith(testOutputDirectory.getPath()) ? testOutputDirectory
+                : outputDirectory;
+        String relative = root.toURI().relativize(classFile.toURI()).getPath();
+        return ClassFileReferences.getTopLevelClassName(relative.substring(0, relative.length() - ".class".length()));
+    }
+
+    private static void collectClassFiles(File dir, Set<File> classFiles) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                collectClassFiles(file, classFiles);
+            } else if (file.getName().endsWith(".class")) {
+                classFiles.add(file);
+            }
+        }
+    }
+
+}
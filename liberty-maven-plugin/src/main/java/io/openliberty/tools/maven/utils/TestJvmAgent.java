@@ -0,0 +1,384 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Main class of the warm test JVM started by {@link WarmTestJvm}.
+ *
+ * The JVM connects back to dev mode on a loopback port and runs test classes
+ * on request. The jar files of the test classpath are loaded once by a shared
+ * class loader. The class directories are loaded by a new child class loader
+ * for every run, so each run sees the latest compiled classes while the JDK
+ * and library classes stay loaded and JIT compiled.
+ *
+ * Libraries that look up project classes or resources through their own class
+ * loader, e.g. SPI lookups of Mockito or Spring, find them through a fallback
+ * of the jar class loader to the class directories of the current run. Such a
+ * lookup records the project class in the jar class loader, so the jar class
+ * loader is replaced after a run that used the fallback.
+ *
+ * This class only depends on the JDK, test frameworks are called through
+ * reflection.
+ */
+public class TestJvmAgent {
+
+    static final String CLASSPATH = "CLASSPATH";
+    static final String DIRECTORIES = "DIRECTORIES";
+    static final String PROPERTY = "PROPERTY";
+    static final String TEST = "TEST";
+    static final String RUN = "RUN";
+    static final String RESULT = "RESULT";
+    static final String ERROR = "ERROR";
+    static final String SEPARATOR = "\t";
+
+    private URL[] jars;
+    private JarClassLoader jarClassLoader;
+
+    /**
+     * Loads the jar files of the test classpath. Classes and resources that are
+     * not in the jar files are looked up in the class directories of the current
+     * run, unless the lookup comes from the class directory loader itself.
+     */
+    private static class JarClassLoader extends URLClassLoader {
+        private volatile DirectoryClassLoader directories;
+        private volatile boolean usedDirectories;
+
+        private JarClassLoader(URL[] urls) {
+            super(urls, ClassLoader.getSystemClassLoader().getParent());
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            try {
+                return super.findClass(name);
+            } catch (ClassNotFoundException e) {
+                DirectoryClassLoader current = directories;
+                if (current == null || current.isDelegating()) {
+                    throw e;
+                }
+                Class<?> found = current.findDirectoryClass(name);
+                usedDirectories = true;
+                return found;
+            }
+        }
+
+        @Override
+        public URL findResource(String name) {
+            URL url = super.findResource(name);
+            DirectoryClassLoader current = directories;
+            if (url == null && current != null && !current.isDelegating()) {
+                url = current.findResource(name);
+            }
+            return url;
+        }
+
+        @Override
+        public Enumeration<URL> findResources(String name) throws IOException {
+            DirectoryClassLoader current = directories;
+            if (current == null || current.isDelegating()) {
+                return super.findResources(name);
+            }
+            List<URL> urls = Collections.list(super.findResources(name));
+            urls.addAll(Collections.list(current.findResources(name)));
+            return Collections.enumeration(urls);
+        }
+    }
+
+    /**
+     * Loads the class directories of the test classpath for a single run
+     */
+    private static class DirectoryClassLoader extends URLClassLoader {
+        // set while this loader delegates to the jar class loader
+        private static final ThreadLocal<Boolean> DELEGATING = new ThreadLocal<Boolean>();
+
+        private DirectoryClassLoader(URL[] urls, JarClassLoader parent) {
+            super(urls, parent);
+        }
+
+        private boolean isDelegating() {
+            return DELEGATING.get() != null;
+        }
+
+        private Class<?> findDirectoryClass(String name) throws ClassNotFoundException {
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                return loaded != null ? loaded : findClass(name);
+            }
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            Boolean previous = DELEGATING.get();
+            DELEGATING.set(Boolean.TRUE);
+            try {
+                return super.loadClass(name, resolve);
+            } finally {
+                if (previous == null) {
+                    DELEGATING.remove();
+                }
+            }
+        }
+
+        @Override
+        public URL getResource(String name) {
+            Boolean previous = DELEGATING.get();
+            DELEGATING.set(Boolean.TRUE);
+            try {
+                return super.getResource(name);
+            } finally {
+                if (previous == null) {
+                    DELEGATING.remove();
+                }
+            }
+        }
+
+        @Override
+        public Enumeration<URL> getResources(String name) throws IOException {
+            Boolean previous = DELEGATING.get();
+            DELEGATING.set(Boolean.TRUE);
+            try {
+                return super.getResources(name);
+            } finally {
+                if (previous == null) {
+                    DELEGATING.remove();
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = Integer.parseInt(args[0]);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            new TestJvmAgent().serve(in, out);
+        }
+        // dev mode has exited or closed the connection
+        System.exit(0);
+    }
+
+    private void serve(BufferedReader in, Writer out) throws Exception {
+        List<URL> directories = new ArrayList<URL>();
+        Map<String, String> properties = new LinkedHashMap<String, String>();
+        List<String> tests = new ArrayList<String>();
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] fields = line.split(SEPARATOR, -1);
+            if (CLASSPATH.equals(fields[0])) {
+                jars = toUrls(fields[1]);
+                jarClassLoader = new JarClassLoader(jars);
+            } else if (DIRECTORIES.equals(fields[0])) {
+                directories.clear();
+                for (URL url : toUrls(fields[1])) {
+                    directories.add(url);
+                }
+            } else if (PROPERTY.equals(fields[0])) {
+                properties.put(fields[1], fields[2]);
+            } else if (TEST.equals(fields[0])) {
+                tests.add(fields[1]);
+            } else if (RUN.equals(fields[0])) {
+                String response;
+                try {
+                    long[] result = run(directories, properties, tests);
+                    response = RESULT + SEPARATOR + result[0] + SEPARATOR + result[1] + SEPARATOR + result[2]
+                            + SEPARATOR + result[3];
+                } catch (Throwable t) {
+                    response = ERROR + SEPARATOR + String.valueOf(t).replace('\n', ' ').replace('\t', ' ');
+                }
+                properties.clear();
+                tests.clear();
+                System.out.flush();
+                System.err.flush();
+                out.write(response);
+                out.write('\n');
+                out.flush();
+            }
+        }
+    }
+
+    private static URL[] toUrls(String path) throws Exception {
+        List<URL> urls = new ArrayList<URL>();
+        for (String element : path.split(File.pathSeparator)) {
+            if (!element.isEmpty()) {
+                urls.add(new File(element).toURI().toURL());
+            }
+        }
+        return urls.toArray(new URL[urls.size()]);
+    }
+
+    /**
+     * @return the number of tests run, failed, in error and skipped
+     */
+    private long[] run(List<URL> directories, Map<String, String> properties, List<String> tests) throws Exception {
+        if (jarClassLoader == null) {
+            throw new IllegalStateException("The test classpath was not set");
+        }
+        Properties originalProperties = (Properties) System.getProperties().clone();
+        Thread thread = Thread.currentThread();
+        ClassLoader originalContextClassLoader = thread.getContextClassLoader();
+        DirectoryClassLoader classLoader = new DirectoryClassLoader(directories.toArray(new URL[directories.size()]),
+                jarClassLoader);
+        jarClassLoader.directories = classLoader;
+        try {
+            for (Map.Entry<String, String> property : properties.entrySet()) {
+                System.setProperty(property.getKey(), property.getValue());
+            }
+            thread.setContextClassLoader(classLoader);
+
+            boolean junitPlatform = isLoadable(classLoader, "org.junit.platform.launcher.core.LauncherFactory");
+            if (!junitPlatform && !isLoadable(classLoader, "org.junit.runner.JUnitCore")) {
+                throw new IllegalStateException("No supported test framework found on the test classpath");
+            }
+            List<Class<?>> testClasses = new ArrayList<Class<?>>();
+            for (String test : tests) {
+                Class<?> testClass = Class.forName(test, false, classLoader);
+                int modifiers = testClass.getModifiers();
+                if (testClass.isInterface() || Modifier.isAbstract(modifiers)) {
+                    continue;
+                }
+                // the JUnit platform ignores classes without tests, JUnit 4 reports them as failures
+                if (junitPlatform || Modifier.isPublic(modifiers) && isJUnit4Test(classLoader, testClass)) {
+                    testClasses.add(testClass);
+                }
+            }
+            if (testClasses.isEmpty()) {
+                return new long[] { 0, 0, 0, 0 };
+            }
+            return junitPlatform ? runJUnitPlatform(classLoader, testClasses) : runJUnit4(classLoader, testClasses);
+        } finally {
+            thread.setContextClassLoader(originalContextClassLoader);
+            System.setProperties(originalProperties);
+            jarClassLoader.directories = null;
+            classLoader.close();
+            if (jarClassLoader.usedDirectories) {
+                // the jar class loader now knows classes of this run, do not let the next run see them
+                jarClassLoader.close();
+                jarClassLoader = new JarClassLoader(jars);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean isJUnit4Test(ClassLoader classLoader, Class<?> testClass) throws ClassNotFoundException {
+        Class<? extends Annotation> runWith = (Class<? extends Annotation>) classLoader
+                .loadClass("org.junit.runner.RunWith");
+        if (testClass.isAnnotationPresent(runWith)) {
+            return true;
+        }
+        if (isLoadable(classLoader, "junit.framework.TestCase")
+                && classLoader.loadClass("junit.framework.TestCase").isAssignableFrom(testClass)) {
+            return true;
+        }
+        Class<? extends Annotation> test = (Class<? extends Annotation>) classLoader.loadClass("org.junit.Test");
+        for (Method method : testClass.getMethods()) {
+            if (method.isAnnotationPresent(test)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLoadable(ClassLoader classLoader, String className) {
+        try {
+            Class.forName(className, false, classLoader);
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static long[] runJUnitPlatform(ClassLoader classLoader, List<Class<?>> testClasses) throws Exception {
+        Class<?> selectors = classLoader.loadClass("org.junit.platform.engine.discovery.DiscoverySelectors");
+        Method selectClass = selectors.getMethod("selectClass", Class.class);
+        List<Object> classSelectors = new ArrayList<Object>();
+        for (Class<?> testClass : testClasses) {
+            classSelectors.add(selectClass.invoke(null, testClass));
+        }
+        Class<?> builderClass = classLoader
+                .loadClass("org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder");
+        Object builder = builderClass.getMethod("request").invoke(null);
+        builderClass.getMethod("selectors", List.class).invoke(builder, classSelectors);
+        Object request = builderClass.getMethod("build").invoke(builder);
+
+        Object launcher = classLoader.loadClass("org.junit.platform.launcher.core.LauncherFactory")
+                .getMethod("create").invoke(null);
+        Class<?> listenerClass = classLoader.loadClass("org.junit.platform.launcher.TestExecutionListener");
+        Object summaryListener = classLoader
+                .loadClass("org.junit.platform.launcher.listeners.SummaryGeneratingListener").getDeclaredConstructor()
+                .newInstance();
+        Object listeners = Array.newInstance(listenerClass, 1);
+        Array.set(listeners, 0, summaryListener);
+        Class<?> requestClass = classLoader.loadClass("org.junit.platform.launcher.LauncherDiscoveryRequest");
+        launcher.getClass().getMethod("execute", requestClass, listeners.getClass()).invoke(launcher, request,
+                listeners);
+
+        Object summary = summaryListener.getClass().getMethod("getSummary").invoke(summaryListener);
+        Class<?> summaryClass = classLoader.loadClass("org.junit.platform.launcher.listeners.TestExecutionSummary");
+        PrintWriter writer = new PrintWriter(System.out);
+        summaryClass.getMethod("printFailuresTo", PrintWriter.class).invoke(summary, writer);
+        writer.flush();
+        long started = (Long) summaryClass.getMethod("getTestsStartedCount").invoke(summary);
+        long failed = (Long) summaryClass.getMethod("getTestsFailedCount").invoke(summary);
+        long aborted = (Long) summaryClass.getMethod("getTestsAbortedCount").invoke(summary);
+        long skipped = (Long) summaryClass.getMethod("getTestsSkippedCount").invoke(summary);
+        long containersFailed = (Long) summaryClass.getMethod("getContainersFailedCount").invoke(summary);
+        return new long[] { started + skipped, failed, containersFailed, skipped + aborted };
+    }
+
+    private static long[] runJUnit4(ClassLoader classLoader, List<Class<?>> testClasses) throws Exception {
+        Class<?> junitCore = classLoader.loadClass("org.junit.runner.JUnitCore");
+        Object core = junitCore.getDeclaredConstructor().newInstance();
+        Object result = junitCore.getMethod("run", Class[].class).invoke(core,
+                (Object) testClasses.toArray(new Class<?>[testClasses.size()]));
+        Class<?> resultClass = result.getClass();
+        List<?> failures = (List<?>) resultClass.getMethod("getFailures").invoke(result);
+        for (Object failure : failures) {
+            System.out.println(failure.getClass().getMethod("getTestHeader").invoke(failure));
+            System.out.println(failure.getClass().getMethod("getTrace").invoke(failure));
+        }
+        int run = (Integer) resultClass.getMethod("getRunCount").invoke(result);
+        int failed = (Integer) resultClass.getMethod("getFailureCount").invoke(result);
+        int ignored = (Integer) resultClass.getMethod("getIgnoreCount").invoke(result);
+        return new long[] { run + ignored, failed, 0, ignored };
+    }
+
+}
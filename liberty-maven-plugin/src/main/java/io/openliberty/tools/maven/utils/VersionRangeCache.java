@@ -0,0 +1,156 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+
+/**
+ * A cache of the highest versions that version ranges resolved to.
+ *
+ * Results are shared by all goals of a build through the repository session,
+ * and kept in a properties file so that later builds reuse them until they
+ * expire. A build that cannot resolve a range because it is offline falls back
+ * to the last result, even if it expired.
+ */
+public class VersionRangeCache {
+
+    private static final String SESSION_KEY = VersionRangeCache.class.getName();
+
+    private final Map<String, String> sessionCache;
+    private final File cacheFile;
+    private final long ttl;
+
+    /**
+     * Resolves a version range to its highest version
+     *
+     * @param <E> the exception thrown if the range cannot be resolved
+     */
+    public interface Resolver<E extends Exception> {
+        String resolve() throws E;
+    }
+
+    /**
+     * @param repoSession the repository session that results are shared in
+     * @param cacheFile   the properties file that results are kept in
+     * @param ttl         the number of milliseconds that a result in the
+     *                    properties file is reused, or 0 to only reuse results
+     *                    within the session
+     */
+    public VersionRangeCache(RepositorySystemSession repoSession, File cacheFile, long ttl) {
+        this.sessionCache = getSessionCache(repoSession);
+        this.cacheFile = cacheFile.getAbsoluteFile();
+        this.ttl = ttl;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> getSessionCache(RepositorySystemSession repoSession) {
+        SessionData data = repoSession.getData();
+        Object cache = data.get(SESSION_KEY);
+        if (cache == null) {
+            data.set(SESSION_KEY, null, new ConcurrentHashMap<String, String>());
+            cache = data.get(SESSION_KEY);
+        }
+        return (Map<String, String>) cache;
+    }
+
+    /**
+     * Get the highest version of a version range
+     *
+     * @param key      the coordinates and range, e.g.
+     *                 <code>io.openliberty:openliberty-kernel:zip:[22.0.0.3,)</code>,
+     *                 and the remote repositories that the range is resolved from
+     * @param offline  true if the build is offline
+     * @param update   true to ignore results from previous builds
+     * @param resolver the resolver that is used if there is no current result
+     * @return the highest version
+     * @throws E if the range could not be resolved and there is no result to fall
+     *           back to
+     */
+    public <E extends Exception> String get(String key, boolean offline, boolean update, Resolver<E> resolver)
+            throws E {
+        String version = sessionCache.get(key);
+        if (version != null) {
+            return version;
+        }
+
+        Properties cache = load();
+        String entry = cache.getProperty(key);
+        String cachedVersion = null;
+        long resolvedTime = 0;
+        if (entry != null && entry.indexOf(' ') > 0) {
+            try {
+                resolvedTime = Long.parseLong(entry.substring(0, entry.indexOf(' ')));
+                cachedVersion = entry.substring(entry.indexOf(' ') + 1);
+            } catch (NumberFormatException e) {
+                // ignore the entry
+            }
+        }
+        if (cachedVersion != null && !update && ttl > 0
+                && System.currentTimeMillis() - resolvedTime < ttl) {
+            sessionCache.put(key, cachedVersion);
+            return cachedVersion;
+        }
+
+        try {
+            version = resolver.resolve();
+        } catch (Exception e) {
+            if (offline && cachedVersion != null) {
+                // the remote metadata cannot be checked, keep using the last result
+                sessionCache.put(key, cachedVersion);
+                return cachedVersion;
+            }
+            throw e;
+        }
+        sessionCache.put(key, version);
+        // results resolved offline only reflect the local repository, so do not keep them
+        if (ttl > 0 && !offline) {
+            store(key, version);
+        }
+        return version;
+    }
+
+    private Properties load() {
+        Properties cache = new Properties();
+        if (ttl > 0 && cacheFile.isFile()) {
+            try (InputStream in = Files.newInputStream(cacheFile.toPath())) {
+                cache.load(in);
+            } catch (IOException | IllegalArgumentException e) {
+                cache.clear();
+            }
+        }
+        return cache;
+    }
+
+    private synchronized void store(String key, String version) {
+        Properties cache = load();
+        cache.setProperty(key, System.currentTimeMillis() + " " + version);
+        try {
+            AtomicFiles.store(cacheFile.toPath(), cache, "Liberty version range cache");
+        } catch (IOException e) {
+            // the range is resolved again next time
+        }
+    }
+
+}
@@ -0,0 +1,239 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A forked JVM that is kept running across dev mode test runs of a module.
+ *
+ * The JVM runs {@link TestJvmAgent} and is controlled over a loopback socket.
+ * The jar files of the test classpath stay loaded between runs and the JVM is
+ * only restarted when they change. Class directories are loaded again for
+ * every run.
+ */
+public class WarmTestJvm {
+
+    private static final long START_TIMEOUT = 30000;
+
+    private final File workingDirectory;
+    private Process process;
+    private Socket socket;
+    private BufferedReader in;
+    private Writer out;
+    private String classpathKey;
+    private Thread shutdownHook;
+
+    /**
+     * The result of a test run
+     */
+    public static class Result {
+        private final long tests;
+        private final long failures;
+        private final long errors;
+        private final long skipped;
+
+        private Result(long tests, long failures, long errors, long skipped) {
+            this.tests = tests;
+            this.failures = failures;
+            this.errors = errors;
+            this.skipped = skipped;
+        }
+
+        public long getTests() {
+            return tests;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getSkipped() {
+            return skipped;
+        }
+
+        @Override
+        public String toString() {
+            return "Tests run: " + tests + ", Failures: " + failures + ", Errors: " + errors + ", Skipped: " + skipped;
+        }
+    }
+
+    /**
+     * @param workingDirectory the working directory of the test JVM
+     */
+    public WarmTestJvm(File workingDirectory) {
+        this.workingDirectory = workingDirectory;
+    }
+
+    /**
+     * Run test classes, starting or restarting the test JVM if needed
+     *
+     * @param jars        the jar files of the test classpath
+     * @param directories the class directories of the test classpath
+     * @param properties  system properties to set for the run
+     * @param tests       the test class names to run
+     * @return the test results
+     * @throws IOException          if the test JVM could not run the tests
+     * @throws InterruptedException if the current thread was interrupted, the
+     *                              test JVM is stopped
+     */
+    public synchronized Result run(List<String> jars, List<String> directories, Map<String, String> properties,
+            List<String> tests) throws IOException, InterruptedException {
+        String key = getClasspathKey(jars);
+        if (process == null || !process.isAlive() || !key.equals(classpathKey)) {
+            stop();
+            start(jars);
+            classpathKey = key;
+        }
+        try {
+            out.write(TestJvmAgent.DIRECTORIES + TestJvmAgent.SEPARATOR + join(directories) + '\n');
+            for (Map.Entry<String, String> property : properties.entrySet()) {
+                if (isSendable(property.getKey()) && isSendable(property.getValue())) {
+                    out.write(TestJvmAgent.PROPERTY + TestJvmAgent.SEPARATOR + property.getKey()
+                            + TestJvmAgent.SEPARATOR + property.getValue() + '\n');
+                }
+            }
+            for (String test : tests) {
+                out.write(TestJvmAgent.TEST + TestJvmAgent.SEPARATOR + test + '\n');
+            }
+            out.write(TestJvmAgent.RUN + '\n');
+            out.flush();
+
+            // poll so that the run can be cancelled by interrupting the current thread
+            while (!in.ready()) {
+                if (!process.isAlive()) {
+                    throw new IOException("The test JVM exited with code " + process.exitValue());
+                }
+                Thread.sleep(20);
+            }
+            String[] fields = in.readLine().split(TestJvmAgent.SEPARATOR, -1);
+            if (TestJvmAgent.RESULT.equals(fields[0])) {
+                return new Result(Long.parseLong(fields[1]), Long.parseLong(fields[2]), Long.parseLong(fields[3]),
+                        Long.parseLong(fields[4]));
+            }
+            throw new IOException(fields.length > 1 ? fields[1] : "Unexpected response from the test JVM");
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            // the state of the test JVM is unknown, start a new one next time
+            stop();
+            throw e;
+        }
+    }
+
+    /**
+     * Stop the test JVM
+     */
+    public synchronized void stop() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            socket = null;
+        }
+        if (process != null) {
+            process.destroy();
+            process = null;
+        }
+        if (shutdownHook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // already shutting down
+            }
+            shutdownHook = null;
+        }
+        classpathKey = null;
+    }
+
+    private void start(List<String> jars) throws IOException {
+        String agentLocation;
+        try {
+            agentLocation = new File(TestJvmAgent.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                    .getAbsolutePath();
+        } catch (URISyntaxException | RuntimeException e) {
+            throw new IOException("Unable to locate the test JVM agent", e);
+        }
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            serverSocket.setSoTimeout((int) START_TIMEOUT);
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            ProcessBuilder builder = new ProcessBuilder(java, "-cp", agentLocation, TestJvmAgent.class.getName(),
+                    Integer.toString(serverSocket.getLocalPort()));
+            builder.directory(workingDirectory);
+            builder.inheritIO();
+            process = builder.start();
+            final Process startedProcess = process;
+            shutdownHook = new Thread() {
+                @Override
+                public void run() {
+                    startedProcess.destroy();
+                }
+            };
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+            socket = serverSocket.accept();
+        } catch (IOException e) {
+            stop();
+            throw e;
+        }
+        in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        out.write(TestJvmAgent.CLASSPATH + TestJvmAgent.SEPARATOR + join(jars) + '\n');
+        out.flush();
+    }
+
+    private static String getClasspathKey(List<String> jars) {
+        StringBuilder sb = new StringBuilder();
+        for (String jar : jars) {
+            File file = new File(jar);
+            sb.append(jar).append('|').append(file.length()).append('|').append(file.lastModified()).append('\n');
+        }
+        return DigestUtil.sha256(sb.toString());
+    }
+
+    private static boolean isSendable(String value) {
+        return value != null && value.indexOf('\n') < 0 && value.indexOf('\r') < 0
+                && value.indexOf(TestJvmAgent.SEPARATOR) < 0;
+    }
+
+    private static String join(List<String> elements) {
+        StringBuilder sb = new StringBuilder();
+        for (String element : elements) {
+            if (sb.length() > 0) {
+                sb.append(File.pathSeparator);
+            }
+            sb.append(element);
+        }
+        return sb.toString();
+    }
+
+}
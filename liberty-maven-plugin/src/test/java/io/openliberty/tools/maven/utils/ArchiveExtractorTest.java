@@ -0,0 +1,201 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ArchiveExtractorTest {
+
+    private static final int FILE = 0100644;
+    private static final int LINK = 0120777;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File outside;
+    private File destination;
+
+    @Before
+    public void setUp() throws IOException {
+        Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        outside = temp.newFolder("outside");
+        destination = temp.newFolder("wlp");
+    }
+
+    /**
+     * An entry of a test archive, either a file with content or a symbolic link
+     * with its target
+     */
+    private static class Entry {
+        private final String content;
+        private final int mode;
+
+        private Entry(String content, int mode) {
+            this.content = content;
+            this.mode = mode;
+        }
+    }
+
+    private static Entry file(String content) {
+        return new Entry(content, FILE);
+    }
+
+    private static Entry link(String target) {
+        return new Entry(target, LINK);
+    }
+
+    /**
+     * Write a zip archive with Unix file modes, which {@link ZipOutputStream}
+     * cannot write, so they are patched into the central directory afterwards
+     */
+    private File archive(Map<String, Entry> entries) throws IOException {
+        File archive = temp.newFile();
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive))) {
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                out.putNextEntry(new ZipEntry(entry.getKey()));
+                out.write(entry.getValue().content.getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        ByteBuffer zip = ByteBuffer.wrap(Files.readAllBytes(archive.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < zip.limit() - 46; i++) {
+            if (zip.getInt(i) != 0x02014b50) {
+                continue;
+            }
+            int nameLength = zip.getShort(i + 28) & 0xffff;
+            String name = new String(zip.array(), i + 46, nameLength, StandardCharsets.UTF_8);
+            zip.put(i + 5, (byte) 3);
+            zip.putInt(i + 38, entries.get(name).mode << 16);
+        }
+        Files.write(archive.toPath(), zip.array());
+        return archive;
+    }
+
+    private void assertRejected(File archive) {
+        try {
+            new ArchiveExtractor(archive, 2).extract(destination);
+            fail("The archive was extracted");
+        } catch (IOException e) {
+            // expected
+        }
+        assertEquals(0, outside.list().length);
+    }
+
+    @Test
+    public void extracts_files_and_links() throws Exception {
+        // given
+        Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+        entries.put("bin/server", file("#!/bin/sh"));
+        entries.put("lib/current", link("../bin"));
+        entries.put("lib/a.jar", file("jar"));
+        File archive = archive(entries);
+
+        // when
+        ArchiveExtractor.Result result = new ArchiveExtractor(archive, 2).extract(destination);
+
+        // then
+        assertEquals(3, result.getExtracted());
+        assertTrue(result.isModesApplied());
+        assertTrue(Files.isSymbolicLink(new File(destination, "lib/current").toPath()));
+        assertEquals("#!/bin/sh", new String(Files.readAllBytes(new File(destination, "lib/current/server").toPath()),
+                StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void skips_current_files() throws Exception {
+        // given
+        Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+        entries.put("bin/server", file("#!/bin/sh"));
+        entries.put("lib/a.jar", file("jar"));
+        File archive = archive(entries);
+        new ArchiveExtractor(archive, 2).extract(destination);
+
+        // when
+        ArchiveExtractor.Result result = new ArchiveExtractor(archive, 2).extract(destination);
+
+        // then
+        assertEquals(0, result.getExtracted());
+        assertEquals(2, result.getSkipped());
+    }
+
+    @Test
+    public void rejects_entry_outside_of_destination() throws Exception {
+        Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+        entries.put("../outside/evil", file("evil"));
+        assertRejected(archive(entries));
+    }
+
+    @Test
+    public void rejects_absolute_link_followed_by_entry() throws Exception {
+        Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+        entries.put("a", link(outside.getAbsolutePath()));
+        entries.put("a/evil", file("evil"));
+        assertRejected(archive(entries));
+        assertFalse(Files.isSymbolicLink(new File(destination, "a").toPath()));
+    }
+
+    @Test
+    public void rejects_relative_link_out_of_destination() throws Exception {
+        Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+        entries.put("a", link("../outside"));
+        entries.put("a/evil", file("evil"));
+        assertRejected(archive(entries));
+    }
+
+    @Test
+    public void rejects_link_chain_out_of_destination() throws Exception {
+        // each link looks like it stays inside, but x resolves through l to the parent of the destination
+        Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+        entries.put("c/placeholder", file(""));
+        entries.put("a/b/l", link("../../c"));
+        entries.put("a/b/x", link("l/../../.."));
+        assertRejected(archive(entries));
+        assertFalse(Files.exists(new File(destination, "a/b/x").toPath()));
+    }
+
+    @Test
+    public void does_not_write_through_existing_link() throws Exception {
+        // given
+        Files.createSymbolicLink(new File(destination, "a").toPath(), outside.toPath());
+        Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+        entries.put("a/evil", file("evil"));
+
+        // then
+        assertRejected(archive(entries));
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ArchiveMetadataTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File archive;
+    private File indexDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        archive = temp.newFile("wlp.zip");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive))) {
+            out.putNextEntry(new ZipEntry("wlp/lib/ws-launch.jar"));
+            out.putNextEntry(new ZipEntry("wlp/lafiles/LI_en"));
+            out.write("license".getBytes(StandardCharsets.UTF_8));
+        }
+        indexDirectory = temp.newFolder("liberty");
+    }
+
+    private Properties index() throws IOException {
+        Properties index = new Properties();
+        try (InputStream in = new FileInputStream(new File(indexDirectory, ArchiveMetadata.INDEX_FILE))) {
+            index.load(in);
+        }
+        return index;
+    }
+
+    private boolean indexed(String name) throws IOException {
+        for (String key : index().stringPropertyNames()) {
+            if (key.endsWith("." + name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void derives_only_requested_values() throws Exception {
+        // when
+        String installRoot = ArchiveMetadata.get(indexDirectory, archive).getInstallRoot();
+
+        // then
+        assertEquals("wlp/", installRoot);
+        assertTrue(indexed("installRoot"));
+        assertFalse(indexed("sha256"));
+        assertFalse(indexed("licenseDigest"));
+    }
+
+    @Test
+    public void reuses_indexed_values() throws Exception {
+        // given
+        String sha256 = ArchiveMetadata.get(indexDirectory, archive).getSha256();
+        String licenseDigest = ArchiveMetadata.get(indexDirectory, archive).getLicenseDigest();
+
+        // when
+        ArchiveMetadata metadata = ArchiveMetadata.get(indexDirectory, archive);
+
+        // then
+        assertEquals(DigestUtil.sha256(archive), sha256);
+        assertEquals(sha256, metadata.getSha256());
+        assertEquals(licenseDigest, metadata.getLicenseDigest());
+        assertTrue(indexed("sha256"));
+        assertTrue(indexed("licenseDigest"));
+    }
+
+    @Test
+    public void discards_values_of_changed_archive() throws Exception {
+        // given
+        assertEquals("wlp/", ArchiveMetadata.get(indexDirectory, archive).getInstallRoot());
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive))) {
+            out.putNextEntry(new ZipEntry("README"));
+        }
+        archive.setLastModified(archive.lastModified() + 2000);
+
+        // when
+        ArchiveMetadata metadata = ArchiveMetadata.get(indexDirectory, archive);
+
+        // then
+        assertNull(metadata.getInstallRoot());
+        assertNull(metadata.getLicenseDigest());
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ArtifactBatchResolverTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private RepositorySystem system;
+    private DefaultRepositorySystemSession session;
+    private File repository;
+
+    @Before
+    public void setUp() throws IOException {
+        repository = temp.newFolder("repository");
+        system = MavenRepositorySystemUtils.newServiceLocator().getService(RepositorySystem.class);
+        session = MavenRepositorySystemUtils.newSession();
+        session.setLocalRepositoryManager(system.newLocalRepositoryManager(session, new LocalRepository(repository)));
+    }
+
+    private File install(String groupId, String artifactId, String version) throws IOException {
+        File dir = new File(repository, groupId.replace('.', '/') + "/" + artifactId + "/" + version);
+        dir.mkdirs();
+        File file = new File(dir, artifactId + "-" + version + ".jar");
+        file.createNewFile();
+        return file;
+    }
+
+    private ArtifactBatchResolver newResolver() {
+        return new ArtifactBatchResolver(system, session, Collections.<RemoteRepository>emptyList(), 2);
+    }
+
+    @Test
+    public void resolves_set_in_order() throws Exception {
+        // given
+        List<Artifact> artifacts = new ArrayList<Artifact>();
+        List<File> files = new ArrayList<File>();
+        for (int i = 0; i < 5; i++) {
+            files.add(install("io.openliberty.test", "lib" + i, "1.0"));
+            artifacts.add(new DefaultArtifact("io.openliberty.test", "lib" + i, "jar", "1.0"));
+        }
+
+        // when
+        List<ArtifactResult> results = newResolver().resolve(artifacts);
+
+        // then
+        assertEquals(artifacts.size(), results.size());
+        for (int i = 0; i < artifacts.size(); i++) {
+            assertTrue("expected artifact to be resolved", results.get(i).isResolved());
+            assertEquals(files.get(i).getCanonicalFile(), results.get(i).getArtifact().getFile().getCanonicalFile());
+        }
+    }
+
+    @Test
+    public void missing_artifact_does_not_fail_set() throws Exception {
+        // given
+        install("io.openliberty.test", "present", "1.0");
+        List<Artifact> artifacts = new ArrayList<Artifact>();
+        artifacts.add(new DefaultArtifact("io.openliberty.test", "missing", "jar", "1.0"));
+        artifacts.add(new DefaultArtifact("io.openliberty.test", "present", "jar", "1.0"));
+
+        // when
+        List<ArtifactResult> results = newResolver().resolve(artifacts);
+
+        // then
+        assertFalse("expected missing artifact not to be resolved", results.get(0).isResolved());
+        assertFalse("expected the failure to be reported", results.get(0).getExceptions().isEmpty());
+        assertTrue("expected present artifact to be resolved", results.get(1).isResolved());
+    }
+
+    @Test
+    public void resolved_artifact_is_reused() throws Exception {
+        // given
+        File file = install("io.openliberty.test", "reused", "1.0");
+        Artifact artifact = new DefaultArtifact("io.openliberty.test", "reused", "jar", "1.0");
+        ArtifactBatchResolver resolver = newResolver();
+        ArtifactResult first = resolver.resolve(artifact);
+
+        // when
+        file.delete();
+        ArtifactResult second = resolver.resolve(artifact);
+
+        // then
+        assertTrue("expected artifact to stay resolved", second.isResolved());
+        assertEquals(first.getArtifact().getFile(), second.getArtifact().getFile());
+    }
+}
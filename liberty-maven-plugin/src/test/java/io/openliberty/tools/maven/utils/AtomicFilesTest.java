@@ -0,0 +1,128 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AtomicFilesTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void replaces_file_and_creates_parents() throws Exception {
+        // given
+        Path target = new File(temp.getRoot(), "configDropins/overrides/server.xml").toPath();
+        AtomicFiles.replace(target, bytes("<server/>"));
+
+        // when
+        AtomicFiles.replace(target, bytes("<server description=\"new\"/>"));
+
+        // then
+        assertArrayEquals(bytes("<server description=\"new\"/>"), Files.readAllBytes(target));
+        assertEquals(1, target.getParent().toFile().list().length);
+    }
+
+    @Test
+    public void keeps_target_when_content_fails() throws Exception {
+        // given
+        Path target = temp.newFile("server.xml").toPath();
+        Files.write(target, bytes("<server/>"));
+
+        // when
+        try {
+            AtomicFiles.replace(target, new AtomicFiles.Content() {
+                @Override
+                public void writeTo(Path file) throws IOException {
+                    Files.write(file, bytes("<ser"));
+                    throw new IOException("failed");
+                }
+            });
+            fail("The content did not fail");
+        } catch (IOException e) {
+            // then
+            assertArrayEquals(bytes("<server/>"), Files.readAllBytes(target));
+            assertEquals(1, temp.getRoot().list().length);
+        }
+    }
+
+    @Test
+    public void copies_by_default() throws Exception {
+        // given
+        File source = temp.newFile("app.war");
+        Files.write(source.toPath(), bytes("war"));
+        Path target = new File(temp.newFolder("apps"), "app.war").toPath();
+
+        // when
+        boolean linked = AtomicFiles.copy(source.toPath(), target, false, false);
+
+        // then
+        assertFalse(linked);
+        assertFalse(Files.isSameFile(source.toPath(), target));
+        assertArrayEquals(bytes("war"), Files.readAllBytes(target));
+    }
+
+    @Test
+    public void links_when_requested() throws Exception {
+        // given
+        File source = temp.newFile("app.war");
+        Files.write(source.toPath(), bytes("war"));
+        Path target = new File(temp.newFolder("apps"), "app.war").toPath();
+        Files.write(target, bytes("old"));
+
+        // when
+        boolean linked = AtomicFiles.copy(source.toPath(), target, true, false);
+
+        // then
+        assertTrue(linked);
+        assertTrue(Files.isSameFile(source.toPath(), target));
+    }
+
+    @Test
+    public void stores_properties() throws Exception {
+        // given
+        Properties properties = new Properties();
+        properties.setProperty("a", "1");
+        Path target = new File(temp.getRoot(), "manifest.properties").toPath();
+
+        // when
+        AtomicFiles.store(target, properties, null);
+
+        // then
+        Properties stored = new Properties();
+        stored.load(Files.newInputStream(target));
+        assertEquals(properties, stored);
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ClassFileReferencesTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * Compiled by the test build. Its constant pool holds long and double
+     * constants, and method handles and an invokedynamic for the lambda.
+     */
+    static class Fixture {
+        static final long LONG_CONSTANT = 1234567890123L;
+        static final double DOUBLE_CONSTANT = 3.5d;
+
+        Callable<AtomicLong> supplier() {
+            return () -> new AtomicLong(LONG_CONSTANT + (long) DOUBLE_CONSTANT);
+        }
+    }
+
+    static class NoConstants {
+        private long value = System.nanoTime();
+
+        long get() {
+            return value;
+        }
+    }
+
+    private File classFile(Class<?> type) throws IOException {
+        File file = temp.newFile(type.getSimpleName() + ".class");
+        try (InputStream in = type.getResourceAsStream(type.getName().substring(type.getName().lastIndexOf('.') + 1)
+                + ".class")) {
+            Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    private File write(byte[] bytes) throws IOException {
+        File file = temp.newFile();
+        Files.write(file.toPath(), bytes);
+        return file;
+    }
+
+    /**
+     * A class file with every kind of constant pool entry, including the ones
+     * javac does not emit for ordinary classes: CONSTANT_Dynamic,
+     * CONSTANT_Module and CONSTANT_Package.
+     */
+    private byte[] craftedClass(int extraTag) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(55);
+        out.writeShort(extraTag == 0 ? 23 : 24);
+        out.writeByte(1); out.writeUTF("com/example/Crafted"); // 1
+        out.writeByte(7); out.writeShort(1); // 2
+        out.writeByte(1); out.writeUTF("com/example/Target$Inner"); // 3
+        out.writeByte(7); out.writeShort(3); // 4
+        out.writeByte(5); out.writeLong(Long.MAX_VALUE); // 5 and 6
+        out.writeByte(6); out.writeDouble(1.5d); // 7 and 8
+        out.writeByte(1); out.writeUTF("create"); // 9
+        out.writeByte(1); out.writeUTF("(Ljava/util/List<Lcom/example/Argument;>;)Lcom/example/Returned;"); // 10
+        out.writeByte(12); out.writeShort(9); out.writeShort(10); // 11
+        out.writeByte(10); out.writeShort(4); out.writeShort(11); // 12
+        out.writeByte(15); out.writeByte(6); out.writeShort(12); // 13
+        out.writeByte(16); out.writeShort(10); // 14
+        out.writeByte(17); out.writeShort(0); out.writeShort(11); // 15
+        out.writeByte(18); out.writeShort(0); out.writeShort(11); // 16
+        out.writeByte(1); out.writeUTF("java.base"); // 17
+        out.writeByte(19); out.writeShort(17); // 18
+        out.writeByte(1); out.writeUTF("com/example"); // 19
+        out.writeByte(20); out.writeShort(19); // 20
+        out.writeByte(1); out.writeUTF("java/lang/Object"); // 21
+        out.writeByte(7); out.writeShort(21); // 22
+        if (extraTag != 0) {
+            out.writeByte(extraTag);
+        }
+        out.writeShort(0x0021); // access flags
+        out.writeShort(2); // this class
+        out.writeShort(22); // super class
+        out.writeShort(0); // interfaces
+        out.writeShort(0); // fields
+        out.writeShort(0); // methods
+        out.writeShort(0); // attributes
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void reads_compiled_class_with_wide_constants_and_lambda() throws Exception {
+        // when
+        ClassFileReferences references = ClassFileReferences.read(classFile(Fixture.class));
+
+        // then
+        assertEquals("io/openliberty/tools/maven/utils/ClassFileReferencesTest", references.getClassName());
+        assertTrue(references.getReferences().contains("java/util/concurrent/atomic/AtomicLong"));
+        assertTrue(references.getReferences().contains("java/util/concurrent/Callable"));
+        assertTrue(references.getReferences().contains("java/lang/invoke/LambdaMetafactory"));
+        assertFalse(references.getReferences().contains(references.getClassName()));
+        assertTrue(references.hasConstantFields());
+    }
+
+    @Test
+    public void class_without_constants() throws Exception {
+        // when
+        ClassFileReferences references = ClassFileReferences.read(classFile(NoConstants.class));
+
+        // then
+        assertFalse(references.hasConstantFields());
+        assertTrue(references.getReferences().contains("java/lang/System"));
+    }
+
+    @Test
+    public void reads_all_constant_pool_tags() throws Exception {
+        // when
+        ClassFileReferences references = ClassFileReferences.read(write(craftedClass(0)));
+
+        // then
+        assertEquals("com/example/Crafted", references.getClassName());
+        assertTrue(references.getReferences().contains("com/example/Target"));
+        assertTrue(references.getReferences().contains("com/example/Returned"));
+        assertTrue(references.getReferences().contains("com/example/Argument"));
+        assertTrue(references.getReferences().contains("java/util/List"));
+        assertTrue(references.getReferences().contains("java/lang/Object"));
+        assertFalse(references.getReferences().contains("java.base"));
+        assertFalse(references.getReferences().contains("com/example"));
+        assertEquals(5, references.getReferences().size());
+    }
+
+    @Test(expected = IOException.class)
+    public void unknown_constant_pool_tag() throws Exception {
+        ClassFileReferences.read(write(craftedClass(2)));
+    }
+
+    @Test(expected = IOException.class)
+    public void not_a_class_file() throws Exception {
+        ClassFileReferences.read(write(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }));
+    }
+
+    @Test
+    public void top_level_class_name() {
+        assertEquals("com/example/Outer", ClassFileReferences.getTopLevelClassName("com/example/Outer$Inner$1"));
+        assertEquals("com/example/Outer", ClassFileReferences.getTopLevelClassName("com/example/Outer"));
+        assertEquals("Outer", ClassFileReferences.getTopLevelClassName("Outer$Inner"));
+    }
+}
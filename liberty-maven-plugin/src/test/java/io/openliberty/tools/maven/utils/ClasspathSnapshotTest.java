@@ -0,0 +1,105 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ClasspathSnapshotTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private String jar(String name, String content) throws IOException {
+        File jar = new File(temp.getRoot(), name);
+        Files.write(jar.toPath(), content.getBytes("UTF-8"));
+        return jar.getAbsolutePath();
+    }
+
+    @Test
+    public void unchanged_classpath_has_no_differences() throws Exception {
+        // given
+        String a = jar("a.jar", "a");
+        ClasspathSnapshot previous = new ClasspathSnapshot(Arrays.asList(a, temp.getRoot().getAbsolutePath()));
+
+        // when
+        ClasspathSnapshot.Delta delta = previous
+                .diff(new ClasspathSnapshot(Arrays.asList(a, temp.getRoot().getAbsolutePath())));
+
+        // then
+        assertTrue(delta.isEmpty());
+    }
+
+    @Test
+    public void finds_added_and_removed_elements() throws Exception {
+        // given
+        String a = jar("a.jar", "a");
+        String b = jar("b.jar", "b");
+        String c = jar("c.jar", "c");
+        ClasspathSnapshot previous = new ClasspathSnapshot(Arrays.asList(a, b));
+
+        // when
+        ClasspathSnapshot.Delta delta = previous.diff(new ClasspathSnapshot(Arrays.asList(a, c)));
+
+        // then
+        assertEquals(Collections.singletonList(c), delta.getAdded());
+        assertEquals(Collections.singletonList(b), delta.getRemoved());
+        assertTrue(delta.getChanged().isEmpty());
+        assertFalse(delta.isEmpty());
+    }
+
+    @Test
+    public void finds_file_rebuilt_since_previous_snapshot() throws Exception {
+        // given
+        String a = jar("a-1.0-SNAPSHOT.jar", "a");
+        ClasspathSnapshot previous = new ClasspathSnapshot(Collections.singletonList(a));
+        jar("a-1.0-SNAPSHOT.jar", "rebuilt");
+
+        // when
+        ClasspathSnapshot.Delta delta = previous.diff(new ClasspathSnapshot(Collections.singletonList(a)));
+
+        // then
+        assertEquals(Collections.singletonList(a), delta.getChanged());
+        assertFalse(delta.isEmpty());
+    }
+
+    @Test
+    public void directories_are_compared_by_path() throws Exception {
+        // given
+        File classes = temp.newFolder("classes");
+        ClasspathSnapshot previous = new ClasspathSnapshot(Collections.singletonList(classes.getAbsolutePath()));
+        Files.write(new File(classes, "A.class").toPath(), new byte[] { 1 });
+
+        // when
+        ClasspathSnapshot.Delta delta = previous
+                .diff(new ClasspathSnapshot(Collections.singletonList(classes.getAbsolutePath())));
+
+        // then
+        assertTrue(delta.isEmpty());
+    }
+
+}
@@ -0,0 +1,139 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CoalescingTestExecutorTest {
+
+    private final CoalescingTestExecutor executor = new CoalescingTestExecutor();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static final Runnable NOOP = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    @Test
+    public void cancel_is_cooperative_outside_interruptible_sections() throws Exception {
+        // given
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicBoolean cancelSeen = new AtomicBoolean();
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final CountDownLatch done = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                }
+                cancelSeen.set(executor.isCancelRequested());
+                done.countDown();
+            }
+        });
+        started.await();
+
+        // when
+        executor.execute(NOOP);
+        release.countDown();
+        done.await(10, TimeUnit.SECONDS);
+
+        // then
+        assertFalse(interrupted.get());
+        assertTrue(cancelSeen.get());
+        assertEquals(1, executor.getCancelledRuns());
+    }
+
+    @Test
+    public void cancel_interrupts_interruptible_section() throws Exception {
+        // given
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final AtomicBoolean interruptedAfter = new AtomicBoolean(true);
+        final CountDownLatch done = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                executor.beginInterruptible();
+                try {
+                    started.countDown();
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                    Thread.currentThread().interrupt();
+                } finally {
+                    executor.endInterruptible();
+                }
+                interruptedAfter.set(Thread.currentThread().isInterrupted());
+                done.countDown();
+            }
+        });
+        started.await();
+
+        // when
+        executor.execute(NOOP);
+        done.await(10, TimeUnit.SECONDS);
+
+        // then
+        assertTrue(interrupted.get());
+        assertFalse(interruptedAfter.get());
+    }
+
+    @Test
+    public void queued_runs_are_coalesced() throws Exception {
+        // given
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        // when
+        executor.execute(NOOP);
+        executor.execute(NOOP);
+        executor.execute(NOOP);
+
+        // then
+        assertEquals(1, executor.getQueueDepth());
+        assertEquals(2, executor.getCoalescedRuns());
+        assertEquals(4, executor.getSubmittedRuns());
+        release.countDown();
+    }
+}
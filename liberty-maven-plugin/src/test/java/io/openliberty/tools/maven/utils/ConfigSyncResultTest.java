@@ -0,0 +1,95 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigSyncResultTest {
+
+    private final File serverDirectory = new File("/wlp/usr/servers/defaultServer");
+
+    @Test
+    public void unchanged_requires_nothing() {
+        // when
+        ConfigSyncResult result = new ConfigSyncResult(serverDirectory);
+
+        // then
+        assertFalse(result.isChanged());
+        assertFalse(result.isRestartRequired());
+        assertFalse(result.isConfigReloadRequired());
+    }
+
+    @Test
+    public void startup_files_require_restart() {
+        for (String name : new String[] { "jvm.options", "bootstrap.properties", "server.env" }) {
+            // given
+            ConfigSyncResult result = new ConfigSyncResult(serverDirectory);
+
+            // when
+            result.addWritten(new File(serverDirectory, name));
+
+            // then
+            assertTrue(name, result.isChanged());
+            assertTrue(name, result.isRestartRequired());
+            assertFalse(name, result.isConfigReloadRequired());
+        }
+    }
+
+    @Test
+    public void deleted_startup_file_requires_restart() {
+        // given
+        ConfigSyncResult result = new ConfigSyncResult(serverDirectory);
+
+        // when
+        result.addDeleted(new File(serverDirectory, "bootstrap.properties"));
+
+        // then
+        assertTrue(result.isRestartRequired());
+    }
+
+    @Test
+    public void startup_file_names_in_subdirectories_do_not_require_restart() {
+        // given
+        ConfigSyncResult result = new ConfigSyncResult(serverDirectory);
+
+        // when
+        result.addWritten(new File(serverDirectory, "resources/server.env"));
+
+        // then
+        assertTrue(result.isChanged());
+        assertFalse(result.isRestartRequired());
+        assertFalse(result.isConfigReloadRequired());
+    }
+
+    @Test
+    public void xml_files_require_config_reload() {
+        // given
+        ConfigSyncResult result = new ConfigSyncResult(serverDirectory);
+
+        // when
+        result.addWritten(new File(serverDirectory, "server.xml"));
+        result.addDeleted(new File(serverDirectory, "configDropins/overrides/liberty-plugin-variable-config.XML"));
+
+        // then
+        assertFalse(result.isRestartRequired());
+        assertTrue(result.isConfigReloadRequired());
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigSyncTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File configDirectory;
+    private File serverDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        configDirectory = temp.newFolder("config");
+        serverDirectory = temp.newFolder("server");
+    }
+
+    private static void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void writes_only_changed_files() throws Exception {
+        // given
+        write(new File(configDirectory, "server.xml"), "<server/>");
+        write(new File(configDirectory, "jvm.options"), "-Xmx1g");
+        write(new File(serverDirectory, "server.xml"), "<server/>");
+        ConfigSync configSync = new ConfigSync(serverDirectory);
+
+        // when
+        configSync.copyDirectory(configDirectory, serverDirectory, Collections.<String>emptySet());
+        ConfigSyncResult result = configSync.sync();
+
+        // then
+        assertEquals(Collections.singletonList(new File(serverDirectory, "jvm.options").getCanonicalFile()),
+                result.getWrittenFiles());
+        assertTrue(result.isRestartRequired());
+        assertFalse(result.isConfigReloadRequired());
+        assertEquals("-Xmx1g", read(new File(serverDirectory, "jvm.options")));
+    }
+
+    @Test
+    public void last_staged_operation_wins() throws Exception {
+        // given
+        File serverXml = new File(serverDirectory, "server.xml");
+        write(new File(configDirectory, "server.xml"), "<server/>");
+        ConfigSync configSync = new ConfigSync(serverDirectory);
+
+        // when
+        configSync.copy(new File(configDirectory, "server.xml"), serverXml);
+        configSync.write(serverXml, "<server description=\"generated\"/>".getBytes(StandardCharsets.UTF_8));
+        ConfigSyncResult result = configSync.sync();
+
+        // then
+        assertEquals("<server description=\"generated\"/>", read(serverXml));
+        assertTrue(result.isConfigReloadRequired());
+    }
+
+    @Test
+    public void deletes_files() throws Exception {
+        // given
+        File variables = new File(serverDirectory, "configDropins/defaults/variables.xml");
+        write(variables, "<server/>");
+        ConfigSync configSync = new ConfigSync(serverDirectory);
+
+        // when
+        configSync.delete(variables);
+        configSync.delete(new File(serverDirectory, "missing.xml"));
+        ConfigSyncResult result = configSync.sync();
+
+        // then
+        assertFalse(variables.exists());
+        assertEquals(Collections.singletonList(variables.getCanonicalFile()), result.getDeletedFiles());
+    }
+
+    @Test
+    public void skips_default_excludes_and_excluded_files() throws Exception {
+        // given
+        write(new File(configDirectory, "server.env"), "A=1");
+        write(new File(configDirectory, "server.xml~"), "backup");
+        write(new File(configDirectory, ".DS_Store"), "");
+        write(new File(configDirectory, ".gitignore"), "");
+        write(new File(configDirectory, ".git/config"), "");
+        write(new File(configDirectory, "resources/.svn/entries"), "");
+        write(new File(configDirectory, "resources/CVS/Root"), "");
+        write(new File(configDirectory, "resources/#keys.p12#"), "");
+        write(new File(configDirectory, "resources/keys.p12"), "keys");
+        ConfigSync configSync = new ConfigSync(serverDirectory);
+
+        // when
+        configSync.copyDirectory(configDirectory, serverDirectory, Collections.singleton("server.env"));
+        configSync.sync();
+
+        // then
+        assertEquals(Collections.singletonList("resources"), Arrays.asList(serverDirectory.list()));
+        assertEquals(Collections.singletonList("keys.p12"),
+                Arrays.asList(new File(serverDirectory, "resources").list()));
+    }
+
+    @Test
+    public void keeps_empty_directories() throws Exception {
+        // given
+        new File(configDirectory, "resources/security").mkdirs();
+        ConfigSync configSync = new ConfigSync(serverDirectory);
+
+        // when
+        configSync.copyDirectory(configDirectory, serverDirectory, Collections.<String>emptySet());
+        ConfigSyncResult result = configSync.sync();
+
+        // then
+        assertTrue(new File(serverDirectory, "resources/security").isDirectory());
+        assertFalse(result.isChanged());
+    }
+}
@@ -0,0 +1,229 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DependencySyncTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File repository;
+    private File lib;
+    private File manifestFile;
+
+    @Before
+    public void setUp() throws IOException {
+        repository = temp.newFolder("repository");
+        lib = temp.newFolder("lib");
+        manifestFile = new File(temp.getRoot(), "dependencies.properties");
+    }
+
+    private File source(String name, String content) throws IOException {
+        File file = new File(repository, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private Properties manifest() throws IOException {
+        Properties manifest = new Properties();
+        try (InputStream in = Files.newInputStream(manifestFile.toPath())) {
+            manifest.load(in);
+        }
+        return manifest;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private DependencySync.Result sync(boolean verifyChecksum, File... sourcesAndTargets) throws IOException {
+        DependencySync sync = new DependencySync(manifestFile, false, verifyChecksum, 2);
+        for (int i = 0; i < sourcesAndTargets.length; i += 2) {
+            sync.add(sourcesAndTargets[i], sourcesAndTargets[i + 1]);
+        }
+        return sync.sync();
+    }
+
+    @Test
+    public void unchanged_targets_are_not_copied() throws Exception {
+        // given
+        File a = source("a.jar", "a");
+        File b = source("b.jar", "b");
+        sync(false, a, new File(lib, "a.jar"), b, new File(lib, "b.jar"));
+
+        // when
+        DependencySync.Result result = sync(false, a, new File(lib, "a.jar"), b, new File(lib, "b.jar"));
+
+        // then
+        assertEquals(0, result.getCopied().size());
+        assertEquals(2, result.getUnchanged().size());
+    }
+
+    @Test
+    public void changed_source_is_copied() throws Exception {
+        // given
+        File a = source("a.jar", "a");
+        File target = new File(lib, "a.jar");
+        sync(false, a, target);
+        source("a.jar", "a2");
+
+        // when
+        DependencySync.Result result = sync(false, a, target);
+
+        // then
+        assertEquals(1, result.getCopied().size());
+        assertEquals("a2", read(target));
+    }
+
+    @Test
+    public void removes_targets_no_longer_in_set_and_prunes_manifest() throws Exception {
+        // given
+        File a = source("a.jar", "a");
+        File b = source("b.jar", "b");
+        File targetA = new File(lib, "a.jar");
+        File targetB = new File(lib, "b.jar");
+        sync(false, a, targetA, b, targetB);
+
+        // when
+        DependencySync.Result result = sync(false, a, targetA);
+
+        // then
+        assertEquals(1, result.getRemoved().size());
+        assertFalse(targetB.exists());
+        assertTrue(targetA.isFile());
+        assertEquals(1, manifest().size());
+        assertTrue(manifest().containsKey(targetA.getCanonicalPath()));
+    }
+
+    @Test
+    public void keeps_target_modified_since_it_was_placed() throws Exception {
+        // given
+        File b = source("b.jar", "b");
+        File targetB = new File(lib, "b.jar");
+        sync(false, b, targetB);
+        Files.write(targetB.toPath(), "replaced by the user".getBytes(StandardCharsets.UTF_8));
+
+        // when
+        DependencySync.Result result = sync(false, source("a.jar", "a"), new File(lib, "a.jar"));
+
+        // then
+        assertEquals(0, result.getRemoved().size());
+        assertEquals("replaced by the user", read(targetB));
+        assertFalse(manifest().containsKey(targetB.getCanonicalPath()));
+    }
+
+    @Test
+    public void empty_set_removes_manifest() throws Exception {
+        // given
+        File a = source("a.jar", "a");
+        File target = new File(lib, "a.jar");
+        sync(false, a, target);
+
+        // when
+        DependencySync.Result result = sync(false);
+
+        // then
+        assertEquals(1, result.getRemoved().size());
+        assertFalse(target.exists());
+        assertFalse(manifestFile.exists());
+    }
+
+    @Test
+    public void records_digest_when_verifying_checksums() throws Exception {
+        // given
+        File a = source("a.jar", "a");
+        File target = new File(lib, "a.jar");
+
+        // when
+        sync(true, a, target);
+
+        // then
+        String entry = manifest().getProperty(target.getCanonicalPath());
+        assertEquals(a.length() + ":" + a.lastModified() + ":" + DigestUtil.sha256(a), entry);
+    }
+
+    @Test
+    public void recopies_target_with_same_stamp_but_different_content() throws Exception {
+        // given
+        File a = source("a.jar", "a");
+        File target = new File(lib, "a.jar");
+        sync(true, a, target);
+        Files.write(target.toPath(), "x".getBytes(StandardCharsets.UTF_8));
+        target.setLastModified(a.lastModified());
+
+        // when
+        DependencySync.Result result = sync(true, a, target);
+
+        // then
+        assertEquals(1, result.getCopied().size());
+        assertEquals("a", read(target));
+    }
+
+    @Test
+    public void reuses_recorded_digest_of_unchanged_source() throws Exception {
+        // given
+        File a = source("a.jar", "a");
+        File target = new File(lib, "a.jar");
+        sync(true, a, target);
+        // a recorded digest that does not match the target shows that the source is not hashed again
+        String stamp = a.length() + ":" + a.lastModified();
+        Properties manifest = manifest();
+        manifest.setProperty(target.getCanonicalPath(), stamp + ":" + DigestUtil.sha256("other"));
+        AtomicFiles.store(manifestFile.toPath(), manifest, null);
+
+        // when
+        DependencySync.Result result = sync(true, a, target);
+
+        // then
+        assertEquals(1, result.getCopied().size());
+        assertEquals(stamp + ":" + DigestUtil.sha256(a), manifest().getProperty(target.getCanonicalPath()));
+    }
+
+    @Test
+    public void ignores_recorded_digest_of_changed_source() throws Exception {
+        // given
+        File a = source("a.jar", "a");
+        File target = new File(lib, "a.jar");
+        sync(true, a, target);
+        Properties manifest = manifest();
+        manifest.setProperty(target.getCanonicalPath(), "0:0:" + DigestUtil.sha256("other"));
+        AtomicFiles.store(manifestFile.toPath(), manifest, null);
+
+        // when
+        DependencySync.Result result = sync(true, a, target);
+
+        // then
+        assertEquals(1, result.getUnchanged().size());
+        assertEquals(0, result.getCopied().size());
+    }
+
+}
@@ -0,0 +1,211 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DevSessionStateTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File stateDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        stateDirectory = new File(temp.getRoot(), "liberty-dev-state");
+    }
+
+    private static File write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void recorded_step_is_up_to_date_in_next_session() throws Exception {
+        // given
+        new DevSessionState(stateDirectory).record("compile", "k1");
+
+        // when
+        DevSessionState state = new DevSessionState(stateDirectory);
+
+        // then
+        assertTrue(state.isUpToDate("compile", "k1"));
+        assertFalse(state.isUpToDate("compile", "k2"));
+        assertFalse(state.isUpToDate("install-feature", "k1"));
+    }
+
+    @Test
+    public void null_key_is_never_up_to_date() throws Exception {
+        // given
+        DevSessionState state = new DevSessionState(stateDirectory);
+
+        // when
+        boolean upToDate = state.isUpToDate("compile", null);
+
+        // then
+        assertFalse(upToDate);
+    }
+
+    @Test
+    public void recording_null_key_removes_step() throws Exception {
+        // given
+        new DevSessionState(stateDirectory).record("compile", "k1");
+
+        // when
+        new DevSessionState(stateDirectory).record("compile", null);
+
+        // then
+        assertFalse(new DevSessionState(stateDirectory).isUpToDate("compile", "k1"));
+    }
+
+    @Test
+    public void recording_keeps_other_steps() throws Exception {
+        // given
+        new DevSessionState(stateDirectory).record("compile", "k1");
+
+        // when
+        new DevSessionState(stateDirectory).record("install-feature", "k2");
+
+        // then
+        DevSessionState state = new DevSessionState(stateDirectory);
+        assertTrue(state.isUpToDate("compile", "k1"));
+        assertTrue(state.isUpToDate("install-feature", "k2"));
+    }
+
+    @Test
+    public void unreadable_state_starts_over() throws Exception {
+        // given
+        write(new File(stateDirectory, "session.properties"), "install-feature=k2\ncompile=\\u00zz\n");
+
+        // when
+        DevSessionState state = new DevSessionState(stateDirectory);
+
+        // then
+        // entries loaded before the malformed one are discarded too
+        assertFalse(state.isUpToDate("install-feature", "k2"));
+    }
+
+    @Test
+    public void key_depends_on_value_boundaries() throws Exception {
+        // given
+        String key = DevSessionState.key(Arrays.asList("ab", "c"));
+
+        // when
+        String other = DevSessionState.key(Arrays.asList("a", "bc"));
+
+        // then
+        assertFalse(key.equals(other));
+        assertEquals(key, DevSessionState.key(Arrays.asList("ab", "c")));
+    }
+
+    @Test
+    public void fingerprint_changes_with_matching_files_only() throws Exception {
+        // given
+        File directory = temp.newFolder("src");
+        File source = write(new File(directory, "p/A.java"), "class A {}");
+        File other = write(new File(directory, "p/notes.txt"), "v1");
+        String fingerprint = DevSessionState.fingerprint(directory, ".java");
+
+        // when
+        write(other, "v2 with more content");
+        String afterOther = DevSessionState.fingerprint(directory, ".java");
+        write(source, "class A { int a; }");
+        String afterSource = DevSessionState.fingerprint(directory, ".java");
+
+        // then
+        assertEquals(fingerprint, afterOther);
+        assertFalse(fingerprint.equals(afterSource));
+    }
+
+    @Test
+    public void fingerprint_of_missing_file_differs_from_empty_file() throws Exception {
+        // given
+        File file = new File(temp.getRoot(), "server.xml");
+        String missing = DevSessionState.fingerprint(file, null);
+
+        // when
+        write(file, "");
+
+        // then
+        assertFalse(missing.equals(DevSessionState.fingerprint(file, null)));
+    }
+
+    @Test
+    public void source_without_class_file_is_not_current() throws Exception {
+        // given
+        File sources = temp.newFolder("java");
+        File classes = temp.newFolder("classes");
+        write(new File(sources, "p/A.java"), "class A {}");
+        write(new File(sources, "p/B.java"), "class B {");
+        write(new File(sources, "p/package-info.java"), "package p;");
+        write(new File(classes, "p/A.class"), "");
+
+        // when
+        boolean current = DevSessionState.hasCurrentClasses(sources, classes);
+
+        // then
+        assertFalse(current);
+    }
+
+    @Test
+    public void class_file_older_than_source_is_not_current() throws Exception {
+        // given
+        File sources = temp.newFolder("java");
+        File classes = temp.newFolder("classes");
+        File source = write(new File(sources, "p/A.java"), "class A {}");
+        File classFile = write(new File(classes, "p/A.class"), "");
+        classFile.setLastModified(source.lastModified() - 10000);
+
+        // when
+        boolean current = DevSessionState.hasCurrentClasses(sources, classes);
+
+        // then
+        assertFalse(current);
+    }
+
+    @Test
+    public void compiled_sources_are_current() throws Exception {
+        // given
+        File sources = temp.newFolder("java");
+        File classes = temp.newFolder("classes");
+        File source = write(new File(sources, "p/A.java"), "class A {}");
+        write(new File(sources, "p/package-info.java"), "package p;");
+        File classFile = write(new File(classes, "p/A.class"), "");
+        classFile.setLastModified(source.lastModified() + 10000);
+
+        // when
+        boolean current = DevSessionState.hasCurrentClasses(sources, classes);
+
+        // then
+        assertTrue(current);
+    }
+
+}
@@ -0,0 +1,305 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExpandedArchiveSyncTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File workDirectory;
+    private File apps;
+
+    @Before
+    public void setUp() throws IOException {
+        workDirectory = temp.newFolder("liberty-delta-deploy");
+        apps = temp.newFolder("apps");
+    }
+
+    private static Map<String, String> entries(String... pathsAndContents) {
+        Map<String, String> entries = new LinkedHashMap<String, String>();
+        for (int i = 0; i < pathsAndContents.length; i += 2) {
+            entries.put(pathsAndContents[i], pathsAndContents[i + 1]);
+        }
+        return entries;
+    }
+
+    private static byte[] zip(Map<String, String> entries, boolean stored) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                byte[] content = entry.getValue().getBytes(StandardCharsets.UTF_8);
+                ZipEntry zipEntry = new ZipEntry(entry.getKey());
+                if (stored) {
+                    // the CRC and size are in the local header
+                    CRC32 crc = new CRC32();
+                    crc.update(content);
+                    zipEntry.setMethod(ZipEntry.STORED);
+                    zipEntry.setSize(content.length);
+                    zipEntry.setCrc(crc.getValue());
+                }
+                out.putNextEntry(zipEntry);
+                out.write(content);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private File war(Map<String, String> entries) throws IOException {
+        File war = new File(temp.getRoot(), "app.war");
+        Files.write(war.toPath(), zip(entries, false));
+        return war;
+    }
+
+    private File ear(Map<String, String> webEntries, boolean stored) throws IOException {
+        File ear = new File(temp.getRoot(), "app.ear");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(ear))) {
+            out.putNextEntry(new ZipEntry("META-INF/application.xml"));
+            out.write("<application/>".getBytes(StandardCharsets.UTF_8));
+            out.putNextEntry(new ZipEntry("web.war"));
+            out.write(zip(webEntries, stored));
+        }
+        return ear;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void writes_only_changed_entries() throws Exception {
+        // given
+        File target = new File(apps, "app.war");
+        ExpandedArchiveSync sync = new ExpandedArchiveSync(workDirectory, "app.war");
+        sync.sync(war(entries("index.html", "v1", "WEB-INF/classes/A.class", "a")), target);
+
+        // when
+        ExpandedArchiveSync.Result result = sync
+                .sync(war(entries("index.html", "v2", "WEB-INF/classes/A.class", "a")), target);
+
+        // then
+        assertEquals(1, result.getWritten());
+        assertEquals(1, result.getUnchanged());
+        assertEquals(0, result.getRemoved());
+        assertEquals("v2", read(new File(target, "index.html")));
+    }
+
+    @Test
+    public void unchanged_archive_is_not_written() throws Exception {
+        // given
+        File target = new File(apps, "app.war");
+        ExpandedArchiveSync sync = new ExpandedArchiveSync(workDirectory, "app.war");
+        sync.sync(war(entries("index.html", "v1")), target);
+
+        // when
+        ExpandedArchiveSync.Result result = sync.sync(war(entries("index.html", "v1")), target);
+
+        // then
+        assertFalse(result.isChanged());
+        assertEquals(1, result.getUnchanged());
+    }
+
+    @Test
+    public void removes_deleted_entries_and_empty_directories() throws Exception {
+        // given
+        File target = new File(apps, "app.war");
+        ExpandedArchiveSync sync = new ExpandedArchiveSync(workDirectory, "app.war");
+        sync.sync(war(entries("index.html", "v1", "WEB-INF/classes/p/A.class", "a")), target);
+        // a file that the server created, which is not part of the archive
+        Files.write(new File(target, "WEB-INF/server.log").toPath(), new byte[0]);
+
+        // when
+        ExpandedArchiveSync.Result result = sync.sync(war(entries("index.html", "v1")), target);
+
+        // then
+        assertEquals(1, result.getRemoved());
+        assertFalse(new File(target, "WEB-INF/classes").exists());
+        assertTrue(new File(target, "WEB-INF/server.log").isFile());
+    }
+
+    @Test
+    public void rewrites_entry_modified_in_directory() throws Exception {
+        // given
+        File target = new File(apps, "app.war");
+        ExpandedArchiveSync sync = new ExpandedArchiveSync(workDirectory, "app.war");
+        sync.sync(war(entries("index.html", "v1")), target);
+        Files.write(new File(target, "index.html").toPath(), "edited".getBytes(StandardCharsets.UTF_8));
+
+        // when
+        ExpandedArchiveSync.Result result = sync.sync(war(entries("index.html", "v1")), target);
+
+        // then
+        assertEquals(1, result.getWritten());
+        assertEquals("v1", read(new File(target, "index.html")));
+    }
+
+    @Test
+    public void replaces_deployed_archive_file() throws Exception {
+        // given
+        File target = new File(apps, "app.war");
+        Files.write(target.toPath(), new byte[] { 1 });
+
+        // when
+        ExpandedArchiveSync.Result result = new ExpandedArchiveSync(workDirectory, "app.war")
+                .sync(war(entries("index.html", "v1")), target);
+
+        // then
+        assertEquals(1, result.getWritten());
+        assertTrue(target.isDirectory());
+    }
+
+    @Test
+    public void delete_removes_directory_and_manifest() throws Exception {
+        // given
+        File target = new File(apps, "app.war");
+        ExpandedArchiveSync sync = new ExpandedArchiveSync(workDirectory, "app.war");
+        sync.sync(war(entries("index.html", "v1")), target);
+
+        // when
+        sync.delete(target);
+
+        // then
+        assertFalse(target.exists());
+        assertEquals(0, workDirectory.list().length);
+    }
+
+    @Test
+    public void replaces_directory_without_manifest() throws Exception {
+        // given
+        File target = new File(apps, "app.war");
+        ExpandedArchiveSync sync = new ExpandedArchiveSync(workDirectory, "app.war");
+        sync.sync(war(entries("index.html", "v1", "WEB-INF/classes/A.class", "a")), target);
+        // e.g. the build directory was cleaned
+        Files.delete(new File(workDirectory, "app.war.properties").toPath());
+
+        // when
+        ExpandedArchiveSync.Result result = sync.sync(war(entries("index.html", "v1")), target);
+
+        // then
+        assertEquals(1, result.getWritten());
+        assertEquals("v1", read(new File(target, "index.html")));
+        assertFalse(new File(target, "WEB-INF").exists());
+    }
+
+    @Test
+    public void replaces_directory_with_unreadable_manifest() throws Exception {
+        // given
+        File target = new File(apps, "app.war");
+        ExpandedArchiveSync sync = new ExpandedArchiveSync(workDirectory, "app.war");
+        sync.sync(war(entries("index.html", "v1", "old.html", "old")), target);
+        Files.write(new File(workDirectory, "app.war.properties").toPath(),
+                "index.html=\\u00".getBytes(StandardCharsets.ISO_8859_1));
+
+        // when
+        sync.sync(war(entries("index.html", "v1")), target);
+
+        // then
+        assertFalse(new File(target, "old.html").exists());
+        assertEquals("v1", read(new File(target, "index.html")));
+    }
+
+    @Test
+    public void swaps_in_updated_directory_with_linked_unchanged_entries() throws Exception {
+        // given
+        File target = new File(apps, "app.war");
+        ExpandedArchiveSync sync = new ExpandedArchiveSync(workDirectory, "app.war");
+        sync.sync(war(entries("index.html", "v1", "WEB-INF/classes/A.class", "a")), target);
+        Object directoryKey = fileKey(target);
+        Object unchangedKey = fileKey(new File(target, "WEB-INF/classes/A.class"));
+
+        // when
+        sync.sync(war(entries("index.html", "v2", "WEB-INF/classes/A.class", "a")), target);
+
+        // then
+        assertFalse(directoryKey.equals(fileKey(target)));
+        assertEquals(unchangedKey, fileKey(new File(target, "WEB-INF/classes/A.class")));
+        assertEquals("v2", read(new File(target, "index.html")));
+        assertEquals(1, workDirectory.list().length);
+    }
+
+    @Test
+    public void unchanged_directory_is_not_swapped() throws Exception {
+        // given
+        File target = new File(apps, "app.war");
+        ExpandedArchiveSync sync = new ExpandedArchiveSync(workDirectory, "app.war");
+        sync.sync(war(entries("index.html", "v1")), target);
+        Object directoryKey = fileKey(target);
+
+        // when
+        sync.sync(war(entries("index.html", "v1")), target);
+
+        // then
+        assertEquals(directoryKey, fileKey(target));
+    }
+
+    private static Object fileKey(File file) throws IOException {
+        Object key = Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+        Assume.assumeNotNull(key);
+        return key;
+    }
+
+    @Test
+    public void expands_ear_modules_with_data_descriptors() throws Exception {
+        expands_ear_modules(false);
+    }
+
+    @Test
+    public void expands_ear_modules_with_sizes_in_headers() throws Exception {
+        expands_ear_modules(true);
+    }
+
+    private void expands_ear_modules(boolean stored) throws Exception {
+        // given
+        File target = new File(apps, "app.ear");
+        ExpandedArchiveSync sync = new ExpandedArchiveSync(workDirectory, "app.ear");
+        ExpandedArchiveSync.Result first = sync
+                .sync(ear(entries("WEB-INF/classes/A.class", "a1", "WEB-INF/classes/B.class", "b"), stored), target);
+
+        // when
+        ExpandedArchiveSync.Result result = sync
+                .sync(ear(entries("WEB-INF/classes/A.class", "a2", "WEB-INF/classes/B.class", "b"), stored), target);
+
+        // then
+        assertEquals(3, first.getWritten());
+        assertEquals(1, result.getWritten());
+        assertEquals(2, result.getUnchanged());
+        assertEquals("a2", read(new File(target, "web.war/WEB-INF/classes/A.class")));
+        assertFalse(new File(workDirectory, "app.ear.staging").exists());
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IncrementalJavaCompilerTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private IncrementalJavaCompiler compiler;
+    private File sourceDirectory;
+    private File outputDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        compiler = IncrementalJavaCompiler.create();
+        Assume.assumeNotNull(compiler);
+        sourceDirectory = temp.newFolder("src");
+        outputDirectory = temp.newFolder("classes");
+    }
+
+    private File writeSource(String name, String content, long lastModified) throws IOException {
+        File file = new File(sourceDirectory, "example/" + name + ".java");
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), ("package example;\n" + content).getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(lastModified);
+        return file;
+    }
+
+    private IncrementalJavaCompiler.Result compile() throws IOException {
+        return compiler.compile(sourceDirectory, outputDirectory, Collections.<String> emptyList(),
+                Collections.<String> emptyList());
+    }
+
+    @Test
+    public void unchanged_classes_are_read_from_output_directory() throws Exception {
+        // given
+        long time = System.currentTimeMillis() - 60000;
+        writeSource("Helper", "public class Helper { public static int value() { return 1; } }", time);
+        writeSource("User", "public class User { int get() { return Helper.value(); } }", time);
+        assertEquals(2, compile().getCompiledSources());
+        File helperClass = new File(outputDirectory, "example/Helper.class");
+        helperClass.setLastModified(time);
+
+        // when
+        writeSource("User", "public class User { int get() { return Helper.value() + 1; } }", time + 10000);
+        IncrementalJavaCompiler.Result result = compile();
+
+        // then
+        assertTrue(result.getMessages().toString(), result.isSuccess());
+        assertEquals(1, result.getCompiledSources());
+        assertEquals(time, helperClass.lastModified());
+    }
+
+    @Test
+    public void dependents_of_changed_class_are_compiled() throws Exception {
+        // given
+        long time = System.currentTimeMillis() - 60000;
+        writeSource("Helper", "public class Helper { public static int value() { return 1; } }", time);
+        writeSource("User", "public class User { int get() { return Helper.value(); } }", time);
+        writeSource("Other", "public class Other { }", time);
+        compile();
+
+        // when
+        writeSource("Helper", "public class Helper { public static int value() { return 2; } }", time + 10000);
+        IncrementalJavaCompiler.Result result = compile();
+
+        // then
+        assertTrue(result.isSuccess());
+        assertEquals(2, result.getCompiledSources());
+    }
+
+    @Test
+    public void changed_constant_compiles_all_sources() throws Exception {
+        // given
+        long time = System.currentTimeMillis() - 60000;
+        writeSource("Constants", "public class Constants { public static final int VALUE = 1; }", time);
+        writeSource("User", "public class User { int get() { return Constants.VALUE; } }", time);
+        writeSource("Other", "public class Other { }", time);
+        compile();
+
+        // when
+        writeSource("Constants", "public class Constants { public static final int VALUE = 2; }", time + 10000);
+        IncrementalJavaCompiler.Result result = compile();
+
+        // then
+        assertTrue(result.isSuccess());
+        assertEquals(3, result.getCompiledSources());
+    }
+}
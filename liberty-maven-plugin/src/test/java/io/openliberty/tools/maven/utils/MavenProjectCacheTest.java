@@ -0,0 +1,357 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.building.ModelProblem;
+import org.apache.maven.model.building.ModelSource;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
+import org.apache.maven.project.DependencyResolutionResult;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuilder;
+import org.apache.maven.project.ProjectBuildingException;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.project.ProjectBuildingResult;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+
+public class MavenProjectCacheTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private FakeProjectBuilder builder;
+    private MavenProjectCache cache;
+    private File pom;
+
+    @Before
+    public void setUp() throws IOException {
+        builder = new FakeProjectBuilder();
+        cache = new MavenProjectCache(builder, new SystemStreamLog());
+        pom = temp.newFile("pom.xml");
+    }
+
+    private void writePom(String description, String... dependencies) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<project><modelVersion>4.0.0</modelVersion>");
+        sb.append("<groupId>test</groupId><artifactId>app</artifactId><version>1.0</version>");
+        sb.append("<description>").append(description).append("</description>");
+        sb.append("<dependencies>");
+        for (String dependency : dependencies) {
+            String[] gav = dependency.split(":");
+            sb.append("<dependency><groupId>").append(gav[0]).append("</groupId><artifactId>").append(gav[1])
+                    .append("</artifactId><version>").append(gav[2]).append("</version></dependency>");
+        }
+        sb.append("</dependencies></project>");
+        Files.write(pom.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private MavenProject getProject() throws Exception {
+        return cache.getProject(pom, new DefaultProjectBuildingRequest());
+    }
+
+    @Test
+    public void unchanged_build_file_is_not_built_again() throws Exception {
+        // given
+        writePom("first", "test:lib:1.0");
+        getProject();
+
+        // when
+        MavenProject project = getProject();
+
+        // then
+        assertEquals(1, builder.modelBuilds);
+        assertEquals(1, builder.resolvedBuilds);
+        assertEquals(1, project.getArtifacts().size());
+    }
+
+    @Test
+    public void unchanged_effective_pom_is_not_resolved_again() throws Exception {
+        // given
+        writePom("first", "test:lib:1.0");
+        getProject();
+        Files.write(pom.toPath(), ("\n" + new String(Files.readAllBytes(pom.toPath()), StandardCharsets.UTF_8))
+                .getBytes(StandardCharsets.UTF_8));
+
+        // when
+        MavenProject project = getProject();
+
+        // then
+        assertEquals(2, builder.modelBuilds);
+        assertEquals(1, builder.resolvedBuilds);
+        assertEquals(1, project.getArtifacts().size());
+    }
+
+    @Test
+    public void unchanged_dependencies_reuse_resolved_artifacts() throws Exception {
+        // given
+        writePom("first", "test:lib:1.0");
+        getProject();
+        writePom("second", "test:lib:1.0");
+
+        // when
+        MavenProject project = getProject();
+
+        // then
+        assertEquals(1, builder.resolvedBuilds);
+        assertEquals("second", project.getDescription());
+        assertEquals("lib", project.getArtifacts().iterator().next().getArtifactId());
+    }
+
+    @Test
+    public void changed_dependencies_are_resolved() throws Exception {
+        // given
+        writePom("first", "test:lib:1.0");
+        getProject();
+        writePom("first", "test:lib:1.0", "test:other:2.0");
+
+        // when
+        MavenProject project = getProject();
+
+        // then
+        assertEquals(2, builder.resolvedBuilds);
+        assertEquals(2, project.getArtifacts().size());
+    }
+
+    private File install(String artifactId, String version) throws IOException {
+        File jar = new File(temp.getRoot(), "repository/test/" + artifactId + "/" + version + "/" + artifactId + "-"
+                + version + ".jar");
+        jar.getParentFile().mkdirs();
+        Files.write(jar.toPath(), version.getBytes(StandardCharsets.UTF_8));
+        return jar;
+    }
+
+    @Test
+    public void unchanged_snapshot_dependencies_are_not_resolved_again() throws Exception {
+        // given
+        builder.files.put("test:lib", install("lib", "1.0-SNAPSHOT"));
+        writePom("first", "test:lib:1.0-SNAPSHOT");
+        getProject();
+
+        // when
+        getProject();
+
+        // then
+        assertEquals(1, builder.modelBuilds);
+        assertEquals(1, builder.resolvedBuilds);
+    }
+
+    @Test
+    public void reinstalled_snapshot_dependencies_are_resolved_without_a_model_build() throws Exception {
+        // given
+        File jar = install("lib", "1.0-SNAPSHOT");
+        builder.files.put("test:lib", jar);
+        writePom("first", "test:lib:1.0-SNAPSHOT");
+        getProject();
+        Files.write(new File(jar.getParentFile(), "lib-1.0-SNAPSHOT.pom").toPath(), new byte[] { 1 });
+
+        // when
+        getProject();
+
+        // then
+        assertEquals(1, builder.modelBuilds);
+        assertEquals(2, builder.resolvedBuilds);
+    }
+
+    @Test
+    public void snapshot_reactor_sibling_is_not_resolved_again() throws Exception {
+        // given a sibling module resolved to its output directory, which is recompiled
+        File classes = temp.newFolder("lib", "target", "classes");
+        builder.files.put("test:lib", classes);
+        writePom("first", "test:lib:1.0-SNAPSHOT");
+        getProject();
+        new File(classes, "p").mkdirs();
+        Files.write(new File(classes, "p/A.class").toPath(), new byte[] { 1 });
+        writePom("second", "test:lib:1.0-SNAPSHOT");
+
+        // when
+        MavenProject project = getProject();
+
+        // then
+        assertEquals(2, builder.modelBuilds);
+        assertEquals(1, builder.resolvedBuilds);
+        assertEquals("second", project.getDescription());
+        assertEquals(classes, project.getArtifacts().iterator().next().getFile());
+    }
+
+    @Test
+    public void version_range_dependencies_are_resolved_when_a_version_is_installed() throws Exception {
+        // given
+        builder.files.put("test:lib", install("lib", "1.0"));
+        writePom("first", "test:lib:[1.0,2.0)");
+        getProject();
+        getProject();
+        install("lib", "1.1");
+
+        // when
+        getProject();
+
+        // then
+        assertEquals(1, builder.modelBuilds);
+        assertEquals(2, builder.resolvedBuilds);
+    }
+
+    @Test
+    public void returned_projects_are_copies() throws Exception {
+        // given
+        writePom("first", "test:lib:1.0");
+        MavenProject first = getProject();
+        first.setDescription("modified");
+        first.setArtifacts(Collections.<Artifact>emptySet());
+
+        // when
+        MavenProject second = getProject();
+
+        // then
+        assertNotSame(first, second);
+        assertEquals("first", second.getDescription());
+        assertFalse(second.getArtifacts().isEmpty());
+    }
+
+    @Test
+    public void seeded_project_is_reused() throws Exception {
+        // given
+        writePom("first", "test:lib:1.0");
+        MavenProject seed = builder.build(pom, new DefaultProjectBuildingRequest().setResolveDependencies(true))
+                .getProject();
+        builder.resolvedBuilds = 0;
+        cache.seed(seed);
+
+        // when
+        MavenProject project = getProject();
+
+        // then
+        assertNotSame(seed, project);
+        assertEquals(0, builder.resolvedBuilds);
+        assertEquals(0, builder.modelBuilds);
+    }
+
+    /**
+     * Builds projects from the pom.xml alone and "resolves" each declared
+     * dependency to an artifact with the same coordinates.
+     */
+    private static class FakeProjectBuilder implements ProjectBuilder {
+
+        private int modelBuilds;
+        private int resolvedBuilds;
+        // the file of each resolved artifact by groupId:artifactId
+        private final Map<String, File> files = new HashMap<String, File>();
+
+        @Override
+        public ProjectBuildingResult build(final File projectFile, ProjectBuildingRequest request)
+                throws ProjectBuildingException {
+            Model model;
+            try (Reader reader = new FileReader(projectFile)) {
+                model = new MavenXpp3Reader().read(reader);
+            } catch (Exception e) {
+                throw new ProjectBuildingException("test:app:1.0", e.getMessage(), projectFile);
+            }
+            final MavenProject project = new MavenProject(model);
+            project.setFile(projectFile);
+            if (request.isResolveDependencies()) {
+                resolvedBuilds++;
+                Set<Artifact> artifacts = new LinkedHashSet<Artifact>();
+                for (Dependency d : model.getDependencies()) {
+                    File file = files.get(d.getGroupId() + ":" + d.getArtifactId());
+                    // a version range resolves to the version of the directory that the file is in
+                    String version = file != null && d.getVersion().startsWith("[")
+                            ? file.getParentFile().getName()
+                            : d.getVersion();
+                    Artifact artifact = new DefaultArtifact(d.getGroupId(), d.getArtifactId(), version, "compile",
+                            "jar", null, new DefaultArtifactHandler("jar"));
+                    artifact.setFile(file);
+                    artifacts.add(artifact);
+                }
+                project.setArtifacts(artifacts);
+            } else {
+                modelBuilds++;
+            }
+            return new ProjectBuildingResult() {
+                @Override
+                public String getProjectId() {
+                    return project.getId();
+                }
+
+                @Override
+                public File getPomFile() {
+                    return projectFile;
+                }
+
+                @Override
+                public MavenProject getProject() {
+                    return project;
+                }
+
+                @Override
+                public List<ModelProblem> getProblems() {
+                    return Collections.emptyList();
+                }
+
+                @Override
+                public DependencyResolutionResult getDependencyResolutionResult() {
+                    return null;
+                }
+            };
+        }
+
+        @Override
+        public ProjectBuildingResult build(Artifact projectArtifact, ProjectBuildingRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ProjectBuildingResult build(Artifact projectArtifact, boolean allowStubModel,
+                ProjectBuildingRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ProjectBuildingResult build(ModelSource modelSource, ProjectBuildingRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<ProjectBuildingResult> build(List<File> pomFiles, boolean recursive,
+                ProjectBuildingRequest request) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
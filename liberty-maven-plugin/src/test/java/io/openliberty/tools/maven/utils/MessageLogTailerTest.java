@@ -0,0 +1,180 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MessageLogTailerTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File logFile;
+    private MessageLogTailer tailer;
+
+    @Before
+    public void setUp() throws IOException {
+        logFile = new File(temp.newFolder("logs"), "messages.log");
+        tailer = new MessageLogTailer(logFile);
+    }
+
+    private void write(String content) throws IOException {
+        Files.write(logFile.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void append(String content) throws IOException {
+        Files.write(logFile.toPath(), content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+
+    @Test
+    public void missing_log_matches_nothing() throws Exception {
+        // given no log
+
+        // when
+        String line = tailer.waitFor("CWWKF0011I", 0);
+
+        // then
+        assertNull(line);
+    }
+
+    @Test
+    public void matches_lines_appended_after_previous_read() throws Exception {
+        // given
+        write("CWWKE0001I: The server defaultServer has been launched.\n");
+        tailer.waitFor("CWWKE0001I", 0);
+        append("CWWKF0011I: The defaultServer server is ready to run a smarter planet.\n");
+
+        // when
+        String line = tailer.waitFor("CWWKF0011I", 0);
+
+        // then
+        assertEquals("CWWKF0011I: The defaultServer server is ready to run a smarter planet.", line);
+    }
+
+    @Test
+    public void partial_line_is_matched_once_complete() throws Exception {
+        // given
+        write("CWWKZ0001I: Application app started");
+        String partial = tailer.waitFor("CWWKZ0001I", 0);
+        append(" in 1.234 seconds.\r\n");
+
+        // when
+        String line = tailer.waitFor("CWWKZ0001I", 0);
+
+        // then
+        assertNull(partial);
+        assertEquals("CWWKZ0001I: Application app started in 1.234 seconds.", line);
+    }
+
+    @Test
+    public void truncated_log_is_read_from_its_start() throws Exception {
+        // given
+        write("CWWKE0001I: The server defaultServer has been launched.\n");
+        tailer.waitFor("CWWKE0001I", 0);
+        write("CWWKF0011I: ready\n");
+
+        // when
+        String line = tailer.waitFor("CWWKF0011I", 0);
+
+        // then
+        assertEquals("CWWKF0011I: ready", line);
+    }
+
+    @Test
+    public void replaced_log_is_read_from_its_start() throws Exception {
+        // given
+        write("first\n");
+        tailer.waitFor("first", 0);
+        // the new log is larger than the offset that was read, so only its identity shows the rollover
+        File rolled = new File(logFile.getParentFile(), "messages.log.new");
+        Files.write(rolled.toPath(), "second line\n".getBytes(StandardCharsets.UTF_8));
+        Files.move(rolled.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        // when
+        String line = tailer.waitFor("^second", 0);
+
+        // then
+        assertEquals("second line", line);
+    }
+
+    @Test
+    public void lines_read_before_rollover_stay_matchable() throws Exception {
+        // given
+        write("CWWKZ0001I: Application app started\n");
+        tailer.waitFor("CWWKZ0001I", 0);
+        write("x\n");
+
+        // when
+        String line = tailer.waitFor("CWWKZ0001I", 0);
+
+        // then
+        assertEquals("CWWKZ0001I: Application app started", line);
+    }
+
+    @Test
+    public void wait_for_all_returns_only_matched_expressions() throws Exception {
+        // given
+        write("CWWKZ0001I: Application a started\nCWWKZ0001I: Application b started\n");
+
+        // when
+        Map<String, String> matches = tailer.waitForAll(Arrays.asList("Application a ", "Application c "), 0);
+
+        // then
+        assertEquals(1, matches.size());
+        assertEquals("CWWKZ0001I: Application a started", matches.get("Application a "));
+    }
+
+    @Test
+    public void waits_for_line_written_later() throws Exception {
+        // given
+        write("");
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                    append("CWWKF0011I: ready\n");
+                } catch (Exception e) {
+                    // the wait times out
+                }
+            }
+        };
+        writer.start();
+
+        // when
+        String line = tailer.waitFor("CWWKF0011I", 10000);
+        writer.join();
+
+        // then
+        assertEquals("CWWKF0011I: ready", line);
+    }
+
+}
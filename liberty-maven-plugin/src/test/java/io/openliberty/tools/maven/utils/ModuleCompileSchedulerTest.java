@@ -0,0 +1,153 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ModuleCompileSchedulerTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File a;
+    private File b;
+    private File c;
+    private File d;
+    private ModuleCompileScheduler scheduler;
+
+    @Before
+    public void setUp() throws IOException {
+        a = temp.newFile("a.xml");
+        b = temp.newFile("b.xml");
+        c = temp.newFile("c.xml");
+        d = temp.newFile("d.xml");
+        // b and c depend on a, d depends on b and c
+        Map<File, List<File>> dependentModules = new HashMap<File, List<File>>();
+        dependentModules.put(a, Arrays.asList(b, c, d));
+        dependentModules.put(b, Collections.singletonList(d));
+        dependentModules.put(c, Collections.singletonList(d));
+        scheduler = new ModuleCompileScheduler(dependentModules, 2, new SystemStreamLog());
+    }
+
+    private static class RecordingCompiler implements ModuleCompileScheduler.ModuleCompiler {
+        private final List<File> compiled = new CopyOnWriteArrayList<File>();
+        private final File failing;
+
+        private RecordingCompiler(File failing) {
+            this.failing = failing;
+        }
+
+        @Override
+        public boolean compile(File buildFile) {
+            compiled.add(buildFile);
+            return !buildFile.equals(failing);
+        }
+    }
+
+    @Test
+    public void levels_in_topological_order() throws Exception {
+        // when
+        List<List<File>> levels = scheduler.getLevels(Arrays.asList(d, c, b));
+
+        // then
+        assertEquals(2, levels.size());
+        assertEquals(2, levels.get(0).size());
+        assertTrue(levels.get(0).contains(b));
+        assertTrue(levels.get(0).contains(c));
+        assertEquals(Collections.singletonList(d), levels.get(1));
+    }
+
+    @Test
+    public void dependents_compiled_once_and_then_skipped() throws Exception {
+        // given
+        RecordingCompiler compiler = new RecordingCompiler(null);
+        File sources = temp.newFolder("src");
+
+        // when
+        boolean success = scheduler.compileDependents(a, compiler);
+
+        // then
+        assertTrue(success);
+        assertEquals(3, compiler.compiled.size());
+        assertEquals(d, compiler.compiled.get(2));
+        assertTrue(scheduler.isScheduled(b));
+        assertTrue(scheduler.consumePrecompiled(b, sources));
+        assertFalse(scheduler.isScheduled(b));
+        assertFalse(scheduler.consumePrecompiled(b, sources));
+    }
+
+    @Test
+    public void failed_dependent_is_scheduled_but_not_precompiled() throws Exception {
+        // given
+        RecordingCompiler compiler = new RecordingCompiler(c);
+
+        // when
+        boolean success = scheduler.compileDependents(a, compiler);
+
+        // then
+        assertFalse(success);
+        assertTrue(scheduler.isScheduled(c));
+        assertFalse(scheduler.consumePrecompiled(c, temp.newFolder("src")));
+        assertFalse(scheduler.isScheduled(c));
+    }
+
+    @Test
+    public void changed_sources_are_compiled_again() throws Exception {
+        // given
+        scheduler.compileDependents(a, new RecordingCompiler(null));
+        File sources = temp.newFolder("src");
+        File source = new File(sources, "Changed.java");
+        source.createNewFile();
+        source.setLastModified(System.currentTimeMillis() + 10000);
+
+        // when
+        boolean precompiled = scheduler.consumePrecompiled(d, sources);
+
+        // then
+        assertFalse(precompiled);
+    }
+
+    @Test
+    public void compiles_serially_after_shutdown() throws Exception {
+        // given
+        scheduler.shutdown();
+        RecordingCompiler compiler = new RecordingCompiler(null);
+
+        // when
+        boolean success = scheduler.compileDependents(a, compiler);
+
+        // then
+        assertTrue(success);
+        assertEquals(3, compiler.compiled.size());
+    }
+}
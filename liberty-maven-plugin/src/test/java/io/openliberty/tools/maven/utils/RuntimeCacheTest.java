@@ -0,0 +1,131 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RuntimeCacheTest {
+
+    private static final String DIGEST = "0123456789abcdef";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File archive;
+    private File cacheDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        archive = temp.newFile("wlp.zip");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive))) {
+            out.putNextEntry(new ZipEntry("wlp/lib/a.jar"));
+            out.write("jar".getBytes(StandardCharsets.UTF_8));
+            out.putNextEntry(new ZipEntry("wlp/bin/server"));
+            out.write("#!/bin/sh".getBytes(StandardCharsets.UTF_8));
+        }
+        cacheDirectory = temp.newFolder("cache");
+    }
+
+    @Test
+    public void links_jars_and_copies_other_files() throws Exception {
+        // given
+        RuntimeCache cache = new RuntimeCache(cacheDirectory);
+        cache.install(archive, DIGEST, temp.newFolder("first"));
+
+        // when
+        RuntimeCache.Result result = cache.install(archive, DIGEST, temp.newFolder("second"));
+
+        // then
+        assertTrue(result.isCached());
+        assertEquals(1, result.getLinked());
+        assertEquals(1, result.getCopied());
+        assertEquals(1, cacheDirectory.list().length);
+    }
+
+    @Test
+    public void rejects_modified_entry() throws Exception {
+        // given
+        RuntimeCache cache = new RuntimeCache(cacheDirectory);
+        File first = temp.newFolder("first");
+        cache.install(archive, DIGEST, first);
+        File jar = new File(first, "wlp/lib/a.jar");
+        jar.setWritable(true);
+        Files.write(jar.toPath(), "modified".getBytes(StandardCharsets.UTF_8));
+
+        // when
+        try {
+            cache.install(archive, DIGEST, temp.newFolder("second"));
+            fail("The modified entry was used");
+        } catch (IOException e) {
+            // then
+            assertFalse(new File(temp.getRoot(), "second/wlp/lib/a.jar").exists());
+        }
+    }
+
+    @Test
+    public void rejects_entry_modified_in_place_without_size_change() throws Exception {
+        // given
+        RuntimeCache cache = new RuntimeCache(cacheDirectory);
+        cache.install(archive, DIGEST, temp.newFolder("first"));
+        File jar = new File(cacheDirectory, DIGEST + "/wlp/lib/a.jar");
+        Files.setLastModifiedTime(jar.toPath(), FileTime.fromMillis(jar.lastModified() + 2000));
+
+        // when
+        try {
+            cache.install(archive, DIGEST, temp.newFolder("second"));
+            fail("The modified entry was used");
+        } catch (IOException e) {
+            // then expected
+        }
+    }
+
+    @Test
+    public void does_not_touch_incomplete_entry() throws Exception {
+        // given an entry that another build may still be using
+        File partial = new File(cacheDirectory, DIGEST + "/wlp/lib/partial.jar");
+        partial.getParentFile().mkdirs();
+        Files.write(partial.toPath(), new byte[0]);
+        File destination = temp.newFolder("install");
+
+        // when
+        RuntimeCache.Result result = new RuntimeCache(cacheDirectory).install(archive, DIGEST, destination);
+
+        // then
+        assertFalse(result.isCached());
+        assertTrue(partial.exists());
+        assertFalse(new File(cacheDirectory, DIGEST + "/wlp/lib/a.jar").exists());
+        assertTrue(new File(destination, "wlp/lib/a.jar").isFile());
+        assertTrue(new File(destination, "wlp/bin/server").isFile());
+        assertEquals(1, cacheDirectory.list().length);
+    }
+}
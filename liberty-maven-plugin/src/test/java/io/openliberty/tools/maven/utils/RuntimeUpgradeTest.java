@@ -0,0 +1,232 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RuntimeUpgradeTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File assembly;
+    private File install;
+    private File user;
+
+    @Before
+    public void setUp() throws IOException {
+        assembly = temp.newFolder("liberty");
+        install = new File(assembly, "wlp");
+        user = new File(install, "usr");
+    }
+
+    private static Map<String, String> entries(String... namesAndContents) {
+        Map<String, String> entries = new LinkedHashMap<String, String>();
+        for (int i = 0; i < namesAndContents.length; i += 2) {
+            entries.put(namesAndContents[i], namesAndContents[i + 1]);
+        }
+        return entries;
+    }
+
+    private File archive(String name, Map<String, String> entries) throws IOException {
+        File archive = new File(temp.getRoot(), name);
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive))) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                ZipEntry zipEntry = new ZipEntry(entry.getKey());
+                zipEntry.setTime(1600000000000L);
+                out.putNextEntry(zipEntry);
+                out.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return archive;
+    }
+
+    private RuntimeUpgrade install(File archive) throws IOException {
+        new ArchiveExtractor(archive, 1).extract(assembly);
+        RuntimeUpgrade upgrade = new RuntimeUpgrade(assembly, install, user);
+        upgrade.writeManifest(archive);
+        return upgrade;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static Object fileKey(File file) throws IOException {
+        Object key = Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+        Assume.assumeNotNull(key);
+        return key;
+    }
+
+    @Test
+    public void upgrade_links_unchanged_files_and_extracts_changed_files() throws Exception {
+        // given
+        RuntimeUpgrade upgrade = install(archive("v1.zip",
+                entries("wlp/lib/kernel.jar", "kernel", "wlp/lib/versions/openliberty.properties", "v1")));
+        Object kernelKey = fileKey(new File(install, "lib/kernel.jar"));
+        File v2 = archive("v2.zip", entries("wlp/lib/kernel.jar", "kernel", "wlp/lib/versions/openliberty.properties", "v2"));
+
+        // when
+        ArchiveExtractor.Result result = upgrade.upgrade(v2, upgrade.readManifest());
+
+        // then
+        assertEquals(1, result.getSkipped());
+        assertEquals(1, result.getExtracted());
+        assertEquals(kernelKey, fileKey(new File(install, "lib/kernel.jar")));
+        assertEquals("v2", read(new File(install, "lib/versions/openliberty.properties")));
+        assertNull(upgrade.readManifest());
+        assertEquals(1, assembly.list().length);
+    }
+
+    @Test
+    public void upgrade_extracts_file_modified_since_install_with_the_same_size() throws Exception {
+        // given
+        RuntimeUpgrade upgrade = install(archive("v1.zip", entries("wlp/lib/kernel.jar", "kernel")));
+        File kernel = new File(install, "lib/kernel.jar");
+        Files.write(kernel.toPath(), "KERNEL".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(kernel.toPath(), FileTime.fromMillis(1700000000000L));
+        File v2 = archive("v2.zip", entries("wlp/lib/kernel.jar", "kernel"));
+
+        // when
+        ArchiveExtractor.Result result = upgrade.upgrade(v2, upgrade.readManifest());
+
+        // then
+        assertEquals(0, result.getSkipped());
+        assertEquals("kernel", read(kernel));
+    }
+
+    @Test
+    public void upgrade_does_not_reuse_files_of_a_manifest_without_file_stamps() throws Exception {
+        // given
+        File v1 = archive("v1.zip", entries("wlp/lib/kernel.jar", "kernel"));
+        new ArchiveExtractor(v1, 1).extract(assembly);
+        Properties manifest = new Properties();
+        manifest.putAll(new ArchiveExtractor(v1, 1).getEntryStamps());
+        try (OutputStream out = new FileOutputStream(new File(assembly, RuntimeUpgrade.MANIFEST))) {
+            manifest.store(out, null);
+        }
+        RuntimeUpgrade upgrade = new RuntimeUpgrade(assembly, install, user);
+
+        // when
+        ArchiveExtractor.Result result = upgrade.upgrade(archive("v2.zip", entries("wlp/lib/kernel.jar", "kernel")),
+                upgrade.readManifest());
+
+        // then
+        assertEquals(0, result.getSkipped());
+        assertEquals("kernel", read(new File(install, "lib/kernel.jar")));
+    }
+
+    @Test
+    public void upgrade_carries_over_user_directory_inside_install_directory() throws Exception {
+        // given
+        RuntimeUpgrade upgrade = install(archive("v1.zip",
+                entries("wlp/lib/kernel.jar", "v1", "wlp/usr/servers/defaultServer/server.xml", "default")));
+        File serverXml = new File(user, "servers/defaultServer/server.xml");
+        File userServerXml = new File(user, "servers/app/server.xml");
+        userServerXml.getParentFile().mkdirs();
+        Files.write(userServerXml.toPath(), "app".getBytes(StandardCharsets.UTF_8));
+        File v2 = archive("v2.zip",
+                entries("wlp/lib/kernel.jar", "v2", "wlp/usr/servers/defaultServer/server.xml", "new default"));
+
+        // when
+        upgrade.upgrade(v2, upgrade.readManifest());
+
+        // then
+        assertEquals("v2", read(new File(install, "lib/kernel.jar")));
+        assertEquals("app", read(userServerXml));
+        // the archive files overwrite the user files, as a full install does
+        assertEquals("new default", read(serverXml));
+    }
+
+    @Test
+    public void recover_completes_upgrade_interrupted_between_renames() throws Exception {
+        // given
+        RuntimeUpgrade upgrade = install(archive("v1.zip", entries("wlp/lib/kernel.jar", "v1")));
+        File staged = new File(assembly, ".liberty-upgrade/wlp/lib/kernel.jar");
+        staged.getParentFile().mkdirs();
+        Files.write(staged.toPath(), "v2".getBytes(StandardCharsets.UTF_8));
+        upgrade.deleteManifest();
+        Files.move(install.toPath(), new File(assembly, ".liberty-upgrade-old").toPath());
+
+        // when
+        boolean recovered = upgrade.recover();
+
+        // then
+        assertTrue(recovered);
+        assertEquals("v2", read(new File(install, "lib/kernel.jar")));
+        assertEquals(1, assembly.list().length);
+    }
+
+    @Test
+    public void recover_rolls_back_upgrade_interrupted_while_staging() throws Exception {
+        // given
+        RuntimeUpgrade upgrade = install(archive("v1.zip", entries("wlp/lib/kernel.jar", "v1")));
+        File userServerXml = new File(user, "servers/app/server.xml");
+        userServerXml.getParentFile().mkdirs();
+        Files.write(userServerXml.toPath(), "app".getBytes(StandardCharsets.UTF_8));
+        // the user directory was already moved into the staged runtime
+        File stagedUser = new File(assembly, ".liberty-upgrade/wlp/usr");
+        stagedUser.getParentFile().mkdirs();
+        Files.move(user.toPath(), stagedUser.toPath());
+
+        // when
+        boolean recovered = upgrade.recover();
+
+        // then
+        assertTrue(recovered);
+        assertEquals("v1", read(new File(install, "lib/kernel.jar")));
+        assertEquals("app", read(userServerXml));
+        assertFalse(new File(assembly, ".liberty-upgrade").exists());
+    }
+
+    @Test
+    public void recover_finds_nothing_after_completed_upgrade() throws Exception {
+        // given
+        RuntimeUpgrade upgrade = install(archive("v1.zip", entries("wlp/lib/kernel.jar", "v1")));
+        upgrade.upgrade(archive("v2.zip", entries("wlp/lib/kernel.jar", "v2")), upgrade.readManifest());
+
+        // when
+        boolean recovered = upgrade.recover();
+
+        // then
+        assertFalse(recovered);
+        assertEquals("v2", read(new File(install, "lib/kernel.jar")));
+    }
+
+}
@@ -0,0 +1,240 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class StartupTaskGraphTest {
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+    private final Log log = new SystemStreamLog() {
+        @Override
+        public void info(CharSequence content) {
+            events.add("log " + content);
+        }
+    };
+
+    private final StartupTaskGraph graph = new StartupTaskGraph(log);
+
+    private StartupTaskGraph.Task record(final String name) {
+        return new StartupTaskGraph.Task() {
+            @Override
+            public void run() {
+                events.add("start " + name);
+                events.add("end " + name);
+            }
+        };
+    }
+
+    @Test
+    public void tasks_start_after_their_dependencies_complete() throws Exception {
+        // given
+        graph.add("deploy", record("deploy"), "create", "compile");
+        graph.add("create", record("create"), "generate-features");
+        graph.add("generate-features", record("generate-features"), "compile");
+        graph.add("compile", record("compile"));
+
+        // when
+        graph.run();
+
+        // then
+        assertEquals(Arrays.asList("start compile", "end compile", "start generate-features",
+                "end generate-features", "start create", "end create", "start deploy", "end deploy"), events);
+    }
+
+    @Test
+    public void independent_tasks_run_at_the_same_time() throws Exception {
+        // given
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        StartupTaskGraph.Task awaitOther = new StartupTaskGraph.Task() {
+            @Override
+            public void run() throws Exception {
+                bothStarted.countDown();
+                if (!bothStarted.await(10, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("The other task did not start");
+                }
+            }
+        };
+        graph.add("resources", awaitOther);
+        graph.add("create", awaitOther);
+
+        // when
+        graph.run();
+
+        // then
+        assertEquals(0, bothStarted.getCount());
+    }
+
+    @Test
+    public void dependencies_that_were_not_added_are_ignored() throws Exception {
+        // given
+        graph.add("create", record("create"), "generate-features");
+
+        // when
+        graph.run();
+
+        // then
+        assertEquals(Arrays.asList("start create", "end create"), events);
+    }
+
+    @Test
+    public void failure_stops_dependents_and_is_thrown_after_running_tasks_complete() throws Exception {
+        // given
+        final Exception failure = new Exception("compile failed");
+        final CountDownLatch failed = new CountDownLatch(1);
+        graph.add("compile", new StartupTaskGraph.Task() {
+            @Override
+            public void run() throws Exception {
+                failed.countDown();
+                throw failure;
+            }
+        });
+        graph.add("create", new StartupTaskGraph.Task() {
+            @Override
+            public void run() throws Exception {
+                failed.await(10, TimeUnit.SECONDS);
+                // still running when compile fails
+                Thread.sleep(200);
+                events.add("end create");
+            }
+        });
+        graph.add("testCompile", record("testCompile"), "compile");
+        graph.add("install-feature", record("install-feature"), "create");
+
+        // when
+        try {
+            graph.run();
+            fail("The failure was not thrown");
+        } catch (Exception e) {
+            // then
+            assertSame(failure, e);
+        }
+        assertEquals(Arrays.asList("end create"), events);
+    }
+
+    @Test
+    public void first_failure_is_thrown() throws Exception {
+        // given
+        final Exception first = new Exception("first");
+        final CountDownLatch firstFailed = new CountDownLatch(1);
+        graph.add("compile", new StartupTaskGraph.Task() {
+            @Override
+            public void run() throws Exception {
+                firstFailed.countDown();
+                throw first;
+            }
+        });
+        graph.add("create", new StartupTaskGraph.Task() {
+            @Override
+            public void run() throws Exception {
+                firstFailed.await(10, TimeUnit.SECONDS);
+                Thread.sleep(200);
+                throw new Exception("second");
+            }
+        });
+
+        // when
+        try {
+            graph.run();
+            fail("The failure was not thrown");
+        } catch (Exception e) {
+            // then
+            assertSame(first, e);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void circular_dependencies_are_rejected() throws Exception {
+        // given
+        graph.add("create", record("create"), "deploy");
+        graph.add("deploy", record("deploy"), "create");
+
+        // when
+        graph.run();
+    }
+
+    @Test
+    public void messages_of_each_step_are_printed_together_when_the_step_completes() throws Exception {
+        // given
+        final CountDownLatch resourcesLogged = new CountDownLatch(1);
+        final CountDownLatch createLogged = new CountDownLatch(1);
+        graph.add("resources", new StartupTaskGraph.Task() {
+            @Override
+            public void run() throws Exception {
+                StartupTaskGraph.getStepLog().info("resources 1");
+                resourcesLogged.countDown();
+                createLogged.await(10, TimeUnit.SECONDS);
+                StartupTaskGraph.getStepLog().info("resources 2");
+            }
+        });
+        graph.add("create", new StartupTaskGraph.Task() {
+            @Override
+            public void run() throws Exception {
+                resourcesLogged.await(10, TimeUnit.SECONDS);
+                StartupTaskGraph.getStepLog().info("create 1");
+                createLogged.countDown();
+                // complete after resources
+                Thread.sleep(200);
+                StartupTaskGraph.getStepLog().info("create 2");
+            }
+        });
+
+        // when
+        graph.run();
+
+        // then
+        assertEquals(Arrays.asList("log resources 1", "log resources 2", "log create 1", "log create 2"), events);
+        assertNull(StartupTaskGraph.getStepLog());
+    }
+
+    @Test
+    public void messages_of_a_failed_step_are_printed() throws Exception {
+        // given
+        graph.add("create", new StartupTaskGraph.Task() {
+            @Override
+            public void run() throws Exception {
+                StartupTaskGraph.getStepLog().info("Running liberty:create");
+                throw new Exception("create failed");
+            }
+        });
+
+        // when
+        try {
+            graph.run();
+            fail("The failure was not thrown");
+        } catch (Exception e) {
+            // then
+            assertEquals("create failed", e.getMessage());
+        }
+        assertEquals(Arrays.asList("log Running liberty:create"), events);
+    }
+
+}
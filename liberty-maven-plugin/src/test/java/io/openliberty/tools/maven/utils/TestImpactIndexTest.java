@@ -0,0 +1,196 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestImpactIndexTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private JavaCompiler compiler;
+    private File sourceDirectory;
+    private File outputDirectory;
+    private File testOutputDirectory;
+    private TestImpactIndex index;
+    private long time = System.currentTimeMillis() - 600000;
+
+    @Before
+    public void setUp() throws IOException {
+        compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeNotNull(compiler);
+        sourceDirectory = temp.newFolder("src");
+        outputDirectory = temp.newFolder("classes");
+        testOutputDirectory = temp.newFolder("test-classes");
+
+        compile(outputDirectory, "Helper", "public class Helper { public int value() { return 1; } }");
+        compile(outputDirectory, "Service", "public class Service { public int get() { return new Helper().value(); } }");
+        compile(outputDirectory, "Constants", "public class Constants { public static final int LIMIT = 1; }");
+        compile(outputDirectory, "Unused", "public class Unused { }");
+        compile(testOutputDirectory, "ServiceTest", "public class ServiceTest { Object o = new Service(); }");
+        compile(testOutputDirectory, "HelperTest", "public class HelperTest { Object o = new Helper(); }");
+        compile(testOutputDirectory, "LimitTest", "public class LimitTest { int limit = Constants.LIMIT; }");
+        compile(testOutputDirectory, "Fixtures", "public class Fixtures { Object o = new Helper(); }");
+
+        index = new TestImpactIndex(outputDirectory, testOutputDirectory);
+        index.refresh();
+        index.setBaseline("test", index.snapshot());
+    }
+
+    /**
+     * Compile a class in package <code>example</code> into an output directory,
+     * against the main classes
+     */
+    private void compile(File output, String name, String body) throws IOException {
+        File source = new File(sourceDirectory, name + ".java");
+        Files.write(source.toPath(), ("package example;\n" + body).getBytes(StandardCharsets.UTF_8));
+        int rc = compiler.run(null, null, null, "-d", output.getPath(), "-cp", outputDirectory.getPath(),
+                source.getPath());
+        assertEquals(0, rc);
+        // make the change visible to the refresh even within the file time resolution
+        time += 10000;
+        new File(output, "example/" + name + ".class").setLastModified(time);
+    }
+
+    private Set<String> names(String... classNames) {
+        Set<String> names = new TreeSet<String>();
+        for (String className : classNames) {
+            names.add("example/" + className);
+        }
+        return names;
+    }
+
+    @Test
+    public void no_changes_since_baseline() {
+        // when
+        index.refresh();
+
+        // then
+        assertTrue(index.hasBaseline("test"));
+        assertFalse(index.hasBaseline("integration-test"));
+        assertTrue(index.getChangedClasses("test").isEmpty());
+        assertTrue(index.getChangedClasses("integration-test").isEmpty());
+    }
+
+    @Test
+    public void transitive_dependents_are_affected() throws Exception {
+        // given
+        compile(outputDirectory, "Helper", "public class Helper { public int value() { return 2; } }");
+
+        // when
+        index.refresh();
+        Set<String> changed = index.getChangedClasses("test");
+        Set<String> tests = index.getAffectedTests(changed, TestImpactIndex.UNIT_TEST_PATTERN);
+
+        // then
+        assertEquals(names("Helper"), changed);
+        assertEquals(names("HelperTest", "ServiceTest"), tests);
+        assertFalse(index.hasConstantFields(changed));
+        assertFalse(index.areTestClasses(changed));
+    }
+
+    @Test
+    public void changed_test_class_is_affected() throws Exception {
+        // given
+        compile(testOutputDirectory, "HelperTest", "public class HelperTest { Object o = new Helper(); int i; }");
+
+        // when
+        index.refresh();
+        Set<String> changed = index.getChangedClasses("test");
+
+        // then
+        assertEquals(names("HelperTest"), changed);
+        assertTrue(index.areTestClasses(changed));
+        assertEquals(names("HelperTest"), index.getAffectedTests(changed, TestImpactIndex.UNIT_TEST_PATTERN));
+    }
+
+    @Test
+    public void changed_constant_is_reported() throws Exception {
+        // given
+        compile(outputDirectory, "Constants", "public class Constants { public static final int LIMIT = 2; }");
+
+        // when
+        index.refresh();
+        Set<String> changed = index.getChangedClasses("test");
+
+        // then
+        assertEquals(names("Constants"), changed);
+        assertTrue(index.hasConstantFields(changed));
+    }
+
+    @Test
+    public void constant_removed_from_class_is_still_reported() throws Exception {
+        // given
+        compile(outputDirectory, "Constants",
+                "public class Constants { public static final int LIMIT = Integer.parseInt(\"2\"); }");
+
+        // when
+        index.refresh();
+
+        // then
+        assertTrue(index.hasConstantFields(index.getChangedClasses("test")));
+    }
+
+    @Test
+    public void deleted_class_is_changed() throws Exception {
+        // given
+        assertTrue(new File(outputDirectory, "example/Unused.class").delete());
+
+        // when
+        index.refresh();
+
+        // then
+        assertEquals(names("Unused"), index.getChangedClasses("test"));
+    }
+
+    @Test
+    public void baseline_is_kept_per_goal() throws Exception {
+        // given
+        compile(outputDirectory, "Helper", "public class Helper { public int value() { return 3; } }");
+        index.refresh();
+
+        // when
+        index.setBaseline("test", index.snapshot());
+        index.setBaseline("integration-test", Collections.<File, String> emptyMap());
+
+        // then
+        assertTrue(index.getChangedClasses("test").isEmpty());
+        assertEquals(new TreeSet<String>(Arrays.asList("example/Constants", "example/Fixtures", "example/Helper",
+                "example/HelperTest", "example/LimitTest", "example/Service", "example/ServiceTest",
+                "example/Unused")), index.getChangedClasses("integration-test"));
+    }
+}
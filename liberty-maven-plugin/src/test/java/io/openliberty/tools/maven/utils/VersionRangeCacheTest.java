@@ -0,0 +1,215 @@
+/**
+ * (C) Copyright IBM Corporation 2023.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class VersionRangeCacheTest {
+
+    private static final String KEY = "io.openliberty:openliberty-kernel:zip:[22.0.0.3,) central=https://repo.maven.apache.org/maven2";
+
+    private static final long TTL = TimeUnit.DAYS.toMillis(1);
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File cacheFile;
+
+    @Before
+    public void setUp() {
+        cacheFile = new File(temp.getRoot(), "liberty-version-ranges.properties");
+    }
+
+    private static class CountingResolver implements VersionRangeCache.Resolver<IOException> {
+        private final String version;
+        private int resolved;
+
+        private CountingResolver(String version) {
+            this.version = version;
+        }
+
+        @Override
+        public String resolve() throws IOException {
+            resolved++;
+            if (version == null) {
+                throw new IOException("Could not resolve the range");
+            }
+            return version;
+        }
+    }
+
+    private VersionRangeCache newBuild(long ttl) {
+        return new VersionRangeCache(new DefaultRepositorySystemSession(), cacheFile, ttl);
+    }
+
+    private void storeEntry(long age, String version) throws IOException {
+        Properties cache = new Properties();
+        cache.setProperty(KEY, (System.currentTimeMillis() - age) + " " + version);
+        AtomicFiles.store(cacheFile.toPath(), cache, null);
+    }
+
+    private Properties loadCacheFile() throws IOException {
+        Properties cache = new Properties();
+        try (InputStream in = Files.newInputStream(cacheFile.toPath())) {
+            cache.load(in);
+        }
+        return cache;
+    }
+
+    @Test
+    public void result_is_shared_within_a_build() throws Exception {
+        // given
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        new VersionRangeCache(session, cacheFile, 0).get(KEY, false, false, new CountingResolver("23.0.0.1"));
+        CountingResolver resolver = new CountingResolver("23.0.0.2");
+
+        // when
+        String version = new VersionRangeCache(session, cacheFile, 0).get(KEY, false, false, resolver);
+
+        // then
+        assertEquals("23.0.0.1", version);
+        assertEquals(0, resolver.resolved);
+    }
+
+    @Test
+    public void result_is_not_kept_for_later_builds_without_ttl() throws Exception {
+        // given
+        newBuild(0).get(KEY, false, false, new CountingResolver("23.0.0.1"));
+        CountingResolver resolver = new CountingResolver("23.0.0.2");
+
+        // when
+        String version = newBuild(0).get(KEY, false, false, resolver);
+
+        // then
+        assertEquals("23.0.0.2", version);
+        assertEquals(1, resolver.resolved);
+        assertFalse(cacheFile.exists());
+    }
+
+    @Test
+    public void result_is_reused_by_later_builds_within_ttl() throws Exception {
+        // given
+        newBuild(TTL).get(KEY, false, false, new CountingResolver("23.0.0.1"));
+        CountingResolver resolver = new CountingResolver("23.0.0.2");
+
+        // when
+        String version = newBuild(TTL).get(KEY, false, false, resolver);
+
+        // then
+        assertEquals("23.0.0.1", version);
+        assertEquals(0, resolver.resolved);
+    }
+
+    @Test
+    public void expired_result_is_resolved_again() throws Exception {
+        // given
+        storeEntry(TTL + 1000, "23.0.0.1");
+        CountingResolver resolver = new CountingResolver("23.0.0.2");
+
+        // when
+        String version = newBuild(TTL).get(KEY, false, false, resolver);
+
+        // then
+        assertEquals("23.0.0.2", version);
+        assertEquals(1, resolver.resolved);
+        assertEquals("23.0.0.2", loadCacheFile().getProperty(KEY).split(" ")[1]);
+    }
+
+    @Test
+    public void other_repositories_do_not_share_a_result() throws Exception {
+        // given
+        storeEntry(0, "23.0.0.1");
+        CountingResolver resolver = new CountingResolver("23.0.0.2");
+
+        // when
+        String version = newBuild(TTL).get(KEY.replace("central", "mirror"), false, false, resolver);
+
+        // then
+        assertEquals("23.0.0.2", version);
+        assertEquals(1, resolver.resolved);
+    }
+
+    @Test
+    public void update_resolves_again_within_ttl() throws Exception {
+        // given
+        storeEntry(0, "23.0.0.1");
+        CountingResolver resolver = new CountingResolver("23.0.0.2");
+
+        // when
+        String version = newBuild(TTL).get(KEY, false, true, resolver);
+
+        // then
+        assertEquals("23.0.0.2", version);
+        assertEquals(1, resolver.resolved);
+    }
+
+    @Test
+    public void offline_build_falls_back_to_expired_result() throws Exception {
+        // given
+        storeEntry(TTL + 1000, "23.0.0.1");
+        CountingResolver resolver = new CountingResolver(null);
+
+        // when
+        String version = newBuild(TTL).get(KEY, true, false, resolver);
+
+        // then
+        assertEquals("23.0.0.1", version);
+        assertEquals(1, resolver.resolved);
+    }
+
+    @Test
+    public void online_build_does_not_fall_back_to_expired_result() throws Exception {
+        // given
+        storeEntry(TTL + 1000, "23.0.0.1");
+
+        // when
+        try {
+            newBuild(TTL).get(KEY, false, false, new CountingResolver(null));
+            fail("The resolution failure was not thrown");
+        } catch (IOException e) {
+            // then
+            assertEquals("Could not resolve the range", e.getMessage());
+        }
+    }
+
+    @Test
+    public void offline_result_is_not_kept() throws Exception {
+        // given
+        CountingResolver resolver = new CountingResolver("23.0.0.1");
+
+        // when
+        newBuild(TTL).get(KEY, true, false, resolver);
+
+        // then
+        assertFalse(cacheFile.exists());
+    }
+
+}